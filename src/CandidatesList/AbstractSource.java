@@ -0,0 +1,54 @@
+package CandidatesList;
+
+/**********************************************************************************
+ * Class AbstractSource holds the description of a CandidateSource: its name, its
+ * place in the Refresh sequence, its files and their time to live. Sources that
+ * download nothing do not override parse().
+ *
+ * @author Tony Evans
+ */
+public abstract class AbstractSource implements CandidateSource {
+
+    private final String name;          // Name of the source
+    private final int order;            // Position in the Refresh sequence
+    private final long ttl;             // Time to live of cached copies (seconds)
+    private final String[] urls;        // Files to be fetched
+
+    /**
+     * Constructor describes the source.
+     * @param name Name of the source.
+     * @param order Position in the Refresh sequence.
+     * @param ttl Time to live of cached copies (seconds).
+     * @param urls Files to be fetched.
+     */
+    protected AbstractSource(String name, int order, long ttl, String... urls) {
+        this.name = name;
+        this.order = order;
+        this.ttl = ttl;
+        this.urls = urls;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public String[] getURLs() {
+        return urls.clone();
+    }
+
+    @Override
+    public long getTTL() {
+        return ttl;
+    }
+
+    @Override
+    public void parse(int file, String line) {
+    }
+}
@@ -0,0 +1,237 @@
+package CandidatesList;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**********************************************************************************
+ * Class BatchEphemeris calculates the positions of many objects at once from their
+ * orbital elements. It uses the same simplified algorithm as Candidate.doPosition()
+ * but the elements and results are held as arrays (one array per element) instead of
+ * one object per candidate, and nothing is allocated per object. The objects are
+ * divided into blocks that are processed in the shared fork-join pool.
+ *
+ * Positions may be calculated for one moment, in which case the position of the Earth
+ * and the sidereal time are calculated once for the whole batch, or for a different
+ * moment per object. Only elliptical orbits (e below Util.parabolic) are handled: the
+ * results for other objects are NaN.
+ *
+ * @author Tony Evans
+ */
+public class BatchEphemeris {
+
+    private static final int block = 4096;      // Objects per fork-join task
+    private static final int maxIter = 50;      // Limit on Newton-Raphson iterations for E
+
+    public final int size;                      // Number of objects
+
+    // orbital elements: AU, radians, radians per day and Julian date of epoch
+    public final double[] a, e, i, N, w, M, n, epoch;
+
+    // results: topocentric RA & Dec (radians), distances from Earth and Sun (AU), phase angle (radians)
+    public final double[] ra, dec, delta, r, phase;
+
+    /**
+     * Constructor allocates empty element arrays for a number of objects.
+     * @param size Number of objects.
+     */
+    public BatchEphemeris(int size) {
+        this(new double[size], new double[size], new double[size], new double[size],
+                new double[size], new double[size], new double[size], new double[size]);
+    }
+
+    /**
+     * Constructor uses existing element arrays, which must all be the same length.
+     * @param a Semimajor axis.
+     * @param e Eccentricity.
+     * @param i Inclination.
+     * @param N Longitude of ascending node.
+     * @param w Argument of perihelion.
+     * @param M Mean anomaly at epoch.
+     * @param n Mean daily motion.
+     * @param epoch Julian date of epoch.
+     */
+    public BatchEphemeris(double[] a, double[] e, double[] i, double[] N, double[] w, double[] M,
+            double[] n, double[] epoch) {
+        size = a.length;
+        this.a = a;
+        this.e = e;
+        this.i = i;
+        this.N = N;
+        this.w = w;
+        this.M = M;
+        this.n = n;
+        this.epoch = epoch;
+        ra = new double[size];
+        dec = new double[size];
+        delta = new double[size];
+        r = new double[size];
+        phase = new double[size];
+    }
+
+    /**
+     * Calculate the positions of all the objects at a date-time as seen from an observatory.
+     * @param dt Date-time of the positions.
+     * @param ob The observatory.
+     */
+    public void compute(DateTime dt, Observatories ob) {
+        Earth earth = new Earth();
+        earth.setPosition(dt);
+        run(new Task(dt.julian, null, ob, ob.getLMST(dt), earth.x, earth.y, earth.z, 0, size));
+    }
+
+    /**
+     * Calculate the position of each object at its own date-time as seen from an observatory.
+     * @param jd Julian date for each object.
+     * @param ob The observatory.
+     */
+    public void compute(double[] jd, Observatories ob) {
+        run(new Task(0, jd, ob, 0, 0, 0, 0, 0, size));
+    }
+
+    /**
+     * Run a task in the shared pool, or in the current thread if that is already one of the pool's
+     * (as when batches are calculated from parallel tasks).
+     */
+    private void run(Task task) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            task.invoke();
+        } else {
+            Util.pool.invoke(task);
+        }
+    }
+
+    /**
+     * Calculate the positions of the objects from index from up to index to, all at the same moment.
+     */
+    private void compute(double jd, Observatories ob, double lmst, double ex, double ey, double ez,
+            int from, int to) {
+        double[] eq = new double[2];
+        for (int k = from; k < to; k++) {position(k, jd, ob, lmst, ex, ey, ez, eq);}
+    }
+
+    /**
+     * Calculate the positions of the objects from index from up to index to, each at its own moment.
+     */
+    private void compute(double[] jd, Observatories ob, int from, int to) {
+        double[] eq = new double[2];
+        Earth earth = new Earth();
+        DateTime dt = new DateTime();
+        for (int k = from; k < to; k++) {
+            if (!(e[k] < Util.parabolic)) {
+                ra[k] = dec[k] = delta[k] = r[k] = phase[k] = Double.NaN;
+                continue;
+            }
+            dt.setDate(jd[k]);
+            earth.setPosition(dt);
+            position(k, jd[k], ob, ob.getLMST(jd[k]), earth.x, earth.y, earth.z, eq);
+        }
+    }
+
+    /**
+     * Calculate the position of object k (as Candidate.doPosition) given the Earth's position and the 
+     * sidereal time. eq is a work array.
+     */
+    private void position(int k, double jd, Observatories ob, double lmst, double ex, double ey, double ez,
+            double[] eq) {
+        double ek = e[k];
+        if (!(ek < Util.parabolic)) {
+            ra[k] = dec[k] = delta[k] = r[k] = phase[k] = Double.NaN;
+            return;
+        }
+
+        // mean anomaly at jd and eccentric anomaly by Newton-Raphson (as Candidate.calcE)
+        double d = jd - epoch[k];
+        double Mk = M[k] + d*n[k];
+        double E = Mk;
+        for (int j = 0; j < maxIter; j++) {
+            double f = E - ek*Math.sin(E) - Mk;
+            if (Math.abs(f) <= 1e-8) {break;}
+            E = E - f/(1.0 - ek*Math.cos(E));
+        }
+
+        // position in the plane of the orbit
+        double x = a[k]*(Math.cos(E) - ek);
+        double y = a[k]*Math.sin(E)*Math.sqrt(1 - ek*ek);
+        double rk = Math.sqrt(x*x + y*y);
+        double v = Math.atan2(y, x);
+
+        // heliocentric ecliptic coordinates
+        double Nk = N[k];
+        double vw = v + w[k];
+        double xeclip = rk*(Math.cos(Nk)*Math.cos(vw) - Math.sin(Nk)*Math.sin(vw)*Math.cos(i[k]));
+        double yeclip = rk*(Math.sin(Nk)*Math.cos(vw) + Math.cos(Nk)*Math.sin(vw)*Math.cos(i[k]));
+        double zeclip = rk*Math.sin(vw)*Math.sin(i[k]);
+
+        // geocentric ecliptic coordinates and distance from Earth
+        double xgeo = xeclip - ex;
+        double ygeo = yeclip - ey;
+        double zgeo = zeclip - ez;
+        double longeo = Math.atan2(ygeo, xgeo);
+        double latgeo = Math.atan2(zgeo, Math.sqrt(xgeo*xgeo + ygeo*ygeo));
+        double rgeo = Math.sqrt(xgeo*xgeo + ygeo*ygeo + zgeo*zgeo);
+
+        // topocentric equatorial coordinates
+        SphCoordinate.toEquatorial(longeo, latgeo, eq);
+        ob.toTopocentric(eq[0], eq[1], lmst, rgeo, eq);
+        ra[k] = eq[0];
+        dec[k] = eq[1];
+        delta[k] = rgeo;
+        r[k] = rk;
+
+        // phase angle (Sun-object-Earth) from the triangle of distances
+        double cp = (rk*rk + rgeo*rgeo - (ex*ex + ey*ey + ez*ez))/(2*rk*rgeo);
+        phase[k] = Math.acos(Math.max(-1, Math.min(1, cp)));
+    }
+
+    /**
+     * Visual magnitude of an object from its absolute magnitude and the last positions computed,
+     * using the H,G system (Bowell 1989) with G = 0.15.
+     * @param k Object index.
+     * @param H Absolute magnitude.
+     * @return V magnitude.
+     */
+    public double getV(int k, double H) {
+        double G = 0.15;
+        double pv = phase[k];
+        return H + 5*Math.log10(r[k]*delta[k])
+                - 2.5*Math.log10((1 - G)*Candidate.phi1(pv) + G*Candidate.phi2(pv));
+    }
+
+    /**
+     * Task is a block of objects, split in half until it is small enough to compute directly.
+     */
+    private class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double jd, lmst, ex, ey, ez;
+        private final double[] jds;
+        private final Observatories ob;
+        private final int from, to;
+
+        Task(double jd, double[] jds, Observatories ob, double lmst, double ex, double ey, double ez, int from, int to) {
+            this.jd = jd;
+            this.jds = jds;
+            this.ob = ob;
+            this.lmst = lmst;
+            this.ex = ex;
+            this.ey = ey;
+            this.ez = ez;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= block) {
+                if (jds == null) {
+                    BatchEphemeris.this.compute(jd, ob, lmst, ex, ey, ez, from, to);
+                } else {
+                    BatchEphemeris.this.compute(jds, ob, from, to);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Task(jd, jds, ob, lmst, ex, ey, ez, from, mid),
+                        new Task(jd, jds, ob, lmst, ex, ey, ez, mid, to));
+            }
+        }
+    }
+}
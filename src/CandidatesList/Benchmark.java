@@ -0,0 +1,339 @@
+package CandidatesList;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.ServiceLoader;
+
+/**********************************************************************************
+ * Class Benchmark times some of the calculations in the candidates list so changes
+ * to them can be measured. It is run from the command line, not from the GUI:
+ * <pre>
+ *     java -cp CandidatesList.jar CandidatesList.Benchmark vsop87 sources listfile candidate skyindex
+ * </pre>
+ *
+ * @author Tony Evans
+ */
+public class Benchmark {
+
+    /**
+     * Run the benchmarks named on the command line.
+     * @param args Benchmark names: vsop87, sources, listfile, candidate, skyindex.
+     */
+    public static void main(String[] args) {
+        for (String a : args) {
+            switch (a) {
+                case "vsop87": vsop87();
+                               break;
+                case "sources": sources();
+                               break;
+                case "listfile": listFile();
+                               break;
+                case "candidate": candidate();
+                               break;
+                case "skyindex": skyIndex();
+                               break;
+                default:       System.out.println("Unknown benchmark " + a);
+            }
+        }
+    }
+
+    /**
+     * Time Earth's VSOP87 position from the old generated methods and from the table at several
+     * precisions, and measure the actual error of each against the full series over the years
+     * 1900 to 2100.
+     */
+    private static void vsop87() {
+        Vsop87Earth full = new Vsop87Earth(0);
+        int n = 20000;
+        double[] t = new double[n];
+        for (int k = 0; k < n; k++) {t[k] = (-36525 + 73050.0*k/n)/365250.0;}
+
+        System.out.println("VSOP87 Earth, " + n + " positions 1900-2100");
+        System.out.println("precision(\")  terms  ns/position  max error(\")");
+
+        // the generated methods the table replaced, on the same dates
+        double gSum = 0;
+        for (int k = 0; k < n; k++) {
+            gSum += Vsop87EarthGenerated.getX(t[k]) + Vsop87EarthGenerated.getY(t[k]) + Vsop87EarthGenerated.getZ(t[k]);}
+        long gStart = System.nanoTime();
+        for (int k = 0; k < n; k++) {
+            gSum += Vsop87EarthGenerated.getX(t[k]) + Vsop87EarthGenerated.getY(t[k]) + Vsop87EarthGenerated.getZ(t[k]);}
+        long gNs = (System.nanoTime() - gStart)/n;
+        double gErr = 0;
+        for (int k = 0; k < n; k += 10) {
+            double x = full.getX(t[k]), y = full.getY(t[k]), z = full.getZ(t[k]);
+            double dx = Vsop87EarthGenerated.getX(t[k]) - x, dy = Vsop87EarthGenerated.getY(t[k]) - y,
+                    dz = Vsop87EarthGenerated.getZ(t[k]) - z;
+            gErr = Math.max(gErr, Math.sqrt(dx*dx + dy*dy + dz*dz)/Math.sqrt(x*x + y*y + z*z));
+        }
+        System.out.println(String.format("   generated  %5d  %11d  %12.3f", full.terms(), gNs, gErr*206264.806)
+                + (gSum == 0 ? " " : ""));
+
+        for (double p : new double[] {0, 0.1, 1, 10, 60}) {
+            Vsop87Earth v = new Vsop87Earth(p);
+            double sum = 0;
+            // warm up then time
+            for (int k = 0; k < n; k++) {sum += v.getX(t[k]) + v.getY(t[k]) + v.getZ(t[k]);}
+            long t0 = System.nanoTime();
+            for (int k = 0; k < n; k++) {sum += v.getX(t[k]) + v.getY(t[k]) + v.getZ(t[k]);}
+            long ns = (System.nanoTime() - t0)/n;
+
+            // largest error in the direction of the Sun from Earth
+            double err = 0;
+            for (int k = 0; k < n; k += 10) {
+                double x = full.getX(t[k]), y = full.getY(t[k]), z = full.getZ(t[k]);
+                double dx = v.getX(t[k]) - x, dy = v.getY(t[k]) - y, dz = v.getZ(t[k]) - z;
+                err = Math.max(err, Math.sqrt(dx*dx + dy*dy + dz*dz)/Math.sqrt(x*x + y*y + z*z));
+            }
+            System.out.println(String.format("%12.1f  %5d  %11d  %12.3f", p, v.terms(), ns, err*206264.806)
+                    + (sum == 0 ? " " : ""));
+        }
+    }
+
+    /**
+     * Time the parse phase of each candidate source over its files as last downloaded into the
+     * cache, so sources can be compared without the network.
+     */
+    private static void sources() {
+        System.out.println("Candidate sources, parsing cached files");
+        System.out.println("source           bytes    lines  ms");
+        for (CandidateSource src : ServiceLoader.load(CandidateSource.class)) {
+            long bytes = 0, ns = 0;
+            int lines = 0;
+            String[] urls = src.getURLs();
+            for (int k = 0; k < urls.length; k++) {
+                HttpCache.Entry entry = Scanner.cache.get(urls[k]);
+                if (!entry.exists()) {continue;}
+                bytes += entry.length();
+                try (BufferedReader br = new BufferedReader(new InputStreamReader(entry.open()))) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        if (line.isEmpty()) {continue;}
+                        long t0 = System.nanoTime();
+                        src.parse(k, line);
+                        ns += System.nanoTime() - t0;
+                        lines++;
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    System.out.println(src.getName() + ": " + ex);
+                }
+            }
+            System.out.println(String.format("%-14s %7d  %7d  %5.1f", src.getName(), bytes, lines, ns/1e6));
+        }
+    }
+
+    /**
+     * Time saving and loading a list of synthetic candidates as serialised objects (the old
+     * list file), in memory so the disk is not measured, then in the mapped store: created
+     * whole, saved with one candidate changed, and mapped and read.
+     */
+    private static void listFile() {
+        int n = 5000, reps = 10;
+        Random r = new Random(1);
+        ArrayList<Candidate> list = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            Candidate c = new Candidate();
+            c.name = "20" + (10 + r.nextInt(15)) + " " + (char) ('A' + r.nextInt(26)) + (char) ('A' + r.nextInt(25))
+                    + r.nextInt(300);
+            c.provId = c.name;
+            c.MPCORBid = "K" + c.name.substring(2, 4) + c.name.substring(5);
+            c.packDes = c.MPCORBid;
+            c.orbitName = r.nextBoolean() ? "Apollo" : "Amor";
+            c.set(Candidate.fNEO, true);
+            c.set(Candidate.fPHA, r.nextInt(10) == 0);
+            c.lastObs.setDate(2459000 + r.nextDouble()*2000);
+            c.position.coord[0] = r.nextDouble()*2*Math.PI;
+            c.position.coord[1] = r.nextDouble()*Math.PI - Math.PI/2;
+            c.Hmag = 15 + r.nextDouble()*15;
+            c.Vmag = c.Hmag + r.nextDouble()*5;
+            c.motion = r.nextFloat()*10;
+            c.elements.a = 0.8 + r.nextDouble()*2;
+            c.elements.e = r.nextDouble()*0.8;
+            c.elements.i = r.nextDouble()*0.5;
+            list.add(c);
+        }
+
+        System.out.println("Candidates list file, " + n + " candidates");
+        System.out.println("format       bytes  save ms  load ms");
+        try {
+            byte[] bytes = null;
+            long save = 0, load = 0;
+            for (int k = 0; k < 2*reps; k++) {
+                long t0 = System.nanoTime();
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {oos.writeObject(list);}
+                bytes = bos.toByteArray();
+                long t1 = System.nanoTime();
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {ois.readObject();}
+                if (k >= reps) {save += t1 - t0; load += System.nanoTime() - t1;}
+            }
+            System.out.println(String.format("%-10s %7d  %7.1f  %7.1f", "serialised", bytes.length,
+                    save/1e6/reps, load/1e6/reps));
+
+            File f = File.createTempFile("candidates", ".lst");
+            long update = 0;
+            save = load = 0;
+            for (int k = 0; k < 2*reps; k++) {
+                long t0 = System.nanoTime();
+                CandidateStore.create(f, list).close();
+                long t1 = System.nanoTime();
+                try (CandidateStore store = CandidateStore.open(f)) {
+                    store.read();
+                    long t2 = System.nanoTime();
+                    list.get(k).set(Candidate.fSelect, !list.get(k).is(Candidate.fSelect));
+                    store.save(list);
+                    if (k >= reps) {save += t1 - t0; load += t2 - t1; update += System.nanoTime() - t2;}
+                }
+            }
+            System.out.println(String.format("%-10s %7d  %7.1f  %7.1f", "store", f.length(),
+                    save/1e6/reps, load/1e6/reps));
+            System.out.println(String.format("%-10s %7s  %7.1f", "1 changed", "", update/1e6/reps));
+            f.delete();
+        } catch (IOException | ClassNotFoundException ex) {
+            System.out.println("listfile: " + ex);
+        }
+    }
+
+    /**
+     * Measure the heap taken by each candidate with its orbit, and the time to work out the
+     * positions and times of a list of them for tonight, as for a sweep of the whole catalogue,
+     * in one thread and in parallel. The Earth's ephemeris is fitted for the night as the GUI does.
+     */
+    private static void candidate() {
+        int n = 50000, reps = 5;
+        Random r = new Random(2);
+        long before = used();
+        ArrayList<Candidate> list = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            Candidate c = new Candidate();
+            Candidate.Elements el = c.elements;
+            el.Epoch.setDate(2460000.5);
+            el.a = 0.8 + r.nextDouble()*2;
+            el.e = r.nextDouble()*0.7;
+            el.i = r.nextDouble()*0.6;
+            el.N = r.nextDouble()*2*Math.PI;
+            el.w = r.nextDouble()*2*Math.PI;
+            el.M = r.nextDouble()*2*Math.PI;
+            el.q = el.a*(1 - el.e);
+            el.n = 0.01720209895/Math.pow(el.a, 1.5);
+            c.Hmag = 15 + r.nextDouble()*10;
+            c.set(Candidate.fNEO, true);
+            c.set(Candidate.fPHA, r.nextInt(10) == 0);
+            list.add(c);
+        }
+        long bytes = used() - before;
+
+        Observatories ob = new Observatories();
+        ob.setObservatory(0);
+        Sun sun = new Sun();
+        ob.setTime(sun, false, -18);
+        Earth.setWindow(ob.tSet.julian - 1.0, ob.tRise.julian + 1.0);
+        Moon moon = new Moon();
+        Earth earth = new Earth();
+        Candidate.setTimes(list, 20, ob, sun, moon, earth);
+        long t0 = System.nanoTime();
+        for (int k = 0; k < reps; k++) {
+            Candidate.clearTimes(list);
+            Candidate.setTimes(list, 20, ob, sun, moon, earth);
+        }
+        long ns = (System.nanoTime() - t0)/reps;
+        Candidate.clearTimes(list);
+        Candidate.setTimesParallel(list, 20, ob);
+        t0 = System.nanoTime();
+        for (int k = 0; k < reps; k++) {
+            Candidate.clearTimes(list);
+            Candidate.setTimesParallel(list, 20, ob);
+        }
+        long nsp = (System.nanoTime() - t0)/reps;
+        t0 = System.nanoTime();
+        for (int k = 0; k < reps; k++) {
+            // each load of the table sets a new observatory to the current time
+            Observatories again = new Observatories();
+            again.setObservatory(0);
+            again.setTime(new Sun(), false, -18);
+            Candidate.setTimesParallel(list, 20, again);
+        }
+        long nsc = (System.nanoTime() - t0)/reps;
+
+        System.out.println("Candidates, " + n + " with orbits");
+        System.out.println(String.format("bytes/candidate %d, positions and times %.1f ms (%d ns/candidate)",
+                bytes/n, ns/1e6, ns/n) + (list.get(0).bestAlt == 1e9 ? " " : ""));
+        System.out.println(String.format("in parallel, %d threads %.1f ms (%.1f times faster)",
+                Util.pool.getParallelism(), nsp/1e6, (double) ns/nsp));
+        System.out.println(String.format("again for the same night (filter change only) %.2f ms", nsc/1e6));
+    }
+
+    /**
+     * Time the Moon separation, galactic latitude and altitude tests over synthetic positions spread
+     * evenly over the sky, made position by position and as SkyIndex region queries, and check that
+     * both find the same positions.
+     */
+    private static void skyIndex() {
+        int n = 500000, reps = 10;
+        Random r = new Random(1);
+        double[] ra = new double[n], dec = new double[n];
+        for (int k = 0; k < n; k++) {
+            ra[k] = r.nextDouble()*2*Math.PI;
+            dec[k] = Math.asin(2*r.nextDouble() - 1);
+        }
+        Observatories ob = new Observatories();
+        ob.setObservatory(0);
+        ob.setTime(new Sun(), false, -18);
+        SphCoordinate moon = new Moon().getPosition(ob.tMidnight, ob);
+        int minAlt = 20, minGal = 15;
+
+        // position by position, as SkySweep did
+        BitSet each = new BitSet(n);
+        SphCoordinate p = new SphCoordinate();
+        long t0 = System.nanoTime();
+        for (int j = 0; j < reps; j++) {
+            each.clear();
+            for (int k = 0; k < n; k++) {
+                p.setCoords(ra[k], dec[k]);
+                double alt = Math.toDegrees((Math.PI/2 - ob.position.coord[1]) + dec[k]);
+                if (alt > 90) {alt = 180 - alt;}
+                if (alt < minAlt) {continue;}
+                if ((int) Math.abs(p.galLat()) < minGal) {continue;}
+                if (Math.toDegrees(Math.abs(moon.getAngle(p))) < SkySweep.minMoon) {continue;}
+                each.set(k);
+            }
+        }
+        long ns = (System.nanoTime() - t0)/reps;
+
+        // building the index, then the queries
+        t0 = System.nanoTime();
+        SkyIndex sky = null;
+        for (int j = 0; j < reps; j++) {sky = new SkyIndex(ra, dec, n);}
+        long nsb = (System.nanoTime() - t0)/reps;
+        BitSet in = null;
+        t0 = System.nanoTime();
+        for (int j = 0; j < reps; j++) {
+            in = sky.reachable(ob, minAlt);
+            in.and(sky.galactic(minGal));
+            in.and(sky.farFrom(moon, SkySweep.minMoon));
+        }
+        long nsq = (System.nanoTime() - t0)/reps;
+
+        System.out.println("Sky index, " + n + " positions, " + each.cardinality() + " pass");
+        System.out.println(String.format("each position %.1f ms, index build %.1f ms, queries %.1f ms, same %s",
+                ns/1e6, nsb/1e6, nsq/1e6, in.equals(each)));
+    }
+
+    /**
+     * @return Heap in use after garbage collection.
+     */
+    private static long used() {
+        Runtime rt = Runtime.getRuntime();
+        for (int k = 0; k < 3; k++) {System.gc();}
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -29,6 +29,7 @@ public class CandiParameters {
         ini.putProperty("minalt", ""+gui.altFilter.getValue());
         ini.putProperty("minga", ""+gui.galFilter.getValue());
         ini.putProperty("uncert", ""+gui.uncert.getValue());
+        ini.putProperty("vsop87", ""+Earth.getPrecision());
     }
     
     /**
@@ -38,6 +39,8 @@ public class CandiParameters {
         IniFile ini = new IniFile();
         if (ini.exists()) {
             try {
+            String vsop = ini.getProperty("vsop87");
+            if (vsop != null) {Earth.setPrecision(Double.parseDouble(vsop));}
             gui.twilight.setSelectedIndex(Integer.parseInt(ini.getProperty("twilight")));
             gui.observe.setSelectedIndex(Integer.parseInt(ini.getProperty("observatory")));
             gui.magLimit.setValue(Float.parseFloat(ini.getProperty("dlmag")));
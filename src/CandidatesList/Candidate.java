@@ -1,6 +1,14 @@
 package CandidatesList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**************************************************************************************
  * Class Candidate represents an individual asteroid, a potential candidate
@@ -10,6 +18,9 @@ import java.text.DecimalFormat;
  * @author Tony Evans
  **/
 public class Candidate implements Serializable,Comparable {
+    /* fixed at the value of the class that wrote the original .lst files, so they can still be read */
+    private static final long serialVersionUID = 1512532966306894045L;
+
    //Identities of various kinds. 
     public String name="";                      // Name - Proper name if it has one else provId or NEOCP id
     public String number="";                    // Number - Number if it has one
@@ -27,13 +38,15 @@ public class Candidate implements Serializable,Comparable {
     public double closeDist = 0.0;              // ESA Close approach distance
     public double closeMag = 0.0;               // Magnitude at close approach
     public double diameter = 0.0;               // Estimated diameter
-    public Boolean NEOCP = false;               // is it a NEOCP/PCCP?
-    public Boolean comet = false;               // is it a comet (or potential comet)?
-    public Boolean VI=false;                    // Is it a virtual impactor?
-    public Boolean NEO=false;                   // Is it a Near Earth Object?
-    public Boolean PMD=false;                   // Is it a potential mission destination
-    public Boolean PHA=false;                   // Is it a Potentially Hazardous Object?
-    public Boolean kmplus=false;                // Is it 1km+ in size?
+    public int flags = 0;                       // Yes/no properties, a bit each (see is() and set())
+    public static final int fNEOCP = 1;         // is it a NEOCP/PCCP?
+    public static final int fComet = 2;         // is it a comet (or potential comet)?
+    public static final int fVI = 4;            // Is it a virtual impactor?
+    public static final int fNEO = 8;           // Is it a Near Earth Object?
+    public static final int fPMD = 16;          // Is it a potential mission destination
+    public static final int fPHA = 32;          // Is it a Potentially Hazardous Object?
+    public static final int fKmplus = 64;       // Is it 1km+ in size?
+    public static final int fSelect = 128;      // Is this selected in the table(SEL)
     public SphCoordinate position = new SphCoordinate();  // RA and Dec
     public float motion = 0;                    // Current angular motion rate
     public double Hmag = 0;                     // Absolute magnitude
@@ -48,25 +61,64 @@ public class Candidate implements Serializable,Comparable {
     public int arc = 0;                         // Nmber of days of arc observed if 1-Op object
     public String uncertainty = " ";            // Orbital uncertainty  parameter
     public float  punc=0;                       // Positional uncerainty
-    public Boolean select = false;              // Is this selected in the table(SEL)
     public String packNo = " ";                 // MPC Packed number
     public String packDes = "  ";               // MPC Packed designation
 
     public String SAO ="xx";                    // Sormano list type (Priority or Encounter)
     public Elements elements = new Elements();  // Orbital elements  
+    private transient TimesKey timesFor;        // Night, observatory and altitude limit the times are for
     
-    /** Orbital Elements are defined as an inner class of Candidate */
-    public class Elements implements Serializable  {
+    /** Orbital Elements are defined as a nested class of Candidate */
+    public static class Elements implements Serializable  {
+         private static final long serialVersionUID = 5124948595475936912L;
          DateTime Epoch = new DateTime();        // Epoch
          DateTime TT = new DateTime();           // Time of perihelion passage 
-         Double M = 0.0;                         // Mean anomaly
-         Double i = 0.0;                         // Inclination
-         Double N = 0.0;                         // Longitude of ascending node
-         Double w = 0.0;                         // Argument of perihelion
-         Double a = 0.0;                         // Semimajor axis
-         Double e = 0.0;                         // Eccentricity
-         Double q = 0.0;                         // Perihelion disance
-         Double n = 0.0;                         // Mean motion (rads per day)
+         double M = 0.0;                         // Mean anomaly
+         double i = 0.0;                         // Inclination
+         double N = 0.0;                         // Longitude of ascending node
+         double w = 0.0;                         // Argument of perihelion
+         double a = 0.0;                         // Semimajor axis
+         double e = 0.0;                         // Eccentricity
+         double q = 0.0;                         // Perihelion disance
+         double n = 0.0;                         // Mean motion (rads per day)
+
+         /* serialised as the fields of the original inner class, with boxed Doubles */
+         private static final ObjectStreamField[] serialPersistentFields = {
+             new ObjectStreamField("Epoch", DateTime.class), new ObjectStreamField("TT", DateTime.class),
+             new ObjectStreamField("M", Double.class), new ObjectStreamField("i", Double.class),
+             new ObjectStreamField("N", Double.class), new ObjectStreamField("w", Double.class),
+             new ObjectStreamField("a", Double.class), new ObjectStreamField("e", Double.class),
+             new ObjectStreamField("q", Double.class), new ObjectStreamField("n", Double.class),
+             new ObjectStreamField("this$0", Candidate.class)};
+
+         private void writeObject(ObjectOutputStream out) throws IOException {
+             ObjectOutputStream.PutField f = out.putFields();
+             f.put("Epoch", Epoch);
+             f.put("TT", TT);
+             f.put("M", (Double) M);
+             f.put("i", (Double) i);
+             f.put("N", (Double) N);
+             f.put("w", (Double) w);
+             f.put("a", (Double) a);
+             f.put("e", (Double) e);
+             f.put("q", (Double) q);
+             f.put("n", (Double) n);
+             out.writeFields();
+         }
+
+         private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+             ObjectInputStream.GetField f = in.readFields();
+             Epoch = (DateTime) f.get("Epoch", new DateTime());
+             TT = (DateTime) f.get("TT", new DateTime());
+             M = value(f.get("M", null));
+             i = value(f.get("i", null));
+             N = value(f.get("N", null));
+             w = value(f.get("w", null));
+             a = value(f.get("a", null));
+             e = value(f.get("e", null));
+             q = value(f.get("q", null));
+             n = value(f.get("n", null));
+         }
       }
 
     /* decimal formating patterns for the display of data elements */
@@ -78,6 +130,57 @@ public class Candidate implements Serializable,Comparable {
        codes = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
     private transient static final char[] yrcodes = "IJK".toCharArray();
 
+    /* serialised as the fields of the original class, with the yes/no properties as Booleans */
+    private static final String[] flagNames = {"NEOCP", "comet", "VI", "NEO", "PMD", "PHA", "kmplus", "select"};
+    private static final String[] stringNames = {"name", "number", "provId", "MPCORBid", "NEOCPid", "NEOCPdate",
+            "NEOCPScore", "ops", "orbitName", "spgPri", "closeDate", "dVmag", "uncertainty", "packNo", "packDes",
+            "SAO"};
+    private static final ObjectStreamField[] serialPersistentFields = persistentFields();
+
+    private static ObjectStreamField[] persistentFields() {
+        List<ObjectStreamField> f = new ArrayList<>();
+        for (String s : stringNames) {f.add(new ObjectStreamField(s, String.class));}
+        for (String s : flagNames) {f.add(new ObjectStreamField(s, Boolean.class));}
+        for (String s : new String[] {"lastObs", "ctMeridian", "ctRise", "ctSet"}) {
+            f.add(new ObjectStreamField(s, DateTime.class));}
+        for (String s : new String[] {"closeDist", "closeMag", "diameter", "Hmag", "Vmag", "bestAlt", "HAHrs"}) {
+            f.add(new ObjectStreamField(s, double.class));}
+        f.add(new ObjectStreamField("motion", float.class));
+        f.add(new ObjectStreamField("punc", float.class));
+        f.add(new ObjectStreamField("moonAngle", int.class));
+        f.add(new ObjectStreamField("arc", int.class));
+        f.add(new ObjectStreamField("position", SphCoordinate.class));
+        f.add(new ObjectStreamField("elements", Elements.class));
+        return f.toArray(new ObjectStreamField[f.size()]);
+    }
+
+    /**
+     * Test one of the yes/no properties.
+     * @param flag The property, fNEOCP to fSelect.
+     * @return True if the candidate has it.
+     */
+    public boolean is(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * Set or clear one of the yes/no properties.
+     * @param flag The property, fNEOCP to fSelect.
+     * @param b True to set it.
+     */
+    public void set(int flag, boolean b) {
+        if (b) {flags |= flag;} else {flags &= ~flag;}
+    }
+
+    /**
+     * Forget which night the times of a list of candidates were calculated for, so the next setTimes()
+     * calculates them again. Needed whenever the candidates' positions, orbits or magnitudes may have changed.
+     * @param list The candidates.
+     */
+    public static void clearTimes(List<Candidate> list) {
+        for (Candidate c : list) {c.timesFor = null;}
+    }
+
     /**
      * Calculate position, ctMeridian, ctRise and ctSet times, altitude and motion of 
      * this candidate at observatory ob at the specified date-time.
@@ -98,36 +201,195 @@ public class Candidate implements Serializable,Comparable {
         // exclude objects we can't calc positions for like NEOCPs
         
         SphCoordinate pMid = new SphCoordinate();
-        if (!NEOCP) { 
-            // establish position at midnight
+        if (!is(fNEOCP)) { 
+            // establish position at midnight and what time that position passes meridian
             pMid = doPosition(ob, ob.tMidnight, sun, earth);   
-            
-            // establish what time that position passes meridian
-            double merid = (24+position.getHours()-dTObs)%24;                   // meridian time (hours) 
-            ctMeridian.setDate(ob.tNow.julian);                                 // meridian date
-            ctMeridian.setTime(merid/24);                                       // meridial time
-            
-            // crossing time must <12hrs before sunset else add a day 
-            if ((ob.tSet.julian-ctMeridian.julian)>0.5) {ctMeridian.add(1.0);} 
+            setMeridian(pMid, ob, dTObs);
             
             // establish RA/Decl position at the time of crossing the meridian
             position = doPosition(ob, ctMeridian, sun, earth); 
-            
-            // derive motion from distance moved between midnight and crossing meridian 
-            double dt = Math.abs(ctMeridian.julian - ob.tMidnight.julian);      // time from midniht to meridian
-            double da = position.getAngle(pMid);                                // movement during time dt
-            motion = (float) ((float) 143.2*da/dt);                             // rate of motion
+            setMotion(pMid, ob);
+        }
+        setTimes(minAlt, ob, moon, pMid, dTObs);
+        timesFor = new TimesKey(ob, minAlt);
+    } 
+    
+    /**
+     * Calculate position, ctMeridian, ctRise and ctSet times, altitude and motion for a list of candidates
+     * as setTimes() does for one. The positions of all candidates with elliptical orbits are calculated 
+     * together by BatchEphemeris, first at midnight and then at each candidate's meridian time. 
+     * Candidates whose times are already calculated for the same night, observatory and altitude limit,
+     * and have not been cleared since, are left as they are.
+     * @param list The candidates.
+     * @param minAlt Minimum altitude above horizon at meridian (degrees).
+     * @param ob The observatory from which the objects are viewed.
+     * @param sun The Sun object.
+     * @param moon The Moon object.
+     * @param earth The Earth object.
+     */
+    public static void setTimes(List<Candidate> list, int minAlt, Observatories ob, Sun sun, Moon moon, Earth earth) {
+        double dTObs = ob.getLMSTOffset(ob.tMidnight);
+        TimesKey key = new TimesKey(ob, minAlt);
+        
+        // objects that can't be done in the batch are done individually
+        List<Candidate> batch = new ArrayList<>(list.size());
+        for (Candidate c : list) {
+            if (key.equals(c.timesFor)) {continue;}
+            if (!c.is(fNEOCP) && c.elements.e < Util.parabolic) {batch.add(c);} else {c.setTimes(minAlt, ob, sun, moon, earth);}
+        }
+        int n = batch.size();
+        if (n == 0) {return;}
+        
+        // unpack the elements into the batch
+        BatchEphemeris be = new BatchEphemeris(n);
+        for (int k = 0; k < n; k++) {
+            Elements el = batch.get(k).elements;
+            be.a[k] = el.a;
+            be.e[k] = el.e;
+            be.i[k] = el.i;
+            be.N[k] = el.N;
+            be.w[k] = el.w;
+            be.M[k] = el.M;
+            be.n[k] = el.n;
+            be.epoch[k] = el.Epoch.julian;
+        }
+        
+        // positions at midnight give the meridian times
+        be.compute(ob.tMidnight, ob);
+        double[] midRA = be.ra.clone();
+        double[] midDec = be.dec.clone();
+        double[] jd = new double[n];
+        SphCoordinate pMid = new SphCoordinate();
+        for (int k = 0; k < n; k++) {
+            pMid.setCoords(midRA[k], midDec[k]);
+            batch.get(k).setMeridian(pMid, ob, dTObs);
+            jd[k] = batch.get(k).ctMeridian.julian;
+        }
+        
+        // positions at the meridian times
+        be.compute(jd, ob);
+        for (int k = 0; k < n; k++) {
+            Candidate c = batch.get(k);
+            c.position.setCoords(be.ra[k], be.dec[k]);
+            pMid.setCoords(midRA[k], midDec[k]);
+            c.setMotion(pMid, ob);
+            c.setTimes(minAlt, ob, moon, pMid, dTObs);
+            c.timesFor = key;
+        }
+    }
+    
+    /**
+     * Calculate position, ctMeridian, ctRise and ctSet times, altitude and motion for a list of candidates
+     * as setTimes() does, dividing the list between the threads of the shared fork-join pool. The Sun, the
+     * Moon and the Earth hold the last position calculated, so each part of the list has its own; the
+     * observatory is only read and is shared. Candidates must not be changed by anything else meanwhile.
+     * Only the candidates whose times are not already calculated for this night are divided up.
+     * @param list The candidates.
+     * @param minAlt Minimum altitude above horizon at meridian (degrees).
+     * @param ob The observatory from which the objects are viewed.
+     */
+    public static void setTimesParallel(List<Candidate> list, int minAlt, Observatories ob) {
+        TimesKey key = new TimesKey(ob, minAlt);
+        List<Candidate> stale = new ArrayList<>();
+        for (Candidate c : list) {
+            if (!key.equals(c.timesFor)) {stale.add(c);}
         }
+        if (stale.isEmpty()) {return;}
+        list = stale;
+        int part = Math.max(256, list.size()/(4*Util.pool.getParallelism()));
+        TimesTask task = new TimesTask(list, part, minAlt, ob);
+        if (ForkJoinTask.inForkJoinPool()) {task.invoke();} else {Util.pool.invoke(task);}
+    }
+
+    /**
+     * TimesTask does setTimes() for part of a list, splitting it in two while it is longer than a part.
+     */
+    private static class TimesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<Candidate> list;
+        private final int part, minAlt;
+        private final Observatories ob;
+
+        TimesTask(List<Candidate> list, int part, int minAlt, Observatories ob) {
+            this.list = list;
+            this.part = part;
+            this.minAlt = minAlt;
+            this.ob = ob;
+        }
+
+        @Override
+        protected void compute() {
+            int n = list.size();
+            if (n <= part) {
+                setTimes(list, minAlt, ob, new Sun(), new Moon(), new Earth());
+            } else {
+                invokeAll(new TimesTask(list.subList(0, n/2), part, minAlt, ob),
+                        new TimesTask(list.subList(n/2, n), part, minAlt, ob));
+            }
+        }
+    }
+    
+    /**
+     * TimesKey identifies what the times of a candidate were calculated for: the observatory, the night
+     * (the date of tNow, sunset and midnight) and the altitude limit. Observatories.setTime() works out
+     * sunset and midnight afresh from the current time, so they are kept to the nearest minute.
+     */
+    private static final class TimesKey {
+        private final String code;
+        private final int day, minAlt;
+        private final long set, midnight;              // Minutes
+
+        TimesKey(Observatories ob, int minAlt) {
+            code = ob.code;
+            day = (int) (ob.tNow.julian - 0.5);
+            set = Math.round(ob.tSet.julian*1440);
+            midnight = Math.round(ob.tMidnight.julian*1440);
+            this.minAlt = minAlt;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TimesKey)) {return false;}
+            TimesKey k = (TimesKey) o;
+            return code.equals(k.code) && day == k.day && minAlt == k.minAlt && set == k.set && midnight == k.midnight;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31*(31*code.hashCode() + day) + minAlt;
+        }
+    }
+
+    /**
+     * Estimate the meridian time from a position. The crossing time must be no more than 12hrs before sunset.
+     */
+    private void setMeridian(SphCoordinate p, Observatories ob, double dTObs) {
+        double merid = (24+p.getHours()-dTObs)%24;                          // meridian time (hours) 
+        ctMeridian.setDate(ob.tNow.julian);                                 // meridian date
+        ctMeridian.setTime(merid/24);                                       // meridial time
+        if ((ob.tSet.julian-ctMeridian.julian)>0.5) {ctMeridian.add(1.0);} 
+    }
+    
+    /**
+     * Derive motion from distance moved between midnight and crossing meridian. 
+     */
+    private void setMotion(SphCoordinate pMid, Observatories ob) {
+        double dt = Math.abs(ctMeridian.julian - ob.tMidnight.julian);          // time from midniht to meridian
+        double da = position.getAngle(pMid);                                    // movement during time dt
+        motion = (float) ((float) 143.2*da/dt);                                 // rate of motion
+    }
+    
+    /**
+     * Complete setTimes() once the position (and for orbits the position at midnight) is known. 
+     */
+    private void setTimes(int minAlt, Observatories ob, Moon moon, SphCoordinate pMid, double dTObs) {
        
         // meridian time is (re) estimated based on the (new) position and must be no more than 
         //12 hrs before sunset
-        double merid = (24+position.getHours()-dTObs)%24;
-        ctMeridian.setDate(ob.tNow.julian);
-        ctMeridian.setTime(merid/24);
-        if ((ob.tSet.julian-ctMeridian.julian)>0.5) {ctMeridian.add(1.0);}
+        setMeridian(position, ob, dTObs);
         
         // get angular separation of Moon at Meridian passage time (or from given position for comets and NEOCPs)
-        if (NEOCP || comet) {moonAngle = (int) moon.getAngle(position, ctMeridian, ob);} 
+        if (is(fNEOCP) || is(fComet)) {moonAngle = (int) moon.getAngle(position, ctMeridian, ob);} 
         else {moonAngle = (int) moon.getAngle(pMid, ctMeridian, ob);}
         
         // Altitude is max at meridian and is fuction of object Dec and observatory latitude
@@ -254,9 +516,9 @@ public class Candidate implements Serializable,Comparable {
      
      /**
       * calculate the Phi1 and Phi2 functions associate with magnitude phase curve (Bowell 1989) 
-      * These are included here but are not currently used.
+      * These are used by the full-catalogue sweep (BatchEphemeris) to estimate V.
       */
-     private double phi1(double pv) {
+     static double phi1(double pv) {
          double sina = Math.sin(pv);
          double tana2= Math.tan(pv/2);
          double p1s = 1- (0.986*sina)/(0.119 + 1.341*sina - 0.754*sina*sina);
@@ -264,7 +526,7 @@ public class Candidate implements Serializable,Comparable {
          double W = Math.exp(-90.56*tana2*tana2);
          return W*p1s+(1-W)*p1l ;
      }
-     private double phi2(double pv) {
+     static double phi2(double pv) {
          double sina = Math.sin(pv);
          double tana2= Math.tan(pv/2);
          double p2s = 1- (0.238*sina)/(0.119 + 1.341*sina - 0.754*sina*sina);
@@ -340,6 +602,45 @@ public class Candidate implements Serializable,Comparable {
         return n;
     }
     
+    /**
+     * Unpack an MPC packed number or provisional designation, as found in cols 1-7 of MPCORB, into 
+     * the form used for names in the lists: "(433)" or "2020 AB1". This is the reverse of 
+     * packNumber() and packName() and likewise does not account for old survey designations.
+     * @param packed MPC packed number or designation.
+     * @return Unpacked number or designation, or the packed form if it can not be unpacked.
+     */
+    public static String unpack(String packed) {
+        String p = packed.trim();
+        // numbered object: 5 characters, the first may be a letter for numbers above 99999
+        if (p.length() == 5 && p.substring(1).matches("[0-9]{4}")) {
+            int hi = packedDigit(p.charAt(0));
+            if (hi < 0) {return p;}
+            return "(" + (hi*10000 + Integer.parseInt(p.substring(1))) + ")";
+        }
+        // provisional designation: century, year, half month, 2 character cycle count, order letter
+        if (p.length() == 7 && p.substring(1,3).matches("[0-9]{2}") && Character.isDigit(p.charAt(5))) {
+            int cent = String.valueOf(yrcodes).indexOf(p.charAt(0));
+            if (cent < 0) {return p;}
+            int cycle = packedDigit(p.charAt(4));
+            if (cycle < 0) {return p;}
+            cycle = 10*cycle + p.charAt(5) - '0';
+            String n = (cent + 18) + p.substring(1,3) + " " + p.charAt(3) + p.charAt(6);
+            if (cycle > 0) {n += cycle;}
+            return n;
+        }
+        return p;
+    }
+
+    /**
+     * Value of a digit of an MPC packed number or cycle count: 0-9 then A-Z for 10-35 and a-z for 36-61.
+     * @return The value, or -1 if the character is not a packed digit (such as the ~ of numbers above 619999).
+     */
+    private static int packedDigit(char ch) {
+        if (Character.isDigit(ch)) {return ch - '0';}
+        int k = String.valueOf(codes).indexOf(ch);
+        return (k < 0) ? -1 : k + 10;
+    }
+    
     /**
      * Make an identity that will match the id in MPCORB. This does not account for some old
      * survey designation schemes.
@@ -352,6 +653,88 @@ public class Candidate implements Serializable,Comparable {
         }
     }
     
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField f = out.putFields();
+        for (int k = 0; k < flagNames.length; k++) {f.put(flagNames[k], (Boolean) is(1 << k));}
+        f.put("name", name);
+        f.put("number", number);
+        f.put("provId", provId);
+        f.put("MPCORBid", MPCORBid);
+        f.put("NEOCPid", NEOCPid);
+        f.put("NEOCPdate", NEOCPdate);
+        f.put("NEOCPScore", NEOCPScore);
+        f.put("ops", ops);
+        f.put("orbitName", orbitName);
+        f.put("spgPri", spgPri);
+        f.put("closeDate", closeDate);
+        f.put("dVmag", dVmag);
+        f.put("uncertainty", uncertainty);
+        f.put("packNo", packNo);
+        f.put("packDes", packDes);
+        f.put("SAO", SAO);
+        f.put("lastObs", lastObs);
+        f.put("ctMeridian", ctMeridian);
+        f.put("ctRise", ctRise);
+        f.put("ctSet", ctSet);
+        f.put("closeDist", closeDist);
+        f.put("closeMag", closeMag);
+        f.put("diameter", diameter);
+        f.put("Hmag", Hmag);
+        f.put("Vmag", Vmag);
+        f.put("bestAlt", bestAlt);
+        f.put("HAHrs", HAHrs);
+        f.put("motion", motion);
+        f.put("punc", punc);
+        f.put("moonAngle", moonAngle);
+        f.put("arc", arc);
+        f.put("position", position);
+        f.put("elements", elements);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField f = in.readFields();
+        flags = 0;
+        for (int k = 0; k < flagNames.length; k++) {set(1 << k, Boolean.TRUE.equals(f.get(flagNames[k], null)));}
+        name = (String) f.get("name", "");
+        number = (String) f.get("number", "");
+        provId = (String) f.get("provId", "");
+        MPCORBid = (String) f.get("MPCORBid", "");
+        NEOCPid = (String) f.get("NEOCPid", "");
+        NEOCPdate = (String) f.get("NEOCPdate", "");
+        NEOCPScore = (String) f.get("NEOCPScore", "");
+        ops = (String) f.get("ops", "");
+        orbitName = (String) f.get("orbitName", "");
+        spgPri = (String) f.get("spgPri", "");
+        closeDate = (String) f.get("closeDate", null);
+        dVmag = (String) f.get("dVmag", " ");
+        uncertainty = (String) f.get("uncertainty", " ");
+        packNo = (String) f.get("packNo", " ");
+        packDes = (String) f.get("packDes", "  ");
+        SAO = (String) f.get("SAO", "xx");
+        lastObs = (DateTime) f.get("lastObs", new DateTime());
+        ctMeridian = (DateTime) f.get("ctMeridian", new DateTime());
+        ctRise = (DateTime) f.get("ctRise", new DateTime());
+        ctSet = (DateTime) f.get("ctSet", new DateTime());
+        closeDist = f.get("closeDist", 0.0);
+        closeMag = f.get("closeMag", 0.0);
+        diameter = f.get("diameter", 0.0);
+        Hmag = f.get("Hmag", 0.0);
+        Vmag = f.get("Vmag", 0.0);
+        bestAlt = f.get("bestAlt", 0.0);
+        HAHrs = f.get("HAHrs", 0.0);
+        motion = f.get("motion", 0f);
+        punc = f.get("punc", 0f);
+        moonAngle = f.get("moonAngle", 0);
+        arc = f.get("arc", 0);
+        position = (SphCoordinate) f.get("position", new SphCoordinate());
+        elements = (Elements) f.get("elements", new Elements());
+    }
+
+    private static double value(Object d) {
+        return (d == null) ? 0 : (Double) d;
+    }
+
     /**
      * Comparable is implemented by comparing MPCORBid. Sort to MPCORB sub section sequence.
      * @param c Object to be compared to.
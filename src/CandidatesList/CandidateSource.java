@@ -0,0 +1,66 @@
+package CandidatesList;
+
+import java.io.IOException;
+
+/**********************************************************************************
+ * Interface CandidateSource is one source of candidates or of information about them,
+ * such as the NEOCP or the ESA risk list. The Scanner runs each source in three phases:
+ * <pre>
+ *     fetch   the files named by getURLs() are downloaded (or read from the cache)
+ *     parse   each line of each file is passed to parse(), in file order
+ *     merge   merge() applies what was parsed to the candidates list
+ * </pre>
+ * The fetch and parse phases of all the sources in a scan run concurrently, each source
+ * on its own thread, so parse() must only touch the source's own state. The merge
+ * phases run one at a time on the Scanner's thread, in order of getOrder(), as they
+ * change the candidates list. A source with no files (such as the local MPCORB lookup)
+ * does all its work in merge().
+ *
+ * Sources are found with java.util.ServiceLoader: a new source is added by listing
+ * its class in META-INF/services/CandidatesList.CandidateSource on the class path.
+ * A new instance of each source is used for every scan.
+ *
+ * @author Tony Evans
+ */
+public interface CandidateSource {
+
+    /**
+     * Name of the source, used in messages and to select it.
+     * @return The name.
+     */
+    String getName();
+
+    /**
+     * Position of the source in the Refresh sequence: sources are merged in ascending order.
+     * @return The order.
+     */
+    int getOrder();
+
+    /**
+     * Files to be fetched.
+     * @return URLs in String form, empty if the source does not download anything.
+     */
+    String[] getURLs();
+
+    /**
+     * How long a cached copy of the files is used before asking the server whether it has changed.
+     * @return Time to live in seconds.
+     */
+    long getTTL();
+
+    /**
+     * Parse one line of a file. Empty lines are not passed.
+     * @param file Index of the file in getURLs().
+     * @param line The line.
+     */
+    void parse(int file, String line);
+
+    /**
+     * Apply what has been parsed to the candidates list.
+     * @param s Scanner running the source, which gives the candidates list, limiting magnitude
+     *          and MPCORB file and to which messages and progress are reported.
+     * @return Number of candidates updated or added.
+     * @throws IOException if a local file cannot be read.
+     */
+    int merge(Scanner s) throws IOException;
+}
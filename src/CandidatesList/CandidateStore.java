@@ -0,0 +1,325 @@
+package CandidatesList;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**********************************************************************************
+ * Class CandidateStore keeps the candidates list (.lst) file as fixed length records
+ * in a memory mapped file, so that saving writes only the records that have changed.
+ * The file is:
+ * <pre>
+ *     header   magic "CSTR" (int), version (int), candidates (int), record length (int),
+ *              columns (int), then for each column its id (short) and width in bytes (short)
+ *     records  one per candidate, each column at a fixed offset
+ * </pre>
+ * The columns are those of ListFormat: strings are held as a length (short, -1 for null)
+ * and UTF-8 bytes padded to the column width, the other columns as their binary values.
+ * String widths are set from the longest string of each column, with room to spare, when
+ * the store is created. A string that later outgrows its column causes the whole file to
+ * be laid out again with wider columns.
+ *
+ * A save encodes each candidate and compares it with its record in the map; only records
+ * that differ are written, and new candidates are appended. The file is mapped with some
+ * spare capacity so it is not remapped on every addition, and is never shortened (the
+ * count in the header says how many records are in use).
+ *
+ * @author Tony Evans
+ */
+public class CandidateStore implements Closeable {
+
+    public static final int magic = 0x43535452;    // "CSTR"
+    public static final int version = 1;           // Format version
+    private static final Charset utf8 = Charset.forName("UTF-8");
+
+    private final File file;                       // The store file
+    private final RandomAccessFile raf;            // and its channel
+    private final FileChannel channel;
+    private MappedByteBuffer map;                  // Mapping of header and records
+    private int count;                             // Records in use
+    private int[] cols;                            // Column ids in record order
+    private boolean current;                       // True if they are this version's columns
+    private int[] widths;                          // Column widths in bytes
+    private int[] offsets;                         // and offsets in the record
+    private int recordLength;                      // Sum of the widths
+    private int start;                             // Offset of the first record
+    private byte[] record, stored;                 // Scratch records, encoded and as stored
+    private ByteBuffer rec;                        // Wraps the encoded record
+
+    private CandidateStore(File f) throws IOException {
+        file = f;
+        raf = new RandomAccessFile(f, "rw");
+        channel = raf.getChannel();
+    }
+
+    /**
+     * Check whether a file starts with the header of a store.
+     * @param head The first four bytes of the file.
+     * @return True if the file is a store.
+     */
+    public static boolean isStore(byte[] head) {
+        return head.length >= 4 && ((head[0] & 0xff) << 24 | (head[1] & 0xff) << 16 | (head[2] & 0xff) << 8
+                | (head[3] & 0xff)) == magic;
+    }
+
+    /**
+     * Map an existing store.
+     * @param f The store file.
+     * @return The store, to be read.
+     * @throws IOException if the file cannot be mapped or is not a store this version can read.
+     */
+    public static CandidateStore open(File f) throws IOException {
+        CandidateStore s = new CandidateStore(f);
+        try {
+            s.map = s.channel.map(FileChannel.MapMode.READ_WRITE, 0, s.channel.size());
+            if (s.map.capacity() < 20 || s.map.getInt(0) != magic) {
+                throw new IOException("Not a candidates list file.");}
+            int v = s.map.getInt(4);
+            if (v > version) {throw new IOException("Candidates list file version " + v + " is newer than this program.");}
+            s.count = s.map.getInt(8);
+            int columns = s.map.getInt(16);
+            s.cols = new int[columns];
+            s.widths = new int[columns];
+            s.map.position(20);
+            for (int k = 0; k < columns; k++) {
+                s.cols[k] = s.map.getShort();
+                s.widths[k] = s.map.getShort();
+            }
+            s.setLayout();
+            s.current = Arrays.equals(s.cols, columns());
+            if (s.map.getInt(12) != s.recordLength || s.start + (long) s.count*s.recordLength > s.map.capacity()) {
+                throw new IOException("Candidates list file is damaged.");}
+            return s;
+        } catch (IOException | RuntimeException ex) {
+            s.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Create a store holding a list, replacing any existing file.
+     * @param f The store file.
+     * @param list The candidates.
+     * @return The store.
+     * @throws IOException if the file cannot be written.
+     */
+    public static CandidateStore create(File f, List<Candidate> list) throws IOException {
+        CandidateStore s = new CandidateStore(f);
+        try {
+            s.raf.setLength(0);
+            s.layout(list);
+            return s;
+        } catch (IOException | RuntimeException ex) {
+            s.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Read all the candidates. Columns this version does not know are ignored, and candidates
+     * keep their defaults for columns not in the file.
+     * @return The candidates.
+     */
+    public ArrayList<Candidate> read() {
+        ArrayList<Candidate> list = new ArrayList<>(Math.max(count, 200));
+        for (int j = 0; j < count; j++) {
+            map.position(start + j*recordLength);
+            map.get(record);
+            rec.clear();
+            Candidate c = new Candidate();
+            for (int k = 0; k < cols.length; k++) {
+                int col = cols[k];
+                if (col < 100) {
+                    if (ListFormat.known(ListFormat.strings, col)) {ListFormat.setString(c, col, getString(k));}
+                } else if (col < 200) {
+                    if (ListFormat.known(ListFormat.doubles, col)) {ListFormat.setDouble(c, col, rec.getDouble());}
+                } else if (col < 300) {
+                    if (ListFormat.known(ListFormat.floats, col)) {ListFormat.setFloat(c, col, rec.getFloat());}
+                } else {
+                    if (ListFormat.known(ListFormat.ints, col)) {ListFormat.setInt(c, col, rec.getInt());}
+                }
+                rec.position(offsets[k + 1]);
+            }
+            list.add(c);
+        }
+        return list;
+    }
+
+    /**
+     * Save a list, writing only the records that differ from those stored. A store written by
+     * another version, with other columns, is laid out again.
+     * @param list The candidates.
+     * @return The number of records written.
+     * @throws IOException if the file cannot be extended.
+     */
+    public int save(List<Candidate> list) throws IOException {
+        int n = list.size(), written = 0;
+        if (!current) {
+            layout(list);
+            return n;
+        }
+        reserve(n);
+        for (int j = 0; j < n; j++) {
+            if (!encode(list.get(j))) {
+               /* a string has outgrown its column */
+                layout(list);
+                return n;
+            }
+            map.position(start + j*recordLength);
+            if (j < count) {
+                map.get(stored);
+                if (Arrays.equals(record, stored)) {continue;}
+                map.position(start + j*recordLength);
+            }
+            map.put(record);
+            written++;
+        }
+        if (n != count) {
+            count = n;
+            map.putInt(8, n);
+        }
+        map.force();
+        return written;
+    }
+
+    /**
+     * @return The store file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Close the file. The mapping itself is released when it is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        map = null;
+        raf.close();
+    }
+
+    /**
+     * Set the columns and their widths to suit a list, then write the header and all the records.
+     */
+    private void layout(List<Candidate> list) throws IOException {
+        cols = columns();
+        current = true;
+        widths = new int[cols.length];
+        for (int k = 0; k < cols.length; k++) {
+            int col = cols[k];
+            if (col < 100) {
+                int longest = 0;
+                for (Candidate c : list) {
+                    String s = ListFormat.getString(c, col);
+                    if (s != null) {longest = Math.max(longest, s.getBytes(utf8).length);}
+                }
+                widths[k] = 2 + ((longest + longest/2 + 8 + 3) & ~3);
+                if (widths[k] > Short.MAX_VALUE) {throw new IOException("Candidate string too long to store.");}
+            } else {
+                widths[k] = (col < 200) ? 8 : 4;
+            }
+        }
+        setLayout();
+
+        reserve(list.size());
+        map.putInt(0, magic);
+        map.putInt(4, version);
+        map.putInt(12, recordLength);
+        map.putInt(16, cols.length);
+        map.position(20);
+        for (int k = 0; k < cols.length; k++) {
+            map.putShort((short) cols[k]);
+            map.putShort((short) widths[k]);
+        }
+        for (int j = 0; j < list.size(); j++) {
+            encode(list.get(j));
+            map.position(start + j*recordLength);
+            map.put(record);
+        }
+        count = list.size();
+        map.putInt(8, count);
+        map.force();
+    }
+
+    /**
+     * @return The ids of this version's columns, in record order.
+     */
+    private static int[] columns() {
+        int[] all = new int[ListFormat.strings.length + ListFormat.doubles.length + ListFormat.floats.length
+                + ListFormat.ints.length];
+        int k = 0;
+        for (int col : ListFormat.strings) {all[k++] = col;}
+        for (int col : ListFormat.doubles) {all[k++] = col;}
+        for (int col : ListFormat.floats) {all[k++] = col;}
+        for (int col : ListFormat.ints) {all[k++] = col;}
+        return all;
+    }
+
+    /**
+     * Work out the record length and start from the columns, and make the scratch records.
+     */
+    private void setLayout() {
+        offsets = new int[cols.length + 1];
+        for (int k = 0; k < cols.length; k++) {offsets[k + 1] = offsets[k] + widths[k];}
+        recordLength = offsets[cols.length];
+        start = 20 + 4*cols.length;
+        record = new byte[recordLength];
+        stored = new byte[recordLength];
+        rec = ByteBuffer.wrap(record);
+    }
+
+    /**
+     * Make sure the mapping has room for n records, remapping with spare capacity if not.
+     */
+    private void reserve(int n) throws IOException {
+        long need = start + (long) n*recordLength;
+        if (map != null && need <= map.capacity()) {return;}
+        long size = start + (long) (n + n/4 + 64)*recordLength;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+    }
+
+    /**
+     * Encode a candidate into the scratch record.
+     * @return False if one of its strings is too long for its column.
+     */
+    private boolean encode(Candidate c) {
+        Arrays.fill(record, (byte) 0);
+        rec.clear();
+        for (int k = 0; k < cols.length; k++) {
+            int col = cols[k];
+            if (col < 100) {
+                String s = ListFormat.getString(c, col);
+                if (s == null) {
+                    rec.putShort((short) -1);
+                } else {
+                    byte[] b = s.getBytes(utf8);
+                    if (b.length > widths[k] - 2) {return false;}
+                    rec.putShort((short) b.length);
+                    rec.put(b);
+                }
+            } else if (col < 200) {
+                rec.putDouble(ListFormat.getDouble(c, col));
+            } else if (col < 300) {
+                rec.putFloat(ListFormat.getFloat(c, col));
+            } else {
+                rec.putInt(ListFormat.getInt(c, col));
+            }
+            rec.position(offsets[k + 1]);
+        }
+        return true;
+    }
+
+    private String getString(int k) {
+        int length = rec.getShort();
+        if (length < 0) {return null;}
+        return new String(record, rec.position(), length, utf8);
+    }
+}
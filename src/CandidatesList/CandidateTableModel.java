@@ -0,0 +1,163 @@
+package CandidatesList;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**********************************************************************************
+ * Class CandidateTableModel is the model of the candidates table. It holds the
+ * candidates that passed the filter, in list order, and formats the text of a row
+ * only when the row is first asked for (normally when it is drawn), keeping the text
+ * until the table is reloaded. The SEL column is read from and written to the
+ * candidate itself.
+ *
+ * It is used on the event thread only.
+ *
+ * @author Tony Evans
+ */
+public class CandidateTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] names = {
+        "Object", " ", " U", " Pri", "Orbit/Type", "   H", "   V", "  Alt", " Time", " GLat", "  \"/m", "  ^M", "Last Ob."
+    };
+    private static final Class<?>[] types = {
+        Object.class, Boolean.class, String.class, String.class, String.class, String.class, String.class,
+        String.class, String.class, Object.class, String.class, Object.class, String.class
+    };
+
+    private final List<Candidate> rows = new ArrayList<>();    // Candidates shown
+    private final List<Object[]> text = new ArrayList<>();     // and their rows once formatted
+    private Observatories ob = new Observatories();            // Observatory whose night they are shown for
+
+    // decimal formatters for data in the table
+    private final DecimalFormat dpd = new DecimalFormat("00.0");
+    private final DecimalFormat dpdd= new DecimalFormat("##0.00");
+    private final DecimalFormat dd  = new DecimalFormat("00");
+    private final DecimalFormat ddd = new DecimalFormat("000");
+
+    /**
+     * Empty the table ready for candidates seen from an observatory.
+     * @param o The observatory, whose sunset and sunrise limit the times shown.
+     */
+    public void clear(Observatories o) {
+        ob = o;
+        rows.clear();
+        text.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Add candidates to the end of the table.
+     * @param list The candidates.
+     */
+    public void addRows(List<Candidate> list) {
+        if (list.isEmpty()) {return;}
+        int first = rows.size();
+        rows.addAll(list);
+        for (int k = 0; k < list.size(); k++) {text.add(null);}
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    /**
+     * @param row Model row number.
+     * @return The candidate shown in the row.
+     */
+    public Candidate getCandidate(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return types[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == 1;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Candidate c = rows.get(row);
+        if (column == 0) {return c;}
+        if (column == 1) {return c.is(Candidate.fSelect);}
+        Object[] r = text.get(row);
+        if (r == null) {
+            r = format(c);
+            text.set(row, r);
+        }
+        return r[column];
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column != 1) {return;}
+        rows.get(row).set(Candidate.fSelect, Boolean.TRUE.equals(value));
+        fireTableCellUpdated(row, column);
+    }
+
+    /**
+     * Format the text of a row.
+     */
+    private Object[] format(Candidate c) {
+        Object[] rowData = new Object[names.length];
+
+        // construct orbit-type field
+        String orbit;
+        if (c.is(Candidate.fNEOCP)) {orbit=c.orbitName;} else {orbit=c.ops + "," + c.orbitName;}
+        if (c.is(Candidate.fPHA)) {orbit+=",PHA";}
+        if (c.is(Candidate.fKmplus)) {orbit+=",1km+";}
+        if (c.is(Candidate.fVI)) {orbit+=",VI";}
+        if (!c.SAO.equals("xx")) {orbit+=","+c.SAO;}
+        if ((c.closeDate != null)) {
+            if (c.closeDist < 10.0) {
+               orbit += ",»"+c.closeDist + "LD" + " on "+c.closeDate;
+            }
+        }
+
+        // load row fields
+        rowData[2] = " " + c.uncertainty;
+        if (c.is(Candidate.fNEOCP)) {rowData[3] = c.NEOCPScore;} else {rowData[3] = c.spgPri; }
+        rowData[4] = orbit;
+        rowData[5] = " "+dpd.format(c.Hmag);
+        rowData[6] = " "+(dpd.format(c.Vmag))+c.dVmag;
+        rowData[7] = " "+dd.format(c.bestAlt);
+        rowData[8] = getTimeText(c);
+        rowData[9] = " "+dd.format(c.position.galLat());
+        if (!c.is(Candidate.fNEOCP)) {rowData[10] = " "+dpdd.format(c.motion);}
+        rowData[11] = " "+ddd.format(c.moonAngle);
+        if (!c.is(Candidate.fNEOCP)) {rowData[12] = " "+c.lastObs.getGdate();} else {rowData[12]=c.NEOCPdate;}
+        return rowData;
+    }
+
+    /**
+     * Construct the time text to go in the table. Use the ctRise and ctSet times but limited
+     * by sunset and sunrise.
+     */
+    private String getTimeText(Candidate c) {
+        if (c.uncertainty.equals("E")) {return "-------------?---------";}
+        String txt = "";
+        if (c.ctRise.julian<ob.tSet.julian) {txt+=">-----";} else {txt=c.ctRise.getTime(DateTime.HHMM);}
+        txt+="/ ";
+        txt+=c.ctMeridian.getTime(DateTime.HHMM)+" /";
+        if (c.ctSet.julian>ob.tRise.julian) {txt+="---->";} else {txt+=c.ctSet.getTime(DateTime.HHMM);}
+        return txt;
+    }
+}
@@ -3,15 +3,16 @@ package CandidatesList;
 
 import java.awt.Frame;
 import java.awt.Toolkit;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JFileChooser;
@@ -20,7 +21,8 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  * Class CandidatesFile is the file that gives persistence to the candidates list. It is implemented 
- * using serialisation. 
+ * as a memory mapped store of fixed length records (see CandidateStore), so a save writes only the
+ * candidates that have changed. 
  * 
  * @author Tony Evans
  **/
@@ -31,6 +33,15 @@ public class CandidatesFile implements Serializable {
     public  String fileName = " ";                 // Name of file containing the candidates
     private final CandidatesList5GUI GUI;          // Parent GUI
     private IniFile ini;                           // ini file for persistence of file path
+    private transient CandidateStore store;        // mapped store the list was read from or saved to
+
+    // indexes of the candidates by name, number, packed designation, NEOCP id and MPCORB id (see reindex)
+    private final transient HashMap<String, Candidate> byName = new HashMap<>();
+    private final transient HashMap<String, Candidate> byNumber = new HashMap<>();
+    private final transient HashMap<String, Candidate> byNEOCPid = new HashMap<>();
+    private final transient HashMap<String, List<Candidate>> byPackDes = new HashMap<>();
+    private final transient HashMap<String, List<Candidate>> byMPCORBid = new HashMap<>();
+    private transient int indexed = -1;            // size of cList when the indexes were made
 
    /**
     * Constructor saves pointer to parent GUI for direct access to the form.
@@ -64,6 +75,8 @@ public class CandidatesFile implements Serializable {
      */
     public void clear() {
         cList.clear();
+        reindex();
+        closeStore();
         dataFile = null;
         fileName=" ";
     }
@@ -160,34 +173,70 @@ public class CandidatesFile implements Serializable {
     }
     
     /**
-     * Writes data from array to the file as serialised objects.
+     * Writes data from array to the file. If the file is the store the list was read from only
+     * changed candidates are written, otherwise a new store is created.
      */
     private void write() {
-        try (FileOutputStream fos = new FileOutputStream(dataFile);
-            ObjectOutputStream oos = new ObjectOutputStream(fos)) {
-            oos.writeObject(cList);
-            oos.close();
-            fos.close();
+        try {
+            if (store != null && store.getFile().equals(dataFile)) {
+                store.save(cList);
+            } else {
+                closeStore();
+                store = CandidateStore.create(dataFile, cList);
+            }
         } catch (IOException ex) {
             GUI.commentary.append("IO Error writing file.");
         }
     }
     
     /**
-     * Reads the data and de-serialises into the array.
+     * Reads the data into the array by mapping the store. Files written by earlier versions,
+     * in the binary list format or as serialised objects, are still read and are converted
+     * when next saved.
      */
     private void read() {
-        try (FileInputStream fos = new FileInputStream(dataFile);
-            ObjectInputStream oos = new ObjectInputStream(fos)) {
-            cList = (ArrayList<Candidate>) oos.readObject();
-            oos.close();
-            fos.close();
+        closeStore();
+        byte[] head = new byte[4];
+        int n = 0;
+        try (FileInputStream fis = new FileInputStream(dataFile)) {
+            n = fis.read(head);
+            if (n == 4 && CandidateStore.isStore(head)) {
+                store = CandidateStore.open(dataFile);
+                cList = store.read();
+                return;
+            }
+        } catch (IOException ex) {
+            GUI.commentary.append("IO Error reading file: " + ex.getMessage() + "\n");
+            return;
+        }
+        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(dataFile), 65536)) {
+            if (n == 4 && ListFormat.isListFormat(head)) {
+                cList = ListFormat.read(bis);
+            } else {
+                try (ObjectInputStream oos = new ObjectInputStream(bis)) {
+                    cList = (ArrayList<Candidate>) oos.readObject();
+                }
+            }
+            GUI.commentary.append("Old format list file, it will be converted when saved.\n");
         } catch (ClassNotFoundException ex) {
             Logger.getLogger(CandidatesFile.class.getName()).log(Level.SEVERE, null, ex);
         } catch (IOException ex) {
+            GUI.commentary.append("IO Error reading file: " + ex.getMessage() + "\n");
         }
     }
         
+    /**
+     * Close the store, if any. The list is kept.
+     */
+    private void closeStore() {
+        if (store == null) {return;}
+        try {
+            store.close();
+        } catch (IOException ex) {
+        }
+        store = null;
+    }
+
     /**
      * Find the candidate with this name if it already exists otherwise provide a new candidate record.
      * @param n Name of candidate.
@@ -195,15 +244,16 @@ public class CandidatesFile implements Serializable {
      * @return The requested candidate or a new empty candidate.
      */
     public Candidate find(String n, Boolean add) {
-        Iterator<Candidate> it = cList.iterator();
-        while (it.hasNext()) {
-            Candidate c = it.next();
-            if (c.name.equals(n)) {return c;}
-        }
+        current();
+        Candidate c = byName.get(n);
+        if (c != null && !c.name.equals(n)) {reindex(); c = byName.get(n);}
+        if (c != null) {return c;}
         if (add) {
             Candidate c2=new Candidate();
             c2.name = n;
             cList.add(c2);
+            index(c2);
+            indexed = cList.size();
         return c2;
         }
         return null;
@@ -214,12 +264,112 @@ public class CandidatesFile implements Serializable {
      * @return The requested candidate or null if does not exist.
      */
     public Candidate findN(String n) {
-        Iterator<Candidate> it = cList.iterator();
-        while (it.hasNext()) {
-            Candidate c = it.next();
-            if (c.number.equals(n)) {return c;}
-        }
-        return null;
+        current();
+        Candidate c = byNumber.get(n);
+        if (c != null && !c.number.equals(n)) {reindex(); c = byNumber.get(n);}
+        return c;
     }  
 
+    /**
+     * Find the candidate with this packed designation.
+     * @param n Packed designation of candidate.
+     * @return The requested candidate or null if does not exist.
+     */
+    public Candidate findPacked(String n) {
+        List<Candidate> l = findAllPacked(n);
+        return l.isEmpty() ? null : l.get(0);
+    }
+
+    /**
+     * Find all the candidates with this packed designation.
+     * @param n Packed designation.
+     * @return The candidates in list order, empty if there are none.
+     */
+    public List<Candidate> findAllPacked(String n) {
+        current();
+        List<Candidate> l = byPackDes.get(n);
+        if (l != null) {
+            for (Candidate c : l) {
+                if (!n.equals(c.packDes)) {reindex(); l = byPackDes.get(n); break;}
+            }
+        }
+        return (l == null) ? Collections.<Candidate>emptyList() : l;
+    }
+
+    /**
+     * Find the candidate with this NEOCP id.
+     * @param n NEOCP/PCCP identity of candidate.
+     * @return The requested candidate or null if does not exist.
+     */
+    public Candidate findNEOCP(String n) {
+        current();
+        Candidate c = byNEOCPid.get(n);
+        if (c != null && !c.NEOCPid.equals(n)) {reindex(); c = byNEOCPid.get(n);}
+        return c;
+    }
+
+    /**
+     * Find all the candidates with this MPCORB identity.
+     * @param n Identity as in columns 1-8 of MPCORB.
+     * @return The candidates in list order, empty if there are none.
+     */
+    public List<Candidate> findAllMPCORB(String n) {
+        current();
+        List<Candidate> l = byMPCORBid.get(n);
+        if (l != null) {
+            for (Candidate c : l) {
+                if (!n.equals(c.MPCORBid)) {reindex(); l = byMPCORBid.get(n); break;}
+            }
+        }
+        return (l == null) ? Collections.<Candidate>emptyList() : l;
+    }
+
+    /**
+     * Rebuild the indexes. Candidates added with find() are indexed as they are added and the indexes
+     * are rebuilt when the size of the list changes, or when a candidate found no longer has the key it
+     * was indexed under. Code that changes the number, designations or ids of candidates 
+     * must call this before looking them up by the new value.
+     */
+    public void reindex() {
+        byName.clear();
+        byNumber.clear();
+        byPackDes.clear();
+        byNEOCPid.clear();
+        byMPCORBid.clear();
+        for (Candidate c : cList) {index(c);}
+        indexed = cList.size();
+    }
+
+    /**
+     * Add a candidate to the indexes. Where candidates share a name, number or NEOCP id the first in 
+     * the list is kept, as a search of the list would find. The designation indexes keep them all, for
+     * joining other lists to the candidates.
+     */
+    private void index(Candidate c) {
+        if (!byName.containsKey(c.name)) {byName.put(c.name, c);}
+        if (!byNumber.containsKey(c.number)) {byNumber.put(c.number, c);}
+        if (!byNEOCPid.containsKey(c.NEOCPid)) {byNEOCPid.put(c.NEOCPid, c);}
+        add(byPackDes, c.packDes, c);
+        add(byMPCORBid, c.MPCORBid, c);
+    }
+
+    /**
+     * Add a candidate to the list for a key in an index.
+     */
+    private static void add(HashMap<String, List<Candidate>> index, String key, Candidate c) {
+        List<Candidate> l = index.get(key);
+        if (l == null) {
+            l = new ArrayList<>(1);
+            index.put(key, l);
+        }
+        l.add(c);
+    }
+
+    /**
+     * Rebuild the indexes if the list has changed size since they were made.
+     */
+    private void current() {
+        if (indexed != cList.size()) {reindex();}
+    }
+
 }
\ No newline at end of file
@@ -8,13 +8,18 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.SwingWorker;
 import javax.swing.Timer;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Class CandidatesListGUI is the the User Interface to the Candidates List Application.
@@ -27,13 +32,12 @@ import javax.swing.table.DefaultTableModel;
  */
 public class CandidatesList5GUI extends javax.swing.JFrame {
 
-    private static final int         nCol=13;                      // Number of columns in the table
-    private final Object[]           rowData = new Object[nCol];   // Empty row in which to build/extract a table row
-    private DefaultTableModel        ctm;                          // Table model to perform editing
+    private CandidateTableModel      ctm;                          // Table model to perform editing
     private CandidatesFile           cFile;                        // File manager for the candidates list
     private MPCORBFile               mScan;                        // File manager for MPCORB.dat
     private Timer                    pTime;                        // Timer to trigger update of progress bar
     private Scanner                  myScanner;                    // The currently active scanner (swingworker)
+    private TableLoader              loader;                       // The table load in progress, if any
     private Boolean                  tableIsLoaded = false;        // Is there anything in the table yet?
     private final Moon               moon = new Moon();            // The Moon
     private final Sun                sun  = new Sun();             // The Sun
@@ -43,10 +47,7 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
     private final DateTime mEnd =  new DateTime();                 // End of missions in filter
   
     // decimal formatters for data in the table 
-    private static final DecimalFormat dpd = new DecimalFormat("00.0");
-    private static final DecimalFormat dpdd= new DecimalFormat("##0.00");
     private static final DecimalFormat dd  = new DecimalFormat("00");
-    private static final DecimalFormat ddd = new DecimalFormat("000");
     private static final DecimalFormat dddd = new DecimalFormat("###0");
     
 
@@ -65,7 +66,9 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
 
        // Set table property to complete an edit when focus is lost. Get the table model
        cTable.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
-       ctm = (DefaultTableModel) cTable.getModel();
+       ctm = new CandidateTableModel();
+       cTable.setAutoCreateColumnsFromModel(false);
+       cTable.setModel(ctm);
 
        // Create a timer to control dispay of the progress bar 
         pTime = new Timer(500, pListener);
@@ -156,6 +159,8 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
         jMenuItem6 = new javax.swing.JMenuItem();
         jMenuItem8 = new javax.swing.JMenuItem();
         jMenuItem9 = new javax.swing.JMenuItem();
+        jMenuItem10 = new javax.swing.JMenuItem();
+        jMenuItem11 = new javax.swing.JMenuItem();
         jMenuItem14 = new javax.swing.JMenuItem();
         jMenu3 = new javax.swing.JMenu();
         jMenuItem15 = new javax.swing.JMenuItem();
@@ -614,6 +619,24 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
         });
         jMenu1.add(jMenuItem9);
 
+        jMenuItem10.setText("import MPCORB");
+        jMenuItem10.setToolTipText("Import local MPCORB.DAT into the orbit cache. Only needed after a new MPCORB.DAT is downloaded.");
+        jMenuItem10.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                doImport(evt);
+            }
+        });
+        jMenu1.add(jMenuItem10);
+
+        jMenuItem11.setText("sweep MPCORB");
+        jMenuItem11.setToolTipText("Add every MPCORB object that passes the filters tonight. Imports MPCORB.DAT first if needed.");
+        jMenuItem11.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                doSweep(evt);
+            }
+        });
+        jMenu1.add(jMenuItem11);
+
         jMenuItem14.setText("get Sormano ");
         jMenuItem14.setToolTipText("Download and scan the Sormano Observatoory Priority List and Encounters List.");
         jMenuItem14.addActionListener(new java.awt.event.ActionListener() {
@@ -715,6 +738,18 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
         doScan(Scanner.MPCORB);
         reLoad();
     }//GEN-LAST:event_doMPCOrb
+    /**
+     * Import MPCORB into the binary orbit cache used by later scans.
+     */
+    private void doImport(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_doImport
+        doScan(Scanner.Import);
+    }//GEN-LAST:event_doImport
+    /**
+     * Sweep the whole of MPCORB for objects observable tonight with the current filter settings.
+     */
+    private void doSweep(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_doSweep
+        doScan(Scanner.Sweep);
+    }//GEN-LAST:event_doSweep
     /**
      * Filter button pressed. Causes a reload of the table with the current filter settings.
      */
@@ -749,7 +784,7 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
         Iterator<Candidate> it = cFile.cList.iterator();
         while (it.hasNext()) {
             Candidate c = it.next(); 
-            c.select=false;
+            c.set(Candidate.fSelect, false);
         }
         // Refill the table
         reLoad();
@@ -792,7 +827,8 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
      * List opportunities to observe the selected objects at different observatories.
      **/
     private void doWhere(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_doWhere
-       // make sure the list has all the latest table updates
+       // make sure the list has all the latest table updates and is not being loaded
+        stopLoad();
         doUnload();
         
        // for each of the defined obs codes... 
@@ -804,20 +840,22 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
             int horzn = -18 + 2*twilight.getSelectedIndex();
             obs.setTime(sun, toggleDay.isSelected(), horzn); 
             
-           // scan the selected candidates to see which have rise/set times in the possible mission period
-            Iterator<Candidate> it = cFile.cList.iterator();
-            while (it.hasNext()) {
-                Candidate c = it.next();
-                if (c.select) {
-                    c.setTimes((int) altFilter.getValue(), obs, sun, moon, earth);
-                    String showStuff = c.toString() + "               ";
-                    showStuff = showStuff.substring(0,15) + " ";
-                    showStuff+=obs.code + " "+obs.name +" ";
-                    if (c.ctRise.julian<obs.tSet.julian) {showStuff+=obs.tSet.getTime(DateTime.HHMM);} else {showStuff+=c.ctRise.getTime(DateTime.HHMM);} 
-                    showStuff+=" - ";
-                    if (c.ctSet.julian>obs.tRise.julian) {showStuff+=obs.tRise.getTime(DateTime.HHMM);} else {showStuff+=c.ctSet.getTime(DateTime.HHMM);} 
-                    commentary.append(showStuff + "\n") ; 
-                }
+           // calculate times and positions of the selected candidates together
+            List<Candidate> selected = new ArrayList<>();
+            for (Candidate c : cFile.cList) {
+                if (c.is(Candidate.fSelect)) {selected.add(c);}
+            }
+            Candidate.setTimes(selected, (int) altFilter.getValue(), obs, sun, moon, earth);
+            
+           // show which have rise/set times in the possible mission period
+            for (Candidate c : selected) {
+                String showStuff = c.toString() + "               ";
+                showStuff = showStuff.substring(0,15) + " ";
+                showStuff+=obs.code + " "+obs.name +" ";
+                if (c.ctRise.julian<obs.tSet.julian) {showStuff+=obs.tSet.getTime(DateTime.HHMM);} else {showStuff+=c.ctRise.getTime(DateTime.HHMM);} 
+                showStuff+=" - ";
+                if (c.ctSet.julian>obs.tRise.julian) {showStuff+=obs.tRise.getTime(DateTime.HHMM);} else {showStuff+=c.ctSet.getTime(DateTime.HHMM);} 
+                commentary.append(showStuff + "\n") ; 
             }
         }
        // reload the lable with the selected obscode 
@@ -900,6 +938,8 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
         myScanner.setFile(cFile);
         myScanner.setLimit((float) magLimit.getValue());
         myScanner.setMPC(mScan.fileName);
+        myScanner.setSweep(observe.getSelectedIndex(), toggleDay.isSelected(), -18 + 2*twilight.getSelectedIndex(),
+                (int) altFilter.getValue(), (float) vFilter.getValue(), (int) galFilter.getValue());
         pTime.start();
         myScanner.execute();
     }
@@ -953,115 +993,165 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
    
     /*****************************************************************************************************
      * re-load the table contents from the candidates. Before loading the table, make sure
-     * all the times and positions are correct and apply the filter.
+     * all the times and positions are correct and apply the filter. This is done in the background
+     * by a TableLoader, which fills the table as it goes; any load still running is stopped first.
      */
     private void reLoad() {
-        
+        stopLoad();
+
         // if the list is empty clear the table and quit
         if (cFile.cList.isEmpty()) {
-            ctm.setRowCount(0);
+            ctm.clear(obs);
             tableIsLoaded = false;
             commentary.append("List cleared. \n");
             return;
         }
-            
-        // ensure all the SEL fields are updated in the candidates  
+
+        // ensure all the SEL fields are updated in the candidates
         doUnload();
-        
-        // clear the table, set table format and sequence 
-        ctm.setRowCount(0);
-        tableIsLoaded = false;
+
+        // set table format and sequence
         cTable.setShowHorizontalLines(true);
-        doSortUncert();                                    
-        
+        doSortUncert();
+
         // Set the correct tRise, tMidnight and tSet times at the observatory acording to selected twilight
         int horzn = -18 + 2*twilight.getSelectedIndex();
-        obs.setTime(sun, toggleDay.isSelected(), horzn); 
-        
+        obs.setTime(sun, toggleDay.isSelected(), horzn);
+
         // Set up the mission time check filters
         setMissionTimes();
-        
-        // reload the table from the candidates list 
-        Iterator<Candidate> it = cFile.cList.iterator();
-        while (it.hasNext()) {
-            
-            // clear the data for a new table row
-            for (int i = 0; i < nCol; i++) {rowData[i] = null;}
-          
-            // get next candidate and make sure its time and position are correctly set
-            Candidate c = it.next();
-            c.setTimes((int) altFilter.getValue(), obs, sun, moon, earth);  
-          
-            // show candidates if within filtered limits 
-            if (filtered(c)) {
-                
-                // construct orbit-type field  
-                String orbit;
-                if (c.NEOCP) {orbit=c.orbitName;} else {orbit=c.ops + "," + c.orbitName;}
-                if (c.PHA) {orbit+=",PHA";}
-                if (c.kmplus) {orbit+=",1km+";}
-                if (c.VI) {orbit+=",VI";}
-                if (!c.SAO.equals("xx")) {orbit+=","+c.SAO;}
-                if ((c.closeDate != null)) {
-                    if (c.closeDist < 10.0) {
-                       orbit += ",»"+c.closeDist + "LD" + " on "+c.closeDate;
-                    }
-                }
-                
-                // load row fields
-                rowData[0] = c;
-                rowData[1] = c.select;
-                rowData[2] = " " + c.uncertainty;
-                if (c.NEOCP) {rowData[3] = c.NEOCPScore;} else {rowData[3] = c.spgPri; } 
-                rowData[4] = orbit;
-                rowData[5] = " "+dpd.format(c.Hmag);
-                rowData[6] = " "+(dpd.format(c.Vmag))+c.dVmag;
-                rowData[7] = " "+dd.format(c.bestAlt);    
-                rowData[8] = getTimeText(c);
-                rowData[9] = " "+dd.format(c.position.galLat());
-                if (!c.NEOCP) {rowData[10] = " "+dpdd.format(c.motion);}
-                rowData[11] = " "+ddd.format(c.moonAngle);
-                if (!c.NEOCP) {rowData[12] = " "+c.lastObs.getGdate();} else {rowData[12]=c.NEOCPdate;}
-                
-                           
-                // add the row to the table 
-                ctm.addRow(rowData);
+
+        // calculate times and positions and reload the table in the background, rows may be ticked as they arrive
+        tableIsLoaded = true;
+        loader = new TableLoader(horzn);
+        ctm.clear(loader.ob);
+        loader.execute();
+    }
+
+    /**
+     * Stop the table load in progress, if any, and wait for it to finish the chunk of candidates it is
+     * working on so nothing else changes their times and positions at the same time. A load that has
+     * not started yet never will, so there is nothing to wait for.
+     */
+    private void stopLoad() {
+        if (loader == null) {return;}
+        loader.cancel(false);
+        if (!loader.started.compareAndSet(false, true)) {
+            try {
+                loader.finished.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
         }
-       
-        // make commentary about table contents etc. 
-        int count = ctm.getRowCount();
-        commentary.append("------------\n");
-        commentary.append(obs.name + "\n");
-        commentary.append(count + " records shown. Moon is "+dd.format(moon.getPhase(obs.tSet))+"% \n");
-        commentary.append("Sunset-rise "+obs.tSet.getGdate()+" "+obs.tSet.getTime(DateTime.HHMM)+" - "
-                +obs.tRise.getGdate()+" "+obs.tRise.getTime(DateTime.HHMM)+"\n");
-        if (count>0) {tableIsLoaded = true;}
+        loader = null;
     }
-    
+
     /**
-     * Return true/false depending whether the candidate passes the filter. 
+     * TableLoader works out the times and positions of the candidates for tonight and filters them,
+     * away from the event thread. The candidates are taken a chunk at a time, each chunk worked out in
+     * parallel in the shared fork-join pool, and those of each chunk that pass the filter are published
+     * to the table in list order; their rows are formatted by the table model when they are shown.
+     * Candidates whose times are already worked out for the same night, observatory and altitude limit
+     * are not worked out again, so a change to the other filter settings only re-applies the filter. It
+     * uses its own observatory and the filter settings as they were when it was started. Once
+     * cancelled it stops at the end of the chunk and adds no more rows.
      */
-    private Boolean filtered(Candidate c) {
-         // filer out objects too faint
-         if (c.Vmag>(float) vFilter.getValue()) {return false;}
-         // filter out asteroids if not required or too low uncertainty or priority
-         if ((!c.comet) && (!c.NEOCP) && (!c.uncertainty.equals("*"))) {
-             if (c.uncertainty.equals("E")) {return true;}
-             if (0< String.valueOf(uncert.getValue()).compareTo(c.uncertainty) )   {return false;}
-             if (c.NEOCPScore.equals("None")) {return false;}
-         }
-         // filter out objects that never reach altitude limit
-         if (c.bestAlt< (int) altFilter.getValue()) {return false;}
-         // filter out objects too close to galactic plane 
-         int gl = Math.abs((int) galFilter.getValue());
-         int cl = (int) Math.abs(c.position.galLat());
-         if (cl<gl) {return false;}
-        
-         // Accept remaining objects if their ctRise/set times are within the sunset/sunrise period
-         return c.ctSet.julian>obs.tSet.julian && c.ctRise.julian<obs.tRise.julian;
+    private class TableLoader extends SwingWorker<Integer, Candidate> {
+        private final int chunk = 200*Util.pool.getParallelism(); // Candidates per chunk
+        private final AtomicBoolean started = new AtomicBoolean();  // Claimed by the load or by stopLoad()
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final List<Candidate> list;                      // Copy of the candidates list
+        private final Observatories ob = new Observatories();
+        private final int minAlt, minGal;                        // Filter settings
+        private final float maxMag;
+        private final String minUncert;
+
+        /**
+         * Constructor, on the event thread, takes the list and the settings.
+         * @param horzn Twilight setting.
+         */
+        TableLoader(int horzn) {
+            list = new ArrayList<>(cFile.cList);
+            ob.setObservatory(observe.getSelectedIndex());
+            ob.setTime(new Sun(), toggleDay.isSelected(), horzn);
+            minAlt = (int) altFilter.getValue();
+            minGal = Math.abs((int) galFilter.getValue());
+            maxMag = (float) vFilter.getValue();
+            minUncert = String.valueOf(uncert.getValue());
+        }
+
+        @Override
+        protected Integer doInBackground() {
+            int count = 0;
+            if (!started.compareAndSet(false, true)) {return count;}
+            try {
+                for (int k = 0; k < list.size() && !isCancelled(); k += chunk) {
+                    List<Candidate> part = list.subList(k, Math.min(k + chunk, list.size()));
+                    Candidate.setTimesParallel(part, minAlt, ob);
+                    // the altitude and galactic latitude limits are regions of the sky
+                    SkyIndex sky = SkyIndex.of(part);
+                    BitSet inSky = sky.reachable(ob, minAlt);
+                    inSky.and(sky.galactic(minGal));
+                    for (int j = 0; j < part.size(); j++) {
+                        Candidate c = part.get(j);
+                        if (filtered(c, inSky.get(j))) {
+                            publish(c);
+                            count++;
+                        }
+                    }
+                }
+            } finally {
+                finished.countDown();
+            }
+            return count;
+        }
+
+        /**
+         * Add published candidates to the table, unless the load has been cancelled since.
+         */
+        @Override
+        protected void process(List<Candidate> rows) {
+            if (isCancelled()) {return;}
+            ctm.addRows(rows);
+        }
+
+        /**
+         * Make commentary about table contents etc.
+         */
+        @Override
+        protected void done() {
+            if (isCancelled()) {return;}
+            int count = ctm.getRowCount();
+            commentary.append("------------\n");
+            commentary.append(ob.name + "\n");
+            commentary.append(count + " records shown. Moon is "+dd.format(moon.getPhase(ob.tSet))+"% \n");
+            commentary.append("Sunset-rise "+ob.tSet.getGdate()+" "+ob.tSet.getTime(DateTime.HHMM)+" - "
+                    +ob.tRise.getGdate()+" "+ob.tRise.getTime(DateTime.HHMM)+"\n");
+            tableIsLoaded = count > 0;
+        }
+
+        /**
+         * Return true/false depending whether the candidate passes the filter.
+         * @param inSky True if the candidate is within the altitude and galactic latitude limits.
+         */
+        private boolean filtered(Candidate c, boolean inSky) {
+             // filer out objects too faint
+             if (c.Vmag>maxMag) {return false;}
+             // filter out asteroids if not required or too low uncertainty or priority
+             if ((!c.is(Candidate.fComet)) && (!c.is(Candidate.fNEOCP)) && (!c.uncertainty.equals("*"))) {
+                 if (c.uncertainty.equals("E")) {return true;}
+                 if (0< minUncert.compareTo(c.uncertainty) )   {return false;}
+                 if (c.NEOCPScore.equals("None")) {return false;}
+             }
+             // filter out objects that never reach altitude limit or are too close to galactic plane
+             if (!inSky) {return false;}
+
+             // Accept remaining objects if their ctRise/set times are within the sunset/sunrise period
+             return c.ctSet.julian>ob.tSet.julian && c.ctRise.julian<ob.tRise.julian;
+        }
+
     }
-   
+
     /**
      * Set up the mission times equal to set/rise at observatory.
      */
@@ -1071,20 +1161,6 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
          mEnd.setDate(obs.tRise.julian);
     }
    
-    /**
-     * Construct the time text to go in the table. Use the ctRise and ctSet times but limited
-     * by sunset and sunrise.
-     */
-    private String getTimeText(Candidate c) {
-        if (c.uncertainty.equals("E")) {return "-------------?---------";}
-        String txt = "";
-        if (c.ctRise.julian<obs.tSet.julian) {txt+=">-----";} else {txt=c.ctRise.getTime(DateTime.HHMM);} 
-        txt+="/ ";
-        txt+=c.ctMeridian.getTime(DateTime.HHMM)+" /";
-        if (c.ctSet.julian>obs.tRise.julian) {txt+="---->";} else {txt+=c.ctSet.getTime(DateTime.HHMM);} 
-        return txt;
-    }
-   
     /**
      * Save the selection (tick) options into the candidate object.
      */
@@ -1092,7 +1168,7 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
         if (tableIsLoaded) {
             for (int i=0; i<ctm.getRowCount(); i++) {
                 Candidate c = (Candidate) cTable.getValueAt(i, 0);
-                c.select = (Boolean) cTable.getValueAt(i, 1);
+                c.set(Candidate.fSelect, (Boolean) cTable.getValueAt(i, 1));
             }
         }
     }
@@ -1106,6 +1182,10 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
         int horzn = -18 + 2*twilight.getSelectedIndex();
         obs.setTime(sun, toggleDay.isSelected(), horzn); 
         
+        // Fit Earth's position over the session, with a margin to cover meridian times and mission times.
+        double err = Earth.setWindow(obs.tSet.julian - 1.0, obs.tRise.julian + 1.0);
+        commentary.append(String.format("Earth ephemeris fitted for the session, max error %.3g km.\n", err));
+        
         // Set default mStrt and mEnd mission times to default sunset/rise times
         mStrt.setDate(obs.tSet.julian);
         mEnd.setDate(obs.tRise.julian);
@@ -1128,6 +1208,9 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
             if (myScanner.progress==999) {
                 pTime.stop();
                 progressBar.setValue(0);
+                // the scan may have changed any candidate, so their times must all be calculated again
+                stopLoad();
+                Candidate.clearTimes(cFile.cList);
                 doSortUncert();
                 reLoad();
             } else {
@@ -1172,6 +1255,8 @@ public class CandidatesList5GUI extends javax.swing.JFrame {
     private javax.swing.JMenu jMenu1;
     private javax.swing.JMenu jMenu3;
     private javax.swing.JMenuItem jMenuItem1;
+    private javax.swing.JMenuItem jMenuItem10;
+    private javax.swing.JMenuItem jMenuItem11;
     private javax.swing.JMenuItem jMenuItem14;
     private javax.swing.JMenuItem jMenuItem15;
     private javax.swing.JMenuItem jMenuItem2;
@@ -19,6 +19,7 @@ import java.util.TimeZone;
  */
 
 public class DateTime implements Serializable {
+    private static final long serialVersionUID = 4172994482092258247L;
     
     // master data is Julian date
     public double julian = 2451545.0;              
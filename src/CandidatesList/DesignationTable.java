@@ -0,0 +1,128 @@
+package CandidatesList;
+
+import java.util.List;
+
+/**********************************************************************************
+ * Class DesignationTable is a hash table of candidates keyed on their MPCORB identity
+ * (packed as in MPCORBMap.getKey). It is used to join a stream of MPCORB-format
+ * records (MPCORB.DAT or NEAp01.txt) against the candidates list in a single pass
+ * with one probe per record, whatever order the records are in.
+ *
+ * The table uses open addressing on primitive keys. Candidates that share an identity
+ * are chained in list order. Typical use:
+ * <pre>
+ *     for (int k = table.find(key); k >= 0; k = table.next(k)) {
+ *         Candidate c = table.get(k);
+ *     }
+ * </pre>
+ *
+ * @author Tony Evans
+ */
+public class DesignationTable {
+
+    private final long[] keys;              // Slot keys, 0 = empty slot
+    private final int[] first;              // First candidate for each slot
+    private final int[] last;               // Last candidate for each slot (to append in order)
+    private final Candidate[] cands;        // Candidates in the table
+    private final int[] next;               // Next candidate with the same key or -1
+    private final int mask;                 // Slot count - 1
+    private int count = 0;                  // Number of candidates in the table
+
+    /**
+     * Build the table from a list of candidates. Candidates without a usable MPCORB identity
+     * are left out.
+     * @param list The candidates.
+     */
+    public DesignationTable(List<Candidate> list) {
+        int slots = 16;
+        while (slots < 2*list.size()) {slots <<= 1;}
+        keys = new long[slots];
+        first = new int[slots];
+        last = new int[slots];
+        mask = slots - 1;
+        cands = new Candidate[list.size()];
+        next = new int[list.size()];
+        for (Candidate c : list) {
+            long key = MPCORBMap.key(c.MPCORBid);
+            if (key > 0) {add(key, c);}
+        }
+    }
+
+    /**
+     * Pack the designation in the first 7 characters of an MPCORB-format line.
+     * @param line MPCORB-format record.
+     * @return Packed designation or -1 if the line is too short.
+     */
+    public static long lineKey(String line) {
+        if (line.length() < MPCORBMap.idLength) {return -1;}
+        long k = 0;
+        for (int j = 0; j < MPCORBMap.idLength; j++) {k = (k << 8) | (line.charAt(j) & 0xff);}
+        return k;
+    }
+
+    /**
+     * Number of candidates held in the table.
+     * @return Candidate count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Find the first candidate with a packed designation.
+     * @param key Packed designation.
+     * @return Handle of the first candidate or -1 if there is none.
+     */
+    public int find(long key) {
+        if (key <= 0) {return -1;}
+        int s = slot(key);
+        while (keys[s] != 0) {
+            if (keys[s] == key) {return first[s];}
+            s = (s + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Next candidate with the same designation.
+     * @param k Handle from find() or next().
+     * @return Handle of the next candidate or -1 if there are no more.
+     */
+    public int next(int k) {
+        return next[k];
+    }
+
+    /**
+     * Get the candidate for a handle.
+     * @param k Handle from find() or next().
+     * @return The candidate.
+     */
+    public Candidate get(int k) {
+        return cands[k];
+    }
+
+    /**
+     * Insert a candidate, chaining it after any others with the same key.
+     */
+    private void add(long key, Candidate c) {
+        cands[count] = c;
+        next[count] = -1;
+        int s = slot(key);
+        while (keys[s] != 0 && keys[s] != key) {s = (s + 1) & mask;}
+        if (keys[s] == 0) {
+            keys[s] = key;
+            first[s] = count;
+        } else {
+            next[last[s]] = count;
+        }
+        last[s] = count;
+        count++;
+    }
+
+    /**
+     * Home slot of a key (Fibonacci hashing).
+     */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
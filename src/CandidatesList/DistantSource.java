@@ -0,0 +1,61 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class DistantSource reads the MPC's Dates of Last Observation of Distant Objects.
+ * This is an HTML page so we have to scrape out the useful data.
+ *
+ * @author Tony Evans
+ */
+public class DistantSource extends AbstractSource {
+
+    private final List<String[]> rows = new ArrayList<>();  // name, number and date of last observation
+    private final List<Float> vmags = new ArrayList<>();    // and V magnitude of each object
+
+    /**
+     * Constructor describes the source.
+     */
+    public DistantSource() {
+        super("Distant", 40, 3600, "https://www.minorplanetcenter.net/iau/TNO/LastObsTNO.html");
+    }
+
+    @Override
+    public void parse(int file, String tkn) {
+        /* search for line containing an object and work out where the object starts  */
+        if (tkn.startsWith("<input type=\"checkbox\" name=\"Obj\"")) {
+            int k = tkn.indexOf(">");
+            tkn=tkn.substring(k+1);
+            vmags.add(Util.s2f(tkn.substring(43,47),999));
+            rows.add(new String[] {tkn.substring(8,29).trim(), tkn.substring(0,8).trim(), tkn.substring(54,  66)});
+        }
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count = 0;
+        for (int k = 0; k < rows.size(); k++) {
+           /* if V mag within limit get name and candidate */
+            float v = vmags.get(k);
+            if (!(v>s.getLimit())) {
+                String[] r = rows.get(k);
+                Candidate c = s.getFile().find(r[0],true);
+                count++;
+               /* get number */
+                c.number = r[1];
+
+               /* get rest of data items */
+                c.Vmag = v;
+                c.lastObs.setMPCTextDate(r[2]);
+                c.lastObs.julian+=0.5;
+               /* save packed formats */
+                c.packNo=c.packNumber();
+                c.packDes=c.packName();
+                c.makeMPCOrbid();
+            }
+        }
+        s.doPublish(count + " objects updated or added.\n");
+        return count;
+    }
+}
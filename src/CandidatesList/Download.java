@@ -0,0 +1,316 @@
+package CandidatesList;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**********************************************************************************
+ * Class Download fetches one source file on its own thread and lets the Scanner read
+ * it as a stream of lines while the bytes are still arriving. Bytes are held in chunks
+ * only until they have been read and at most maxChunks are held at once: when the reader
+ * falls behind, the download waits for it.
+ *
+ * If a cache is given the source is read from the cache while it is fresh or unchanged
+ * (see HttpCache), and a new copy is written to the cache as it is downloaded.
+ *
+ * The server is offered gzip and deflate transfer encodings. A compressed file is
+ * decompressed as it arrives and progress is reported from the compressed bytes, which
+ * are what the Content-Length counts.
+ *
+ * Errors do not interrupt the reader: readLine() simply returns null and getError()
+ * reports what went wrong, as the Scanner reports a failed download and carries on
+ * with the next source.
+ *
+ * @author Tony Evans
+ */
+public class Download implements Runnable, Closeable {
+
+    private static final int chunkSize = 8192;         // Bytes per chunk
+    private static final int maxChunks = 128;          // Unread chunks held before the download waits
+
+    private final String from;                          // URL of the source
+    private final HttpCache cache;                      // Cache of sources (may be null)
+    private final Scanner scanner;                      // Scanner to which progress is reported
+    private final AtomicLong expected;                  // Bytes expected by all downloads
+    private final AtomicLong received;                  // Bytes received by all downloads
+    private final BufferedReader reader;                // Lines read from the chunks
+
+    // chunks waiting to be read and the state of the download, guarded by this
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private boolean finished = false;
+    private boolean closed = false;
+    private IOException error = null;
+    private long bytes = 0;
+    private long transferred = 0;
+    private boolean cached = false;
+
+    /**
+     * Constructor starts the download.
+     * @param from URL of the source in String form.
+     * @param cache Cache of sources, or null to always download.
+     * @param pool Executor on which the download runs.
+     * @param scanner Scanner to which progress is reported.
+     * @param expected Bytes expected by all downloads, to which this download's length is added.
+     * @param received Bytes received by all downloads.
+     */
+    public Download(String from, HttpCache cache, ExecutorService pool, Scanner scanner, AtomicLong expected,
+            AtomicLong received) {
+        this.from = from;
+        this.cache = cache;
+        this.scanner = scanner;
+        this.expected = expected;
+        this.received = received;
+        reader = new BufferedReader(new InputStreamReader(new ChunkStream()));
+        pool.execute(this);
+    }
+
+    /**
+     * Fetch the file into chunks, from the cache if possible.
+     */
+    @Override
+    public void run() {
+        HttpCache.Entry entry = (cache == null) ? null : cache.get(from);
+        try {
+            if (entry != null && entry.isFresh()) {
+                fromCache(entry);
+            } else {
+                URLConnection con = new URL(from).openConnection();
+                con.setRequestProperty("Accept-Encoding", "gzip, deflate");
+                if (entry != null && entry.exists()) {
+                    if (entry.etag != null) {con.setRequestProperty("If-None-Match", entry.etag);}
+                    if (entry.modified != null) {con.setRequestProperty("If-Modified-Since", entry.modified);}
+                }
+                if (entry != null && entry.exists() && con instanceof HttpURLConnection
+                        && ((HttpURLConnection) con).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    entry.touch();
+                    fromCache(entry);
+                } else {
+                    boolean complete;
+                    try (InputStream in = con.getInputStream(); OutputStream copy = (entry == null) ? null : entry.create()) {
+                        complete = read(in, con.getContentLength(), con.getContentEncoding(), copy);
+                    }
+                    if (entry != null && complete) {
+                        entry.commit(con.getHeaderField("ETag"), con.getHeaderField("Last-Modified"));
+                    } else if (entry != null) {
+                        entry.abandon();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (entry != null) {entry.abandon();}
+            synchronized (this) {error = e;}
+        }
+        synchronized (this) {
+            finished = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Read the cached copy of the file into chunks.
+     */
+    private void fromCache(HttpCache.Entry entry) throws IOException {
+        synchronized (this) {cached = true;}
+        try (InputStream in = entry.open()) {
+            read(in, entry.length(), null, null);
+        }
+    }
+
+    /**
+     * Read a stream into chunks, decompressing it if it has a content encoding and copying the
+     * decompressed bytes to another stream if one is given.
+     * @return False if the reader closed the download before the end of the stream.
+     */
+    private boolean read(InputStream in, long length, String encoding, OutputStream copy) throws IOException {
+        if (length < 1) {length = 2500000;}     // some files do not return a length, make assumption
+        expected.addAndGet(length);
+        try (InputStream data = decode(new Counter(in), encoding)) {
+            while (true) {
+                byte[] buffer = new byte[chunkSize];
+                int n = data.read(buffer);
+                if (n < 0) {return true;}
+                if (copy != null) {copy.write(buffer, 0, n);}
+                if (!add(buffer, n)) {return false;}
+            }
+        }
+    }
+
+    /**
+     * Decompress a stream according to its content encoding.
+     */
+    private static InputStream decode(InputStream in, String encoding) throws IOException {
+        if (encoding == null) {return in;}
+        switch (encoding.trim().toLowerCase()) {
+            case "gzip":
+            case "x-gzip":  return new GZIPInputStream(in, chunkSize);
+            case "deflate": return new InflaterInputStream(in);
+            default:        return in;
+        }
+    }
+
+    /**
+     * Queue a chunk for the reader, waiting while the queue is full.
+     * @return False if the reader has closed the download.
+     */
+    private synchronized boolean add(byte[] buffer, int n) {
+        while (chunks.size() >= maxChunks && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        if (closed) {return false;}
+        if (n < buffer.length) {
+            byte[] b = new byte[n];
+            System.arraycopy(buffer, 0, b, 0, n);
+            buffer = b;
+        }
+        chunks.add(buffer);
+        bytes += n;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Read the next line that is not empty (as StringTokenizer on "\n\r" would give), waiting
+     * for it to arrive if necessary.
+     * @return The line or null at the end of the file or if the download failed.
+     */
+    public String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isEmpty());
+            return line;
+        } catch (IOException e) {
+            synchronized (this) {if (error == null) {error = e;}}
+            return null;
+        }
+    }
+
+    /**
+     * Number of bytes downloaded so far.
+     * @return Byte count.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Number of bytes received from the server so far, which is less than getBytes() if the file
+     * was compressed and zero if it was read from the cache.
+     * @return Byte count.
+     */
+    public synchronized long getTransferred() {
+        return cached ? 0 : transferred;
+    }
+
+    /**
+     * Check if the file was read from the cache rather than downloaded.
+     * @return True if the cached copy was used.
+     */
+    public synchronized boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Error that stopped the download.
+     * @return The error or null if there has been none.
+     */
+    public synchronized IOException getError() {
+        return error;
+    }
+
+    /**
+     * Stop the download and discard any unread chunks.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        chunks.clear();
+        notifyAll();
+    }
+
+    /**
+     * Counter counts the bytes read from the source, before any decompression, and reports progress.
+     */
+    private class Counter extends FilterInputStream {
+        Counter(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {count(1);}
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {count(n);}
+            return n;
+        }
+
+        private void count(int n) {
+            synchronized (Download.this) {transferred += n;}
+            scanner.doProgress((int) Math.min(99, 100*received.addAndGet(n)/expected.get()));
+        }
+    }
+
+    /**
+     * ChunkStream presents the queued chunks as an InputStream, blocking until bytes arrive.
+     */
+    private class ChunkStream extends InputStream {
+        private byte[] current = null;
+        private int pos = 0;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (current == null || pos == current.length) {
+                synchronized (Download.this) {
+                    while (chunks.isEmpty() && !finished && !closed) {
+                        try {
+                            Download.this.wait();
+                        } catch (InterruptedException e) {
+                            throw new IOException("Download interrupted.");
+                        }
+                    }
+                    if (closed) {return -1;}
+                    if (chunks.isEmpty()) {
+                        if (error != null) {throw error;}
+                        return -1;
+                    }
+                    current = chunks.poll();
+                    pos = 0;
+                    Download.this.notifyAll();
+                }
+            }
+            int n = Math.min(len, current.length - pos);
+            System.arraycopy(current, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+}
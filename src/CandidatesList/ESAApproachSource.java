@@ -0,0 +1,56 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class ESAApproachSource reads the ESA upcoming and recent close approach lists and
+ * updates candidates with their close approach date, distance and magnitude.
+ *
+ * @author Tony Evans
+ */
+public class ESAApproachSource extends AbstractSource {
+
+    private final List<String> rows = new ArrayList<>();    // Lines describing an approach
+
+    /**
+     * Constructor describes the source, upcoming approaches then recent ones.
+     */
+    public ESAApproachSource() {
+        super("ESA Approach", 70, 600, ESAPrioritySource.ESAurl + "esa_upcoming_close_app",
+                ESAPrioritySource.ESAurl + "esa_recent_close_app");
+    }
+
+    @Override
+    public void parse(int file, String tkn) {
+        if (tkn.length()<50) {return;}
+        if (!Character.isDigit(tkn.charAt(0))) {return;}
+        rows.add(tkn);
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count = 0;
+        for (String tkn : rows) {
+            Candidate c;
+            String nm = tkn.substring(0,9);
+            Character ch = nm.charAt(4);
+            if (Character.isDigit(ch)) {
+               /* it is a numbered object */
+               c = s.getFile().findN("("+nm.trim()+")");
+            } else {
+               /*  it is not numbered */
+               nm=nm.trim();
+               nm = nm.substring(0,4)+" "+nm.substring(4);
+               c = s.getFile().find(nm,false);
+            }
+            if (c == null) {continue;}
+            c.closeDate = tkn.substring(29,39);
+            c.closeDist = Util.s2d(tkn.substring(63,69),99);
+            c.closeMag = Util.s2d(tkn.substring(101,105),99);
+            count++;
+        }
+        s.doPublish(count + " objects updated or added.\n");
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class ESAPrioritySource reads the ESA Priority list and updates candidates with
+ * their Spaceguard priority.
+ *
+ * @author Tony Evans
+ */
+public class ESAPrioritySource extends AbstractSource {
+
+    static final String ESAurl = "https://neo.ssa.esa.int/PSDB-portlet/download?file=";  // ESA file grabber
+
+    // Spaceguard priority codes
+    private static final String[] SPGpricodes = {"Urg.", "Need", "Use.", "Low", "?"};
+
+    private final List<String[]> rows = new ArrayList<>();  // name and priority code
+    private final List<Float> vmags = new ArrayList<>();    // and V magnitude of each object
+
+    /**
+     * Constructor describes the source.
+     */
+    public ESAPrioritySource() {
+        super("ESA Priority", 50, 600, ESAurl + "esa_priority_neo_list");
+    }
+
+    @Override
+    public void parse(int file, String tkn) {
+        if (tkn.length()<40) {return;} // ignore short lines
+        vmags.add(Util.s2f(tkn.substring(36,40),999));
+       /* get name and strip out quote marks */
+        rows.add(new String[] {tkn.substring(3,16).trim().replace("\"", ""), tkn.substring(0,1)});
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count = 0;
+        for (int k = 0; k < rows.size(); k++) {
+            /* process object only if not beyond limit */
+            float v = vmags.get(k);
+            if (!(v>s.getLimit())) {
+               /* find the candidate, quit if not available*/
+                Candidate c = s.getFile().find(rows.get(k)[0],false);
+                if(c == null) {break;}
+               /* translate priority code number into words */
+                int p = (int) Util.s2f(rows.get(k)[1],4);
+                c.spgPri=SPGpricodes[p];
+                c.Vmag = v;
+                c.packNo=c.packNumber();
+                c.packDes=c.packName();
+                c.makeMPCOrbid();
+                count++;
+            }
+        }
+        s.doPublish(count + " objects updated or added.\n");
+        return count;
+    }
+}
@@ -0,0 +1,53 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class ESARiskSource reads the ESA Risk list and marks candidates on it as virtual
+ * impactors.
+ *
+ * @author Tony Evans
+ */
+public class ESARiskSource extends AbstractSource {
+
+    private final List<String> names = new ArrayList<>();   // Objects parsed
+    private int headings = 4;                               // Heading lines still to skip
+
+    /**
+     * Constructor describes the source.
+     */
+    public ESARiskSource() {
+        super("ESA Risk", 60, 600, ESAPrioritySource.ESAurl + "esa_risk_list");
+    }
+
+    @Override
+    public void parse(int file, String tkn) {
+        if (headings > 0) {headings--; return;} // skip headings
+        if (tkn.length()<40) {return;} // ignore short lines
+        names.add(tkn.substring(0,9).trim());
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count = 0;
+        for (String nm : names) {
+            Candidate c;
+            Character ch = nm.charAt(4);
+            if (Character.isDigit(ch)) {
+               /* it is a numbered object */
+               c = s.getFile().findN(nm);
+            } else {
+               /*  it is not numbered */
+               nm = nm.substring(0,4)+" "+nm.substring(4);
+               c = s.getFile().find(nm,false);
+            }
+            /* if candidate found, add VI status */
+            if (c == null) {continue;}
+            c.set(Candidate.fVI, true);
+            count++;
+        }
+        s.doPublish(count + " objects updated or added.\n");
+        return count;
+    }
+}
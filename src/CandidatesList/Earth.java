@@ -1,9 +1,20 @@
 package CandidatesList;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**********************************************************************************************************************
  * Class Earth is responsible to obtain the position of Earth at a specified moment of time.
  * It employs VSOP87 version A - Heliocentric, equatorial, J2000.
  * 
+ * Evaluating the series is expensive and the same moments (e.g. tMidnight) are requested for 
+ * every candidate, so the most recently calculated positions are kept in a small cache shared 
+ * by all instances and keyed on Julian date. 
+ * 
+ * For the observing session a Chebyshev fit to the series can be set with setWindow(). Positions
+ * requested inside the window are then interpolated from the fit, which is far quicker than even
+ * a cache lookup of a new date, and the series is only evaluated outside the window.
+ * 
  * @author Tony Evans
  **/
 public class Earth {
@@ -12,11 +23,166 @@ public class Earth {
     public  double x,y,z;
     private double t;
     
+    // recently calculated positions by Julian date, least recently used first
+    private static final int cacheSize = 64;
+    private static final Map<Double, double[]> cache = new LinkedHashMap<Double, double[]>(2*cacheSize, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Double, double[]> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    
+    // VSOP87 series at the chosen precision
+    private static volatile Vsop87Earth series = new Vsop87Earth(0);
+    
+    // Chebyshev fit for the observing window (null if none)
+    private static volatile Window window = null;
+    private static final int degree = 16;               // number of Chebyshev terms in the fit
+    
     public void setPosition(DateTime jd){
          t = (jd.julian-2451545.0)/365250.0;
+         Window w = window;
+         if (w != null && w.contains(jd.julian)) {
+             w.eval(jd.julian, this);
+             return;
+         }
+         synchronized (cache) {
+             double[] p = cache.get(jd.julian);
+             if (p != null) {
+                 x = p[0];
+                 y = p[1];
+                 z = p[2];
+                 return;
+             }
+         }
          x=getX();
          y=getY();
          z=getZ();
+         synchronized (cache) {cache.put(jd.julian, new double[] {x, y, z});}
+    }
+    
+    /**
+     * Fit Chebyshev polynomials to X, Y and Z over a window of Julian dates, after which positions
+     * inside the window are interpolated. The accuracy of the fit is checked against the full series 
+     * between the fitted points.
+     * @param from Start of window (Julian date).
+     * @param to End of window (Julian date).
+     * @return Largest difference between the fit and the series found (km).
+     */
+    public static double setWindow(double from, double to) {
+        Window w = new Window(from, to);
+        window = w;
+        return w.error;
+    }
+    
+    /**
+     * Set the precision to which the VSOP87 series is evaluated. Fewer terms are summed at lower 
+     * precision. Cached positions and any window are discarded, so the window must be set again.
+     * @param arcsec Precision in arcseconds, 0 to use every term.
+     */
+    public static void setPrecision(double arcsec) {
+        series = new Vsop87Earth(arcsec);
+        window = null;
+        synchronized (cache) {cache.clear();}
+    }
+    
+    /**
+     * The precision to which the VSOP87 series is evaluated.
+     * @return Precision in arcseconds, 0 if every term is used.
+     */
+    public static double getPrecision() {
+        return series.getPrecision();
+    }
+    
+    /**
+     * Remove the window so that all positions are calculated from the series.
+     */
+    public static void clearWindow() {
+        window = null;
+    }
+    
+    /**
+     * Window holds the Chebyshev coefficients for X, Y and Z over a range of dates. 
+     */
+    private static class Window {
+        private final double from, to;
+        private final double[] cx = new double[degree];
+        private final double[] cy = new double[degree];
+        private final double[] cz = new double[degree];
+        private final double error;
+        
+        Window(double from, double to) {
+            this.from = from;
+            this.to = to;
+            
+            // sample the series at the Chebyshev nodes and form the coefficients
+            Earth e = new Earth();
+            double[] fx = new double[degree];
+            double[] fy = new double[degree];
+            double[] fz = new double[degree];
+            for (int k = 0; k < degree; k++) {
+                e.setSeries(toJulian(Math.cos(Math.PI*(k + 0.5)/degree)));
+                fx[k] = e.x;
+                fy[k] = e.y;
+                fz[k] = e.z;
+            }
+            for (int j = 0; j < degree; j++) {
+                for (int k = 0; k < degree; k++) {
+                    double c = 2.0/degree*Math.cos(Math.PI*j*(k + 0.5)/degree);
+                    cx[j] += c*fx[k];
+                    cy[j] += c*fy[k];
+                    cz[j] += c*fz[k];
+                }
+            }
+            
+            // compare with the series midway between the nodes
+            double err = 0;
+            for (int k = 0; k <= degree; k++) {
+                double jd = toJulian(Math.cos(Math.PI*k/degree));
+                e.setSeries(jd);
+                double sx = e.x, sy = e.y, sz = e.z;
+                eval(jd, e);
+                err = Math.max(err, Math.sqrt((e.x-sx)*(e.x-sx) + (e.y-sy)*(e.y-sy) + (e.z-sz)*(e.z-sz)));
+            }
+            error = err*Util.AU;
+        }
+        
+        boolean contains(double jd) {
+            return jd >= from && jd <= to;
+        }
+        
+        /* Julian date for a point in -1..1 */
+        private double toJulian(double u) {
+            return 0.5*(from + to) + 0.5*(to - from)*u;
+        }
+        
+        /* evaluate the fit at jd into e (Clenshaw recurrence) */
+        void eval(double jd, Earth e) {
+            double u = (2*jd - from - to)/(to - from);
+            e.x = clenshaw(cx, u);
+            e.y = clenshaw(cy, u);
+            e.z = clenshaw(cz, u);
+        }
+        
+        private static double clenshaw(double[] c, double u) {
+            double b1 = 0, b2 = 0;
+            for (int j = c.length - 1; j > 0; j--) {
+                double b = 2*u*b1 - b2 + c[j];
+                b2 = b1;
+                b1 = b;
+            }
+            return u*b1 - b2 + 0.5*c[0];
+        }
+    }
+    
+    /**
+     * Evaluate the series directly at a Julian date, bypassing the cache and window.
+     */
+    private void setSeries(double jd) {
+        t = (jd-2451545.0)/365250.0;
+        x=getX();
+        y=getY();
+        z=getZ();
     }
     
     /**
@@ -24,20 +190,12 @@ public class Earth {
      *               http://neoprogrammics.com/vsop87/index.html 
      */
     public double getX() {
-        double r = Vsop87Earth.Earth_A_X0(t)+Vsop87Earth.Earth_A_X1(t)+Vsop87Earth.Earth_A_X2(t)+
-                   Vsop87Earth.Earth_A_X3(t)+Vsop87Earth.Earth_A_X4(t)+Vsop87Earth.Earth_A_X5(t) ;
-        return r;
+        return series.getX(t);
     }
     public double getY() {
-        double r = Vsop87Earth.Earth_A_Y0(t)+Vsop87Earth.Earth_A_Y1(t)+Vsop87Earth.Earth_A_Y2(t)+
-                   Vsop87Earth.Earth_A_Y3(t)+Vsop87Earth.Earth_A_Y4(t)+Vsop87Earth.Earth_A_Y5(t) ;
-        return r;
+        return series.getY(t);
     }
     public double getZ() {
-     
-        double r = Vsop87Earth.Earth_A_Z0(t)+Vsop87Earth.Earth_A_Z1(t)+Vsop87Earth.Earth_A_Z2(t)+
-                   Vsop87Earth.Earth_A_Z3(t)+Vsop87Earth.Earth_A_Z4(t)+Vsop87Earth.Earth_A_Z5(t) ;
-        return r;
-    
+        return series.getZ(t);
     }
 }
@@ -0,0 +1,194 @@
+package CandidatesList;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**********************************************************************************
+ * Class HttpCache keeps the last copy of each downloaded source in a local directory
+ * so that a Refresh need not download a list again when it has not changed. Each
+ * source is held as two files named after its URL: the body as it was downloaded and
+ * a properties file recording its ETag and Last-Modified headers and when the server
+ * was last asked about it.
+ *
+ * Download uses the cache as follows: within a source's time to live (TTL) the cached
+ * copy is used without asking the server at all. After that the server is asked with
+ * If-None-Match / If-Modified-Since and the cached copy is used again if the reply is
+ * 304 Not Modified. Otherwise the new body is written to the cache as it is read and
+ * replaces the old copy only once it is complete.
+ *
+ * @author Tony Evans
+ */
+public class HttpCache {
+
+    private final File dir;                             // Cache directory
+    private final Map<String, Long> ttl = new HashMap<>(); // Time to live (ms) by URL
+
+    /**
+     * Constructor sets the cache directory, which is created when first written.
+     * @param dir Cache directory.
+     */
+    public HttpCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Set how long a cached copy is used before the server is asked whether it has changed.
+     * Sources with no TTL are checked every time.
+     * @param url URL of the source in String form.
+     * @param seconds Time to live in seconds.
+     */
+    public synchronized void setTTL(String url, long seconds) {
+        ttl.put(url, seconds*1000);
+    }
+
+    /**
+     * Time to live of a source.
+     * @param url URL of the source in String form.
+     * @return Time to live in milliseconds.
+     */
+    public synchronized long getTTL(String url) {
+        Long t = ttl.get(url);
+        return (t == null) ? 0 : t;
+    }
+
+    /**
+     * Cache entry for a source, which may not have been cached yet.
+     * @param url URL of the source in String form.
+     * @return The entry.
+     */
+    public Entry get(String url) {
+        return new Entry(url);
+    }
+
+    /**
+     * Entry is the cached copy of one source.
+     */
+    public class Entry {
+        public final String url;                        // URL of the source
+        public String etag = null;                      // ETag of the cached copy
+        public String modified = null;                  // Last-Modified of the cached copy
+        public long checked = 0;                        // When the server was last asked (ms)
+
+        private final File body;                        // Cached copy of the source
+        private final File props;                       // Headers of the cached copy
+        private File temp = null;                       // New copy being written
+
+        private Entry(String url) {
+            this.url = url;
+            String name = url.replaceAll("[^A-Za-z0-9.-]", "_");
+            body = new File(dir, name);
+            props = new File(dir, name + ".properties");
+            Properties p = new Properties();
+            try (FileInputStream in = new FileInputStream(props)) {
+                p.load(in);
+                etag = p.getProperty("etag");
+                modified = p.getProperty("modified");
+                checked = Long.parseLong(p.getProperty("checked", "0"));
+            } catch (IOException | NumberFormatException e) {
+                checked = 0;
+            }
+        }
+
+        /**
+         * Check if there is a cached copy.
+         * @return True if the source has been cached.
+         */
+        public boolean exists() {
+            return checked > 0 && body.isFile();
+        }
+
+        /**
+         * Check if the cached copy can be used without asking the server.
+         * @return True if the cached copy is within its time to live.
+         */
+        public boolean isFresh() {
+            return exists() && System.currentTimeMillis() - checked < getTTL(url);
+        }
+
+        /**
+         * Size of the cached copy.
+         * @return Length in bytes.
+         */
+        public long length() {
+            return body.length();
+        }
+
+        /**
+         * Open the cached copy for reading.
+         * @return Stream of the cached bytes.
+         * @throws IOException if the copy cannot be read.
+         */
+        public InputStream open() throws IOException {
+            return new FileInputStream(body);
+        }
+
+        /**
+         * Record that the server has confirmed the cached copy is unchanged.
+         */
+        public void touch() {
+            checked = System.currentTimeMillis();
+            save();
+        }
+
+        /**
+         * Start writing a new copy of the source. It does not replace the cached copy until commit().
+         * @return Stream to which the new copy is written.
+         * @throws IOException if the cache directory cannot be written.
+         */
+        public OutputStream create() throws IOException {
+            if (!dir.isDirectory() && !dir.mkdirs()) {throw new IOException("Unable to create " + dir);}
+            temp = File.createTempFile(body.getName(), ".part", dir);
+            return new FileOutputStream(temp);
+        }
+
+        /**
+         * Replace the cached copy with the new copy that has been written.
+         * @param etag ETag header of the new copy (may be null).
+         * @param modified Last-Modified header of the new copy (may be null).
+         */
+        public void commit(String etag, String modified) {
+            if (temp == null) {return;}
+            try {
+                Files.move(temp.toPath(), body.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                this.etag = etag;
+                this.modified = modified;
+                touch();
+            } catch (IOException e) {
+                abandon();
+            }
+            temp = null;
+        }
+
+        /**
+         * Discard the new copy, leaving the cached copy as it was.
+         */
+        public void abandon() {
+            if (temp != null) {temp.delete();}
+            temp = null;
+        }
+
+        /**
+         * Write the headers of the cached copy.
+         */
+        private void save() {
+            Properties p = new Properties();
+            p.setProperty("url", url);
+            if (etag != null) {p.setProperty("etag", etag);}
+            if (modified != null) {p.setProperty("modified", modified);}
+            p.setProperty("checked", Long.toString(checked));
+            try (FileOutputStream out = new FileOutputStream(props)) {
+                p.store(out, "CandidatesCache");
+            } catch (IOException e) {
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package CandidatesList;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+/**********************************************************************************
+ * Class ListFormat reads candidates list (.lst) files saved in a compact binary
+ * format, which was used in place of Java serialisation. The file is:
+ * <pre>
+ *     header   magic "CLST" (int), version (int), candidates (int), columns (int)
+ *     strings  count (int) then each distinct string (UTF); string 0 is null
+ *     columns  each as id (short), length in bytes (int), then one value per candidate
+ * </pre>
+ * A column holds one item of every candidate: strings as indexes into the string table
+ * (variable length ints), dates and other doubles as doubles, and the yes/no flags
+ * packed into one int. The type of a column follows from its id.
+ *
+ * Columns are found by id, so a reader skips columns it does not know and leaves the
+ * candidates' defaults for columns the file does not have. Adding a column therefore
+ * does not change the version; the version changes only if an existing column changes
+ * meaning, and files of a later version are refused.
+ *
+ * The list file is now kept as a CandidateStore, which uses the same columns; this format
+ * is only read, so lists saved in it are converted when next saved.
+ *
+ * @author Tony Evans
+ */
+public class ListFormat {
+
+    public static final int magic = 0x434c5354;    // "CLST"
+    public static final int version = 1;           // Format version
+
+    // string columns
+    private static final int NAME = 1, NUMBER = 2, PROVID = 3, MPCORBID = 4, NEOCPID = 5, NEOCPDATE = 6,
+            NEOCPSCORE = 7, OPS = 8, ORBITNAME = 9, SPGPRI = 10, CLOSEDATE = 11, DVMAG = 12, UNCERTAINTY = 13,
+            PACKNO = 14, PACKDES = 15, SAO = 16;
+    static final int[] strings = {NAME, NUMBER, PROVID, MPCORBID, NEOCPID, NEOCPDATE, NEOCPSCORE, OPS,
+            ORBITNAME, SPGPRI, CLOSEDATE, DVMAG, UNCERTAINTY, PACKNO, PACKDES, SAO};
+
+    // double columns, dates as Julian dates
+    private static final int LASTOBS = 100, CLOSEDIST = 101, CLOSEMAG = 102, DIAMETER = 103, RA = 104, DEC = 105,
+            HMAG = 106, VMAG = 107, BESTALT = 108, MERIDIAN = 109, HAHRS = 110, RISE = 111, SET = 112,
+            EPOCH = 113, TT = 114, EM = 115, EI = 116, EN = 117, EW = 118, EA = 119, EE = 120, EQ = 121, EMOTION = 122;
+    static final int[] doubles = {LASTOBS, CLOSEDIST, CLOSEMAG, DIAMETER, RA, DEC, HMAG, VMAG, BESTALT,
+            MERIDIAN, HAHRS, RISE, SET, EPOCH, TT, EM, EI, EN, EW, EA, EE, EQ, EMOTION};
+
+    // float and int columns
+    private static final int MOTION = 200, PUNC = 201;
+    static final int[] floats = {MOTION, PUNC};
+    private static final int MOONANGLE = 300, ARC = 301, FLAGS = 302;
+    static final int[] ints = {MOONANGLE, ARC, FLAGS};
+
+    /**
+     * Check whether a file starts with the header of this format.
+     * @param head The first four bytes of the file.
+     * @return True if the file is in this format.
+     */
+    public static boolean isListFormat(byte[] head) {
+        return head.length >= 4 && ((head[0] & 0xff) << 24 | (head[1] & 0xff) << 16 | (head[2] & 0xff) << 8
+                | (head[3] & 0xff)) == magic;
+    }
+
+    /**
+     * Read a candidates list.
+     * @param is Stream from which the list is read (buffered by the caller).
+     * @return The candidates.
+     * @throws IOException if the stream cannot be read or is not a candidates list this version can read.
+     */
+    public static ArrayList<Candidate> read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != magic) {throw new IOException("Not a candidates list file.");}
+        int v = in.readInt();
+        if (v > version) {throw new IOException("Candidates list file version " + v + " is newer than this program.");}
+        int n = in.readInt();
+        int columns = in.readInt();
+        String[] table = new String[in.readInt()];
+        for (int x = 1; x < table.length; x++) {table[x] = in.readUTF();}
+
+        ArrayList<Candidate> list = new ArrayList<>(Math.max(n, 200));
+        for (int j = 0; j < n; j++) {list.add(new Candidate());}
+        for (int k = 0; k < columns; k++) {
+            int col = in.readShort();
+            int length = in.readInt();
+            if (col < 100) {
+                if (!known(strings, col)) {in.skipBytes(length); continue;}
+                for (Candidate c : list) {setString(c, col, table[readVar(in)]);}
+            } else if (col < 200) {
+                if (!known(doubles, col)) {in.skipBytes(length); continue;}
+                for (Candidate c : list) {setDouble(c, col, in.readDouble());}
+            } else if (col < 300) {
+                if (!known(floats, col)) {in.skipBytes(length); continue;}
+                for (Candidate c : list) {setFloat(c, col, in.readFloat());}
+            } else {
+                if (!known(ints, col)) {in.skipBytes(length); continue;}
+                for (Candidate c : list) {setInt(c, col, in.readInt());}
+            }
+        }
+        return list;
+    }
+
+    static boolean known(int[] cols, int col) {
+        for (int c : cols) {if (c == col) {return true;}}
+        return false;
+    }
+
+    static String getString(Candidate c, int col) {
+        switch (col) {
+            case NAME:        return c.name;
+            case NUMBER:      return c.number;
+            case PROVID:      return c.provId;
+            case MPCORBID:    return c.MPCORBid;
+            case NEOCPID:     return c.NEOCPid;
+            case NEOCPDATE:   return c.NEOCPdate;
+            case NEOCPSCORE:  return c.NEOCPScore;
+            case OPS:         return c.ops;
+            case ORBITNAME:   return c.orbitName;
+            case SPGPRI:      return c.spgPri;
+            case CLOSEDATE:   return c.closeDate;
+            case DVMAG:       return c.dVmag;
+            case UNCERTAINTY: return c.uncertainty;
+            case PACKNO:      return c.packNo;
+            case PACKDES:     return c.packDes;
+            default:          return c.SAO;
+        }
+    }
+
+    static void setString(Candidate c, int col, String s) {
+        switch (col) {
+            case NAME:        c.name = s; break;
+            case NUMBER:      c.number = s; break;
+            case PROVID:      c.provId = s; break;
+            case MPCORBID:    c.MPCORBid = s; break;
+            case NEOCPID:     c.NEOCPid = s; break;
+            case NEOCPDATE:   c.NEOCPdate = s; break;
+            case NEOCPSCORE:  c.NEOCPScore = s; break;
+            case OPS:         c.ops = s; break;
+            case ORBITNAME:   c.orbitName = s; break;
+            case SPGPRI:      c.spgPri = s; break;
+            case CLOSEDATE:   c.closeDate = s; break;
+            case DVMAG:       c.dVmag = s; break;
+            case UNCERTAINTY: c.uncertainty = s; break;
+            case PACKNO:      c.packNo = s; break;
+            case PACKDES:     c.packDes = s; break;
+            default:          c.SAO = s;
+        }
+    }
+
+    static double getDouble(Candidate c, int col) {
+        Candidate.Elements el = c.elements;
+        switch (col) {
+            case LASTOBS:   return c.lastObs.julian;
+            case CLOSEDIST: return c.closeDist;
+            case CLOSEMAG:  return c.closeMag;
+            case DIAMETER:  return c.diameter;
+            case RA:        return c.position.coord[0];
+            case DEC:       return c.position.coord[1];
+            case HMAG:      return c.Hmag;
+            case VMAG:      return c.Vmag;
+            case BESTALT:   return c.bestAlt;
+            case MERIDIAN:  return c.ctMeridian.julian;
+            case HAHRS:     return c.HAHrs;
+            case RISE:      return c.ctRise.julian;
+            case SET:       return c.ctSet.julian;
+            case EPOCH:     return el.Epoch.julian;
+            case TT:        return el.TT.julian;
+            case EM:        return el.M;
+            case EI:        return el.i;
+            case EN:        return el.N;
+            case EW:        return el.w;
+            case EA:        return el.a;
+            case EE:        return el.e;
+            case EQ:        return el.q;
+            default:        return el.n;
+        }
+    }
+
+    static void setDouble(Candidate c, int col, double d) {
+        Candidate.Elements el = c.elements;
+        switch (col) {
+            case LASTOBS:   c.lastObs.setDate(d); break;
+            case CLOSEDIST: c.closeDist = d; break;
+            case CLOSEMAG:  c.closeMag = d; break;
+            case DIAMETER:  c.diameter = d; break;
+            case RA:        c.position.coord[0] = d; break;
+            case DEC:       c.position.coord[1] = d; break;
+            case HMAG:      c.Hmag = d; break;
+            case VMAG:      c.Vmag = d; break;
+            case BESTALT:   c.bestAlt = d; break;
+            case MERIDIAN:  c.ctMeridian.setDate(d); break;
+            case HAHRS:     c.HAHrs = d; break;
+            case RISE:      c.ctRise.setDate(d); break;
+            case SET:       c.ctSet.setDate(d); break;
+            case EPOCH:     el.Epoch.setDate(d); break;
+            case TT:        el.TT.setDate(d); break;
+            case EM:        el.M = d; break;
+            case EI:        el.i = d; break;
+            case EN:        el.N = d; break;
+            case EW:        el.w = d; break;
+            case EA:        el.a = d; break;
+            case EE:        el.e = d; break;
+            case EQ:        el.q = d; break;
+            default:        el.n = d;
+        }
+    }
+
+    static float getFloat(Candidate c, int col) {
+        return (col == MOTION) ? c.motion : c.punc;
+    }
+
+    static void setFloat(Candidate c, int col, float f) {
+        if (col == MOTION) {c.motion = f;} else {c.punc = f;}
+    }
+
+    static int getInt(Candidate c, int col) {
+        switch (col) {
+            case MOONANGLE: return c.moonAngle;
+            case ARC:       return c.arc;
+            default:        return c.flags;
+        }
+    }
+
+    static void setInt(Candidate c, int col, int i) {
+        switch (col) {
+            case MOONANGLE: c.moonAngle = i; break;
+            case ARC:       c.arc = i; break;
+            default:        c.flags = i;
+        }
+    }
+
+    /**
+     * Variable length int: 7 bits per byte, low bits first, top bit set on all but the last byte.
+     */
+    private static int readVar(DataInputStream in) throws IOException {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7f) << shift;
+            if (b < 0x80) {return v;}
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package CandidatesList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**********************************************************************************
+ * Class MPCORBIndex maps each designation in MPCORB.DAT to the byte offset(s) of its
+ * record(s). The index is kept in a file alongside MPCORB.DAT (MPCORB.DAT.idx) and
+ * records the size and modification time of the DAT file it was built from, so it is
+ * only rebuilt when a new MPCORB.DAT is downloaded.
+ *
+ * Entries are held sorted by packed designation (see MPCORBMap.getKey) and then by
+ * offset, so a designation that appears in more than one section of MPCORB returns its
+ * records in file order.
+ *
+ * @author Tony Evans
+ */
+public class MPCORBIndex {
+
+    private static final int magic = 0x4d50434f;    // "MPCO"
+    private static final int version = 1;           // Index file format version
+
+    private long[] keys;                            // Packed designations in ascending order
+    private int[] offsets;                          // Record offsets in MPCORB.DAT
+    private int count;                              // Number of entries in use
+    private long datSize;                           // Size of MPCORB.DAT indexed
+    private long datTime;                           // Modification time of MPCORB.DAT indexed
+
+    /**
+     * Name of the index file used for an MPCORB file.
+     * @param mpcorb Path and name of MPCORB.DAT.
+     * @return Path and name of the index file.
+     */
+    public static String indexName(String mpcorb) {
+        return mpcorb + ".idx";
+    }
+
+    /**
+     * Read the index for an MPCORB file if there is one and it is up to date.
+     * @param mpcorb Path and name of MPCORB.DAT.
+     * @return The index or null if it is missing, unreadable or stale.
+     */
+    public static MPCORBIndex read(String mpcorb) {
+        File dat = new File(mpcorb);
+        File idx = new File(indexName(mpcorb));
+        if (!idx.exists()) {return null;}
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(idx), 65536))) {
+            if (in.readInt() != magic || in.readInt() != version) {return null;}
+            MPCORBIndex x = new MPCORBIndex();
+            x.datSize = in.readLong();
+            x.datTime = in.readLong();
+            if (x.datSize != dat.length() || x.datTime != dat.lastModified()) {return null;}
+            x.count = in.readInt();
+            x.keys = new long[x.count];
+            x.offsets = new int[x.count];
+            for (int k = 0; k < x.count; k++) {
+                x.keys[k] = in.readLong();
+                x.offsets[k] = in.readInt();
+            }
+            return x;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Constructor for an index read from the index file.
+     */
+    private MPCORBIndex() {
+    }
+
+    /**
+     * Constructor starts a new, empty index for an MPCORB file. Entries are added with add()
+     * as the file is scanned and the index is completed with finish().
+     * @param mpcorb Path and name of MPCORB.DAT.
+     * @param records Expected number of records.
+     */
+    public MPCORBIndex(String mpcorb, int records) {
+        File dat = new File(mpcorb);
+        datSize = dat.length();
+        datTime = dat.lastModified();
+        keys = new long[records + 16];
+        offsets = new int[keys.length];
+    }
+
+    /**
+     * Complete a new index by sorting the entries once all have been added.
+     */
+    public void finish() {
+        sort(keys, offsets, 0, count - 1);
+    }
+
+    /**
+     * Write the index file alongside MPCORB.DAT.
+     * @param mpcorb Path and name of MPCORB.DAT.
+     * @throws IOException If the index file can not be written.
+     */
+    public void write(String mpcorb) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(indexName(mpcorb)), 65536))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeLong(datSize);
+            out.writeLong(datTime);
+            out.writeInt(count);
+            for (int k = 0; k < count; k++) {
+                out.writeLong(keys[k]);
+                out.writeInt(offsets[k]);
+            }
+        }
+    }
+
+    /**
+     * Number of records indexed.
+     * @return Number of entries.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Find the record offsets for a candidate MPCORB identity.
+     * @param id Candidate MPCORB identity.
+     * @return Offsets of the matching records in file order (empty if none).
+     */
+    public int[] find(String id) {
+        long key = MPCORBMap.key(id);
+        if (key < 0) {return new int[0];}
+        // binary search for the first entry with this key
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {lo = mid + 1;} else {hi = mid;}
+        }
+        int end = lo;
+        while (end < count && keys[end] == key) {end++;}
+        int[] r = new int[end - lo];
+        System.arraycopy(offsets, lo, r, 0, r.length);
+        return r;
+    }
+
+    /**
+     * Append an entry to a new index, growing the arrays when needed.
+     * @param key Packed designation of the record.
+     * @param offset Offset of the record in MPCORB.DAT.
+     */
+    public void add(long key, int offset) {
+        if (count == keys.length) {
+            long[] k2 = new long[count*2];
+            int[] o2 = new int[count*2];
+            System.arraycopy(keys, 0, k2, 0, count);
+            System.arraycopy(offsets, 0, o2, 0, count);
+            keys = k2;
+            offsets = o2;
+        }
+        keys[count] = key;
+        offsets[count] = offset;
+        count++;
+    }
+
+    /**
+     * Quicksort parallel key and offset arrays by key then offset. MPCORB is nearly
+     * sorted already so the middle element is used as pivot.
+     * @param keys Packed designations.
+     * @param offsets Offsets (or row numbers) of the records.
+     * @param lo First entry to sort.
+     * @param hi Last entry to sort.
+     */
+    static void sort(long[] keys, int[] offsets, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long pk = keys[mid];
+            int po = offsets[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pk || (keys[i] == pk && offsets[i] < po)) {i++;}
+                while (keys[j] > pk || (keys[j] == pk && offsets[j] > po)) {j--;}
+                if (i <= j) {
+                    long tk = keys[i]; keys[i] = keys[j]; keys[j] = tk;
+                    int to = offsets[i]; offsets[i] = offsets[j]; offsets[j] = to;
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller part and loop on the larger
+            if (j - lo < hi - i) {
+                sort(keys, offsets, lo, j);
+                lo = i;
+            } else {
+                sort(keys, offsets, i, hi);
+                hi = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package CandidatesList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**********************************************************************************
+ * Class MPCORBMap gives read access to the local MPCORB.DAT file without creating a
+ * String for every record. The file is memory mapped and records are addressed by
+ * their byte offset in the mapping. The 7 character designation in columns 1-7 is
+ * compared directly in the mapped buffer and a record is only decoded into a String
+ * when it is actually needed.
+ *
+ * MPCORB.DAT has some front matter terminated by a line of dashes, then three
+ * sections of records separated by blank lines. Lines may end in LF or CR-LF.
+ *
+ * @author Tony Evans
+ */
+public class MPCORBMap implements Closeable {
+
+    public static final int idLength = 7;           // Length of the designation field
+
+    private final RandomAccessFile raf;             // The MPCORB file
+    private final MappedByteBuffer buf;             // Mapping of the whole file
+    private final int length;                       // Length of the file in bytes
+    private int start = -1;                         // Offset of the first record (-1 if no records)
+    
+    // marks a field that can not be decoded exactly, and powers of ten that are exact doubles
+    private static final long bad = Long.MIN_VALUE;
+    private static final double[] pow10 = new double[23];
+    static {
+        pow10[0] = 1;
+        for (int k = 1; k < pow10.length; k++) {pow10[k] = 10*pow10[k - 1];}
+    }
+
+    /**
+     * Constructor maps the file and locates the first record after the front matter.
+     * @param fileName Path and name of the local MPCORB.DAT.
+     * @throws IOException If the file can not be opened or is too large to map.
+     */
+    public MPCORBMap(String fileName) throws IOException {
+        raf = new RandomAccessFile(fileName, "r");
+        FileChannel ch = raf.getChannel();
+        if (ch.size() > Integer.MAX_VALUE) {
+            raf.close();
+            throw new IOException("MPCORB file is too large to map.");
+        }
+        length = (int) ch.size();
+        buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, length);
+
+        // skip over the front matter to the line after the dashes
+        int pos = 0;
+        while (pos < length) {
+            if (startsWith(pos, "---------")) {
+                start = nextLine(pos);
+                break;
+            }
+            pos = nextLine(pos);
+        }
+    }
+
+    /**
+     * Offset of the first record or -1 if the front matter was not terminated.
+     * @return Offset of first record.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Length of the mapped file.
+     * @return Length in bytes.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Find the start of the line after the one starting at pos.
+     * @param pos Offset of the start of a line.
+     * @return Offset of the start of the next line or length() at end of file.
+     */
+    public int nextLine(int pos) {
+        while (pos < length) {
+            if (buf.get(pos++) == '\n') {break;}
+        }
+        return pos;
+    }
+
+    /**
+     * Length of the line starting at pos, not counting the line terminator.
+     * @param pos Offset of the start of a line.
+     * @return Number of characters in the line.
+     */
+    public int lineLength(int pos) {
+        int p = pos;
+        while (p < length) {
+            byte b = buf.get(p);
+            if (b == '\n' || b == '\r') {break;}
+            p++;
+        }
+        return p - pos;
+    }
+
+    /**
+     * Get the designation of the record at pos packed into a long, one byte per character.
+     * Keys sort in the same order as the designations.
+     * @param pos Offset of the start of a record.
+     * @return Packed designation.
+     */
+    public long getKey(int pos) {
+        long k = 0;
+        for (int j = 0; j < idLength; j++) {k = (k << 8) | (buf.get(pos + j) & 0xff);}
+        return k;
+    }
+
+    /**
+     * Pack a candidate MPCORB identity in the same way as getKey().
+     * @param id Candidate MPCORB identity.
+     * @return Packed designation or -1 if the identity can not match a record.
+     */
+    public static long key(String id) {
+        if (id.length() != idLength) {return -1;}
+        long k = 0;
+        for (int j = 0; j < idLength; j++) {k = (k << 8) | (id.charAt(j) & 0xff);}
+        return k;
+    }
+
+    /**
+     * Unpack a designation packed by getKey() or key().
+     * @param key Packed designation.
+     * @return The 7 character MPCORB identity.
+     */
+    public static String id(long key) {
+        char[] ch = new char[idLength];
+        for (int j = idLength - 1; j >= 0; j--) {
+            ch[j] = (char) (key & 0xff);
+            key >>>= 8;
+        }
+        return new String(ch);
+    }
+
+    /**
+     * Split the records into chunks for parallel processing.
+     * @param n Number of chunks.
+     * @return n+1 offsets: chunk i runs from the i-th offset up to the next. Every offset
+     *         except the last is the start of a line.
+     */
+    public int[] split(int n) {
+        int[] b = new int[n + 1];
+        int from = Math.max(start, 0);
+        int len = length - from;
+        b[0] = from;
+        for (int i = 1; i < n; i++) {
+            b[i] = Math.max(b[i - 1], nextLine(from + (int) ((long) len*i/n)));
+        }
+        b[n] = length;
+        return b;
+    }
+
+    /**
+     * Parse a fixed-width decimal field of the record at pos, giving the same result as
+     * Util.s2d() on the same columns but without creating a String.
+     * @param pos Offset of the start of a record.
+     * @param from First column (0 based).
+     * @param to Column after the last.
+     * @param dflt Default if the field is blank or not a number.
+     * @return Value of the field.
+     */
+    public double getDouble(int pos, int from, int to, double dflt) {
+        long f = parseFixed(pos, from, to);
+        if (f == bad) {return Util.s2d(getText(pos, from, to), dflt);}
+        // the division is correctly rounded because both operands are exact doubles
+        double v = (Math.abs(f) >> 5)/pow10[(int) (Math.abs(f) & 31)];
+        return f < 0 ? -v : v;
+    }
+
+    /**
+     * Parse a fixed-width float field of the record at pos, giving the same result as
+     * Util.s2f() on the same columns but without creating a String.
+     * @param pos Offset of the start of a record.
+     * @param from First column (0 based).
+     * @param to Column after the last.
+     * @param dflt Default if the field is blank or not a number.
+     * @return Value of the field.
+     */
+    public float getFloat(int pos, int from, int to, float dflt) {
+        long f = parseFixed(pos, from, to);
+        long m = Math.abs(f) >> 5;
+        int scale = (int) (Math.abs(f) & 31);
+        if (f == bad || m >= (1 << 24) || scale > 10) {return Util.s2f(getText(pos, from, to), dflt);}
+        // correctly rounded because both operands are exact floats
+        float v = m/(float) pow10[scale];
+        return f < 0 ? -v : v;
+    }
+
+    /**
+     * Parse a fixed-width hexadecimal field of the record at pos.
+     * @param pos Offset of the start of a record.
+     * @param from First column (0 based).
+     * @param to Column after the last.
+     * @param dflt Default if the field is not hexadecimal.
+     * @return Value of the field.
+     */
+    public int getHex(int pos, int from, int to, int dflt) {
+        int v = 0;
+        for (int k = from; k < to; k++) {
+            int d = Character.digit((char) buf.get(pos + k), 16);
+            if (d < 0) {return dflt;}
+            v = 16*v + d;
+        }
+        return v;
+    }
+
+    /**
+     * Get a character from the record at pos.
+     * @param pos Offset of the start of a record.
+     * @param col Column (0 based).
+     * @return The character.
+     */
+    public char getChar(int pos, int col) {
+        return (char) (buf.get(pos + col) & 0xff);
+    }
+
+    /**
+     * Decode some columns of the record at pos into a String.
+     * @param pos Offset of the start of a record.
+     * @param from First column (0 based).
+     * @param to Column after the last.
+     * @return The text of the columns.
+     */
+    public String getText(int pos, int from, int to) {
+        char[] ch = new char[to - from];
+        for (int k = from; k < to; k++) {ch[k - from] = (char) (buf.get(pos + k) & 0xff);}
+        return new String(ch);
+    }
+
+    /**
+     * Decode the record at pos into a String.
+     * @param pos Offset of the start of a record.
+     * @return The record without its line terminator.
+     */
+    public String getLine(int pos) {
+        int n = lineLength(pos);
+        char[] ch = new char[n];
+        for (int k = 0; k < n; k++) {ch[k] = (char) (buf.get(pos + k) & 0xff);}
+        return new String(ch);
+    }
+
+    /**
+     * Column of the first non-blank character in a field, or to if it is all blank.
+     */
+    private int skipBlanks(int pos, int from, int to) {
+        while (from < to && buf.get(pos + from) == ' ') {from++;}
+        return from;
+    }
+
+    /**
+     * Parse a field of the form [blanks][sign]digits[.digits][blanks]. The digits are returned
+     * as an integer m with the number of decimal places d, packed as +/-(m*32 + d), or bad
+     * if the field has some other form or too many digits to be decoded exactly.
+     */
+    private long parseFixed(int pos, int from, int to) {
+        long m = 0;
+        int scale = -1;
+        int digits = 0;
+        boolean neg = false;
+        int k = skipBlanks(pos, from, to);
+        if (k < to && (buf.get(pos + k) == '-' || buf.get(pos + k) == '+')) {neg = buf.get(pos + k++) == '-';}
+        for (; k < to; k++) {
+            int b = buf.get(pos + k);
+            if (b >= '0' && b <= '9') {
+                m = 10*m + b - '0';
+                digits++;
+                if (scale >= 0) {scale++;}
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0 || digits > 15 || scale > 22 || skipBlanks(pos, k, to) < to) {return bad;}
+        long f = m*32 + Math.max(scale, 0);
+        return neg ? -f : f;
+    }
+
+    /**
+     * Check if the line at pos starts with a particular text.
+     */
+    private boolean startsWith(int pos, String s) {
+        if (pos + s.length() > length) {return false;}
+        for (int k = 0; k < s.length(); k++) {
+            if (buf.get(pos + k) != s.charAt(k)) {return false;}
+        }
+        return true;
+    }
+
+    /**
+     * Close the file. The mapping itself is released when it is garbage collected.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+}
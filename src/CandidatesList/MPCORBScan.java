@@ -0,0 +1,133 @@
+package CandidatesList;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**********************************************************************************
+ * Class MPCORBScan is one chunk of a parallel scan of the mapped MPCORB.DAT file. The
+ * file is split at line boundaries into one chunk per processor and the chunks are run
+ * in the shared fork-join pool. Each chunk probes the designation table for every
+ * record, decodes the records that match and collects index entries for its part of
+ * the file.
+ *
+ * Candidates are not updated by the chunks themselves because a designation can appear
+ * in more than one section of MPCORB. The caller applies the matched records chunk by
+ * chunk so that updates happen in file order, as they would in a sequential scan.
+ *
+ * @author Tony Evans
+ */
+public class MPCORBScan extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final MPCORBMap map;            // The mapped MPCORB file
+    private final DesignationTable table;   // Candidates to be matched
+    private final int from;                 // Offset of the first line of this chunk
+    private final int to;                   // Offset after the last line of this chunk
+    private final Scanner scanner;          // Scanner to which progress is reported (may be null)
+    private final AtomicLong done;          // Bytes scanned by all chunks
+
+    // index entries for this chunk
+    public long[] keys;
+    public int[] offsets;
+    public int count = 0;
+
+    // matched records for this chunk: candidate handle in the table and decoded record
+    public int[] matched = new int[16];
+    public String[] lines = new String[16];
+    public int nMatched = 0;
+
+    /**
+     * Constructor defines a chunk.
+     */
+    private MPCORBScan(MPCORBMap map, DesignationTable table, int from, int to, Scanner scanner, AtomicLong done) {
+        this.map = map;
+        this.table = table;
+        this.from = from;
+        this.to = to;
+        this.scanner = scanner;
+        this.done = done;
+        keys = new long[(to - from)/200 + 16];
+        offsets = new int[keys.length];
+    }
+
+    /**
+     * Split the records of a mapped MPCORB file into chunks at line boundaries.
+     * @param map The mapped MPCORB file.
+     * @param table Candidates to be matched.
+     * @param n Number of chunks.
+     * @param scanner Scanner to which progress is reported (may be null).
+     * @return The chunks, in file order.
+     */
+    public static MPCORBScan[] split(MPCORBMap map, DesignationTable table, int n, Scanner scanner) {
+        MPCORBScan[] chunks = new MPCORBScan[n];
+        AtomicLong done = new AtomicLong();
+        int[] b = map.split(n);
+        for (int i = 0; i < n; i++) {chunks[i] = new MPCORBScan(map, table, b[i], b[i + 1], scanner, done);}
+        return chunks;
+    }
+
+    /**
+     * Scan the lines of this chunk.
+     */
+    @Override
+    protected void compute() {
+        int pos = from;
+        int reported = from;
+        while (pos < to) {
+            if (map.lineLength(pos) >= MPCORBMap.idLength) {
+                long key = map.getKey(pos);
+                addKey(key, pos);
+                for (int k = table.find(key); k >= 0; k = table.next(k)) {addMatch(k, map.getLine(pos));}
+            }
+            pos = map.nextLine(pos);
+            // report progress about every megabyte
+            if (pos - reported > 1000000) {
+                report(pos - reported);
+                reported = pos;
+            }
+        }
+        report(pos - reported);
+    }
+
+    /**
+     * Add the bytes scanned to the total and update the scanner progress.
+     */
+    private void report(int bytes) {
+        long total = done.addAndGet(bytes);
+        if (scanner != null) {scanner.doProgress((int) (100L*total/map.length()));}
+    }
+
+    /**
+     * Record an index entry.
+     */
+    private void addKey(long key, int pos) {
+        if (count == keys.length) {
+            long[] k2 = new long[count*2];
+            int[] o2 = new int[count*2];
+            System.arraycopy(keys, 0, k2, 0, count);
+            System.arraycopy(offsets, 0, o2, 0, count);
+            keys = k2;
+            offsets = o2;
+        }
+        keys[count] = key;
+        offsets[count] = pos;
+        count++;
+    }
+
+    /**
+     * Record a matched candidate and its decoded record.
+     */
+    private void addMatch(int k, String line) {
+        if (nMatched == matched.length) {
+            int[] m2 = new int[nMatched*2];
+            String[] l2 = new String[nMatched*2];
+            System.arraycopy(matched, 0, m2, 0, nMatched);
+            System.arraycopy(lines, 0, l2, 0, nMatched);
+            matched = m2;
+            lines = l2;
+        }
+        matched[nMatched] = k;
+        lines[nMatched] = line;
+        nMatched++;
+    }
+}
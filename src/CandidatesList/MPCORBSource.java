@@ -0,0 +1,109 @@
+package CandidatesList;
+
+import java.io.IOException;
+
+/**********************************************************************************
+ * Class MPCORBSource looks up the candidates in the local MPCORB.DAT file and updates
+ * object characteristics. It downloads nothing, so all its work is done in merge().
+ *
+ * If MPCORB has been imported, the orbits are read from the binary orbit cache.
+ * Otherwise the file is memory mapped and each candidate's records are found through
+ * the designation index kept alongside it. If MPCORB.DAT has changed since the index
+ * was made, the file is instead scanned once in parallel chunks, hash-joining every
+ * record against the candidates while a new index is collected.
+ *
+ * @author Tony Evans
+ */
+public class MPCORBSource extends AbstractSource {
+
+    /**
+     * Constructor describes the source.
+     */
+    public MPCORBSource() {
+        super("MPCORB", 90, 0);
+    }
+
+    @Override
+    public int merge(Scanner s) throws IOException {
+        CandidatesFile candidatesFile = s.getFile();
+        String MPCOrbFile = s.getMPC();
+
+       /* quit if nothing in the list or no MPCORB file */
+        if (candidatesFile.cList.isEmpty()) {
+            s.doPublish("MPCORB Scan failed - no objects to process.");
+            return 0;}
+        if (MPCOrbFile.isEmpty()) {
+            s.doPublish("MPCORB Scan failed - no local MPCORB file defined");
+            return 0;}
+
+        int count = 0;
+        s.doProgress(0);
+
+       /* if MPCORB has been imported into the orbit cache read the candidates' orbits from there */
+        try (OrbitCache cache = OrbitCache.open(MPCOrbFile)) {
+            if (cache != null) {
+                s.doPublish("Looking up candidates in MPCORB orbit cache....");
+                int n = 0;
+                for (Candidate c : candidatesFile.cList) {
+                    s.doProgress(100*n++/candidatesFile.cList.size());
+                    int row = cache.find(c.MPCORBid);
+                    if (row < 0) {continue;}
+                    long key = cache.getKey(row);
+                    for (; row < cache.size() && cache.getKey(row) == key; row++) {
+                        cache.update(row, c);
+                        count++;
+                    }
+                }
+                s.doPublish(count + " objects updated from MPCORB.\n");
+                return count;
+            }
+        }
+
+       /* map the MPCORB input file, front matter is skipped by the mapping */
+        try (MPCORBMap map = new MPCORBMap(MPCOrbFile)) {
+            if (map.getStart() < 0) {return 0;}
+
+           /* if the designation index is up to date look up each candidate and decode only its own records */
+            MPCORBIndex index = MPCORBIndex.read(MPCOrbFile);
+            if (index != null) {
+                s.doPublish("Looking up candidates in local MPCORB....");
+                int n = 0;
+                for (Candidate c : candidatesFile.cList) {
+                    s.doProgress(100*n++/candidatesFile.cList.size());
+                    for (int pos : index.find(c.MPCORBid)) {
+                        Scanner.doUpdate(map.getLine(pos), c);
+                        count++;
+                    }
+                }
+                s.doPublish(count + " objects updated from MPCORB.\n");
+                return count;
+            }
+
+           /* otherwise scan the whole file once, in parallel chunks, matching and indexing every record */
+            s.doPublish("Scanning and indexing local MPCORB....");
+            DesignationTable table = new DesignationTable(candidatesFile.cList);
+            MPCORBScan[] chunks = MPCORBScan.split(map, table, Util.pool.getParallelism(), s);
+            for (MPCORBScan chunk : chunks) {Util.pool.execute(chunk);}
+
+           /* collect the index entries and apply the matched records in file order */
+            index = new MPCORBIndex(MPCOrbFile, map.length()/200);
+            for (MPCORBScan chunk : chunks) {
+                chunk.join();
+                for (int j = 0; j < chunk.count; j++) {index.add(chunk.keys[j], chunk.offsets[j]);}
+                for (int j = 0; j < chunk.nMatched; j++) {
+                    Scanner.doUpdate(chunk.lines[j], table.get(chunk.matched[j]));
+                    count++;
+                }
+            }
+            index.finish();
+            try {
+                index.write(MPCOrbFile);
+            } catch (IOException ex) {
+                s.doPublish("Unable to save MPCORB index: " + ex.getMessage());
+            }
+            s.doPublish(index.size() + " MPCORB records indexed.");
+        }
+        s.doPublish(count + " objects updated from MPCORB.\n");
+        return count;
+    }
+}
@@ -53,7 +53,7 @@ public class MPCQueryDetail {
         int count = 0;
         for (int i=0; i<cTable.getRowCount(); i++) {
             Candidate c = (Candidate) cTable.getValueAt(i, 0);
-            if ((!c.NEOCP) && ((Boolean)cTable.getValueAt(i,1))) {
+            if ((!c.is(Candidate.fNEOCP)) && ((Boolean)cTable.getValueAt(i,1))) {
                  query+=c.MPCORBid.trim()+separator;
                  if (15<count++) {break;}
             }
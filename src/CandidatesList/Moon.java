@@ -96,6 +96,17 @@ public class Moon {
         return phase;
     }
     
+    /**
+     * Calculate the topocentric position of the Moon at date-time d.
+     * @param d DateTime of observation.
+     * @param obs Observatory.
+     * @return RA and Dec of the Moon.
+     */
+    public SphCoordinate getPosition(DateTime d, Observatories obs) {
+        doCoords(d, obs);
+        return position;
+    }
+    
     /**
      * Calculate the angular distance between the Moon and an object at p at date-time d.
      * @param p Coordinates of object.
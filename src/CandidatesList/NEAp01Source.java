@@ -0,0 +1,54 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class NEAp01Source reads the NEAp01.txt file and updates the latest NEOs with
+ * characteristics. The main objective is to get current epoch orbital elements (etc)
+ * for recent discoveries. The records are keyed as they are parsed and hash-joined
+ * against the candidates in one pass when merged. It comes after the local MPCORB
+ * lookup so its more recent orbits take precedence.
+ *
+ * @author Tony Evans
+ */
+public class NEAp01Source extends AbstractSource {
+
+    private final List<String> lines = new ArrayList<>();  // MPCORB format records
+    private long[] keys = new long[1024];                  // and their designation keys
+
+    /**
+     * Constructor describes the source.
+     */
+    public NEAp01Source() {
+        super("NEAp01", 100, 3600, "https://www.minorplanetcenter.net/iau/MPCORB/NEAp01.txt");
+    }
+
+    @Override
+    public void parse(int file, String neo) {
+        if (lines.size() == keys.length) {
+            long[] k2 = new long[2*keys.length];
+            System.arraycopy(keys, 0, k2, 0, keys.length);
+            keys = k2;
+        }
+        keys[lines.size()] = DesignationTable.lineKey(neo);
+        lines.add(neo);
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count =0;
+
+       /* build the designation table and run each NEAp01 record against it */
+        DesignationTable table = new DesignationTable(s.getFile().cList);
+        for (int j = 0; j < lines.size(); j++) {
+            for (int k = table.find(keys[j]); k >= 0; k = table.next(k)) {
+                Scanner.doUpdate(lines.get(j), table.get(k));
+                count++;
+            }
+        }
+        s.doPublish(count + " objects updated.\n");
+        s.doProgress(99);
+        return count;
+    }
+}
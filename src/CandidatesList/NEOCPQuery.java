@@ -48,7 +48,7 @@ public class NEOCPQuery {
         int count = 0;
         for (int i=0; i<cTable.getRowCount(); i++) {
             Candidate c = (Candidate) cTable.getValueAt(i, 0);
-            if ((c.NEOCP) && ((Boolean)cTable.getValueAt(i,1))) {
+            if ((c.is(Candidate.fNEOCP)) && ((Boolean)cTable.getValueAt(i,1))) {
                  query+="&obj="+c.name;
                  if (15<count++) {break;}
             }
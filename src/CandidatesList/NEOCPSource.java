@@ -0,0 +1,78 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class NEOCPSource reads the NEOCP text page from the MPC and adds every object
+ * within the magnitude limit.
+ *
+ * @author Tony Evans
+ */
+public class NEOCPSource extends AbstractSource {
+
+    private final List<Row> rows = new ArrayList<>();   // Objects parsed
+
+    /**
+     * Constructor describes the source. The NEOCP changes constantly so it is always checked.
+     */
+    public NEOCPSource() {
+        super("NEOCP", 10, 0, "https://www.minorplanetcenter.net/iau/NEO/neocp.txt");
+    }
+
+    @Override
+    public void parse(int file, String tkn) {
+        Row r = new Row();
+        r.v = Util.s2f(tkn.substring(43,47),999);
+        r.name = tkn.substring(0,8).trim();
+        r.score = tkn.substring(8,12);
+        r.orbit = "NEOCP" + tkn.substring(79,82)+" obs in arc "+ tkn.substring(84,89) + "°";
+        r.ra = 15*Math.toRadians(Util.s2f(tkn.substring(26,33),999));
+        r.dec = Math.toRadians(Util.s2f(tkn.substring(34,42),999));
+        r.H = Util.s2f(tkn.substring(90,94),99);
+
+       /* extract and date added or updated */
+        String dt = tkn.substring(48,70);
+        dt=dt.replace("Added","A");
+        dt=dt.replace("Updated", "U");
+        dt=dt.replace("UT","");
+        dt=dt.replace(" ", "");
+        r.date = dt;
+        rows.add(r);
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count = 0;
+        for (Row r : rows) {
+           /* if V mag within limit: */
+            if (!(r.v>s.getLimit())) {
+                Candidate c = s.getFile().find(r.name,true);
+                c.NEOCPScore = r.score;
+                c.NEOCPid = r.name;
+                c.ops = "";
+                c.uncertainty = "~";
+                c.orbitName = r.orbit;
+                c.position.coord[0] = r.ra;
+                c.position.coord[1] = r.dec;
+                c.NEOCPdate = r.date;
+                c.Vmag = r.v;
+                c.Hmag = r.H;
+                c.set(Candidate.fNEOCP, true);
+                c.MPCORBid="";
+                count++;
+            }
+        }
+        s.doPublish(count + " objects updated or added.\n");
+        return count;
+    }
+
+    /**
+     * Row is one object on the NEOCP.
+     */
+    private static class Row {
+        String name, score, orbit, date;
+        float v, H;
+        double ra, dec;
+    }
+}
@@ -128,10 +128,13 @@ public class Observatories {
      * specified date-time dt. (from Boulet 2.4 but using radians). 
      */
     public double getLMST(DateTime dt) {
-        double J0 =  0.5+Math.floor(dt.julian-0.5);
+        return getLMST(dt.julian);
+    }
+    public double getLMST(double julian) {
+        double J0 =  0.5+Math.floor(julian-0.5);
         double J = (J0 - 2451545.0)/36525;
         double GMST0 = (1.75336856 + 628.3319705*J + 6.77071E-06 * J*J);
-        double GMST = (GMST0 +6.300388097*((dt.julian+0.5)%1));
+        double GMST = (GMST0 +6.300388097*((julian+0.5)%1));
         double LMST = (GMST + position.coord[0])%pi2;
         return LMST;
     }
@@ -156,11 +159,24 @@ public class Observatories {
      */
     public SphCoordinate getTopocentric(SphCoordinate equatorial, DateTime dt, double distance) {
         SphCoordinate topocentric = new SphCoordinate();
-        double parallax = (4.26345E-5)/distance;
-        double ha = getLMST(dt) - equatorial.coord[0];
-        topocentric.coord[0]=equatorial.coord[0]-parallax*distance*gCos*Math.sin(ha)/Math.cos(equatorial.coord[1]);
-        topocentric.coord[1]=equatorial.coord[1]-parallax*distance*(gSin*Math.cos(equatorial.coord[1])
-                -gCos*Math.cos(ha)*Math.sin(equatorial.coord[1]));
+        toTopocentric(equatorial.coord[0], equatorial.coord[1], getLMST(dt), distance, topocentric.coord);
         return topocentric;
     }
+    
+    /**
+     * As getTopocentric but for a known sidereal time and without creating a coordinate, for use 
+     * where many positions are calculated for the same moment.
+     * @param ra Geocentric RA (radians).
+     * @param dec Geocentric Dec (radians).
+     * @param lmst Local mean sidereal time (radians) from getLMST.
+     * @param distance Distance of object from geocentre.
+     * @param topocentric Array in which topocentric RA and Dec (radians) are returned.
+     */
+    public void toTopocentric(double ra, double dec, double lmst, double distance, double[] topocentric) {
+        double parallax = (4.26345E-5)/distance;
+        double ha = lmst - ra;
+        topocentric[0]=ra-parallax*distance*gCos*Math.sin(ha)/Math.cos(dec);
+        topocentric[1]=dec-parallax*distance*(gSin*Math.cos(dec)
+                -gCos*Math.cos(ha)*Math.sin(dec));
+    }
 }
@@ -0,0 +1,419 @@
+package CandidatesList;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**********************************************************************************
+ * Class OrbitCache is a compact binary copy of the orbit data in MPCORB.DAT that the
+ * Scanner uses. It is made by an import step that decodes every record of MPCORB.DAT
+ * once (in parallel) and is kept alongside it as MPCORB.DAT.orb. While MPCORB.DAT is
+ * unchanged, refreshes read the decoded values from the cache instead of parsing the
+ * fixed-width text again.
+ *
+ * The file is columnar. After a header there is one column per item in the order:
+ * <pre>
+ *     key (long)  epoch, M, w, N, i, e, n, a (double)  H (float)  bits, opps (short)  U (byte)
+ * </pre>
+ * Rows are sorted by packed designation (see MPCORBMap.getKey) and then by file order,
+ * so the key column also serves as the index. Angles are in radians and the epoch is
+ * a Julian date, exactly as Scanner.doUpdate() would set them.
+ *
+ * @author Tony Evans
+ */
+public class OrbitCache implements Closeable {
+
+    private static final int magic = 0x4f524243;    // "ORBC"
+    private static final int version = 1;           // Cache file format version
+    private static final int header = 32;           // Bytes in the header
+    private static final int nDouble = 8;           // Number of double columns
+
+    // column numbers of the double columns
+    public static final int EPOCH = 0;
+    public static final int M = 1;
+    public static final int W = 2;
+    public static final int N = 3;
+    public static final int I = 4;
+    public static final int E = 5;
+    public static final int MOTION = 6;
+    public static final int A = 7;
+
+    private final RandomAccessFile raf;             // The cache file
+    private final MappedByteBuffer buf;             // Mapping of the cache file
+    private final int count;                        // Number of rows
+    private final int hBase, bitsBase, oppsBase, uBase; // Offsets of the narrow columns
+
+    // characters used in MPC packed dates
+    private static final String charset = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * Constructor maps an existing cache file and checks that it is a cache of this version
+     * long enough for the rows its header counts. The file is closed if it is not.
+     */
+    private OrbitCache(File f) throws IOException {
+        raf = new RandomAccessFile(f, "r");
+        try {
+            buf = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buf.capacity() < header || buf.getInt(0) != magic || buf.getInt(4) != version) {
+                throw new IOException("Not an orbit cache file.");}
+            count = buf.getInt(24);
+            long end = header + (long) count*(8*(1 + nDouble) + 4 + 2 + 2 + 1);
+            if (count < 0 || end > buf.capacity()) {throw new IOException("Orbit cache file is damaged.");}
+            hBase = header + 8*count*(1 + nDouble);
+            bitsBase = hBase + 4*count;
+            oppsBase = bitsBase + 2*count;
+            uBase = oppsBase + 2*count;
+        } catch (IOException | RuntimeException ex) {
+            raf.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Name of the cache file used for an MPCORB file.
+     * @param mpcorb Path and name of MPCORB.DAT.
+     * @return Path and name of the cache file.
+     */
+    public static String cacheName(String mpcorb) {
+        return mpcorb + ".orb";
+    }
+
+    /**
+     * Open the cache for an MPCORB file if it has been imported and is up to date.
+     * @param mpcorb Path and name of MPCORB.DAT.
+     * @return The cache or null if it is missing, unreadable or stale.
+     */
+    public static OrbitCache open(String mpcorb) {
+        File dat = new File(mpcorb);
+        File f = new File(cacheName(mpcorb));
+        if (!f.exists()) {return null;}
+        try {
+            OrbitCache oc = new OrbitCache(f);
+            if (oc.buf.getLong(8) != dat.length() || oc.buf.getLong(16) != dat.lastModified()) {
+                oc.close();
+                return null;
+            }
+            return oc;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Import a mapped MPCORB file into a new cache file. The records are decoded in parallel
+     * chunks on the shared fork-join pool.
+     * @param mpcorb Path and name of MPCORB.DAT.
+     * @param map The mapped MPCORB file.
+     * @param s Scanner to which progress is reported (may be null).
+     * @return Number of records imported.
+     * @throws IOException If the cache file can not be written.
+     */
+    public static int importFile(String mpcorb, MPCORBMap map, Scanner s) throws IOException {
+        File dat = new File(mpcorb);
+
+        // decode the records in parallel chunks
+        int n = Util.pool.getParallelism();
+        int[] b = map.split(n);
+        AtomicLong done = new AtomicLong();
+        Chunk[] chunks = new Chunk[n];
+        for (int k = 0; k < n; k++) {
+            chunks[k] = new Chunk(map, b[k], b[k + 1], s, done);
+            Util.pool.execute(chunks[k]);
+        }
+        int total = 0;
+        for (Chunk c : chunks) {
+            c.join();
+            total += c.count;
+        }
+
+        // sort the rows by key then file order, keeping track of chunk and row within chunk
+        long[] keys = new long[total];
+        int[] rows = new int[total];
+        int[] chunkStart = new int[n];
+        int r = 0;
+        for (int k = 0; k < n; k++) {
+            chunkStart[k] = r;
+            for (int j = 0; j < chunks[k].count; j++) {
+                keys[r] = chunks[k].keys[j];
+                rows[r] = r;
+                r++;
+            }
+        }
+        MPCORBIndex.sort(keys, rows, 0, total - 1);
+        int[] chunkOf = new int[total];
+        for (int k = 0; k < n; k++) {
+            int end = k + 1 < n ? chunkStart[k + 1] : total;
+            for (int j = chunkStart[k]; j < end; j++) {chunkOf[j] = k;}
+        }
+
+        // write the header and then each column in sorted order
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(cacheName(mpcorb)), 1 << 20))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeLong(dat.length());
+            out.writeLong(dat.lastModified());
+            out.writeInt(total);
+            out.writeInt(0);
+            for (int j = 0; j < total; j++) {out.writeLong(keys[j]);}
+            for (int d = 0; d < nDouble; d++) {
+                for (int j = 0; j < total; j++) {
+                    int row = rows[j];
+                    Chunk c = chunks[chunkOf[row]];
+                    out.writeDouble(c.values[d][row - chunkStart[chunkOf[row]]]);
+                }
+            }
+            for (int j = 0; j < total; j++) {
+                int row = rows[j];
+                out.writeFloat(chunks[chunkOf[row]].H[row - chunkStart[chunkOf[row]]]);
+            }
+            for (int j = 0; j < total; j++) {
+                int row = rows[j];
+                out.writeShort(chunks[chunkOf[row]].bits[row - chunkStart[chunkOf[row]]]);
+            }
+            for (int j = 0; j < total; j++) {
+                int row = rows[j];
+                out.writeShort(chunks[chunkOf[row]].opps[row - chunkStart[chunkOf[row]]]);
+            }
+            for (int j = 0; j < total; j++) {
+                int row = rows[j];
+                out.writeByte(chunks[chunkOf[row]].U[row - chunkStart[chunkOf[row]]]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Number of orbits in the cache.
+     * @return Row count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Find the first row for a candidate MPCORB identity. Further rows for the same identity,
+     * if any, follow it.
+     * @param id Candidate MPCORB identity.
+     * @return Row number or -1 if the identity is not in the cache.
+     */
+    public int find(String id) {
+        long key = MPCORBMap.key(id);
+        if (key < 0) {return -1;}
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (getKey(mid) < key) {lo = mid + 1;} else {hi = mid;}
+        }
+        return (lo < count && getKey(lo) == key) ? lo : -1;
+    }
+
+    /**
+     * Packed designation of a row.
+     * @param row Row number.
+     * @return Packed designation.
+     */
+    public long getKey(int row) {
+        return buf.getLong(header + 8*row);
+    }
+
+    /**
+     * One of the double columns (EPOCH, M, W, N, I, E, MOTION, A) of a row.
+     * @param col Column.
+     * @param row Row number.
+     * @return Value.
+     */
+    public double get(int col, int row) {
+        return buf.getDouble(header + 8*count*(1 + col) + 8*row);
+    }
+
+    /**
+     * Copy a whole double column, for bulk processing of the catalogue.
+     * @param col Column (EPOCH, M, W, N, I, E, MOTION or A).
+     * @return Values for every row.
+     */
+    public double[] getColumn(int col) {
+        double[] v = new double[count];
+        ByteBuffer b = buf.duplicate();
+        b.position(header + 8*count*(1 + col));
+        b.asDoubleBuffer().get(v);
+        return v;
+    }
+
+    /**
+     * Absolute magnitude of a row.
+     * @param row Row number.
+     * @return H.
+     */
+    public float getH(int row) {
+        return buf.getFloat(hBase + 4*row);
+    }
+
+    /**
+     * Orbit type and flag bits of a row.
+     * @param row Row number.
+     * @return Bits from columns 162-165 of MPCORB.
+     */
+    public int getBits(int row) {
+        return buf.getShort(bitsBase + 2*row) & 0xffff;
+    }
+
+    /**
+     * Number of oppositions of a row.
+     * @param row Row number.
+     * @return Oppositions, or -1 if not given.
+     */
+    public int getOpps(int row) {
+        return buf.getShort(oppsBase + 2*row);
+    }
+
+    /**
+     * Uncertainty parameter of a row.
+     * @param row Row number.
+     * @return U.
+     */
+    public char getU(int row) {
+        return (char) (buf.get(uBase + row) & 0xff);
+    }
+
+    /**
+     * Update a candidate from a row, as Scanner.doUpdate() would from the MPCORB record.
+     * @param row Row number.
+     * @param c Candidate to which this orbit refers.
+     */
+    public void update(int row, Candidate c) {
+        Scanner.setOrbit(c, getH(row), getU(row), getOpps(row) == 1, getBits(row), get(EPOCH, row),
+                get(M, row), get(W, row), get(I, row), get(E, row), get(A, row), get(N, row), get(MOTION, row));
+    }
+
+    /**
+     * Close the cache file.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    /**
+     * Chunk is one part of the import, decoding the records between two offsets of MPCORB.DAT
+     * into column arrays.
+     */
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final MPCORBMap map;
+        private final int from, to;
+        private final Scanner scanner;
+        private final AtomicLong done;
+        private final DateTime dt = new DateTime();
+
+        long[] keys;
+        double[][] values;
+        float[] H;
+        short[] bits;
+        short[] opps;
+        byte[] U;
+        int count = 0;
+
+        Chunk(MPCORBMap map, int from, int to, Scanner scanner, AtomicLong done) {
+            this.map = map;
+            this.from = from;
+            this.to = to;
+            this.scanner = scanner;
+            this.done = done;
+            allocate((to - from)/200 + 16);
+        }
+
+        @Override
+        protected void compute() {
+            int pos = from;
+            int reported = from;
+            while (pos < to) {
+                // records without the orbit type bits can not be decoded
+                if (map.lineLength(pos) >= 165) {
+                    if (count == keys.length) {allocate(2*count);}
+                    decode(pos, count++);
+                }
+                pos = map.nextLine(pos);
+                if (pos - reported > 1000000) {
+                    report(pos - reported);
+                    reported = pos;
+                }
+            }
+            report(pos - reported);
+        }
+
+        /**
+         * Decode the record at pos into row j of the columns, using the same defaults as doUpdate().
+         */
+        private void decode(int pos, int j) {
+            keys[j] = map.getKey(pos);
+            H[j] = map.getFloat(pos, 8, 13, 99);
+            U[j] = (byte) map.getChar(pos, 105);
+            opps[j] = (short) Math.round(map.getDouble(pos, 123, 126, -1));
+            bits[j] = (short) map.getHex(pos, 161, 165, 0);
+
+            // packed epoch: century letter, 2 digit year, month and day as characters
+            int yy = 0;
+            char cent = map.getChar(pos, 20);
+            if (cent == 'I') {yy = 1800;}
+            if (cent == 'J') {yy = 1900;}
+            if (cent == 'K') {yy = 2000;}
+            yy += (int) map.getDouble(pos, 21, 23, 0);
+            dt.setDate(charset.indexOf(map.getChar(pos, 24)), charset.indexOf(map.getChar(pos, 23)), yy);
+            values[EPOCH][j] = dt.julian;
+
+            values[M][j] = Math.toRadians(map.getDouble(pos, 26, 35, 0));
+            values[W][j] = Math.toRadians(map.getDouble(pos, 37, 46, 0));
+            values[I][j] = Math.toRadians(map.getDouble(pos, 59, 68, 0));
+            values[E][j] = map.getDouble(pos, 70, 79, 0.5);
+            values[A][j] = map.getDouble(pos, 92, 103, 1);
+            values[N][j] = Math.toRadians(map.getDouble(pos, 48, 57, 0));
+            values[MOTION][j] = Math.toRadians(map.getDouble(pos, 80, 91, 0));
+        }
+
+        /**
+         * Grow the column arrays.
+         */
+        private void allocate(int size) {
+            long[] k2 = new long[size];
+            double[][] v2 = new double[nDouble][size];
+            float[] h2 = new float[size];
+            short[] b2 = new short[size];
+            short[] o2 = new short[size];
+            byte[] u2 = new byte[size];
+            if (keys != null) {
+                System.arraycopy(keys, 0, k2, 0, count);
+                for (int d = 0; d < nDouble; d++) {System.arraycopy(values[d], 0, v2[d], 0, count);}
+                System.arraycopy(H, 0, h2, 0, count);
+                System.arraycopy(bits, 0, b2, 0, count);
+                System.arraycopy(opps, 0, o2, 0, count);
+                System.arraycopy(U, 0, u2, 0, count);
+            }
+            keys = k2;
+            values = v2;
+            H = h2;
+            bits = b2;
+            opps = o2;
+            U = u2;
+        }
+
+        /**
+         * Add the bytes decoded to the total and update the scanner progress.
+         */
+        private void report(int bytes) {
+            long total = done.addAndGet(bytes);
+            if (scanner != null) {scanner.doProgress((int) (100L*total/map.length()));}
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class PCCPSource reads the PCCP text page from the MPC. The NEOCP text file includes
+ * the PCCP identifiers but they need to be marked as comets from the PCCP list.
+ *
+ * @author Tony Evans
+ */
+public class PCCPSource extends AbstractSource {
+
+    private final List<String> names = new ArrayList<>();  // Objects parsed
+    private final List<Float> vmags = new ArrayList<>();   // and their V magnitudes
+
+    /**
+     * Constructor describes the source. The PCCP changes constantly so it is always checked.
+     */
+    public PCCPSource() {
+        super("PCCP", 20, 0, "https://www.minorplanetcenter.net/iau/NEO/pccp.txt");
+    }
+
+    @Override
+    public void parse(int file, String tkn) {
+        vmags.add(Util.s2f(tkn.substring(43,47),999));
+        names.add(tkn.substring(0,8).trim());
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count = 0;
+        for (int k = 0; k < names.size(); k++) {
+            /* set PCCP flag */
+            if (!(vmags.get(k)>s.getLimit())) {
+                Candidate c = s.getFile().find(names.get(k),true);
+                c.set(Candidate.fComet, true);
+                count++;
+            }
+        }
+        s.doPublish(count + " objects updated or added.\n");
+        return count;
+    }
+}
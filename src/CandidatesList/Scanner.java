@@ -1,24 +1,27 @@
 package CandidatesList;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.StringTokenizer;
-import javax.net.ssl.HttpsURLConnection;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.swing.JTextArea;
 import javax.swing.SwingWorker;
 
 /****************************************************************************************
  * Class Scanner executes as a swingWorker to download each of the sources of information
- *   using an execution thread separate from the GUI. It can obtain candidates from:
+ *   using an execution thread separate from the GUI. Each source is a CandidateSource found
+ *   with ServiceLoader (see CandidateSource). It can obtain candidates from:
  *
  *             Dates of Last Observation of Unusual Minor Planets list(inc NEOs)
  *             Dates of Last Observation of Distant Objects list
@@ -28,6 +31,7 @@ import javax.swing.SwingWorker;
  *
  *          The Scanner will also:
  *             Extract object and orbit type information from the local MPCORB.DAT file
+ *             Import the local MPCORB.DAT file into a binary orbit cache
  *             Download and extract object and orbit type information from the NEAp01.txt file.
  *
  *          Progress as a percentage of each download or scan is published
@@ -51,22 +55,11 @@ import javax.swing.SwingWorker;
     public final static int Critlist =  12;
     public final static int Desire =    13;
     public final static int Sormano =   14;
+    public final static int Import =    15;
+    public final static int Sweep =     16;
 
-      // web addresses of the sources
-    private final static String NEOsList =    "https://www.minorplanetcenter.net/iau/NEO/LastObsNEO.txt";
-    private final static String NEOCPList =   "https://www.minorplanetcenter.net/iau/NEO/neocp.txt";
-    private final static String PCCPList =    "https://www.minorplanetcenter.net/iau/NEO/pccp.txt";
-    private final static String UnusualsList ="https://www.minorplanetcenter.net/iau/lists/LastUnusual.html";
-    private final static String DistantList = "https://www.minorplanetcenter.net/iau/TNO/LastObsTNO.html";
-    private final static String NEOOrb =      "https://www.minorplanetcenter.net/iau/MPCORB/NEAp01.txt";
-    private final static String SormanoTxt =  "http://www.brera.mi.astro.it/sormano/Observable.txt";
-      
-      // ESA file grabber addresses
-    private final static String Baseurl =     "https://neo.ssa.esa.int/PSDB-portlet/download?file=";
-    private final static String RiskList =    "esa_risk_list";
-    private final static String PriList =     "esa_priority_neo_list";
-    private final static String Recent =      "esa_recent_close_app";
-    private final static String Upcoming =    "esa_upcoming_close_app";
+      // local copies of the downloaded sources
+    static final HttpCache cache = new HttpCache(new File(System.getProperty("user.home"), "candy5cache"));
 
     // orbit types encoded in MPCORB and NEAp01.txt records 
     private final static String orbTypes[] = {"MBA","Atira","Aten", "Apollo", "Amor","Mars Xer","Hungaria","Undef","Hilda"
@@ -76,15 +69,22 @@ import javax.swing.SwingWorker;
     private int source = 0;                            // which souce to scan
     private final JTextArea msgText;                   // message area in GUI
     public int progress = 0;                           // progress indicator
-    private String data = "";                          // input area for data downloaded
-    private int fLength = 0;                           // length of file to download
+    private final AtomicLong expected = new AtomicLong();  // bytes expected by downloads
+    private final AtomicLong received = new AtomicLong();  // bytes received by downloads
+    private final List<Download> open = new ArrayList<>();           // downloads started
+    private final List<SourceMetrics> metrics = new ArrayList<>();   // what each source did
+    private final ExecutorService downloads = Executors.newCachedThreadPool(); // download threads
     private float limit = 0.0f;                        // limiting magnitude for downloads
     private CandidatesFile candidatesFile;             // Pointer to candidates list file.
     private String MPCOrbFile = "";                    // Path and name of local MPCORB.DAT
+    private int obsIndex = 0;                          // Observatory for the sweep
+    private boolean addDay = false;                    // Sweep tomorrow night instead of tonight
+    private int horzn = -18;                           // Twilight setting for the sweep
+    private int minAlt = 0;                            // Altitude filter for the sweep
+    private float maxV = 99;                           // Magnitude filter for the sweep
+    private int minGal = 0;                            // Galactic latitude filter for the sweep
+
 
-    // Spaceguard priority codes
-    private static final String[] SPGpricodes = {"Urg.", "Need", "Use.", "Low", "?"};
- 
     /**
      * Constructor stores pointer to message area.
      * @param msg Text area in the GUI in which messages can be written.
@@ -102,6 +102,31 @@ import javax.swing.SwingWorker;
     public void setFile(CandidatesFile f) {candidatesFile = f;}
     public void setMPC(String f) {MPCOrbFile = f;}
 
+    /**
+     * Get the limiting magnitude, candidates list file handler and MPCORB file path, for the sources.
+     */
+    public float getLimit() {return limit;}
+    public CandidatesFile getFile() {return candidatesFile;}
+    public String getMPC() {return MPCOrbFile;}
+    
+    /**
+     * Set the observatory, night and filters used by the MPCORB sweep.
+     * @param ob Observatory index.
+     * @param day True for tomorrow night.
+     * @param h Twilight setting.
+     * @param alt Minimum altitude.
+     * @param v Faintest V magnitude.
+     * @param gal Minimum galactic latitude.
+     */
+    public void setSweep(int ob, boolean day, int h, int alt, float v, int gal) {
+        obsIndex = ob;
+        addDay = day;
+        horzn = h;
+        minAlt = alt;
+        maxV = v;
+        minGal = gal;
+    }
+
     /**
      * Execute the scanner. 
      */
@@ -111,38 +136,41 @@ import javax.swing.SwingWorker;
         try {
             progress = 0;
             switch (source) {
-                case NEOCP:    doNEOCP();
-                               doPCCP();
+                case NEOCP:    run("NEOCP", "PCCP");
+                               break;
+                case Priority: run("ESA Priority", "ESA Risk", "ESA Approach");
+                               break;
+                case Unusual:  run("Unusual");
                                break;
-                case Priority: doPriority(); 
-                               doRisks();
-                               doApproach();
+                case MPCORB:   run("MPCORB", "NEAp01");
                                break;
-                case Unusual:  doUnusual(); 
+                case Distant:  run("Distant");
                                break;
-                case MPCORB:   doMPCOrb();
-                               doNEAOrb();
+                case Sormano:  run("Sormano");
                                break;
-                case Distant:  doDistant();       
+                case Import:   doImport();
                                break;
-                case Sormano:  doSormano();
+                case Sweep:    doSweep();
                                break;
-                case Auto: /* This is the sequence of actions for Refresh. */
-                               doNEOCP();
-                               doPCCP();
-                               doUnusual();
-                               doDistant();
-                               doPriority(); 
-                               doRisks();
-                               doApproach();
-                               doSormano();
-                               doMPCOrb();
-                               doNEAOrb();
+                case Auto: /* This is the sequence of actions for Refresh: every source, in order. All the 
+                              downloads are started together and then merged in order as they arrive. */
+                               List<CandidateSource> all = new ArrayList<>(sources().values());
+                               Collections.sort(all, new Comparator<CandidateSource>() {
+                                   @Override
+                                   public int compare(CandidateSource a, CandidateSource b) {
+                                       return Integer.compare(a.getOrder(), b.getOrder());
+                                   }
+                               });
+                               run(all);
             }
             return 0;    
         } catch (IOException ex) {
             publish("Error encountered: " + ex.getMessage() );
             return -1;
+        } finally {
+            /* abandon any downloads not used */
+            for (Download d : open) {d.close();}
+            downloads.shutdownNow();
         }
     }
     
@@ -168,522 +196,292 @@ import javax.swing.SwingWorker;
     }
     
     /**
-     * Download the specified file and return number of bytes read.
-     * @param from URL of source in String form.
-     * @return Number of bytes downloaded.
+     * Find the candidate sources on the class path (see CandidateSource).
+     * @return New instances of the sources by name.
      */
-    private int download(String from) {
-        int count = 0;
-        InputStream in;
-        try {
-            /* Set up connection with http or https */
-            URL url = new URL(from);
-            if (from.startsWith("https")) {
-                HttpsURLConnection con = (HttpsURLConnection)url.openConnection();
-                in = con.getInputStream();
-                fLength = con.getContentLength();           // get its length
-            } else {
-                URLConnection con = url.openConnection();
-                in = con.getInputStream();    
-                fLength = con.getContentLength();           // get its length
-            }
-            BufferedInputStream b = new BufferedInputStream(in);
-            if (fLength<1) {fLength = 2500000;}         // some files do not reurn a length, make assumption
-
-            /* download */
-            byte[] buffer = new byte[2048];
-            int charsRead;
-            while((charsRead = b.read(buffer,0,2048)) != -1) {
-                data+=new String(buffer,0,charsRead);
-                count+=charsRead;
-                progress = 100*count/fLength;
-                if (progress>99) {progress=99;}
-            }
-        } catch(IOException e) {
-            publish("Unable to connect to source of data "+source+".\n");
-            return 0;
-        }
-        progress = 99;    // file has downloaded
-        return count;
+    private static Map<String, CandidateSource> sources() {
+        Map<String, CandidateSource> m = new HashMap<>();
+        for (CandidateSource src : ServiceLoader.load(CandidateSource.class)) {m.put(src.getName(), src);}
+        return m;
     }
 
     /**
-     * Read NEOCP text page from the MPC. Add every object within magnitude limit.
+     * Run the named sources.
+     * @param names Names of the sources in the order they are to be merged.
      */
-    private int doNEOCP() {
-        data ="";
-        int count = 0;
-        int n = download(NEOCPList);
-        publish(n +" Bytes downloaded from NEOCP page...");
-        StringTokenizer st = new StringTokenizer(data,"\n\r");
-        while (st.hasMoreTokens()) {
-            String tkn = st.nextToken();
-           /* get V mag */
-            float v = Util.s2f(tkn.substring(43,47),999);
-           /* if V mag within limit: */
-            if (!(v>limit)) {
-                String nm = tkn.substring(0,8).trim();
-                Candidate c = candidatesFile.find(nm,true);
-                c.NEOCPScore = tkn.substring(8,12);
-                c.NEOCPid = nm;
-                c.ops = "";
-                c.uncertainty = "~";
-                c.orbitName = "NEOCP" + tkn.substring(79,82)+" obs in arc "+ tkn.substring(84,89) + "°";
-                c.position.coord[0] = 15*Math.toRadians(Util.s2f(tkn.substring(26,33),999));
-                c.position.coord[1] = Math.toRadians(Util.s2f(tkn.substring(34,42),999));
-                
-               /* extract and date added or updated */
-                String dt = tkn.substring(48,70);
-                dt=dt.replace("Added","A");
-                dt=dt.replace("Updated", "U");
-                dt=dt.replace("UT","");
-                dt=dt.replace(" ", "");
-                c.NEOCPdate=dt;
-                
-               /* extract other properties */
-                c.Vmag = v;
-                c.Hmag = Util.s2f(tkn.substring(90,94),99);
-                c.NEOCP = true;
-                c.MPCORBid="";
-                count++;
-            }
+    private void run(String... names) throws IOException {
+        Map<String, CandidateSource> m = sources();
+        List<CandidateSource> list = new ArrayList<>();
+        for (String n : names) {
+            if (m.containsKey(n)) {list.add(m.get(n));} else {publish("Source " + n + " not found.");}
         }
-        publish(count + " objects updated or added.\n");
-        return count;
+        run(list);
     }
-    
+
     /**
-     * Read PCCP text page from the MPC. The NEOCP text file includes the PCCP identifiers 
-     * but needs to be updated from the PCCP list.
+     * Run a list of sources. Each source's files are fetched and parsed on its own thread, all at 
+     * once, and the sources are merged into the candidates list one at a time in list order as their
+     * parsing finishes.
+     * @param list The sources in the order they are to be merged.
      */
-    private int doPCCP() {
-        data ="";
-        int count = 0;
-        int n = download(PCCPList);
-        publish(n +" Bytes downloaded from PCCP page...");
-        StringTokenizer st = new StringTokenizer(data,"\n\r");
-        while (st.hasMoreTokens()) {
-            String tkn = st.nextToken();
-            if (tkn.equals("\n")) {break;}     
-            /* get V mag */
-            float v = Util.s2f(tkn.substring(43,47),999);
-            /* set PCCP flag */
-            if (!(v>limit)) {
-                String nm = tkn.substring(0,8).trim();
-                Candidate c = candidatesFile.find(nm,true);
-                String replace = c.orbitName.replace("NEOCP", "PCCP");
-                c.comet=true;
-                count++;
+    private void run(List<CandidateSource> list) throws IOException {
+        List<Future<SourceMetrics>> parsed = new ArrayList<>();
+        for (CandidateSource src : list) {parsed.add(downloads.submit(new Fetch(src)));}
+        for (int k = 0; k < list.size(); k++) {
+            CandidateSource src = list.get(k);
+            SourceMetrics m;
+            try {
+                m = parsed.get(k).get();
+            } catch (InterruptedException | ExecutionException ex) {
+                publish(src.getName() + " failed: " + ex.getMessage());
+                continue;
             }
+            metrics.add(m);
+            if (m.error != null) {publish(src.getName() + ": " + m.error);}
+            if (src.getURLs().length > 0 && m.bytes < 50) {
+                publish(" " + src.getName() + " list not found!");
+                continue;
+            }
+            long t0 = System.nanoTime();
+            candidatesFile.reindex();     // earlier sources may have changed numbers and designations
+            m.merged = src.merge(this);
+            m.mergeTime = System.nanoTime() - t0;
+            publish(m.toString());
         }
-        publish(count + " objects updated or added.\n");
-        return count;
+        progress = 99;
     }
-    
+
     /**
-     * Unusual objects. This is an HTML page so we have to scrape out the useful data. 
-     * "Unusual" includes NEOs.
+     * Metrics of the sources run so far.
+     * @return What each source did, in the order they were merged.
      */
-    private int doUnusual() {
-        data ="";
-        int count = 0;
-        int n = download(UnusualsList);
-        publish(n +" Bytes downloaded from Dates of Last Observation of Unusual Minor Planets...");
-        StringTokenizer st = new StringTokenizer(data,"\n\r");
-        while (st.hasMoreTokens()) {
-            String tkn = st.nextToken();
-            /* look for lines that contain an object and work out where object data starts */
-            if (tkn.startsWith("<input type=\"checkbox\" name=\"Obj\"")) {
-                int k = tkn.indexOf(">");
-                tkn=tkn.substring(k+1);
-               /* get V mag */
-                float v = Util.s2f(tkn.substring(43,47),999);
-               /* if within mag limit, get name and candidate */
-                if (!(v>limit)) {
-                    String nm = tkn.substring(9,19).trim();
-
-                    Candidate c = candidatesFile.find(nm,true);
-                    c.Vmag = v;
-                    if (nm.startsWith("(") && nm.endsWith(")")) {
-                        c.number = nm;
-                        c.packNo=c.packNumber();
-                    }
-                   /* get date of last ob and round to middle of day */
-                    c.lastObs.setMPCTextDate(tkn.substring(60,72));
-                    c.lastObs.julian+=0.5;
-                   /* save packed formats */
-                    c.packNo=c.packNumber();
-                    c.packDes=c.packName();
-                    c.makeMPCOrbid();
-                    count++;
-                }
-            }
-        }
-        publish(count + " objects updated or added.\n");
-        return count;
+    public List<SourceMetrics> getMetrics() {
+        return metrics;
     }
-   
+
     /**
-     * Date of Last Observation of Distant Objects list. HTML file.
+     * Fetch is the fetch and parse phases of one source. The source's downloads are started when it is 
+     * made and their lines are passed to the source as they arrive when it is called.
      */
-    private int doDistant() {
-        data ="";
-        int count = 0;
-        int n = download(DistantList);
-        publish(n +" Bytes downloaded from Dates of Last Observation of Distant Objects..");
-        StringTokenizer st = new StringTokenizer(data,"\n\r");
-        while (st.hasMoreTokens()) {
-            /* search for line containing an object and work out where the object starts  */
-            String tkn = st.nextToken();
-            if (tkn.startsWith("<input type=\"checkbox\" name=\"Obj\"")) {
-                int k = tkn.indexOf(">");
-                tkn=tkn.substring(k+1);
-               /* get V mag and if within limit get name and candidate */
-                float v = Util.s2f(tkn.substring(43,47),999);
-                if (!(v>limit)) {
-                    String nm = tkn.substring(8,29).trim();
-                    Candidate c = candidatesFile.find(nm,true);
-                    count++;
-                   /* get number */
-                    c.number = tkn.substring(0,8).trim();
+    private class Fetch implements Callable<SourceMetrics> {
+        private final CandidateSource src;
+        private final String[] urls;
+        private final Download[] files;
 
-                   /* get rest of data items */
-                    c.Vmag = v;
-                    c.lastObs.setMPCTextDate(tkn.substring(54,  66));
-                    c.lastObs.julian+=0.5;
-                   /* save packed formats */
-                    c.packNo=c.packNumber();
-                    c.packDes=c.packName();
-                    c.makeMPCOrbid();
-                }
+        Fetch(CandidateSource src) {
+            this.src = src;
+            urls = src.getURLs();
+            files = new Download[urls.length];
+            for (int k = 0; k < urls.length; k++) {
+                cache.setTTL(urls[k], src.getTTL());
+                files[k] = new Download(urls[k], cache, downloads, Scanner.this, expected, received);
+                synchronized (open) {open.add(files[k]);}
             }
         }
-        publish(count + " objects updated or added.\n");
-        return count;
-    }
 
-    /**
-     * Download the ESA Priority table and update candidates with priority.
-     */
-    private int doPriority()  {
-                 
-        /* download priority list and check */
-        publish("Downloading ESA Rriroity List.");
-        data = "";
-        int n = download(Baseurl + PriList);
-        if  (n<50) {
-           publish(" ESA Priority list not found!");
-           return 0;
-        }
-        publish(n +" Bytes downloaded from ESA Priority List..");
-        
-        /* tokenize and extract data */
-        StringTokenizer st = new StringTokenizer(data,"\n\r");  
-        int count = 0;
-        while (st.hasMoreTokens()) {
-            String tkn = st.nextToken();
-            if (tkn.length()<40) {tkn = st.nextToken();} // ignore short lines
-            
-            /* get V mag and process object only if not beyond limit */
-            float v = Util.s2f(tkn.substring(36,40),999);
-            if (!(v>limit)) {
-             
-               /* get name and strip out quote marks */
-                String nm = tkn.substring(3,16).trim();
-                nm=nm.replace("\"", "");
-               /* find the candidate, quit if not available*/
-                Candidate c = candidatesFile.find(nm,false);
-                if(c == null) {break;}
-               /* translate priority code number into words */
-                c.spgPri = tkn.substring(0,1);
-                int p = (int) Util.s2f(c.spgPri,4);
-                c.spgPri=SPGpricodes[p];
-                c.Vmag = v;
-                c.packNo=c.packNumber();
-                c.packDes=c.packName();
-                c.makeMPCOrbid();
-                count++;
+        @Override
+        public SourceMetrics call() {
+            SourceMetrics m = new SourceMetrics(src.getName());
+            for (int k = 0; k < files.length; k++) {
+                Download d = files[k];
+                long t0 = System.nanoTime();
+                String line;
+                try {
+                    while ((line = d.readLine()) != null) {
+                        long t1 = System.nanoTime();
+                        m.fetchTime += t1 - t0;
+                        src.parse(k, line);
+                        m.lines++;
+                        t0 = System.nanoTime();
+                        m.parseTime += t0 - t1;
+                    }
+                } catch (RuntimeException ex) {
+                    /* a line not in the expected format, keep what has been parsed */
+                    if (m.error == null) {m.error = "Unable to parse " + urls[k] + " line " + (m.lines + 1) + ".";}
+                }
+                d.close();
+                m.bytes += d.getBytes();
+                m.transferred += d.getTransferred();
+                if (d.isCached()) {m.cached++;}
+                downloaded(d, urls[k]);
             }
+            return m;
         }
-        publish(count + " objects updated or added.\n");
-        return 0;
     }
     
     /**
-     * Download the ESA Risk table and update candidates with VI status.
+     * Report the outcome of a download once it has been read.
+     * @param d The download.
+     * @param name Name of the source for the message.
      */
-    private int doRisks() {
-        /* download risk list and check */
-        data="";
-        publish("Downloading ESA Risk List.");
-        int n = download(Baseurl + RiskList);
-        if  (n<50) {
-            publish(" ESA Risk list not found!");
-            return 0;
-        }
-        publish(n + " Bytes downloaded from ESA Risk List. ");
-      
-        /* tokenize and extract data */
-        StringTokenizer st = new StringTokenizer(data,"\n\r");  
-        int count = 0;
-        for (int i=0; i<4; i++) {st.nextToken();} // skip headings
-        while (st.hasMoreTokens()) {
-            Candidate c;
-            String tkn = st.nextToken();
-            if (tkn.length()<40) {continue;} // ignore short lines
-            String nm = tkn.substring(0,9).trim();
-            Character ch = nm.charAt(4);
-            if (Character.isDigit(ch)) {
-               /* it is a numbered object */
-               c = candidatesFile.findN(nm);
-            } else {
-               /*  it is not numbered */
-               nm = nm.substring(0,4)+" "+nm.substring(4);
-               c = candidatesFile.find(nm,false);
-            }
-            /* if candidate found, add VI status */
-            if (c == null) {continue;}
-            c.VI = true;
-            count++;
+    private void downloaded(Download d, String name) {
+        if (d.getError() != null) {
+            publish("Unable to connect to source of data "+name+".\n");
+        } else if (d.isCached()) {
+            publish(d.getBytes() + " Bytes unchanged, read from cache for " + name);
+        } else if (d.getTransferred() < d.getBytes()) {
+            publish(d.getBytes() + " Bytes (" + d.getTransferred() + " compressed) downloaded from " + name);
+        } else {
+            publish(d.getBytes() + " Bytes downloaded from " + name);
         }
-        publish(count + " objects updated or added.\n");
-        return 0;
-     }
-    
-     /**
-      * Fetch ESA close approach tables and extract data.
-      */
-     private int doApproach() {
-        /* download approach list and check */
-        data="";
-        publish("Downloading ESA Approach & Depart Lists.");
-        int n = download(Baseurl + Upcoming);
-        String approach = data;
-        n = n+ download(Baseurl + Recent);
-        if  (n<50) {
-           publish(" ESA Appproach lists not found!");
-           return 0;
-        }
-        publish(n + " Bytes downloaded from ESA Upcoming & Recent List. ");
-        approach += data;
-        /* tokenize and extract data */
-        StringTokenizer st = new StringTokenizer(approach,"\n\r");  
-        int count = 0;
-        while (st.hasMoreTokens()) {
-            Candidate c;
-            String tkn = st.nextToken();
-            if (tkn.length()<50) continue;
-            if (!Character.isDigit(tkn.charAt(0))) {continue;}
-            String nm = tkn.substring(0,9);
-            Character ch = nm.charAt(4);
-            if (Character.isDigit(ch)) {
-               /* it is a numbered object */
-               c = candidatesFile.findN("("+nm.trim()+")");
-            } else {
-               /*  it is not numbered */
-               nm=nm.trim();
-               nm = nm.substring(0,4)+" "+nm.substring(4);
-               c = candidatesFile.find(nm,false);
-            }
-            if (c == null) {continue;}
-            c.closeDate = tkn.substring(29,39); 
-            c.closeDist = Util.s2d(tkn.substring(63,69),99);
-            c.closeMag = Util.s2d(tkn.substring(101,105),99);
-            count++;
-        }
-        publish(count + " objects updated or added.\n");
-        return 0;
     }
-     
+    
     /**
-     * Scan the local MPCORB.DAT file and update object characteristics.
-     * *** NOTE this does not catch all the objects unless MPCORB is correctly sorted 
+     * Import the local MPCORB.DAT file into the binary orbit cache used by MPCORBSource. This only 
+     * needs to be done when a new MPCORB.DAT has been downloaded.
      */
-    private int doMPCOrb() throws FileNotFoundException, IOException {
-       /* quit if nothing in the list or no MPCORB file */
-        if (candidatesFile.cList.isEmpty()) {
-            publish("MPCORB Scan failed - no objects to process.");
-            return 0;}
+    private int doImport() throws IOException {
         if (MPCOrbFile.isEmpty()) {
-            publish("MPCORB Scan failed - no local MPCORB file defined");
+            publish("MPCORB Import failed - no local MPCORB file defined");
             return 0;}
-
-        int count = 0;
-        int mCount = 0;
+        publish("Importing local MPCORB....");
         progress = 0;
-        publish("Scanning local MPCORB....");
-
-       /* sort the candidates list based on MPCORBid */
-        Collections.sort(candidatesFile.cList);
-
-       /* define the MPCORB input file */
-        BufferedReader br = new BufferedReader(new FileReader(MPCOrbFile));
-        fLength = (int) 700000;
-
-        /* Skip over front matter */
-        String line = br.readLine();
-        if (line == null) {return 0;}
-        while (! line.startsWith("---------")) {
-            line = br.readLine();
-            if (line == null) {return 0;}
+        int count;
+        try (MPCORBMap map = new MPCORBMap(MPCOrbFile)) {
+            if (map.getStart() < 0) {
+                publish("MPCORB Import failed - no records found.");
+                return 0;}
+            count = OrbitCache.importFile(MPCOrbFile, map, this);
         }
-
-        /* Get the first real MPC record and first candidate */
-        if ((line = br.readLine()) == null) {return count;}
-        Iterator<Candidate> it = candidatesFile.cList.iterator();
-        Candidate c = null;
-        if (it.hasNext()) {c = it.next();}
-
-        /* run through MPCORB updating candidates where there is a match */
-        while (line != null) {
-            progress = (int) mCount/fLength;
-            /* if there is a blank line reset the candidates to start at beginning and advance to next orbit.
-             * This is because of the thee-part structure of MPCORB */
-            if (line.length() == 0) {
-                it = candidatesFile.cList.iterator();
-                c=it.next();
-                line = br.readLine();
-                mCount++;
-            }
-
-            /* compare the candidate and mpcorb designations     */
-            int comp = c.MPCORBid.compareTo(line.substring(0,7));
-
-                /* if MPCORB>Candidate get next candidae. If no more candidates get next MPCORB. */
-                if (comp <0) {
-                    if (it.hasNext()) {c=it.next();} else {line = br.readLine(); mCount++;}
-                }
-                /* if MPCOB=Candidate update candidate and get next candidate and MPCORB. */
-                if (comp==0){
-                    doUpdate(line,c);
-                    count++;
-                    line = br.readLine();
-                    mCount++;
-                    if (it.hasNext()) {c=it.next();}
-                }
-                /* id MPCORB<Candidate get next MPCOrb.*/
-                if (comp >0) {
-                    line = br.readLine();
-                    mCount++;
-             }
-         }
-         publish(count + " objects updated from MPCORB.\n");
-         return count;
+        publish(count + " orbits imported from MPCORB.\n");
+        progress = 99;
+        return count;
     }
     
     /**
-     * Download the NEAp01.txt file and update the latest NEOs with characteristics.
-     * The main objective is to get current epoch orbital elements (etc) for recent
-     * discoveries.
+     * Sweep the whole of MPCORB for objects that are observable tonight and add them to the list. 
+     * Every orbit in the orbit cache (which is imported first if necessary) is propagated to midnight 
+     * and filtered on altitude, galactic latitude, magnitude and Moon separation (see SkySweep).
      */
-    private int doNEAOrb() {
-        int count =0;
-        data = "";
-        publish("Downloading NEAp01.txt...");
-        int n = download(NEOOrb);
-        publish(n+" Bytes downloaed from NEAp01.txt...");
-
-       /* string tokenizer used to scan the NEOtom data */
-        String neo;
-        StringTokenizer st = new StringTokenizer(data,"\n\r");
-        if (st.hasMoreTokens()) {neo = st.nextToken();} else {return 0;}
-       /* sort the candidates into designation order and get an iterator */
-        Collections.sort(candidatesFile.cList);
-        Iterator<Candidate> it = candidatesFile.cList.iterator();
-        Candidate c = it.next();
-        /* do the update as a classical master - update merge with no additions */
-        while (st.hasMoreTokens()) {
-            int comp = c.MPCORBid.compareTo(neo.substring(0,7));
-
-                /* if NEOtom>Candidate get next candidate. If no more candidates quit. */
-                if (comp <0) {
-                    if (it.hasNext()) {c=it.next();} else {break;}
-                }
-                /* if NEOtom=Candidate update candidate and get next candidate and MPCORB. */
-                if (comp==0){
-                    doUpdate(neo,c);
+    private int doSweep() throws IOException {
+        if (MPCOrbFile.isEmpty()) {
+            publish("MPCORB Sweep failed - no local MPCORB file defined");
+            return 0;}
+        OrbitCache cache = OrbitCache.open(MPCOrbFile);
+        if (cache == null) {
+            if (doImport() == 0) {return 0;}
+            cache = OrbitCache.open(MPCOrbFile);
+            if (cache == null) {return 0;}
+        }
+        
+       /* set up our own copy of the observatory for tonight */
+        Observatories ob = new Observatories();
+        ob.setObservatory(obsIndex);
+        ob.setTime(new Sun(), addDay, horzn);
+        
+        int count = 0;
+        try {
+            publish("Sweeping " + cache.size() + " MPCORB orbits....");
+            progress = 0;
+            long t0 = System.currentTimeMillis();
+            SkySweep sweep = new SkySweep(ob, minAlt, maxV, minGal);
+            sweep.run(cache, this);
+            publish(sweep.count + " objects observable (" + (System.currentTimeMillis() - t0) + "ms).");
+            
+           /* update candidates already in the list, otherwise add them */
+            HashMap<String, Candidate> listed = new HashMap<>();
+            for (Candidate c : candidatesFile.cList) {listed.put(c.MPCORBid, c);}
+            for (int j = 0; j < sweep.count; j++) {
+                int row = sweep.rows[j];
+                String id = MPCORBMap.id(cache.getKey(row));
+                Candidate c = listed.get(id);
+                if (c == null) {
+                    c = new Candidate();
+                    c.name = Candidate.unpack(id);
+                    if (c.name.startsWith("(")) {c.number = c.name;}
+                    c.packNo = c.packNumber();
+                    c.packDes = c.packName();
+                    c.MPCORBid = id;
+                    candidatesFile.cList.add(c);
+                    listed.put(id, c);
                     count++;
-                    if (it.hasNext()) {c=it.next();}
-                    if (st.hasMoreTokens()) {neo = st.nextToken();} else {break;}
                 }
-                /* if NEOtom<Candidate get next NEOtom */
-                if (comp >0) {
-                    if (st.hasMoreTokens()) {neo = st.nextToken();} else {break;}
-             }
+                c.Vmag = sweep.vmag[j];
+                cache.update(row, c);
+            }
+        } finally {
+            cache.close();
         }
-        publish(count + " objects updated.\n");
+        publish(count + " objects added.\n");
         progress = 99;
         return count;
     }
     
-    /**
-     * Process the priority observing list from Sormano Observatory.
-     */
-    private int doSormano() {
-        data="";
-        int count =0;
-        int n=download(SormanoTxt);
-        publish(n +" Bytes downloaded from Sormano... ");
-        StringTokenizer st = new StringTokenizer(data,"\n\r");
-        while (st.hasMoreTokens()) {
-            String sorm = st.nextToken();
-            if (sorm.length() >93.) {
-                for (Candidate c : candidatesFile.cList) {
-                    if ((sorm.substring(0,5).equals(c.MPCORBid)) || (sorm.substring(5,12).equals(c.packDes)) ) {
-                        c.SAO = sorm.substring(92);
-                        count++;
-                    }
-                }
-            }
-        }
-        publish(count + " objects updated. \n");
-        return 0;
-    }
-  
     /**
      * This routine extracts orbit information from the bit string in an MPCORB or 
      * NEAp01.txt record.
      * @param s String formatted according to the MPCORB format bit string.
      * @param c Candidate to which this orbit refers.
      */
-    private void doUpdate(String s, Candidate c) {
+    static void doUpdate(String s, Candidate c) {
+        DateTime epoch = new DateTime();
+        epoch.setMPCDate(s.substring(20,25));
+        setOrbit(c, Util.s2f(s.substring(8,13),99), s.charAt(105), s.substring(123,126).equals("  1"),
+                 Integer.parseInt(s.substring(161,165), 16), epoch.julian,
+                 Math.toRadians(Util.s2d(s.substring(26,35),0)),
+                 Math.toRadians(Util.s2d(s.substring(37,46),0)),
+                 Math.toRadians(Util.s2d(s.substring(59,68),0)),
+                 Util.s2d(s.substring(70,79),0.5),
+                 Util.s2d(s.substring(92,103),1),
+                 Math.toRadians(Util.s2d(s.substring(48,57), 0)),
+                 Math.toRadians(Util.s2d(s.substring(80,91), 0)));
+    }
+    
+    /**
+     * Update a candidate with the orbit information from an MPCORB record, whether decoded from the 
+     * text (doUpdate) or read from the binary orbit cache.
+     * @param c Candidate to which this orbit refers.
+     * @param H Absolute magnitude.
+     * @param u Uncertainty parameter.
+     * @param oneOp True if the orbit is from a single opposition.
+     * @param bits Orbit type and flag bits.
+     * @param epoch Epoch of the elements (Julian date).
+     * @param M Mean anomaly (radians).
+     * @param w Argument of perihelion (radians).
+     * @param i Inclination (radians).
+     * @param e Eccentricity.
+     * @param a Semimajor axis (AU).
+     * @param N Longitude of ascending node (radians).
+     * @param n Mean motion (radians per day).
+     */
+    static void setOrbit(Candidate c, float H, char u, boolean oneOp, int bits, double epoch, 
+            double M, double w, double i, double e, double a, double N, double n) {
         /* get H and estimated size */
-        c.Hmag = Util.s2f(s.substring(8,13),99);
+        c.Hmag = H;
         c.diameter = 3551901.90501*Math.pow(10.0, -0.2*c.Hmag);
         /* get ucertainty if not already supplied */
-        if (c.uncertainty.equals(" ")) {c.uncertainty = s.substring(105,106);}
+        if (c.uncertainty.equals(" ")) {c.uncertainty = String.valueOf(u);}
         /* if still no uncertainty set default */
         if (c.uncertainty.equals(" ")) {c.uncertainty = "*";}
         /* Set 1, n or # Ops if not already supplied */
         if (c.ops.isEmpty()) {
-            if (s.substring(123,126).equals("  1")) {
+            if (oneOp) {
                 c.ops="1Op";
             }else{
                 if (c.number.isEmpty()) {c.ops="nOp";} else {c.ops="#Op";}
             }
         }
         /* manipulate the lower 6 bits of positions 162-165 to get an orbit type name */
-        int bits = Integer.parseInt(s.substring(161,165), 16);
         int lowbits = bits & 63; // get the bottom 6 bits
         c.orbitName = orbTypes[(int)lowbits];
 
         /* check the upper bits for various flags */
         int b= bits & 2048;
-        c.NEO = b==2048;
+        c.set(Candidate.fNEO, b==2048);
         b = bits & 4096;
-        c.kmplus = b==4096;
+        c.set(Candidate.fKmplus, b==4096);
         b = bits & 32768;
-        c.PHA = b==32768;
+        c.set(Candidate.fPHA, b==32768);
 
         /* get orbital elements */
-         c.elements.Epoch.setMPCDate(s.substring(20,25));
-         c.elements.M = Math.toRadians(Util.s2d(s.substring(26,35),0));
-         c.elements.w = Math.toRadians(Util.s2d(s.substring(37,46),0));
-         c.elements.i = Math.toRadians(Util.s2d(s.substring(59,68),0));
-         c.elements.e = Util.s2d(s.substring(70,79),0.5);
-         c.elements.a = Util.s2d(s.substring(92,103),1);
-         c.elements.N = Math.toRadians(Util.s2d(s.substring(48,57), 0));
-         c.elements.n = Math.toRadians(Util.s2d(s.substring(80,91), 0));
+         c.elements.Epoch.setDate(epoch);
+         c.elements.M = M;
+         c.elements.w = w;
+         c.elements.i = i;
+         c.elements.e = e;
+         c.elements.a = a;
+         c.elements.N = N;
+         c.elements.n = n;
     }
     
     /**
@@ -0,0 +1,240 @@
+package CandidatesList;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**********************************************************************************
+ * Class SkyIndex divides the sky into cells of roughly equal area, bands of declination
+ * each split into ranges of RA, and sorts a set of positions into them so that questions
+ * about regions of the sky (far enough from the Moon, far enough from the galactic plane,
+ * high enough at the observatory) are answered a cell at a time. A cell wholly inside or
+ * wholly outside the region is taken or left as a whole; only the positions in cells on
+ * the edge of the region are tested one by one, with the same calculation the filters use,
+ * so the answers are exactly those of testing every position.
+ *
+ * Queries return the numbers of the positions in the region (their index in the arrays or
+ * list the index was made from) as a BitSet, so regions can be combined with and() and
+ * or(). Positions that are not a number are in no region.
+ *
+ * @author Tony Evans
+ */
+public class SkyIndex {
+
+    private static final double pi2 = 2*Math.PI;
+    private static final double margin = 1e-9;        // Radians, leaves rounding to the per-position tests
+
+    private final double[] ra, dec;                   // Positions (radians)
+    private final int size;                           // Number of positions
+    private final int bands;                          // Declination bands
+    private final double bandHeight;                  // and their height (radians)
+    private final int[] bandFirst;                    // First cell of each band, and the end of the last
+    private final double[] cellRA, cellDec, cellSize; // Cell centres, and how far from it the cell reaches
+    private final int[] cellStart;                    // First entry of each cell in order, and the end
+    private final int[] order;                        // Positions sorted by cell
+
+    /**
+     * Index positions given as arrays of RA and Dec, as calculated by BatchEphemeris.
+     * @param ra RA of each position (radians).
+     * @param dec Dec of each position (radians).
+     * @param n Number of positions.
+     */
+    public SkyIndex(double[] ra, double[] dec, int n) {
+        this.ra = ra;
+        this.dec = dec;
+        size = n;
+
+        // about ten positions a cell, with bands no smaller than half a degree
+        bands = Math.max(6, Math.min(360, (int) Math.sqrt(n/10.0)));
+        bandHeight = Math.PI/bands;
+        bandFirst = new int[bands + 1];
+        for (int b = 0; b < bands; b++) {
+            double mid = -Math.PI/2 + (b + 0.5)*bandHeight;
+            bandFirst[b + 1] = bandFirst[b] + Math.max(1, (int) Math.round(2*bands*Math.cos(mid)));
+        }
+        int cells = bandFirst[bands];
+        cellRA = new double[cells];
+        cellDec = new double[cells];
+        cellSize = new double[cells];
+        for (int b = 0; b < bands; b++) {
+            double lo = -Math.PI/2 + b*bandHeight, hi = lo + bandHeight;
+            double maxCos = (lo < 0 && hi > 0) ? 1 : Math.max(Math.cos(lo), Math.cos(hi));
+            int m = bandFirst[b + 1] - bandFirst[b];
+            for (int j = 0; j < m; j++) {
+                int cell = bandFirst[b] + j;
+                cellRA[cell] = (j + 0.5)*pi2/m;
+                cellDec[cell] = lo + bandHeight/2;
+                // along the parallel to the centre's RA then along the meridian to the centre
+                cellSize[cell] = Math.min(Math.PI, Math.PI/m*maxCos + bandHeight/2);
+            }
+        }
+
+        // sort the positions into the cells by counting
+        int[] cellOf = new int[n];
+        cellStart = new int[cells + 1];
+        for (int k = 0; k < n; k++) {
+            cellOf[k] = cell(ra[k], dec[k]);
+            if (cellOf[k] >= 0) {cellStart[cellOf[k] + 1]++;}
+        }
+        for (int c = 0; c < cells; c++) {cellStart[c + 1] += cellStart[c];}
+        order = new int[cellStart[cells]];
+        int[] next = cellStart.clone();
+        for (int k = 0; k < n; k++) {
+            if (cellOf[k] >= 0) {order[next[cellOf[k]]++] = k;}
+        }
+    }
+
+    /**
+     * Index the positions of a list of candidates, as they are now.
+     * @param list The candidates.
+     * @return The index, in which position k is that of the k'th candidate.
+     */
+    public static SkyIndex of(List<Candidate> list) {
+        int n = list.size();
+        double[] ra = new double[n], dec = new double[n];
+        for (int k = 0; k < n; k++) {
+            ra[k] = list.get(k).position.coord[0];
+            dec[k] = list.get(k).position.coord[1];
+        }
+        return new SkyIndex(ra, dec, n);
+    }
+
+    /**
+     * @return The number of positions indexed.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the positions at least a given angle from a point, the Moon for example.
+     * @param p The point (RA and Dec).
+     * @param minAngle Smallest separation from the point (degrees).
+     * @return The positions found.
+     */
+    public BitSet farFrom(final SphCoordinate p, final double minAngle) {
+        final double r = Math.toRadians(minAngle);
+        final SphCoordinate q = new SphCoordinate();
+        return find(new Region() {
+            @Override
+            int classify(int cell) {
+                double d = angle(p, cellRA[cell], cellDec[cell]);
+                if (d - cellSize[cell] > r + margin) {return IN;}
+                if (d + cellSize[cell] < r - margin) {return OUT;}
+                return EDGE;
+            }
+            @Override
+            boolean contains(int k) {
+                q.setCoords(ra[k], dec[k]);
+                return Math.toDegrees(Math.abs(p.getAngle(q))) >= minAngle;
+            }
+        });
+    }
+
+    /**
+     * Find the positions at least a given galactic latitude north or south of the galactic plane.
+     * @param minLat Smallest galactic latitude (degrees).
+     * @return The positions found.
+     */
+    public BitSet galactic(final double minLat) {
+        final SphCoordinate pole = new SphCoordinate(SphCoordinate.gpRA, SphCoordinate.gpDec);
+        final double b0 = Math.toRadians(Math.abs(minLat));
+        final SphCoordinate q = new SphCoordinate();
+        return find(new Region() {
+            @Override
+            int classify(int cell) {
+                // galactic latitude is 90 degrees less the angle from the north galactic pole
+                double d = angle(pole, cellRA[cell], cellDec[cell]);
+                double lo = Math.PI/2 - d - cellSize[cell], hi = Math.PI/2 - d + cellSize[cell];
+                if (lo > b0 + margin || hi < -b0 - margin) {return IN;}
+                if (lo > -b0 + margin && hi < b0 - margin) {return OUT;}
+                return EDGE;
+            }
+            @Override
+            boolean contains(int k) {
+                q.setCoords(ra[k], dec[k]);
+                return Math.abs(q.galLat()) >= Math.abs(minLat);
+            }
+        });
+    }
+
+    /**
+     * Find the positions that cross the meridian at or above an altitude at an observatory, that is
+     * within the declinations the telescope can be pointed at.
+     * @param ob The observatory.
+     * @param minAlt Minimum altitude (degrees).
+     * @return The positions found.
+     */
+    public BitSet reachable(Observatories ob, final double minAlt) {
+        final double lat = ob.position.coord[1];
+        final double reach = Math.PI/2 - Math.toRadians(minAlt);
+        return find(new Region() {
+            @Override
+            int classify(int cell) {
+                double lo = cellDec[cell] - bandHeight/2, hi = cellDec[cell] + bandHeight/2;
+                if (lo > lat - reach + margin && hi < lat + reach - margin) {return IN;}
+                if (hi < lat - reach - margin || lo > lat + reach + margin) {return OUT;}
+                return EDGE;
+            }
+            @Override
+            boolean contains(int k) {
+                double alt = Math.toDegrees((Math.PI/2 - lat) + dec[k]);
+                if (alt > 90) {alt = 180 - alt;}
+                return alt >= minAlt;
+            }
+        });
+    }
+
+    /**
+     * Region is the test made of each cell, and of each position in cells on the edge.
+     */
+    private abstract static class Region {
+        static final int IN = 1, OUT = 0, EDGE = -1;
+
+        /**
+         * @return IN if the whole cell is in the region, OUT if none of it is, else EDGE.
+         */
+        abstract int classify(int cell);
+
+        /**
+         * @return True if position k is in the region.
+         */
+        abstract boolean contains(int k);
+    }
+
+    /**
+     * Collect the positions in a region.
+     */
+    private BitSet find(Region r) {
+        BitSet found = new BitSet(size);
+        for (int cell = 0; cell < cellRA.length; cell++) {
+            int first = cellStart[cell], end = cellStart[cell + 1];
+            if (first == end) {continue;}
+            int in = r.classify(cell);
+            if (in == Region.OUT) {continue;}
+            for (int j = first; j < end; j++) {
+                if (in == Region.IN || r.contains(order[j])) {found.set(order[j]);}
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return The cell of a position, or -1 if it is not a number.
+     */
+    private int cell(double a, double d) {
+        if (Double.isNaN(a) || Double.isNaN(d)) {return -1;}
+        int b = Math.max(0, Math.min(bands - 1, (int) ((d + Math.PI/2)/bandHeight)));
+        int m = bandFirst[b + 1] - bandFirst[b];
+        a %= pi2;
+        if (a < 0) {a += pi2;}
+        return bandFirst[b] + Math.min(m - 1, (int) (a/pi2*m));
+    }
+
+    /**
+     * @return The angle (radians) between a point and a cell centre.
+     */
+    private static double angle(SphCoordinate p, double a, double d) {
+        double c = Math.sin(p.coord[1])*Math.sin(d) + Math.cos(p.coord[1])*Math.cos(d)*Math.cos(a - p.coord[0]);
+        return Math.acos(Math.max(-1, Math.min(1, c)));
+    }
+}
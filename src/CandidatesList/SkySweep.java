@@ -0,0 +1,117 @@
+package CandidatesList;
+
+import java.util.BitSet;
+
+/**********************************************************************************
+ * Class SkySweep finds every object in the MPCORB orbit cache that is observable
+ * tonight. All the orbits are propagated to the observatory's midnight in one batch
+ * (see BatchEphemeris) and the resulting positions are put through the same altitude,
+ * galactic latitude, magnitude and observing-window tests that the GUI applies to the
+ * candidates table, plus a minimum separation from the Moon.
+ *
+ * Positions are taken at midnight rather than at each object's meridian passage as
+ * Candidate.setTimes() does, which is close enough to select objects. The selected
+ * objects are given exact times when they are added to the candidates list.
+ *
+ * The altitude, galactic latitude and Moon tests are made as region queries of a
+ * SkyIndex of the positions, so most objects are accepted or rejected a patch of sky
+ * at a time; the magnitude and observing-window tests are made of those that remain.
+ *
+ * @author Tony Evans
+ */
+public class SkySweep {
+
+    public static final int minMoon = 20;       // Minimum separation from the Moon (degrees)
+
+    private final Observatories ob;             // The observatory
+    private final int minAlt;                   // Minimum altitude (degrees)
+    private final float maxV;                   // Faintest V magnitude
+    private final int minGal;                   // Minimum galactic latitude (degrees)
+
+    // results: cache rows of the selected objects and their V magnitudes
+    public int[] rows = new int[0];
+    public float[] vmag = new float[0];
+    public int count = 0;
+
+    /**
+     * Constructor sets the observatory and filters.
+     * @param ob The observatory, with its times set for tonight.
+     * @param minAlt Minimum altitude (degrees).
+     * @param maxV Faintest V magnitude.
+     * @param minGal Minimum galactic latitude (degrees).
+     */
+    public SkySweep(Observatories ob, int minAlt, float maxV, int minGal) {
+        this.ob = ob;
+        this.minAlt = minAlt;
+        this.maxV = maxV;
+        this.minGal = Math.abs(minGal);
+    }
+
+    /**
+     * Propagate every orbit in the cache and select the objects that pass the filters.
+     * @param cache The MPCORB orbit cache.
+     * @param s Scanner to which progress is reported (may be null).
+     * @return Number of objects selected.
+     */
+    public int run(OrbitCache cache, Scanner s) {
+        BatchEphemeris be = new BatchEphemeris(cache.getColumn(OrbitCache.A), cache.getColumn(OrbitCache.E),
+                cache.getColumn(OrbitCache.I), cache.getColumn(OrbitCache.N), cache.getColumn(OrbitCache.W),
+                cache.getColumn(OrbitCache.M), cache.getColumn(OrbitCache.MOTION), cache.getColumn(OrbitCache.EPOCH));
+        if (s != null) {s.doProgress(20);}
+        be.compute(ob.tMidnight, ob);
+        if (s != null) {s.doProgress(80);}
+
+        // things that are the same for every object
+        double dTObs = ob.getLMSTOffset(ob.tMidnight);
+        double day = 0.5 + (int) (ob.tNow.julian - 0.5);
+        SphCoordinate moon = new Moon().getPosition(ob.tMidnight, ob);
+        SphCoordinate p = new SphCoordinate();
+        rows = new int[1024];
+        vmag = new float[1024];
+        count = 0;
+
+        // altitude at meridian passage, galactic latitude and Moon
+        SkyIndex sky = new SkyIndex(be.ra, be.dec, be.size);
+        BitSet in = sky.reachable(ob, minAlt);
+        in.and(sky.galactic(minGal));
+        in.and(sky.farFrom(moon, minMoon));
+
+        for (int k = in.nextSetBit(0); k >= 0; k = in.nextSetBit(k + 1)) {
+
+            // magnitude
+            double v = be.getV(k, cache.getH(k));
+            if (!(v <= maxV)) {continue;}
+
+            // meridian time (no more than 12 hrs before sunset) and hours above the altitude limit
+            p.setCoords(be.ra[k], be.dec[k]);
+            double merid = day + ((24 + p.getHours() - dTObs)%24)/24;
+            if ((ob.tSet.julian - merid) > 0.5) {merid += 1.0;}
+            double ha = ob.position.riseTime(p, minAlt);
+            if (Double.isNaN(ha)) {ha = 12;}
+            double set = merid + ha/24;
+            double rise = set - ha/12;
+            if (!(set > ob.tSet.julian && rise < ob.tRise.julian)) {continue;}
+
+            add(k, (float) v);
+        }
+        if (s != null) {s.doProgress(90);}
+        return count;
+    }
+
+    /**
+     * Record a selected object, growing the result arrays when needed.
+     */
+    private void add(int row, float v) {
+        if (count == rows.length) {
+            int[] r2 = new int[count*2];
+            float[] v2 = new float[count*2];
+            System.arraycopy(rows, 0, r2, 0, count);
+            System.arraycopy(vmag, 0, v2, 0, count);
+            rows = r2;
+            vmag = v2;
+        }
+        rows[count] = row;
+        vmag[count] = v;
+        count++;
+    }
+}
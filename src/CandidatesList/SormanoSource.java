@@ -0,0 +1,50 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class SormanoSource reads the priority observing list from Sormano Observatory and
+ * marks the candidates on it with the list type (priority or encounter). Each line is
+ * joined to the candidates on its MPCORB id or packed designation through the indexes
+ * of the candidates list.
+ *
+ * @author Tony Evans
+ */
+public class SormanoSource extends AbstractSource {
+
+    private final List<String> rows = new ArrayList<>();    // Lines describing an object
+
+    /**
+     * Constructor describes the source.
+     */
+    public SormanoSource() {
+        super("Sormano", 80, 3600, "http://www.brera.mi.astro.it/sormano/Observable.txt");
+    }
+
+    @Override
+    public void parse(int file, String sorm) {
+        if (sorm.length() >93.) {rows.add(sorm);}
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count =0;
+        CandidatesFile file = s.getFile();
+        for (String sorm : rows) {
+            String id = sorm.substring(0,5);
+            for (Candidate c : file.findAllMPCORB(id)) {
+                c.SAO = sorm.substring(92);
+                count++;
+            }
+            /* candidates matching on both keys have already been counted */
+            for (Candidate c : file.findAllPacked(sorm.substring(5,12))) {
+                if (c.MPCORBid.equals(id)) {continue;}
+                c.SAO = sorm.substring(92);
+                count++;
+            }
+        }
+        s.doPublish(count + " objects updated. \n");
+        return count;
+    }
+}
@@ -0,0 +1,41 @@
+package CandidatesList;
+
+/**********************************************************************************
+ * Class SourceMetrics records what one CandidateSource did during a scan and how long
+ * each phase took. Fetch time is the time spent waiting for data to arrive, not
+ * including parsing, so it is the time the source would take with a parser that
+ * cost nothing.
+ *
+ * @author Tony Evans
+ */
+public class SourceMetrics {
+
+    public final String name;           // Name of the source
+    public long bytes = 0;              // Bytes of data, after decompression
+    public long transferred = 0;        // Bytes received from servers
+    public int cached = 0;              // Files read from the cache
+    public int lines = 0;               // Lines parsed
+    public int merged = 0;              // Candidates updated or added
+    public long fetchTime = 0;          // Time waiting for data (ns)
+    public long parseTime = 0;          // Time parsing (ns)
+    public long mergeTime = 0;          // Time merging (ns)
+    public String error = null;         // First error, null if none
+
+    /**
+     * Constructor names the source.
+     * @param name Name of the source.
+     */
+    public SourceMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Summary of the metrics for the message area.
+     * @return Summary.
+     */
+    @Override
+    public String toString() {
+        return name + ": " + lines + " lines, fetch " + fetchTime/1000000 + "ms, parse " + parseTime/1000000
+                + "ms, merge " + mergeTime/1000000 + "ms.";
+    }
+}
@@ -21,13 +21,14 @@ import java.util.StringTokenizer;
  */
 public class SphCoordinate implements Serializable  {
     /* Serializable so objects can be writtten to a file (as part of a Candidate). */
+    private static final long serialVersionUID = 2831380172244266316L;
     
     public double[] coord = {0.0,0.0};                            // The coordinates
     
     private static final double toHours = 12/Math.PI;             // Radians to hours factor
     private static final double eps = 23.4373*(Math.PI/180);      // Obliquity of ecliptic
-    private static final double gpRA = 3.366;                     // Galactic pole RA (radians)
-    private static final double gpDec = 0.4734;                   // Galactic pole Dec(radians)
+    static final double gpRA = 3.366;                             // Galactic pole RA (radians)
+    static final double gpDec = 0.4734;                           // Galactic pole Dec(radians)
     private static final double pi2 = 2 * Math.PI;
     private static final DecimalFormat dd = new DecimalFormat("00");
     private static final DecimalFormat ddpd = new DecimalFormat("00.0");
@@ -101,14 +102,25 @@ public class SphCoordinate implements Serializable  {
      */
     public SphCoordinate getEquatorial() {
         SphCoordinate eq = new SphCoordinate();
-        eq.coord[1]=Math.asin(Math.sin(coord[1])*Math.cos(eps) + Math.cos(coord[1])*Math.sin(eps)*Math.sin(coord[0]));    
-        double sinRA = (Math.cos(coord[1])*Math.cos(eps)*Math.sin(coord[0])-Math.sin(coord[1])*Math.sin(eps))/Math.cos(eq.coord[1]);
-        double cosRA = (Math.cos(coord[0])*Math.cos(coord[1]))/Math.cos(eq.coord[1]);
-        eq.coord[0] = Math.atan2(sinRA,cosRA);
-        if (eq.coord[0]<0) {eq.coord[0]+=pi2;}
+        toEquatorial(coord[0], coord[1], eq.coord);
         return eq;
     }
     
+    /**
+     * Transform ecliptic longitude and latitude to equatorial RA and Dec without creating a coordinate 
+     * (as getEquatorial). Used where many positions are calculated in bulk.
+     * @param lon Ecliptic longitude in radians.
+     * @param lat Ecliptic latitude in radians.
+     * @param eq Array in which RA and Dec (radians) are returned.
+     */
+    public static void toEquatorial(double lon, double lat, double[] eq) {
+        eq[1]=Math.asin(Math.sin(lat)*Math.cos(eps) + Math.cos(lat)*Math.sin(eps)*Math.sin(lon));    
+        double sinRA = (Math.cos(lat)*Math.cos(eps)*Math.sin(lon)-Math.sin(lat)*Math.sin(eps))/Math.cos(eq[1]);
+        double cosRA = (Math.cos(lon)*Math.cos(lat))/Math.cos(eq[1]);
+        eq[0] = Math.atan2(sinRA,cosRA);
+        if (eq[0]<0) {eq[0]+=pi2;}
+    }
+    
     /**
      * If this coordinate is the geographic position of an observatory, calculate time either side of 
      * meridian an object with equatorial coordinates p remains above a horizon of altitude alt degrees.
@@ -0,0 +1,63 @@
+package CandidatesList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**********************************************************************************
+ * Class UnusualSource reads the MPC's Dates of Last Observation of Unusual Minor
+ * Planets. This is an HTML page so we have to scrape out the useful data. "Unusual"
+ * includes NEOs.
+ *
+ * @author Tony Evans
+ */
+public class UnusualSource extends AbstractSource {
+
+    private final List<String[]> rows = new ArrayList<>();  // name and date of last observation
+    private final List<Float> vmags = new ArrayList<>();    // and V magnitude of each object
+
+    /**
+     * Constructor describes the source.
+     */
+    public UnusualSource() {
+        super("Unusual", 30, 3600, "https://www.minorplanetcenter.net/iau/lists/LastUnusual.html");
+    }
+
+    @Override
+    public void parse(int file, String tkn) {
+        /* look for lines that contain an object and work out where object data starts */
+        if (tkn.startsWith("<input type=\"checkbox\" name=\"Obj\"")) {
+            int k = tkn.indexOf(">");
+            tkn=tkn.substring(k+1);
+            vmags.add(Util.s2f(tkn.substring(43,47),999));
+            rows.add(new String[] {tkn.substring(9,19).trim(), tkn.substring(60,72)});
+        }
+    }
+
+    @Override
+    public int merge(Scanner s) {
+        int count = 0;
+        for (int k = 0; k < rows.size(); k++) {
+            float v = vmags.get(k);
+           /* if within mag limit, get name and candidate */
+            if (!(v>s.getLimit())) {
+                String nm = rows.get(k)[0];
+                Candidate c = s.getFile().find(nm,true);
+                c.Vmag = v;
+                if (nm.startsWith("(") && nm.endsWith(")")) {
+                    c.number = nm;
+                    c.packNo=c.packNumber();
+                }
+               /* get date of last ob and round to middle of day */
+                c.lastObs.setMPCTextDate(rows.get(k)[1]);
+                c.lastObs.julian+=0.5;
+               /* save packed formats */
+                c.packNo=c.packNumber();
+                c.packDes=c.packName();
+                c.makeMPCOrbid();
+                count++;
+            }
+        }
+        s.doPublish(count + " objects updated or added.\n");
+        return count;
+    }
+}
@@ -1,6 +1,8 @@
 
 package CandidatesList;
 
+import java.util.concurrent.ForkJoinPool;
+
 /******************************************************************************************
  * Class Util contains general utility functions and constants that can be used across 
  * various projects.
@@ -12,6 +14,10 @@ public class Util {
     public static final double parabolic = 0.98;    // limit of eccentricity for elliptical orbit 
     public static final double k = 0.01720209895;   // Gaussian gravitational constant
     public static final double pi2 = Math.PI * 2;   // Value of 2xpi
+    public static final double AU = 149597870.7;    // Astronomical unit (km)
+    
+    // Fork-join pool shared by the parallel scans and calculations, one thread per processor
+    public static final ForkJoinPool pool = new ForkJoinPool();
       
     /**
      * General purpose string to float converter.
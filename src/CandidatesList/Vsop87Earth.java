@@ -1,3724 +1,182 @@
-
 package CandidatesList;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.StringTokenizer;
+
 /********************************************************************************************************************
- * Class VSOP87 is an implementation of VSOP87 for Earth. Code was generated at 
- * http://neoprogrammics.com/vsop87/
- * 
+ * Class Vsop87Earth evaluates VSOP87 (version A) for Earth: heliocentric rectangular coordinates X, Y, Z in AU,
+ * referred to the ecliptic and equinox of J2000, with t = (JD - 2451545) / 365250.
+ *
+ * The series terms are read from the resource vsop87earth.txt (as generated by Jay Tanner at
+ * http://neoprogrammics.com/vsop87/) into primitive arrays, one set per coordinate and power of t. Each
+ * series is summed in a single loop: X = X0 + X1*t + X2*t^2 + ... with Xn = sum of A*cos(B + C*t).
+ *
+ * An instance may be truncated to a precision in arcseconds. The smallest terms of each series are dropped
+ * while the sum of their amplitudes stays within an equal share of the precision, so the error in each
+ * coordinate (seen from 1 AU) is bounded by the precision for |t| below 1 (1000 BC to 3000 AD). A precision
+ * of zero keeps every term and gives the same values as the original generated code.
+ *
+ * Ref: Planetary Theories in Rectangular and Spherical Variables, VSOP87 Solutions, P. Bretagnon, G. Francou,
+ * Astronomy & Astrophysics 202, 309-315, 1988.
+ *
  * @author Tony Evans in acknowledgement of Jay Tanner at http://neoprogrammics.com/vsop87/
  */
 public class Vsop87Earth {
-   /*
-
-   EARTH - VSOP87 Series Version A
-   HELIOCENTRIC DYNAMICAL ECLIPTIC AND EQUINOX OF J2000
-   Rectangular (X,Y,Z) Coordinates in AU (Astronomical Units) 
-
-   Series Validity Span: 2000 BC < Date < 6000 AD
-   Theoretical accuracy over span: ±1 arc sec
-
-   R*R = X*X + Y*Y + Z*Z
-
-   t = (JD - 2451545) / 365250
-
-   Java Programming Language
-
-   VSOP87 Functions Source Code
-   Generated By The VSOP87 Source Code Generator Tool
-   (c) Jay Tanner 2016
-
-   Ref:
-   Planetary Theories in Rectangular and Spherical Variables
-   VSOP87 Solutions
-   Pierre Bretagnon, Gerard Francou
-   Journal of Astronomy & Astrophysics
-   vol. 202, p309-p315
-   1988
-
-   Source code provided under the provisions of the
-   GNU Affero General Public License, version 3.
-   http://www.gnu.org/licenses/agpl.html
-    
-    There follow a set of functions used by the Earth object.
-*/
-  public static double Earth_A_X0 (double t)
-{
-  double X0 = 0.0;
-  X0 += 0.99982928844 * Math.cos(1.75348568475 + 6283.07584999140*t);
-  X0 += 0.00835257300 * Math.cos(1.71034539450 + 12566.15169998280*t);
-  X0 += 0.00561144206;
-  X0 += 0.00010466628 * Math.cos(1.66722645223 + 18849.22754997420*t);
-  X0 += 0.00003110838 * Math.cos(0.66875185215 + 83996.84731811189*t);
-  X0 += 0.00002552498 * Math.cos(0.58310207301 + 529.69096509460*t);
-  X0 += 0.00002137256 * Math.cos(1.09235189672 + 1577.34354244780*t);
-  X0 += 0.00001709103 * Math.cos(0.49540223397 + 6279.55273164240*t);
-  X0 += 0.00001707882 * Math.cos(6.15315547484 + 6286.59896834040*t);
-  X0 += 0.00001445242 * Math.cos(3.47272783760 + 2352.86615377180*t);
-  X0 += 0.00001091006 * Math.cos(3.68984782465 + 5223.69391980220*t);
-  X0 += 0.00000934429 * Math.cos(6.07389922585 + 12036.46073488820*t);
-  X0 += 0.00000899144 * Math.cos(3.17571950523 + 10213.28554621100*t);
-  X0 += 0.00000566514 * Math.cos(2.15262034016 + 1059.38193018920*t);
-  X0 += 0.00000684416 * Math.cos(1.30699021227 + 5753.38488489680*t);
-  X0 += 0.00000734455 * Math.cos(4.35500196530 + 398.14900340820*t);
-  X0 += 0.00000681437 * Math.cos(2.21821534685 + 4705.73230754360*t);
-  X0 += 0.00000611238 * Math.cos(5.38479234323 + 6812.76681508600*t);
-  X0 += 0.00000451836 * Math.cos(6.08768280868 + 5884.92684658320*t);
-  X0 += 0.00000451953 * Math.cos(1.27933728354 + 6256.77753019160*t);
-  X0 += 0.00000449517 * Math.cos(5.36923831714 + 6309.37416979120*t);
-  X0 += 0.00000406248 * Math.cos(0.54361367084 + 6681.22485339960*t);
-  X0 += 0.00000540957 * Math.cos(0.78677364655 + 775.52261132400*t);
-  X0 += 0.00000547004 * Math.cos(1.46146650376 + 14143.49524243060*t);
-  X0 += 0.00000520484 * Math.cos(4.43295799975 + 7860.41939243920*t);
-  X0 += 0.00000214960 * Math.cos(4.50213844573 + 11506.76976979360*t);
-  X0 += 0.00000227892 * Math.cos(1.23941482802 + 7058.59846131540*t);
-  X0 += 0.00000225878 * Math.cos(3.27244306207 + 4694.00295470760*t);
-  X0 += 0.00000255820 * Math.cos(2.26556277246 + 12168.00269657460*t);
-  X0 += 0.00000256182 * Math.cos(1.45474116190 + 709.93304855830*t);
-  X0 += 0.00000178120 * Math.cos(2.96205424204 + 796.29800681640*t);
-  X0 += 0.00000161205 * Math.cos(1.47337718956 + 5486.77784317500*t);
-  X0 += 0.00000178325 * Math.cos(6.24374704602 + 6283.14316029419*t);
-  X0 += 0.00000178325 * Math.cos(0.40466470869 + 6283.00853968860*t);
-  X0 += 0.00000155487 * Math.cos(1.62409309523 + 25132.30339996560*t);
-  X0 += 0.00000209024 * Math.cos(5.85207528073 + 11790.62908865880*t);
-  X0 += 0.00000199971 * Math.cos(4.07209938245 + 17789.84561978500*t);
-  X0 += 0.00000128933 * Math.cos(5.21693314150 + 7079.37385680780*t);
-  X0 += 0.00000128099 * Math.cos(4.80182882228 + 3738.76143010800*t);
-  X0 += 0.00000151691 * Math.cos(0.86921639327 + 213.29909543800*t);
-  X0 += 0.00000094483 * Math.cos(4.60187620729 + 10977.07880469900*t);
-  X0 += 0.00000077801 * Math.cos(1.84444797200 + 8827.39026987480*t);
-  X0 += 0.00000077277 * Math.cos(3.58396027325 + 5507.55323866740*t);
-  X0 += 0.00000073493 * Math.cos(2.69522392584 + 1589.07289528380*t);
-  X0 += 0.00000065359 * Math.cos(3.65156347970 + 11769.85369316640*t);
-  X0 += 0.00000063240 * Math.cos(2.24124130944 + 6262.30045449900*t);
-  X0 += 0.00000062961 * Math.cos(4.40729381941 + 6303.85124548380*t);
-  X0 += 0.00000085870 * Math.cos(3.02430773140 + 167283.76158766549*t);
-  X0 += 0.00000082957 * Math.cos(6.19254908840 + 3340.61242669980*t);
-  X0 += 0.00000079201 * Math.cos(2.49366716519 + 6069.77675455340*t);
-  X0 += 0.00000060048 * Math.cos(3.39951805979 + 4136.91043351620*t);
-  X0 += 0.00000062119 * Math.cos(2.01472298915 + 7.11354700080*t);
-  X0 += 0.00000075601 * Math.cos(4.15956023781 + 6496.37494542940*t);
-  X0 += 0.00000067771 * Math.cos(4.03416283669 + 9437.76293488700*t);
-  X0 += 0.00000053715 * Math.cos(1.56222706033 + 1194.44701022460*t);
-  X0 += 0.00000057574 * Math.cos(2.67881766950 + 6282.09552892320*t);
-  X0 += 0.00000057574 * Math.cos(3.96971590315 + 6284.05617105960*t);
-  X0 += 0.00000051129 * Math.cos(1.31255522350 + 6290.18939699220*t);
-  X0 += 0.00000050529 * Math.cos(5.34827650648 + 6275.96230299060*t);
-  X0 += 0.00000049613 * Math.cos(2.64370071484 + 6127.65545055720*t);
-  X0 += 0.00000048085 * Math.cos(4.00886197380 + 6438.49624942560*t);
-  X0 += 0.00000057340 * Math.cos(3.79459979103 + 3154.68708489560*t);
-  X0 += 0.00000047378 * Math.cos(6.10705175562 + 3128.38876509580*t);
-  X0 += 0.00000048104 * Math.cos(4.77180566934 + 801.82093112380*t);
-  X0 += 0.00000041149 * Math.cos(3.32726302190 + 8429.24126646660*t);
-  X0 += 0.00000052309 * Math.cos(5.30571599873 + 13367.97263110660*t);
-  X0 += 0.00000051321 * Math.cos(5.78450026632 + 12352.85260454480*t);
-  X0 += 0.00000050648 * Math.cos(2.05206551992 + 11856.21865142450*t);
-  X0 += 0.00000043381 * Math.cos(3.64501749522 + 17260.15465469040*t);
-  X0 += 0.00000039554 * Math.cos(4.93022392385 + 5481.25491886760*t);
-  X0 += 0.00000048969 * Math.cos(0.45418080759 + 9225.53927328300*t);
-  X0 += 0.00000047568 * Math.cos(3.16123585999 + 5856.47765911540*t);
-  X0 += 0.00000047271 * Math.cos(0.62147119447 + 2544.31441988340*t);
-  X0 += 0.00000037987 * Math.cos(3.04100734504 + 426.59819087600*t);
-  X0 += 0.00000032481 * Math.cos(0.80957263520 + 3930.20969621960*t);
-  X0 += 0.00000032559 * Math.cos(1.97427864771 + 2146.16541647520*t);
-  X0 += 0.00000032521 * Math.cos(2.84566871337 + 4164.31198961300*t);
-  X0 += 0.00000032546 * Math.cos(3.01796808307 + 5088.62883976680*t);
-  X0 += 0.00000028515 * Math.cos(6.10933021271 + 12569.67481833180*t);
-  X0 += 0.00000036898 * Math.cos(2.91097134183 + 18073.70493865020*t);
-  X0 += 0.00000024936 * Math.cos(2.17935828787 + 26.29831979980*t);
-  X0 += 0.00000030322 * Math.cos(1.99340330773 + 4535.05943692440*t);
-  X0 += 0.00000028166 * Math.cos(0.48127325250 + 12562.62858163380*t);
-  X0 += 0.00000021880 * Math.cos(5.12635088590 + 11371.70468975820*t);
-  X0 += 0.00000021642 * Math.cos(4.63524156478 + 12559.03815298200*t);
-  X0 += 0.00000020480 * Math.cos(1.46713660207 + 7084.89678111520*t);
-  X0 += 0.00000026112 * Math.cos(0.30447108865 + 71430.69561812909*t);
-  X0 += 0.00000022867 * Math.cos(4.76437399404 + 8031.09226305840*t);
-  X0 += 0.00000018593 * Math.cos(3.38415795860 + 1748.01641306700*t);
-  X0 += 0.00000023250 * Math.cos(6.19030311409 + 18319.53658487960*t);
-  X0 += 0.00000017104 * Math.cos(0.58684867006 + 4933.20844033260*t);
-  X0 += 0.00000021687 * Math.cos(4.30348901447 + 10447.38783960440*t);
-  X0 += 0.00000021065 * Math.cos(3.80028088787 + 7477.52286021600*t);
-  X0 += 0.00000014285 * Math.cos(1.29528607840 + 2942.46342329160*t);
-  X0 += 0.00000013898 * Math.cos(4.59171958613 + 8635.94200376320*t);
-  X0 += 0.00000019220 * Math.cos(0.49428010004 + 17298.18232732620*t);
-  X0 += 0.00000018884 * Math.cos(2.42694414831 + 156137.47598479928*t);
-  X0 += 0.00000017889 * Math.cos(0.15750451509 + 1592.59601363280*t);
-  X0 += 0.00000013605 * Math.cos(5.19721055627 + 13095.84266507740*t);
-  X0 += 0.00000015049 * Math.cos(3.12084096050 + 16496.36139620240*t);
-  X0 += 0.00000013852 * Math.cos(6.16243027421 + 7632.94325965020*t);
-  X0 += 0.00000014421 * Math.cos(1.43791851415 + 20426.57109242200*t);
-  X0 += 0.00000013247 * Math.cos(3.60768174652 + 12139.55350910680*t);
-  X0 += 0.00000011583 * Math.cos(5.46076026245 + 5331.35744374080*t);
-  X0 += 0.00000014329 * Math.cos(6.02791958133 + 7342.45778018060*t);
-  X0 += 0.00000012375 * Math.cos(3.10941923273 + 6279.48542133960*t);
-  X0 += 0.00000012366 * Math.cos(3.53911446434 + 6286.66627864320*t);
-  X0 += 0.00000009951 * Math.cos(1.25735916596 + 7234.79425624200*t);
-  X0 += 0.00000012425 * Math.cos(1.06396563046 + 15110.46611986620*t);
-  X0 += 0.00000011004 * Math.cos(2.19276723240 + 10988.80815753500*t);
-  X0 += 0.00000011583 * Math.cos(4.05256206393 + 5729.50644714900*t);
-  X0 += 0.00000009046 * Math.cos(5.43016645841 + 9623.68827669120*t);
-  X0 += 0.00000008869 * Math.cos(5.04690941813 + 6148.01076995600*t);
-  X0 += 0.00000010507 * Math.cos(2.62758025060 + 6836.64525283380*t);
-  X0 += 0.00000011129 * Math.cos(4.17728063171 + 15720.83878487840*t);
-  X0 += 0.00000008614 * Math.cos(1.60161176919 + 6418.14093002680*t);
-  X0 += 0.00000008532 * Math.cos(2.46198384967 + 14712.31711645800*t);
-  X0 += 0.00000007910 * Math.cos(3.15429574843 + 2118.76386037840*t);
-  X0 += 0.00000010546 * Math.cos(4.79503596728 + 1349.86740965880*t);
-  X0 += 0.00000010480 * Math.cos(2.95288908781 + 5999.21653112620*t);
-  X0 += 0.00000007456 * Math.cos(5.42522643084 + 6040.34724601740*t);
-  X0 += 0.00000009820 * Math.cos(3.69556194245 + 6566.93516885660*t);
-  X0 += 0.00000009171 * Math.cos(3.92216439653 + 5643.17856367740*t);
-  X0 += 0.00000007018 * Math.cos(1.23420199826 + 6525.80445396540*t);
-  X0 += 0.00000009797 * Math.cos(1.91951822764 + 21228.39202354580*t);
-  X0 += 0.00000009060 * Math.cos(4.61643194755 + 4690.47983635860*t);
-  X0 += 0.00000007545 * Math.cos(1.23604549224 + 12539.85338018300*t);
-  X0 += 0.00000008227 * Math.cos(0.32929613711 + 10973.55568635000*t);
-  X0 += 0.00000007202 * Math.cos(5.88391543785 + 6245.04817735560*t);
-  X0 += 0.00000007144 * Math.cos(0.76464650349 + 6321.10352262720*t);
-  X0 += 0.00000006625 * Math.cos(0.70112927898 + 5327.47610838280*t);
-  X0 += 0.00000007412 * Math.cos(5.03197290869 + 23543.23050468179*t);
-  X0 += 0.00000006160 * Math.cos(0.94570829909 + 12964.30070339100*t);
-  X0 += 0.00000006378 * Math.cos(6.20903842618 + 951.71840625060*t);
-  X0 += 0.00000006359 * Math.cos(5.03541261021 + 1990.74501704100*t);
-  X0 += 0.00000007254 * Math.cos(3.57690549862 + 536.80451209540*t);
-  X0 += 0.00000005777 * Math.cos(6.10164059960 + 955.59974160860*t);
-  X0 += 0.00000006393 * Math.cos(3.97543391449 + 24072.92146977640*t);
-  X0 += 0.00000006927 * Math.cos(0.71517687323 + 522.57741809380*t);
-  X0 += 0.00000007793 * Math.cos(4.30411864972 + 22003.91463486980*t);
-  X0 += 0.00000006346 * Math.cos(3.50687769075 + 5230.80746680300*t);
-  X0 += 0.00000007534 * Math.cos(3.51457135016 + 18422.62935909819*t);
-  X0 += 0.00000006953 * Math.cos(2.74384548965 + 155.42039943420*t);
-  X0 += 0.00000006224 * Math.cos(2.24416723229 + 18451.07854656599*t);
-  X0 += 0.00000005830 * Math.cos(2.32860514691 + 639.89728631400*t);
-  X0 += 0.00000005762 * Math.cos(3.49866583471 + 1551.04522264800*t);
-  X0 += 0.00000006251 * Math.cos(4.45479090841 + 6288.59877429880*t);
-  X0 += 0.00000006251 * Math.cos(2.19374266424 + 6277.55292568400*t);
-  X0 += 0.00000006278 * Math.cos(0.64265846614 + 5216.58037280140*t);
-  X0 += 0.00000006405 * Math.cos(2.25334669847 + 5650.29211067820*t);
-  X0 += 0.00000006545 * Math.cos(1.98229464447 + 103.09277421860*t);
-  X0 += 0.00000004737 * Math.cos(3.74210997787 + 14314.16811304980*t);
-  X0 += 0.00000004646 * Math.cos(1.33492108974 + 553.56940284240*t);
-  X0 += 0.00000006263 * Math.cos(4.39529396163 + 26087.90314157420*t);
-  X0 += 0.00000006196 * Math.cos(2.58704269072 + 84672.47584450469*t);
-  X0 += 0.00000006160 * Math.cos(4.78249950381 + 239424.39025435288*t);
-  X0 += 0.00000004988 * Math.cos(0.73122576373 + 77713.77146812050*t);
-  X0 += 0.00000005414 * Math.cos(2.99961957880 + 6179.98307577280*t);
-  X0 += 0.00000005414 * Math.cos(3.65424820690 + 6386.16862421000*t);
-  X0 += 0.00000004863 * Math.cos(3.76722340488 + 90279.92316810328*t);
-  X0 += 0.00000005711 * Math.cos(4.32714492993 + 6915.85958930460*t);
-  X0 += 0.00000004269 * Math.cos(2.38367994999 + 7875.67186362420*t);
-  X0 += 0.00000004017 * Math.cos(3.78580907612 + 6254.62666252360*t);
-  X0 += 0.00000004067 * Math.cos(2.42033776129 + 3634.62102451840*t);
-  X0 += 0.00000003993 * Math.cos(2.86272124248 + 6311.52503745920*t);
-  X0 += 0.00000005305 * Math.cos(3.34359172920 + 25158.60171976540*t);
-  X0 += 0.00000004804 * Math.cos(2.82827032932 + 5760.49843189760*t);
-  X0 += 0.00000004349 * Math.cos(5.62752376053 + 7238.67559160000*t);
-  X0 += 0.00000004119 * Math.cos(3.29663921982 + 6709.67404086740*t);
-  X0 += 0.00000004024 * Math.cos(0.55473527406 + 11015.10647733480*t);
-  X0 += 0.00000004409 * Math.cos(3.80563977803 + 6805.65326808520*t);
-  X0 += 0.00000003348 * Math.cos(3.54433469125 + 12592.45001978260*t);
-  X0 += 0.00000003172 * Math.cos(5.19146555016 + 1066.49547719000*t);
-  X0 += 0.00000003532 * Math.cos(3.92898013298 + 9917.69687450980*t);
-  X0 += 0.00000003580 * Math.cos(4.19680692038 + 11926.25441366880*t);
-  X0 += 0.00000003336 * Math.cos(1.79793376416 + 10575.40668294180*t);
-  X0 += 0.00000003149 * Math.cos(6.21487368875 + 4292.33083295040*t);
-  X0 += 0.00000003899 * Math.cos(5.53698997029 + 74.78159856730*t);
-  X0 += 0.00000002979 * Math.cos(6.20067573402 + 12566.21901028560*t);
-  X0 += 0.00000003981 * Math.cos(1.19685195313 + 13341.67431130680*t);
-  X0 += 0.00000003025 * Math.cos(3.18620101831 + 18052.92954315780*t);
-  X0 += 0.00000003624 * Math.cos(5.60981856994 + 6208.29425142410*t);
-  X0 += 0.00000003581 * Math.cos(1.03995231220 + 6357.85744855870*t);
-  X0 += 0.00000003698 * Math.cos(5.22105764023 + 5966.68398033480*t);
-  X0 += 0.00000002793 * Math.cos(4.13369432245 + 3.52311834900*t);
-  X0 += 0.00000003626 * Math.cos(1.42632163253 + 6599.46771964800*t);
-  X0 += 0.00000003625 * Math.cos(3.00192353938 + 6019.99192661860*t);
-  X0 += 0.00000002611 * Math.cos(2.43263787635 + 6702.56049386660*t);
-  X0 += 0.00000002535 * Math.cos(1.58310693201 + 31415.37924995700*t);
-  X0 += 0.00000003520 * Math.cos(5.37986364075 + 250570.67585721909*t);
-  X0 += 0.00000002593 * Math.cos(4.91225714775 + 16730.46368959580*t);
-  X0 += 0.00000003434 * Math.cos(3.64656881585 + 6546.15977336420*t);
-  X0 += 0.00000002788 * Math.cos(3.30835728306 + 12721.57209941700*t);
-  X0 += 0.00000003383 * Math.cos(1.74748489437 + 14945.31617355440*t);
-  X0 += 0.00000002653 * Math.cos(4.42220751136 + 5863.59120611620*t);
-  X0 += 0.00000003049 * Math.cos(0.02765893726 + 4732.03062734340*t);
-  X0 += 0.00000002378 * Math.cos(3.62936279948 + 2388.89402044920*t);
-  X0 += 0.00000002979 * Math.cos(0.36159339669 + 12566.08438968000*t);
-  X0 += 0.00000002716 * Math.cos(3.06935305016 + 12029.34718788740*t);
-  X0 += 0.00000002216 * Math.cos(5.26633529197 + 13362.44970679920*t);
-  X0 += 0.00000003014 * Math.cos(4.76640877174 + 29088.81141598500*t);
-  X0 += 0.00000002742 * Math.cos(5.06666852445 + 13916.01910964160*t);
-  X0 += 0.00000002265 * Math.cos(5.95706192557 + 6076.89030155420*t);
-  X0 += 0.00000002529 * Math.cos(5.94709040579 + 12043.57428188900*t);
-  X0 += 0.00000002015 * Math.cos(2.48432243402 + 6262.72053059260*t);
-  X0 += 0.00000002218 * Math.cos(0.69324011482 + 6489.26139842860*t);
-  X0 += 0.00000002005 * Math.cos(4.16423889100 + 6303.43116939020*t);
-  X0 += 0.00000002009 * Math.cos(4.09759324685 + 4701.11650170840*t);
-  X0 += 0.00000002105 * Math.cos(4.63993587835 + 5746.27133789600*t);
-  X0 += 0.00000001937 * Math.cos(0.22112768064 + 13521.75144159140*t);
-  X0 += 0.00000002437 * Math.cos(6.12896014686 + 149.56319713460*t);
-  X0 += 0.00000002602 * Math.cos(4.28001549113 + 4590.91018048900*t);
-  X0 += 0.00000001893 * Math.cos(5.66795892365 + 6286.95718534940*t);
-  X0 += 0.00000001893 * Math.cos(0.98057464900 + 6279.19451463340*t);
-  X0 += 0.00000002156 * Math.cos(2.00898711721 + 18139.29450141590*t);
-  X0 += 0.00000002388 * Math.cos(0.13031678718 + 1162.47470440780*t);
-  X0 += 0.00000001962 * Math.cos(0.25060934155 + 4686.88940770680*t);
-  X0 += 0.00000002337 * Math.cos(4.40745417534 + 10021.83728009940*t);
-  X0 += 0.00000001884 * Math.cos(5.27011523204 + 242.72860397400*t);
-  X0 += 0.00000002436 * Math.cos(4.40772141072 + 95143.13292097810*t);
-  X0 += 0.00000001759 * Math.cos(0.19888470443 + 13517.87010623340*t);
-  X0 += 0.00000002163 * Math.cos(1.41797947214 + 6037.24420376200*t);
-  X0 += 0.00000002167 * Math.cos(4.72612563566 + 23013.53953958720*t);
-  X0 += 0.00000002250 * Math.cos(2.39728930597 + 12669.24447420140*t);
-  X0 += 0.00000002052 * Math.cos(5.23006568302 + 6528.90749622080*t);
-  X0 += 0.00000001774 * Math.cos(2.08484497348 + 6819.88036208680*t);
-  X0 += 0.00000001842 * Math.cos(0.34675193374 + 65147.61976813770*t);
-  X0 += 0.00000001549 * Math.cos(0.71612589777 + 20.77539549240*t);
-  X0 += 0.00000001543 * Math.cos(5.96098287839 + 6272.43918464160*t);
-  X0 += 0.00000001543 * Math.cos(0.68755069426 + 6293.71251534120*t);
-  X0 += 0.00000001727 * Math.cos(4.50674659690 + 17654.78053974960*t);
-  X0 += 0.00000001436 * Math.cos(2.99734831658 + 110.20632121940*t);
-  X0 += 0.00000001427 * Math.cos(1.68851809181 + 13119.72110282519*t);
-  X0 += 0.00000001395 * Math.cos(3.25347392533 + 10177.25767953360*t);
-  X0 += 0.00000001446 * Math.cos(2.26563038586 + 1052.26838318840*t);
-  X0 += 0.00000001819 * Math.cos(3.18848907826 + 18875.52586977400*t);
-  X0 += 0.00000001740 * Math.cos(5.48710781556 + 19651.04848109800*t);
-  X0 += 0.00000001794 * Math.cos(5.74176427744 + 25934.12433108940*t);
-  X0 += 0.00000001800 * Math.cos(6.18908014275 + 33019.02111220460*t);
-  X0 += 0.00000001488 * Math.cos(5.67443981584 + 76.26607127560*t);
-  X0 += 0.00000001349 * Math.cos(5.75097793699 + 6016.46880826960*t);
-  X0 += 0.00000001477 * Math.cos(4.14004787537 + 12779.45079542080*t);
-  X0 += 0.00000001251 * Math.cos(1.50045769848 + 3894.18182954220*t);
-  X0 += 0.00000001492 * Math.cos(6.22975090570 + 9411.46461508720*t);
-  X0 += 0.00000001471 * Math.cos(5.75783391755 + 18635.92845453620*t);
-  X0 += 0.00000001672 * Math.cos(5.43726223249 + 16200.77272450120*t);
-  X0 += 0.00000001263 * Math.cos(0.91728971350 + 12573.26524698360*t);
-  X0 += 0.00000001366 * Math.cos(1.09160445123 + 2379.16447357160*t);
-  X0 += 0.00000001272 * Math.cos(0.89738866811 + 6549.68289171320*t);
-  X0 += 0.00000001274 * Math.cos(5.34253525843 + 632.78373931320*t);
-  X0 += 0.00000001156 * Math.cos(1.38847609016 + 11499.65622279280*t);
-  X0 += 0.00000001543 * Math.cos(4.26237609038 + 18209.33026366019*t);
-  X0 += 0.00000001460 * Math.cos(4.97233669659 + 245.83164622940*t);
-  X0 += 0.00000001253 * Math.cos(1.41164782000 + 6993.00889854970*t);
-  X0 += 0.00000001455 * Math.cos(5.29534379992 + 38.13303563780*t);
-  X0 += 0.00000001228 * Math.cos(2.83750345253 + 24356.78078864160*t);
-  X0 += 0.00000001028 * Math.cos(2.51030023881 + 6112.40297937220*t);
-  X0 += 0.00000001268 * Math.cos(4.67217109478 + 5429.87946823940*t);
-  X0 += 0.00000001312 * Math.cos(1.10091569645 + 12491.37010141550*t);
-  X0 += 0.00000000992 * Math.cos(4.13817717100 + 6453.74872061060*t);
-  X0 += 0.00000000988 * Math.cos(0.98006619973 + 8273.82086703240*t);
-  X0 += 0.00000001191 * Math.cos(3.21845317343 + 6276.02961329339*t);
-  X0 += 0.00000001191 * Math.cos(3.43008039922 + 6290.12208668940*t);
-  X0 += 0.00000000978 * Math.cos(4.73852763851 + 6247.04798331399*t);
-  X0 += 0.00000000971 * Math.cos(1.91000718426 + 6319.10371666880*t);
-  X0 += 0.00000000962 * Math.cos(2.63568544853 + 12565.17137891460*t);
-  X0 += 0.00000001025 * Math.cos(2.21768401152 + 12545.37630449040*t);
-  X0 += 0.00000001146 * Math.cos(3.85865009647 + 206.18554843720*t);
-  X0 += 0.00000000944 * Math.cos(0.78473810598 + 6306.95428773920*t);
-  X0 += 0.00000000944 * Math.cos(5.86379546667 + 6259.19741224360*t);
-  X0 += 0.00000001092 * Math.cos(3.92002105501 + 17796.95916678580*t);
-  X0 += 0.00000000886 * Math.cos(5.23132430543 + 6172.86952877200*t);
-  X0 += 0.00000000859 * Math.cos(1.48130342803 + 1692.16566950240*t);
-  X0 += 0.00000001211 * Math.cos(4.04154480615 + 82576.98122099529*t);
-  X0 += 0.00000001132 * Math.cos(0.96198039943 + 17782.73207278420*t);
-  X0 += 0.00000000942 * Math.cos(1.42062620155 + 6267.82337880639*t);
-  X0 += 0.00000000942 * Math.cos(5.22790737110 + 6298.32832117640*t);
-  X0 += 0.00000001045 * Math.cos(0.46337213067 + 15508.61512327440*t);
-  X0 += 0.00000000850 * Math.cos(1.45204280805 + 6393.28217121080*t);
-  X0 += 0.00000000895 * Math.cos(2.40085098648 + 3903.91137641980*t);
-  X0 += 0.00000001016 * Math.cos(0.71504248238 + 220.41264243880*t);
-  X0 += 0.00000000853 * Math.cos(4.42455068314 + 949.17560896980*t);
-  X0 += 0.00000000917 * Math.cos(2.47015034331 + 149854.40013480789*t);
-  X0 += 0.00000001085 * Math.cos(1.32862144392 + 36949.23080842420*t);
-  X0 += 0.00000000779 * Math.cos(3.58339451743 + 2648.45482547300*t);
-  X0 += 0.00000001000 * Math.cos(0.24880432000 + 11403.67699557500*t);
-  X0 += 0.00000000962 * Math.cos(3.92658368218 + 12567.13202105100*t);
-  X0 += 0.00000000770 * Math.cos(6.20173754399 + 4804.20927592700*t);
-  X0 += 0.00000000986 * Math.cos(4.62897469531 + 22805.73556599360*t);
-  X0 += 0.00000000931 * Math.cos(2.22558469426 + 2787.04302385740*t);
-  X0 += 0.00000000743 * Math.cos(3.79903933428 + 7834.12107263940*t);
-  X0 += 0.00000000905 * Math.cos(3.81538816339 + 6284.56032269970*t);
-  X0 += 0.00000000905 * Math.cos(2.83314540925 + 6281.59137728310*t);
-  X0 += 0.00000000715 * Math.cos(5.50312651042 + 17256.63153634140*t);
-  X0 += 0.00000000798 * Math.cos(2.62501077543 + 12410.73130054860*t);
-  X0 += 0.00000000828 * Math.cos(1.54060095214 + 10969.96525769820*t);
-  X0 += 0.00000000821 * Math.cos(0.52122150189 + 12416.58850284820*t);
-  X0 += 0.00000000826 * Math.cos(4.78071938299 + 10984.19235169980*t);
-  X0 += 0.00000000754 * Math.cos(3.82898538792 + 4061.21921539440*t);
-  X0 += 0.00000000616 * Math.cos(5.70479516739 + 1596.18644228460*t);
-  X0 += 0.00000000723 * Math.cos(3.06755247513 + 161000.68573767410*t);
-  X0 += 0.00000000782 * Math.cos(0.87676753080 + 4907.30205014560*t);
-  X0 += 0.00000000707 * Math.cos(3.28533306159 + 5849.36411211460*t);
-  X0 += 0.00000000783 * Math.cos(3.43481557690 + 846.08283475120*t);
-  X0 += 0.00000000623 * Math.cos(2.94730498294 + 5333.90024102160*t);
-  X0 += 0.00000000696 * Math.cos(4.89623582044 + 11712.95531823080*t);
-  X0 += 0.00000000616 * Math.cos(1.47727208161 + 5573.14280143310*t);
-  X0 += 0.00000000595 * Math.cos(1.30546777768 + 12323.42309600880*t);
-  X0 += 0.00000000611 * Math.cos(1.31321200457 + 11933.36796066960*t);
-  X0 += 0.00000000611 * Math.cos(1.53155679450 + 853.19638175200*t);
-  X0 += 0.00000000570 * Math.cos(4.54665961586 + 12586.92709547520*t);
-  X0 += 0.00000000778 * Math.cos(1.57590278073 + 8662.24032356300*t);
-  X0 += 0.00000000597 * Math.cos(4.69316038420 + 9779.10867612540*t);
-  X0 += 0.00000000536 * Math.cos(6.06660590951 + 18852.75066832320*t);
-  X0 += 0.00000000532 * Math.cos(4.58762153412 + 18842.11400297339*t);
-  X0 += 0.00000000599 * Math.cos(2.11793250999 + 6151.53388830500*t);
-  X0 += 0.00000000540 * Math.cos(3.40440707564 + 6279.78949257360*t);
-  X0 += 0.00000000540 * Math.cos(3.24412649701 + 6286.36220740920*t);
-  X0 += 0.00000000621 * Math.cos(1.14533482552 + 52175.80628314840*t);
-  X0 += 0.00000000513 * Math.cos(3.70291605445 + 12455.94537876340*t);
-  X0 += 0.00000000623 * Math.cos(5.52546598759 + 5326.78669402080*t);
-  X0 += 0.00000000649 * Math.cos(4.90568768794 + 11764.33076885900*t);
-  X0 += 0.00000000582 * Math.cos(4.53092407532 + 6414.61781167780*t);
-  X0 += 0.00000000610 * Math.cos(3.94320832220 + 10419.98628350760*t);
-  X0 += 0.00000000679 * Math.cos(0.26045226696 + 6133.51265285680*t);
-  X0 += 0.00000000531 * Math.cos(3.00684541494 + 3496.03282613400*t);
-  X0 += 0.00000000536 * Math.cos(3.70224967645 + 7232.25145896120*t);
-  X0 += 0.00000000510 * Math.cos(4.38198402315 + 11513.88331679440*t);
-  X0 += 0.00000000517 * Math.cos(2.93096521231 + 433.71173787680*t);
-  X0 += 0.00000000643 * Math.cos(6.06382589060 + 26735.94526221320*t);
-  X0 += 0.00000000665 * Math.cos(2.75085842376 + 40879.44050464380*t);
-  X0 += 0.00000000549 * Math.cos(0.63911798007 + 22483.84857449259*t);
-  X0 += 0.00000000479 * Math.cos(1.33580595339 + 5547.19933645960*t);
-  X0 += 0.00000000564 * Math.cos(3.92025647347 + 4171.42553661380*t);
-  X0 += 0.00000000462 * Math.cos(1.96611775944 + 3104.93005942380*t);
-  X0 += 0.00000000551 * Math.cos(4.03874430699 + 6503.48849243020*t);
-  X0 += 0.00000000535 * Math.cos(6.12277226234 + 173566.83743765688*t);
-  X0 += 0.00000000545 * Math.cos(2.61441075819 + 6062.66320755260*t);
-  X0 += 0.00000000477 * Math.cos(3.50657951584 + 9388.00590941520*t);
-  X0 += 0.00000000448 * Math.cos(5.09815034585 + 4274.51831083240*t);
-  X0 += 0.00000000532 * Math.cos(0.22623731981 + 283.85931886520*t);
-  X0 += 0.00000000527 * Math.cos(6.24827316267 + 24602.61243487099*t);
-  X0 += 0.00000000502 * Math.cos(0.97407194728 + 12489.88562870720*t);
-  X0 += 0.00000000603 * Math.cos(0.85487083482 + 322711.30452390644*t);
-  X0 += 0.00000000493 * Math.cos(6.11920290350 + 29296.61538957860*t);
-  X0 += 0.00000000530 * Math.cos(0.43491203890 + 18845.70443162520*t);
-  X0 += 0.00000000431 * Math.cos(5.31145947560 + 7018.95236352320*t);
-  X0 += 0.00000000559 * Math.cos(1.71609589414 + 1581.95934828300*t);
-  X0 += 0.00000000584 * Math.cos(0.07135689258 + 72850.56171524568*t);
-  X0 += 0.00000000478 * Math.cos(1.85248622079 + 14.22709400160*t);
-  X0 += 0.00000000569 * Math.cos(2.95236791425 + 97238.62754448749*t);
-  X0 += 0.00000000405 * Math.cos(5.39493918596 + 10873.98603048040*t);
-  X0 += 0.00000000401 * Math.cos(4.50443000854 + 17267.26820169119*t);
-  X0 += 0.00000000389 * Math.cos(3.43047350256 + 6244.94281435360*t);
-  X0 += 0.00000000389 * Math.cos(3.21806007009 + 6321.20888562920*t);
-  X0 += 0.00000000388 * Math.cos(1.13963224225 + 6297.30294399300*t);
-  X0 += 0.00000000388 * Math.cos(5.50890133040 + 6268.84875598980*t);
-  X0 += 0.00000000515 * Math.cos(1.67075193318 + 12320.32005375340*t);
-  X0 += 0.00000000393 * Math.cos(4.37184659923 + 14919.01785375460*t);
-  X0 += 0.00000000394 * Math.cos(6.10411050787 + 4157.19844261220*t);
-  X0 += 0.00000000491 * Math.cos(5.96740803508 + 1478.86657406440*t);
-  X0 += 0.00000000505 * Math.cos(4.66096327599 + 17157.06188047180*t);
-  X0 += 0.00000000528 * Math.cos(5.62841514056 + 135.06508003540*t);
-  X0 += 0.00000000439 * Math.cos(4.82558161657 + 233141.31440436149*t);
-  X0 += 0.00000000417 * Math.cos(3.74443512826 + 13760.59871020740*t);
-  X0 += 0.00000000419 * Math.cos(5.08318905121 + 15671.08175940660*t);
-  X0 += 0.00000000393 * Math.cos(1.56711153414 + 7872.14874527520*t);
-  X0 += 0.00000000392 * Math.cos(1.30305906278 + 419.48464387520*t);
-  X0 += 0.00000000365 * Math.cos(2.11020607854 + 6922.97313630540*t);
-  X0 += 0.00000000419 * Math.cos(0.62417554081 + 5642.19824260920*t);
-  X0 += 0.00000000387 * Math.cos(0.68719040069 + 17253.04110768959*t);
-  X0 += 0.00000000371 * Math.cos(5.76233828697 + 13625.53363017200*t);
-  X0 += 0.00000000379 * Math.cos(0.81831291068 + 3185.19202726560*t);
-  X0 += 0.00000000499 * Math.cos(2.72563350590 + 161710.61878623239*t);
-  X0 += 0.00000000414 * Math.cos(3.32204347851 + 22779.43724619380*t);
-  X0 += 0.00000000485 * Math.cos(1.35444198321 + 12528.01866434500*t);
-  X0 += 0.00000000358 * Math.cos(3.15737999738 + 6271.34649715540*t);
-  X0 += 0.00000000358 * Math.cos(3.49115357527 + 6294.80520282740*t);
-  X0 += 0.00000000351 * Math.cos(2.21887707287 + 11616.97609101300*t);
-  X0 += 0.00000000387 * Math.cos(0.49044025161 + 956.28915597060*t);
-  X0 += 0.00000000451 * Math.cos(0.91836677580 + 29864.33402730900*t);
-  X0 += 0.00000000421 * Math.cos(4.82745120825 + 7445.55055439920*t);
-  X0 += 0.00000000327 * Math.cos(3.95232223910 + 20995.39296644940*t);
-  X0 += 0.00000000336 * Math.cos(1.41330667750 + 6279.14369672830*t);
-  X0 += 0.00000000336 * Math.cos(5.23522689515 + 6287.00800325450*t);
-  X0 += 0.00000000358 * Math.cos(0.81490874525 + 21393.54196985760*t);
-  X0 += 0.00000000450 * Math.cos(0.23149923655 + 1385.56157495110*t);
-  X0 += 0.00000000320 * Math.cos(0.03172757569 + 16858.48253293320*t);
-  X0 += 0.00000000348 * Math.cos(4.27565702309 + 3.93215326310*t);
-  X0 += 0.00000000363 * Math.cos(4.29069778349 + 7335.34423317980*t);
-  X0 += 0.00000000330 * Math.cos(3.68113867113 + 38.02767263580*t);
-  X0 += 0.00000000395 * Math.cos(5.39428043096 + 5905.70224207560*t);
-  X0 += 0.00000000414 * Math.cos(4.19402575890 + 44809.65020086340*t);
-  X0 += 0.00000000300 * Math.cos(3.87083875051 + 640.87760738220*t);
-  X0 += 0.00000000304 * Math.cos(0.15986036979 + 5749.86176654780*t);
-  X0 += 0.00000000351 * Math.cos(5.93395455459 + 12345.73905754400*t);
-  X0 += 0.00000000307 * Math.cos(5.30261033229 + 5120.60114558360*t);
-  X0 += 0.00000000304 * Math.cos(4.93657040735 + 29826.30635467320*t);
-  X0 += 0.00000000297 * Math.cos(6.01664889580 + 20597.24396304120*t);
-  X0 += 0.00000000395 * Math.cos(0.07726910331 + 4176.04134244900*t);
-  X0 += 0.00000000320 * Math.cos(2.49799253183 + 10818.13528691580*t);
-  X0 += 0.00000000365 * Math.cos(1.25425297875 + 6660.44945790720*t);
-  X0 += 0.00000000339 * Math.cos(6.10828911901 + 6923.95345737360*t);
-  X0 += 0.00000000274 * Math.cos(1.11162071728 + 26709.64694241340*t);
-  X0 += 0.00000000386 * Math.cos(2.29044623019 + 2636.72547263700*t);
-  X0 += 0.00000000367 * Math.cos(1.18722914434 + 30666.15495843280*t);
-  X0 += 0.00000000268 * Math.cos(4.95835137530 + 10454.50138660520*t);
-  X0 += 0.00000000265 * Math.cos(5.11010291991 + 19378.91851506880*t);
-  X0 += 0.00000000325 * Math.cos(2.49277998223 + 12359.96615154560*t);
-  X0 += 0.00000000326 * Math.cos(4.24702233173 + 16522.65971600220*t);
-  X0 += 0.00000000269 * Math.cos(0.20537129126 + 6816.28993343500*t);
-  X0 += 0.00000000298 * Math.cos(5.15059518785 + 10344.29506538580*t);
-  X0 += 0.00000000344 * Math.cos(3.51559745333 + 6147.45052498140*t);
-  X0 += 0.00000000255 * Math.cos(4.94642831875 + 1375.77379984580*t);
-  X0 += 0.00000000283 * Math.cos(2.57877323959 + 316.39186965660*t);
-  X0 += 0.00000000334 * Math.cos(3.13303102229 + 6418.70117500140*t);
-  X0 += 0.00000000316 * Math.cos(5.54205366730 + 6055.59971720240*t);
-  X0 += 0.00000000316 * Math.cos(0.36194124996 + 21954.15760939799*t);
-  X0 += 0.00000000243 * Math.cos(4.10172883526 + 6310.47740608820*t);
-  X0 += 0.00000000243 * Math.cos(2.54680473739 + 6255.67429389460*t);
-  X0 += 0.00000000314 * Math.cos(4.99359717889 + 17996.03116822220*t);
-  X0 += 0.00000000296 * Math.cos(0.07899534657 + 6129.29703950660*t);
-  X0 += 0.00000000301 * Math.cos(1.10648000281 + 6510.55198278040*t);
-  X0 += 0.00000000329 * Math.cos(1.15676558971 + 377.37360791580*t);
-  X0 += 0.00000000267 * Math.cos(3.42007125342 + 24705.70520908959*t);
-  X0 += 0.00000000285 * Math.cos(2.50494681053 + 5469.52556603160*t);
-  X0 += 0.00000000311 * Math.cos(3.23911937497 + 11720.06886523160*t);
-  X0 += 0.00000000286 * Math.cos(0.28647339668 + 6436.85466047620*t);
-  X0 += 0.00000000273 * Math.cos(4.29648399498 + 28286.99048486120*t);
-  X0 += 0.00000000319 * Math.cos(4.71062528834 + 169379.25621117488*t);
-  X0 += 0.00000000229 * Math.cos(1.01384122818 + 1265.56747862640*t);
-  X0 += 0.00000000234 * Math.cos(3.36893910039 + 4487.81740627040*t);
-  X0 += 0.00000000252 * Math.cos(0.51301411030 + 4377.61108505100*t);
-  X0 += 0.00000000214 * Math.cos(2.09487711967 + 2221.85663459700*t);
-  X0 += 0.00000000213 * Math.cos(3.79431896643 + 30355.99731976780*t);
-  X0 += 0.00000000263 * Math.cos(6.11317571912 + 9380.95967271720*t);
-  X0 += 0.00000000239 * Math.cos(1.33165763648 + 10440.27429260360*t);
-  X0 += 0.00000000289 * Math.cos(0.55454156939 + 6206.80977871580*t);
-  X0 += 0.00000000259 * Math.cos(3.43127382595 + 6282.83203250789*t);
-  X0 += 0.00000000259 * Math.cos(3.21725974670 + 6283.31966747490*t);
-  X0 += 0.00000000243 * Math.cos(4.14346390349 + 7096.62613395120*t);
-  X0 += 0.00000000246 * Math.cos(5.83734028861 + 8671.96987044060*t);
-  X0 += 0.00000000199 * Math.cos(0.93488663037 + 11216.28429032400*t);
-  X0 += 0.00000000265 * Math.cos(5.61985831637 + 48739.85989708300*t);
-  X0 += 0.00000000207 * Math.cos(3.06628694399 + 12562.56127133100*t);
-  X0 += 0.00000000212 * Math.cos(1.75471606720 + 7129.15868474260*t);
-  X0 += 0.00000000269 * Math.cos(1.52668826951 + 70755.06709173629*t);
-  X0 += 0.00000000225 * Math.cos(4.01656879083 + 5636.06501667660*t);
-  X0 += 0.00000000192 * Math.cos(2.04748658291 + 17271.88400752640*t);
-  X0 += 0.00000000240 * Math.cos(5.09605084016 + 15906.76412668260*t);
-  X0 += 0.00000000187 * Math.cos(0.15192842664 + 11609.86254401220*t);
-  X0 += 0.00000000256 * Math.cos(2.30143585875 + 224.34479570190*t);
-  X0 += 0.00000000250 * Math.cos(4.24183292428 + 5934.15142954340*t);
-  X0 += 0.00000000220 * Math.cos(0.73345029623 + 11087.28512591840*t);
-  X0 += 0.00000000175 * Math.cos(5.41174539523 + 11614.43329373220*t);
-  X0 += 0.00000000175 * Math.cos(4.58212579300 + 3744.82734573780*t);
-  X0 += 0.00000000241 * Math.cos(0.28788321480 + 8390.11035753380*t);
-  X0 += 0.00000000234 * Math.cos(2.61192358068 + 34596.36465465240*t);
-  X0 += 0.00000000174 * Math.cos(2.85207900960 + 263.08392337280*t);
-  X0 += 0.00000000233 * Math.cos(2.02657287745 + 1.48447270830*t);
-  X0 += 0.00000000190 * Math.cos(6.26917436708 + 394.62588505920*t);
-  X0 += 0.00000000187 * Math.cos(5.58825382870 + 401.67212175720*t);
-  X0 += 0.00000000178 * Math.cos(3.72578587318 + 12132.43996210600*t);
-  X0 += 0.00000000230 * Math.cos(2.40692341132 + 6632.00027043940*t);
-  X0 += 0.00000000177 * Math.cos(4.73089168144 + 4797.09572892620*t);
-  X0 += 0.00000000167 * Math.cos(3.97388034335 + 5714.25397596400*t);
-  X0 += 0.00000000160 * Math.cos(2.37187295106 + 742.99006053260*t);
-  X0 += 0.00000000214 * Math.cos(4.34116392416 + 24492.40611365159*t);
-  X0 += 0.00000000217 * Math.cos(4.52620284574 + 3097.88382272579*t);
-  X0 += 0.00000000172 * Math.cos(5.38973312367 + 6332.83287546320*t);
-  X0 += 0.00000000172 * Math.cos(1.25880044898 + 6233.31882451960*t);
-  X0 += 0.00000000221 * Math.cos(4.98998061605 + 266.60704172180*t);
-  X0 += 0.00000000159 * Math.cos(3.90246086071 + 13198.93543929600*t);
-  X0 += 0.00000000207 * Math.cos(3.49598218672 + 12569.74212863460*t);
-  X0 += 0.00000000176 * Math.cos(4.05199455874 + 12012.58229714040*t);
-  X0 += 0.00000000157 * Math.cos(5.43302098132 + 16840.67001081519*t);
-  X0 += 0.00000000170 * Math.cos(0.63813817825 + 6272.03014972750*t);
-  X0 += 0.00000000170 * Math.cos(6.01039539440 + 6294.12155025530*t);
-  X0 += 0.00000000213 * Math.cos(4.21609963122 + 19804.82729158280*t);
-  X0 += 0.00000000167 * Math.cos(5.54070880349 + 17686.75284556640*t);
-  X0 += 0.00000000187 * Math.cos(5.70099962642 + 20452.86941222180*t);
-  X0 += 0.00000000147 * Math.cos(4.99188388936 + 16737.57723659660*t);
-  X0 += 0.00000000148 * Math.cos(2.67465318849 + 6851.89772401880*t);
-  X0 += 0.00000000146 * Math.cos(0.23801153618 + 17370.36097590980*t);
-  X0 += 0.00000000143 * Math.cos(0.85202449839 + 5618.31980486140*t);
-  X0 += 0.00000000193 * Math.cos(3.57442994352 + 33326.57873317420*t);
-  X0 += 0.00000000140 * Math.cos(1.22261707467 + 2008.55753915900*t);
-  X0 += 0.00000000155 * Math.cos(0.27598891874 + 20199.09495963300*t);
-  X0 += 0.00000000182 * Math.cos(5.69212378196 + 28766.92442448400*t);
-  X0 += 0.00000000184 * Math.cos(3.48483358167 + 5540.08578945880*t);
-  X0 += 0.00000000162 * Math.cos(4.78754155685 + 12551.92460598120*t);
-  X0 += 0.00000000143 * Math.cos(2.32151913243 + 5010.39482436420*t);
-  X0 += 0.00000000190 * Math.cos(0.66924538276 + 23581.25817731760*t);
-  X0 += 0.00000000135 * Math.cos(5.34929799142 + 735.87651353180*t);
-  X0 += 0.00000000135 * Math.cos(0.07815962516 + 12431.08661994740*t);
-  X0 += 0.00000000134 * Math.cos(3.03203004875 + 11925.27409260060*t);
-  X0 += 0.00000000179 * Math.cos(1.07503153366 + 16460.33352952499*t);
-  X0 += 0.00000000182 * Math.cos(3.66470209346 + 28.44918746780*t);
-  X0 += 0.00000000146 * Math.cos(1.55848605346 + 12701.21678001820*t);
-  X0 += 0.00000000137 * Math.cos(2.60133025404 + 11.04570026390*t);
-  X0 += 0.00000000167 * Math.cos(1.26986508714 + 17473.45375012840*t);
-  X0 += 0.00000000170 * Math.cos(0.76594212114 + 52670.06959330260*t);
-  X0 += 0.00000000124 * Math.cos(5.79650915048 + 6947.83189512140*t);
-  X0 += 0.00000000135 * Math.cos(3.38698681678 + 3531.52825029980*t);
-  X0 += 0.00000000172 * Math.cos(4.94248686856 + 167959.39011405829*t);
-  X0 += 0.00000000122 * Math.cos(5.69264255527 + 3583.34103067380*t);
-  X0 += 0.00000000170 * Math.cos(1.45223415923 + 333857.59012677266*t);
-  X0 += 0.00000000155 * Math.cos(4.05744056379 + 6058.73105428950*t);
-  X0 += 0.00000000120 * Math.cos(1.19140907580 + 12808.88030395680*t);
-  X0 += 0.00000000141 * Math.cos(5.52534979149 + 162420.55183479069*t);
-  X0 += 0.00000000124 * Math.cos(1.37398060221 + 8982.81066930900*t);
-  X0 += 0.00000000120 * Math.cos(5.84076902832 + 12528.12402734700*t);
-  X0 += 0.00000000119 * Math.cos(1.19695856457 + 19247.37655338240*t);
-  X0 += 0.00000000143 * Math.cos(2.13563488838 + 95.97922721780*t);
-  X0 += 0.00000000117 * Math.cos(0.73795877914 + 11610.55195837420*t);
-  X0 += 0.00000000154 * Math.cos(4.06475922223 + 38526.57435087200*t);
-  X0 += 0.00000000163 * Math.cos(3.11560982847 + 661.23292678100*t);
-  X0 += 0.00000000163 * Math.cos(4.35848910377 + 9929.42622734580*t);
-  X0 += 0.00000000115 * Math.cos(2.14676232906 + 19402.79695281660*t);
-  X0 += 0.00000000119 * Math.cos(4.28708216617 + 12249.75983032620*t);
-  X0 += 0.00000000145 * Math.cos(2.74250030398 + 6360.74962041940*t);
-  X0 += 0.00000000145 * Math.cos(3.90603326867 + 6205.40207956340*t);
-  X0 += 0.00000000159 * Math.cos(4.18513291774 + 228278.10465148659*t);
-  X0 += 0.00000000156 * Math.cos(2.57788957454 + 4307.58330413540*t);
-  X0 += 0.00000000116 * Math.cos(0.60146141700 + 24065.80792277559*t);
-  X0 += 0.00000000118 * Math.cos(1.23925579836 + 6302.74561089119*t);
-  X0 += 0.00000000118 * Math.cos(5.40927777429 + 6263.40608909160*t);
-  X0 += 0.00000000110 * Math.cos(2.33480621176 + 16062.18452611680*t);
-  X0 += 0.00000000137 * Math.cos(4.10438279102 + 6250.54329920000*t);
-  X0 += 0.00000000137 * Math.cos(2.54415078163 + 6315.60840078280*t);
-  X0 += 0.00000000111 * Math.cos(2.27442358208 + 6339.97422492700*t);
-  X0 += 0.00000000111 * Math.cos(4.37410999057 + 6226.17747505580*t);
-  X0 += 0.00000000150 * Math.cos(0.96205875343 + 19800.94595622480*t);
-  X0 += 0.00000000123 * Math.cos(2.37616666242 + 24734.15439655740*t);
-  X0 += 0.00000000107 * Math.cos(2.16622176546 + 12463.05892576420*t);
-  X0 += 0.00000000123 * Math.cos(1.00594418221 + 6305.85105144220*t);
-  X0 += 0.00000000123 * Math.cos(5.64258939044 + 6260.30064854060*t);
-  X0 += 0.00000000106 * Math.cos(1.67655703852 + 11190.37790013700*t);
-  X0 += 0.00000000113 * Math.cos(1.95413568499 + 2111.65031337760*t);
-  X0 += 0.00000000131 * Math.cos(3.61185299316 + 18415.51581209739*t);
-  X0 += 0.00000000110 * Math.cos(4.88667127380 + 6276.44729109139*t);
-  X0 += 0.00000000110 * Math.cos(1.76186229885 + 6289.70440889141*t);
-  X0 += 0.00000000103 * Math.cos(2.75809551865 + 6324.62664097620*t);
-  X0 += 0.00000000103 * Math.cos(3.89043805400 + 6241.52505900660*t);
-  X0 += 0.00000000103 * Math.cos(5.76083420502 + 23937.85638974100*t);
-  X0 += 0.00000000107 * Math.cos(1.72027333824 + 83973.83535572988*t);
-  X0 += 0.00000000107 * Math.cos(2.75882604296 + 84019.85928049390*t);
-  X0 += 0.00000000113 * Math.cos(2.65508166498 + 24336.00539314920*t);
-  X0 += 0.00000000106 * Math.cos(3.27680652019 + 12772.33724842000*t);
-  X0 += 0.00000000143 * Math.cos(1.51199781479 + 2069.00683490660*t);
-  X0 += 0.00000000143 * Math.cos(0.91985752497 + 18772.96147869860*t);
-  X0 += 0.00000000115 * Math.cos(3.78220330855 + 3641.73457151920*t);
-  X0 += 0.00000000126 * Math.cos(1.19294266238 + 18822.92923017440*t);
-  X0 += 0.00000000115 * Math.cos(4.66544469064 + 12570.08385324590*t);
-  X0 += 0.00000000098 * Math.cos(5.07674655291 + 16310.97904572060*t);
-  X0 += 0.00000000138 * Math.cos(4.55918305844 + 6209.77872413240*t);
-  X0 += 0.00000000138 * Math.cos(2.08935051421 + 6356.37297585040*t);
-  X0 += 0.00000000120 * Math.cos(4.95740945799 + 9814.60410029120*t);
-  X0 += 0.00000000135 * Math.cos(0.57059381593 + 18699.66435283960*t);
-  X0 += 0.00000000104 * Math.cos(2.15061044327 + 12560.62877567540*t);
-  X0 += 0.00000000098 * Math.cos(5.57514710248 + 5815.11085963699*t);
-  X0 += 0.00000000106 * Math.cos(1.77919890262 + 23539.70738633280*t);
-  X0 += 0.00000000114 * Math.cos(3.75372093481 + 6155.05700665400*t);
-  X0 += 0.00000000114 * Math.cos(2.89481263784 + 6411.09469332880*t);
-  X0 += 0.00000000097 * Math.cos(6.03825791149 + 27043.50288318280*t);
-  X0 += 0.00000000095 * Math.cos(5.63307798614 + 11300.58422135640*t);
-  X0 += 0.00000000110 * Math.cos(2.79120257993 + 6312.50535852740*t);
-  X0 += 0.00000000110 * Math.cos(3.85733099272 + 6253.64634145540*t);
-  X0 += 0.00000000091 * Math.cos(2.99457476326 + 12829.23562335560*t);
-  X0 += 0.00000000128 * Math.cos(5.41337210078 + 1293.48422358260*t);
-  X0 += 0.00000000096 * Math.cos(5.97584747761 + 2699.73481931760*t);
-  X0 += 0.00000000119 * Math.cos(5.98882616741 + 17892.93839400359*t);
-  X0 += 0.00000000126 * Math.cos(0.25750574604 + 311565.01892104017*t);
-  X0 += 0.00000000120 * Math.cos(2.08798412726 + 14158.74771361560*t);
-  X0 += 0.00000000100 * Math.cos(4.30344030661 + 16627.37091537720*t);
-  X0 += 0.00000000099 * Math.cos(3.61958161583 + 6432.63904712600*t);
-  X0 += 0.00000000095 * Math.cos(4.18452410969 + 78263.70942472259*t);
-  X0 += 0.00000000124 * Math.cos(0.48010020247 + 178430.04719053170*t);
-  X0 += 0.00000000089 * Math.cos(1.07338604948 + 6751.04084034580*t);
-  X0 += 0.00000000096 * Math.cos(2.64494034094 + 7349.57132718140*t);
-  X0 += 0.00000000117 * Math.cos(5.44811650549 + 42456.78404709160*t);
-  X0 += 0.00000000103 * Math.cos(4.37748903957 + 18202.21671665939*t);
-  X0 += 0.00000000099 * Math.cos(0.58169736416 + 6313.98997562640*t);
-  X0 += 0.00000000099 * Math.cos(6.06683620849 + 6252.16172435640*t);
-  X0 += 0.00000000090 * Math.cos(0.38965081024 + 58864.54391814630*t);
-  X0 += 0.00000000097 * Math.cos(0.27231106216 + 10557.59416082380*t);
-  X0 += 0.00000000101 * Math.cos(3.42372783781 + 19004.64794940840*t);
-  X0 += 0.00000000098 * Math.cos(3.23381285207 + 6126.67512948900*t);
-  X0 += 0.00000000098 * Math.cos(3.41472072058 + 6439.47657049380*t);
-  X0 += 0.00000000086 * Math.cos(1.34149823513 + 23123.74586080659*t);
-  X0 += 0.00000000118 * Math.cos(3.73846259947 + 13951.71327493390*t);
-  X0 += 0.00000000084 * Math.cos(3.13824782000 + 8858.31494432060*t);
-  X0 += 0.00000000117 * Math.cos(4.10879972365 + 89569.99011954499*t);
-  X0 += 0.00000000101 * Math.cos(0.23009068890 + 18429.74290609900*t);
-  X0 += 0.00000000088 * Math.cos(3.76745959676 + 17053.96910625319*t);
-  X0 += 0.00000000113 * Math.cos(2.05049922518 + 12985.63634385800*t);
-  X0 += 0.00000000082 * Math.cos(0.19375634761 + 5483.25472482600*t);
-  X0 += 0.00000000084 * Math.cos(4.23745405632 + 6379.05507720920*t);
-  X0 += 0.00000000084 * Math.cos(2.41107951633 + 6187.09662277360*t);
-  X0 += 0.00000000097 * Math.cos(4.02159784443 + 10239.58386601080*t);
-  X0 += 0.00000000105 * Math.cos(2.77478785571 + 6434.97313107660*t);
-  X0 += 0.00000000105 * Math.cos(3.87374571694 + 6131.17856890620*t);
-  X0 += 0.00000000114 * Math.cos(4.07080498725 + 8258.56839584740*t);
-  X0 += 0.00000000082 * Math.cos(3.82704107824 + 3958.12644117580*t);
-  X0 += 0.00000000093 * Math.cos(1.35189028328 + 18216.44381066100*t);
-  X0 += 0.00000000102 * Math.cos(2.89783593458 + 5767.61197889840*t);
-  X0 += 0.00000000102 * Math.cos(3.75069763806 + 6798.53972108440*t);
-  X0 += 0.00000000110 * Math.cos(2.19234510205 + 56600.27928952220*t);
-  X0 += 0.00000000112 * Math.cos(5.48905138227 + 12188.77809206700*t);
-  X0 += 0.00000000080 * Math.cos(3.59070813227 + 24080.03501677719*t);
-  X0 += 0.00000000088 * Math.cos(3.00398297222 + 1573.82042409880*t);
-  X0 += 0.00000000092 * Math.cos(4.36461689094 + 101426.20877096949*t);
-  X0 += 0.00000000087 * Math.cos(2.32187773582 + 1580.86666079680*t);
-  X0 += 0.00000000110 * Math.cos(0.37009059115 + 78423.70451667879*t);
-  X0 += 0.00000000099 * Math.cos(2.40898854628 + 33794.54372352860*t);
-  X0 += 0.00000000080 * Math.cos(3.27906531246 + 6485.32924516550*t);
-  X0 += 0.00000000080 * Math.cos(3.36946826019 + 6080.82245481730*t);
-  X0 += 0.00000000089 * Math.cos(5.20240793768 + 17363.24742890899*t);
-  X0 += 0.00000000079 * Math.cos(4.53817935583 + 36109.38220466459*t);
-  X0 += 0.00000000088 * Math.cos(0.87070535180 + 16943.76278503380*t);
-  X0 += 0.00000000088 * Math.cos(3.24901264480 + 12537.70251251500*t);
-  X0 += 0.00000000087 * Math.cos(1.75120977431 + 28237.23345938940*t);
-  X0 += 0.00000000080 * Math.cos(3.62211320521 + 3956.50801601940*t);
-  X0 += 0.00000000083 * Math.cos(0.01677699839 + 21424.46664430340*t);
-  X0 += 0.00000000099 * Math.cos(4.35778148149 + 5017.50837136500*t);
-  X0 += 0.00000000079 * Math.cos(4.50777133706 + 5621.84292321040*t);
-  X0 += 0.00000000096 * Math.cos(1.98497858569 + 5888.44996493220*t);
-  X0 += 0.00000000096 * Math.cos(4.66355498696 + 6677.70173505060*t);
-  X0 += 0.00000000074 * Math.cos(5.98124271909 + 6304.41149045840*t);
-  X0 += 0.00000000074 * Math.cos(0.66729085356 + 6261.74020952440*t);
-  X0 += 0.00000000073 * Math.cos(2.62129339640 + 6695.44694686580*t);
-  X0 += 0.00000000073 * Math.cos(4.02724017625 + 5870.70475311700*t);
-  X0 += 0.00000000085 * Math.cos(3.65241534932 + 12850.01101884800*t);
-  X0 += 0.00000000076 * Math.cos(1.33659857866 + 40796.33892267419*t);
-  X0 += 0.00000000097 * Math.cos(0.92251430623 + 24383.07910844140*t);
-  X0 += 0.00000000072 * Math.cos(0.32356695638 + 6312.89728814020*t);
-  X0 += 0.00000000072 * Math.cos(0.04178130909 + 6253.25441184259*t);
-  X0 += 0.00000000095 * Math.cos(0.62289841825 + 11080.17157891760*t);
-  X0 += 0.00000000100 * Math.cos(5.37794668456 + 5316.10497255580*t);
-  X0 += 0.00000000085 * Math.cos(2.90983978106 + 12282.29238111760*t);
-  X0 += 0.00000000071 * Math.cos(6.13573135109 + 41194.48792608240*t);
-  X0 += 0.00000000072 * Math.cos(4.76869158882 + 15141.39079431200*t);
-  X0 += 0.00000000075 * Math.cos(1.96590126974 + 24422.37035140730*t);
-  X0 += 0.00000000073 * Math.cos(1.29002951973 + 45892.73043315699*t);
-  X0 += 0.00000000076 * Math.cos(1.98229485596 + 63658.87775083760*t);
-  X0 += 0.00000000087 * Math.cos(3.63418769958 + 18106.23748944160*t);
-  X0 += 0.00000000070 * Math.cos(2.01720588184 + 6442.01936777460*t);
-  X0 += 0.00000000070 * Math.cos(4.63132769081 + 6124.13233220820*t);
-  X0 += 0.00000000097 * Math.cos(4.76857001908 + 92747.68916682259*t);
-  X0 += 0.00000000078 * Math.cos(4.94336223185 + 23550.34405168259*t);
-  X0 += 0.00000000076 * Math.cos(3.43423122344 + 5237.92101380380*t);
-  X0 += 0.00000000078 * Math.cos(4.98905027033 + 9924.81042151060*t);
-  X0 += 0.00000000082 * Math.cos(5.48703292615 + 6774.73914245020*t);
-  X0 += 0.00000000067 * Math.cos(0.17045052997 + 7082.89697515680*t);
-  X0 += 0.00000000067 * Math.cos(4.81312573338 + 6171.88920770380*t);
-  X0 += 0.00000000067 * Math.cos(1.83540783927 + 6394.26249227900*t);
-  X0 += 0.00000000080 * Math.cos(5.36760004078 + 22380.75580027400*t);
-  X0 += 0.00000000070 * Math.cos(2.04678665255 + 6175.41232605280*t);
-  X0 += 0.00000000070 * Math.cos(4.60174692010 + 6390.73937393000*t);
-  X0 += 0.00000000091 * Math.cos(2.47526506655 + 6652.77566593180*t);
-  X0 += 0.00000000091 * Math.cos(4.17326850610 + 5913.37603405100*t);
-  X0 += 0.00000000067 * Math.cos(0.13241010748 + 6300.88837210940*t);
-  X0 += 0.00000000067 * Math.cos(0.23293815799 + 6265.26332787340*t);
-  X0 += 0.00000000067 * Math.cos(1.43864813435 + 5959.57043333400*t);
-  X0 += 0.00000000080 * Math.cos(0.77942675353 + 23646.32327890039*t);
-  X0 += 0.00000000068 * Math.cos(3.64312434743 + 4897.18057365520*t);
-  X0 += 0.00000000069 * Math.cos(2.14076204045 + 6944.30877677240*t);
-  X0 += 0.00000000089 * Math.cos(1.97945887866 + 10660.68693504240*t);
-  X0 += 0.00000000073 * Math.cos(4.53414425046 + 6195.76764545159*t);
-  X0 += 0.00000000073 * Math.cos(2.11438932219 + 6370.38405453120*t);
-  X0 += 0.00000000066 * Math.cos(4.95039391556 + 323.50541665740*t);
-  X0 += 0.00000000066 * Math.cos(3.95274142218 + 6251.10354417460*t);
-  X0 += 0.00000000066 * Math.cos(2.69579215047 + 6315.04815580820*t);
-  X0 += 0.00000000063 * Math.cos(4.27995423229 + 11823.16163945020*t);
-  X0 += 0.00000000064 * Math.cos(0.09094709813 + 28774.03797148480*t);
-  X0 += 0.00000000086 * Math.cos(4.32355291567 + 12341.80690428090*t);
-  X0 += 0.00000000081 * Math.cos(0.47769423835 + 31441.67756975680*t);
-  X0 += 0.00000000071 * Math.cos(5.70281660725 + 16207.88627150200*t);
-  X0 += 0.00000000061 * Math.cos(0.43078256287 + 35050.00027447539*t);
-  X0 += 0.00000000066 * Math.cos(2.78136130877 + 17576.54652434700*t);
-  X0 += 0.00000000072 * Math.cos(0.54355547965 + 18100.00325845000*t);
-  X0 += 0.00000000072 * Math.cos(1.59783293112 + 245707.46610434429*t);
-  X0 += 0.00000000064 * Math.cos(1.93356156446 + 23006.42599258639*t);
-  X0 += 0.00000000068 * Math.cos(2.90815872826 + 28759.81087748319*t);
-  X0 += 0.00000000062 * Math.cos(0.67966053291 + 3855.03366695720*t);
-  X0 += 0.00000000073 * Math.cos(6.18334008725 + 23440.13773046320*t);
-  X0 += 0.00000000060 * Math.cos(3.22950754418 + 13088.72911807660*t);
-  X0 += 0.00000000078 * Math.cos(4.56094059497 + 12564.66722727450*t);
-  X0 += 0.00000000060 * Math.cos(4.47214922427 + 7548.64332861780*t);
-  X0 += 0.00000000075 * Math.cos(4.42126467141 + 18624.88275427230*t);
-  X0 += 0.00000000069 * Math.cos(5.82409328726 + 167993.69463622378*t);
-  X0 += 0.00000000059 * Math.cos(0.42392189557 + 41990.78593289880*t);
-  X0 += 0.00000000081 * Math.cos(1.27058672695 + 7250.04672742700*t);
-  X0 += 0.00000000059 * Math.cos(3.96273011871 + 6289.14176562120*t);
-  X0 += 0.00000000059 * Math.cos(2.68580345394 + 6277.00993436160*t);
-  X0 += 0.00000000063 * Math.cos(4.91003104939 + 5436.99301524020*t);
-  X0 += 0.00000000059 * Math.cos(2.73782977803 + 8584.66166590080*t);
-  X0 += 0.00000000074 * Math.cos(2.29556008890 + 28313.28880466100*t);
-  X0 += 0.00000000057 * Math.cos(0.01221429824 + 10027.90319572920*t);
-  X0 += 0.00000000057 * Math.cos(4.87299369650 + 792.77488846740*t);
-  X0 += 0.00000000060 * Math.cos(2.20527423485 + 647.01083331480*t);
-  X0 += 0.00000000056 * Math.cos(4.47895058873 + 15265.88651930040*t);
-  X0 += 0.00000000072 * Math.cos(4.16398251563 + 4598.02372748980*t);
-  X0 += 0.00000000063 * Math.cos(1.27506758028 + 5.52292430740*t);
-  X0 += 0.00000000068 * Math.cos(2.71579728238 + 3166.41643773160*t);
-  X0 += 0.00000000074 * Math.cos(3.23404191447 + 82534.40362061159*t);
-  X0 += 0.00000000056 * Math.cos(1.96997381249 + 6339.87911216120*t);
-  X0 += 0.00000000056 * Math.cos(4.67855976016 + 6226.27258782160*t);
-  X0 += 0.00000000069 * Math.cos(1.89738325082 + 23536.11695768099*t);
-  X0 += 0.00000000056 * Math.cos(2.52728721608 + 12303.06777661000*t);
-  X0 += 0.00000000055 * Math.cos(3.89144240866 + 22345.26037610820*t);
-  X0 += 0.00000000057 * Math.cos(3.55801157684 + 6702.00024889200*t);
-  X0 += 0.00000000057 * Math.cos(3.09052199581 + 5864.15145109080*t);
-  X0 += 0.00000000064 * Math.cos(5.42433316705 + 14169.79356223040*t);
-  X0 += 0.00000000075 * Math.cos(5.93374782872 + 32217.20018108080*t);
-  X0 += 0.00000000059 * Math.cos(2.17826568386 + 18003.14471522300*t);
-  X0 += 0.00000000059 * Math.cos(3.38504946794 + 67589.08744705719*t);
-  X0 += 0.00000000076 * Math.cos(2.34884503279 + 23226.83863502520*t);
-  X0 += 0.00000000073 * Math.cos(6.00950734574 + 30348.88377276700*t);
-  X0 += 0.00000000070 * Math.cos(1.56579326622 + 12299.54465826100*t);
-  X0 += 0.00000000060 * Math.cos(0.37221954582 + 12171.52581492360*t);
-  X0 += 0.00000000058 * Math.cos(3.15618940951 + 6716.78758786820*t);
-  X0 += 0.00000000074 * Math.cos(5.91246929008 + 3684.37804999020*t);
-  X0 += 0.00000000067 * Math.cos(2.65177830926 + 22743.40937951640*t);
-  X0 += 0.00000000062 * Math.cos(2.47017142882 + 16193.65917750039*t);
-  X0 += 0.00000000059 * Math.cos(2.60023110979 + 15.25247118500*t);
-  X0 += 0.00000000059 * Math.cos(1.05069387628 + 12164.47957822560*t);
-  X0 += 0.00000000056 * Math.cos(4.02457745520 + 3178.14579056760*t);
-  X0 += 0.00000000063 * Math.cos(3.66056370325 + 5219.76176653910*t);
-  X0 += 0.00000000063 * Math.cos(0.58993036842 + 5227.62607306530*t);
-  X0 += 0.00000000071 * Math.cos(3.61897462493 + 60530.48898574180*t);
-  X0 += 0.00000000072 * Math.cos(1.05408545034 + 4583.79663348820*t);
-  X0 += 0.00000000052 * Math.cos(5.67741459488 + 3627.50747751760*t);
-  X0 += 0.00000000052 * Math.cos(1.77495138030 + 6155.12431695680*t);
-  X0 += 0.00000000052 * Math.cos(4.87358219235 + 6411.02738302600*t);
-  X0 += 0.00000000073 * Math.cos(4.40543588100 + 80181.53746683979*t);
-  X0 += 0.00000000058 * Math.cos(4.29308512080 + 30775.48196364300*t);
-  X0 += 0.00000000068 * Math.cos(1.86654756299 + 35371.88726597640*t);
-  X0 += 0.00000000062 * Math.cos(4.46845874247 + 6908.74604230380*t);
-  X0 += 0.00000000062 * Math.cos(2.18007483018 + 5657.40565767900*t);
-  X0 += 0.00000000050 * Math.cos(1.53898120800 + 2575.23909432920*t);
-  X0 += 0.00000000052 * Math.cos(1.82842431930 + 5244.04923920100*t);
-  X0 += 0.00000000050 * Math.cos(4.69455799921 + 5881.40372823420*t);
-  X0 += 0.00000000050 * Math.cos(1.95397557344 + 6684.74797174860*t);
-  X0 += 0.00000000053 * Math.cos(5.33677558065 + 12146.66705610760*t);
-  X0 += 0.00000000068 * Math.cos(6.19033473088 + 96677.89886304220*t);
-  X0 += 0.00000000064 * Math.cos(5.16841754323 + 24279.10701821359*t);
-  X0 += 0.00000000050 * Math.cos(3.21675900656 + 43738.80234596580*t);
-  X0 += 0.00000000050 * Math.cos(1.95435790721 + 23141.55838292460*t);
-  X0 += 0.00000000059 * Math.cos(4.28456134455 + 3981.49003408200*t);
-  X0 += 0.00000000058 * Math.cos(2.65359377943 + 40077.61957352000*t);
-  X0 += 0.00000000054 * Math.cos(3.56564135998 + 15664.03552270859*t);
-  X0 += 0.00000000061 * Math.cos(2.88962487651 + 40398.18991926600*t);
-  X0 += 0.00000000051 * Math.cos(3.00540767523 + 7668.97112632760*t);
-  X0 += 0.00000000048 * Math.cos(4.80656273565 + 3646.35037735440*t);
-  X0 += 0.00000000048 * Math.cos(2.80573655186 + 170.67287061920*t);
-  X0 += 0.00000000065 * Math.cos(6.08902325889 + 47162.51635463520*t);
-  X0 += 0.00000000056 * Math.cos(4.19093499866 + 799.82112516540*t);
-  X0 += 0.00000000049 * Math.cos(3.72443814803 + 96562.99901809469*t);
-  X0 += 0.00000000050 * Math.cos(5.17709552474 + 17583.66007134780*t);
-  X0 += 0.00000000049 * Math.cos(5.16566731300 + 5490.30096152400*t);
-  X0 += 0.00000000058 * Math.cos(5.40778008235 + 6076.37511269480*t);
-  X0 += 0.00000000058 * Math.cos(1.24075349030 + 6489.77658728800*t);
-  X0 += 0.00000000059 * Math.cos(1.72439508836 + 44034.12758953940*t);
-  X0 += 0.00000000045 * Math.cos(1.62661962717 + 4480.70385926960*t);
-  X0 += 0.00000000061 * Math.cos(5.10264428859 + 491.66329245880*t);
-  X0 += 0.00000000044 * Math.cos(1.10033696885 + 2301.58581590939*t);
-  X0 += 0.00000000054 * Math.cos(3.85123315789 + 6559.82162185580*t);
-  X0 += 0.00000000054 * Math.cos(2.79730041476 + 6006.33007812700*t);
-  X0 += 0.00000000052 * Math.cos(5.42245980619 + 244287.60000722769*t);
-  X0 += 0.00000000048 * Math.cos(1.42585982742 + 36147.40987730040*t);
-  X0 += 0.00000000044 * Math.cos(0.81389810430 + 5113.48759858280*t);
-  X0 += 0.00000000045 * Math.cos(4.22954077900 + 533.21408344360*t);
-  X0 += 0.00000000046 * Math.cos(2.27703250571 + 4384.72463205180*t);
-  X0 += 0.00000000048 * Math.cos(6.20173890368 + 35579.69123957000*t);
-  X0 += 0.00000000051 * Math.cos(0.20646603354 + 18326.65013188039*t);
-  X0 += 0.00000000043 * Math.cos(3.18939503640 + 27832.03821928320*t);
-  X0 += 0.00000000046 * Math.cos(4.72419541485 + 16703.06213349900*t);
-  X0 += 0.00000000052 * Math.cos(4.17179726389 + 11919.14086666800*t);
-  X0 += 0.00000000052 * Math.cos(0.71926561105 + 46386.99374331120*t);
-  X0 += 0.00000000047 * Math.cos(0.82248881139 + 5209.46682580060*t);
-  X0 += 0.00000000046 * Math.cos(4.04752097938 + 12555.10599971890*t);
-  X0 += 0.00000000052 * Math.cos(0.43326734132 + 6574.04871585740*t);
-  X0 += 0.00000000052 * Math.cos(6.21526623133 + 5992.10298412540*t);
-  X0 += 0.00000000044 * Math.cos(5.37918791865 + 69941.95360082899*t);
-  X0 += 0.00000000058 * Math.cos(0.36325356715 + 74673.98422817240*t);
-  X0 += 0.00000000056 * Math.cos(1.50089021543 + 27707.54249429480*t);
-  X0 += 0.00000000045 * Math.cos(6.22182195617 + 46360.69542351140*t);
-  X0 += 0.00000000043 * Math.cos(3.11608101277 + 8401.83971036980*t);
-  X0 += 0.00000000047 * Math.cos(2.39687793686 + 143571.32428481648*t);
-  X0 += 0.00000000043 * Math.cos(1.13301289185 + 30639.85663863300*t);
-  X0 += 0.00000000049 * Math.cos(1.97844011728 + 22030.21295466960*t);
-  X0 += 0.00000000045 * Math.cos(4.79114307475 + 71519.29714327680*t);
-  X0 += 0.00000000051 * Math.cos(4.52703512787 + 7761.94242405580*t);
-  X0 += 0.00000000041 * Math.cos(0.43156447693 + 3735.23831175900*t);
-  X0 += 0.00000000041 * Math.cos(1.66415755313 + 44136.95134937400*t);
-  X0 += 0.00000000047 * Math.cos(4.45924253669 + 4708.23004870920*t);
-  X0 += 0.00000000056 * Math.cos(0.65498687965 + 28663.83165026540*t);
-  X0 += 0.00000000055 * Math.cos(3.26682599355 + 39302.09696219600*t);
-  X0 += 0.00000000049 * Math.cos(5.40929899528 + 27511.46787353720*t);
-  X0 += 0.00000000047 * Math.cos(0.89791015009 + 316428.22867391503*t);
-  X0 += 0.00000000040 * Math.cos(0.05000438602 + 18208.34994259200*t);
-  X0 += 0.00000000056 * Math.cos(2.85120720656 + 83659.27687239899*t);
-  X0 += 0.00000000053 * Math.cos(3.02524199997 + 38650.17350619900*t);
-  X0 += 0.00000000048 * Math.cos(2.50261741205 + 12662.13092720060*t);
-  X0 += 0.00000000052 * Math.cos(4.41165168727 + 12571.67462429020*t);
-  X0 += 0.00000000043 * Math.cos(4.69793306978 + 7322.10246078180*t);
-  X0 += 0.00000000041 * Math.cos(3.56541409677 + 664.75604513000*t);
-  X0 += 0.00000000044 * Math.cos(5.20087497624 + 6140.89722295520*t);
-  X0 += 0.00000000044 * Math.cos(1.44765859641 + 6425.25447702760*t);
-  X0 += 0.00000000039 * Math.cos(0.38207420659 + 22594.05489571199*t);
-  X0 += 0.00000000039 * Math.cos(4.22033276864 + 27278.46881644080*t);
-  X0 += 0.00000000045 * Math.cos(4.12311427457 + 44007.82926973960*t);
-  X0 += 0.00000000054 * Math.cos(4.69164296803 + 6006.04085625000*t);
-  X0 += 0.00000000054 * Math.cos(1.95689060462 + 6560.11084373280*t);
-  X0 += 0.00000000045 * Math.cos(5.54498349441 + 142861.39123625819*t);
-  X0 += 0.00000000047 * Math.cos(1.12159858858 + 24499.51966065240*t);
-  X0 += 0.00000000043 * Math.cos(1.36615498859 + 7026.06591052400*t);
-  X0 += 0.00000000040 * Math.cos(0.90738693747 + 26880.31981303260*t);
-  X0 += 0.00000000047 * Math.cos(4.50830744099 + 24485.29256665079*t);
-  X0 += 0.00000000043 * Math.cos(5.81439105801 + 6359.34192126700*t);
-  X0 += 0.00000000042 * Math.cos(4.70083045322 + 6231.79551212899*t);
-  X0 += 0.00000000042 * Math.cos(1.94770311943 + 6334.35618785381*t);
-  X0 += 0.00000000037 * Math.cos(5.39982800110 + 23020.65308658799*t);
-  X0 += 0.00000000052 * Math.cos(3.53311914292 + 11904.91877320180*t);
-  X0 += 0.00000000040 * Math.cos(1.50947925293 + 7075.85073845880*t);
-  X0 += 0.00000000049 * Math.cos(3.73016699917 + 32243.49850088060*t);
-  X0 += 0.00000000043 * Math.cos(4.45265815492 + 40000.04091585779*t);
-  X0 += 0.00000000040 * Math.cos(0.07156369559 + 7122.04513774180*t);
-  X0 += 0.00000000040 * Math.cos(0.29378456988 + 5444.10656224100*t);
-  X0 += 0.00000000038 * Math.cos(2.24527247949 + 44933.24935619040*t);
-  X0 += 0.00000000037 * Math.cos(0.09116813653 + 6850.79448772180*t);
-  X0 += 0.00000000037 * Math.cos(0.27418012894 + 5715.35721226100*t);
-  X0 += 0.00000000039 * Math.cos(2.88920508037 + 20.35531939880*t);
-  X0 += 0.00000000051 * Math.cos(5.82785362503 + 84111.74716305939*t);
-  X0 += 0.00000000037 * Math.cos(1.90653942815 + 16723.35014259500*t);
-  X0 += 0.00000000042 * Math.cos(3.79031051907 + 6328.21706962800*t);
-  X0 += 0.00000000042 * Math.cos(2.85822305358 + 6237.93463035480*t);
-  X0 += 0.00000000036 * Math.cos(2.35204592553 + 20760.42703319140*t);
-  X0 += 0.00000000049 * Math.cos(4.54040658078 + 11293.47067435560*t);
-  X0 += 0.00000000040 * Math.cos(3.64328287226 + 3215.13638064320*t);
-  X0 += 0.00000000050 * Math.cos(1.62788844152 + 84334.41776382479*t);
-  X0 += 0.00000000040 * Math.cos(0.78396796338 + 71980.63357473118*t);
-  return X0;
-}
-
-
-
-  static double Earth_A_X1 (double t)
-{
-  double X1 = 0.0;
-  X1 += 0.00123403056;
-  X1 += 0.00051500156 * Math.cos(6.00266267204 + 12566.15169998280*t);
-  X1 += 0.00001290726 * Math.cos(5.95943124583 + 18849.22754997420*t);
-  X1 += 0.00001068627 * Math.cos(2.01554176551 + 6283.07584999140*t);
-  X1 += 0.00000212689 * Math.cos(1.73380190491 + 6279.55273164240*t);
-  X1 += 0.00000212515 * Math.cos(4.91489371033 + 6286.59896834040*t);
-  X1 += 0.00000062260 * Math.cos(0.36239798178 + 4705.73230754360*t);
-  X1 += 0.00000059822 * Math.cos(3.81195369871 + 6256.77753019160*t);
-  X1 += 0.00000059514 * Math.cos(2.83634160150 + 6309.37416979120*t);
-  X1 += 0.00000048841 * Math.cos(5.21419389335 + 775.52261132400*t);
-  X1 += 0.00000042883 * Math.cos(0.43789776559 + 1059.38193018920*t);
-  X1 += 0.00000046286 * Math.cos(0.01839494103 + 7860.41939243920*t);
-  X1 += 0.00000035675 * Math.cos(1.45279327264 + 5884.92684658320*t);
-  X1 += 0.00000036061 * Math.cos(2.16002201071 + 5753.38488489680*t);
-  X1 += 0.00000035367 * Math.cos(4.47243820095 + 6812.76681508600*t);
-  X1 += 0.00000032137 * Math.cos(5.19589851893 + 6681.22485339960*t);
-  X1 += 0.00000028763 * Math.cos(5.91618989512 + 25132.30339996560*t);
-  X1 += 0.00000028447 * Math.cos(1.14976253807 + 6127.65545055720*t);
-  X1 += 0.00000027573 * Math.cos(5.50119104683 + 6438.49624942560*t);
-  X1 += 0.00000024815 * Math.cos(2.92204909812 + 5486.77784317500*t);
-  X1 += 0.00000020611 * Math.cos(3.71790880968 + 7079.37385680780*t);
-  X1 += 0.00000019565 * Math.cos(2.89351924469 + 5507.55323866740*t);
-  X1 += 0.00000018308 * Math.cos(1.46954314992 + 11790.62908865880*t);
-  X1 += 0.00000016471 * Math.cos(6.22682639292 + 11506.76976979360*t);
-  X1 += 0.00000016757 * Math.cos(3.81935015812 + 7058.59846131540*t);
-  X1 += 0.00000014555 * Math.cos(5.97554823531 + 6290.18939699220*t);
-  X1 += 0.00000014388 * Math.cos(0.68157599309 + 6275.96230299060*t);
-  X1 += 0.00000013921 * Math.cos(1.44156172409 + 796.29800681640*t);
-  X1 += 0.00000011845 * Math.cos(4.15246503623 + 4694.00295470760*t);
-  X1 += 0.00000012573 * Math.cos(0.30429978572 + 7.11354700080*t);
-  X1 += 0.00000010073 * Math.cos(3.28940171828 + 3738.76143010800*t);
-  X1 += 0.00000009513 * Math.cos(4.62657118532 + 6069.77675455340*t);
-  X1 += 0.00000010425 * Math.cos(4.26610810148 + 6282.09552892320*t);
-  X1 += 0.00000010425 * Math.cos(2.38242547117 + 6284.05617105960*t);
-  X1 += 0.00000009565 * Math.cos(1.89315044337 + 4136.91043351620*t);
-  X1 += 0.00000009044 * Math.cos(2.00977420682 + 6496.37494542940*t);
-  X1 += 0.00000008543 * Math.cos(0.05563879210 + 1194.44701022460*t);
-  X1 += 0.00000008230 * Math.cos(1.25204318279 + 1589.07289528380*t);
-  X1 += 0.00000006181 * Math.cos(3.36235656603 + 8827.39026987480*t);
-  X1 += 0.00000006252 * Math.cos(4.75560512125 + 8429.24126646660*t);
-  X1 += 0.00000005525 * Math.cos(5.36960259598 + 4933.20844033260*t);
-  X1 += 0.00000007312 * Math.cos(0.49039562572 + 4535.05943692440*t);
-  X1 += 0.00000007074 * Math.cos(4.39447155183 + 5088.62883976680*t);
-  X1 += 0.00000005168 * Math.cos(5.15700586490 + 11769.85369316640*t);
-  X1 += 0.00000004878 * Math.cos(0.63279675325 + 6040.34724601740*t);
-  X1 += 0.00000005339 * Math.cos(5.63168593753 + 3154.68708489560*t);
-  X1 += 0.00000004985 * Math.cos(4.62777616911 + 12569.67481833180*t);
-  X1 += 0.00000004902 * Math.cos(4.14599178687 + 3930.20969621960*t);
-  X1 += 0.00000004709 * Math.cos(3.96401482904 + 5331.35744374080*t);
-  X1 += 0.00000004601 * Math.cos(6.02376082863 + 6525.80445396540*t);
-  X1 += 0.00000004331 * Math.cos(1.32999081524 + 7632.94325965020*t);
-  X1 += 0.00000005607 * Math.cos(2.55800588736 + 5729.50644714900*t);
-  X1 += 0.00000003968 * Math.cos(2.72696169781 + 7234.79425624200*t);
-  X1 += 0.00000004394 * Math.cos(0.04709283876 + 12559.03815298200*t);
-  X1 += 0.00000005262 * Math.cos(6.19471325132 + 8031.09226305840*t);
-  X1 += 0.00000005100 * Math.cos(4.10862449537 + 6836.64525283380*t);
-  X1 += 0.00000005075 * Math.cos(2.30582917471 + 7477.52286021600*t);
-  X1 += 0.00000003287 * Math.cos(5.41013501104 + 10977.07880469900*t);
-  X1 += 0.00000003366 * Math.cos(0.28947921379 + 11371.70468975820*t);
-  X1 += 0.00000003341 * Math.cos(1.64988056630 + 5223.69391980220*t);
-  X1 += 0.00000003495 * Math.cos(3.73571049570 + 4164.31198961300*t);
-  X1 += 0.00000004294 * Math.cos(4.93755825416 + 1592.59601363280*t);
-  X1 += 0.00000003408 * Math.cos(2.40593164878 + 3128.38876509580*t);
-  X1 += 0.00000002997 * Math.cos(4.86533819655 + 1748.01641306700*t);
-  X1 += 0.00000002750 * Math.cos(5.24429623672 + 7342.45778018060*t);
-  X1 += 0.00000002669 * Math.cos(3.42836090012 + 2146.16541647520*t);
-  X1 += 0.00000003313 * Math.cos(1.92016526057 + 801.82093112380*t);
-  X1 += 0.00000002991 * Math.cos(2.26433580653 + 8635.94200376320*t);
-  X1 += 0.00000003390 * Math.cos(4.23836515895 + 155.42039943420*t);
-  X1 += 0.00000002384 * Math.cos(5.74836325186 + 7084.89678111520*t);
-  X1 += 0.00000002288 * Math.cos(4.51088946570 + 17260.15465469040*t);
-  X1 += 0.00000002405 * Math.cos(5.96195251565 + 4690.47983635860*t);
-  X1 += 0.00000002052 * Math.cos(1.42012676041 + 951.71840625060*t);
-  X1 += 0.00000002049 * Math.cos(3.53634954129 + 1990.74501704100*t);
-  X1 += 0.00000002778 * Math.cos(1.46151348750 + 5481.25491886760*t);
-  X1 += 0.00000002656 * Math.cos(5.71405746008 + 26.29831979980*t);
-  X1 += 0.00000002135 * Math.cos(1.89020345470 + 536.80451209540*t);
-  X1 += 0.00000002529 * Math.cos(0.00975556739 + 1349.86740965880*t);
-  X1 += 0.00000001877 * Math.cos(2.82846563483 + 553.56940284240*t);
-  X1 += 0.00000001858 * Math.cos(0.74657310664 + 398.14900340820*t);
-  X1 += 0.00000002013 * Math.cos(2.40172210263 + 522.57741809380*t);
-  X1 += 0.00000001904 * Math.cos(4.23263119723 + 9437.76293488700*t);
-  X1 += 0.00000001708 * Math.cos(0.29065876129 + 10988.80815753500*t);
-  X1 += 0.00000001853 * Math.cos(1.84012190435 + 5230.80746680300*t);
-  X1 += 0.00000001857 * Math.cos(2.34009177634 + 5216.58037280140*t);
-  X1 += 0.00000001558 * Math.cos(1.10024744060 + 426.59819087600*t);
-  X1 += 0.00000001543 * Math.cos(5.14512865944 + 10447.38783960440*t);
-  X1 += 0.00000001555 * Math.cos(3.67004205114 + 13095.84266507740*t);
-  X1 += 0.00000001779 * Math.cos(1.80817581905 + 12562.62858163380*t);
-  X1 += 0.00000001450 * Math.cos(0.99962470222 + 6262.72053059260*t);
-  X1 += 0.00000001450 * Math.cos(5.64890887043 + 6303.43116939020*t);
-  X1 += 0.00000001880 * Math.cos(1.74872544631 + 10973.55568635000*t);
-  X1 += 0.00000001372 * Math.cos(0.89279228106 + 7875.67186362420*t);
-  X1 += 0.00000001247 * Math.cos(1.86318425701 + 2118.76386037840*t);
-  X1 += 0.00000001231 * Math.cos(4.10277044176 + 18319.53658487960*t);
-  X1 += 0.00000001373 * Math.cos(4.83873686423 + 12721.57209941700*t);
-  X1 += 0.00000001140 * Math.cos(3.49255962548 + 1066.49547719000*t);
-  X1 += 0.00000001127 * Math.cos(6.04843564608 + 5643.17856367740*t);
-  X1 += 0.00000001136 * Math.cos(2.83389341769 + 2942.46342329160*t);
-  X1 += 0.00000001071 * Math.cos(3.77511422440 + 242.72860397400*t);
-  X1 += 0.00000001165 * Math.cos(5.90779831262 + 15720.83878487840*t);
-  X1 += 0.00000000974 * Math.cos(0.24120093775 + 639.89728631400*t);
-  X1 += 0.00000000973 * Math.cos(1.30526267473 + 4292.33083295040*t);
-  X1 += 0.00000000993 * Math.cos(3.20822379065 + 10575.40668294180*t);
-  X1 += 0.00000000964 * Math.cos(2.13521649390 + 2388.89402044920*t);
-  X1 += 0.00000000929 * Math.cos(1.06241249364 + 16496.36139620240*t);
-  X1 += 0.00000000939 * Math.cos(5.78268735385 + 20426.57109242200*t);
-  X1 += 0.00000000889 * Math.cos(0.06581239696 + 6288.59877429880*t);
-  X1 += 0.00000000889 * Math.cos(0.29953586851 + 6277.55292568400*t);
-  X1 += 0.00000001018 * Math.cos(4.23379398746 + 12539.85338018300*t);
-  X1 += 0.00000001042 * Math.cos(2.30738424939 + 529.69096509460*t);
-  X1 += 0.00000001033 * Math.cos(1.04793549544 + 5760.49843189760*t);
-  X1 += 0.00000001017 * Math.cos(5.59172649862 + 6805.65326808520*t);
-  X1 += 0.00000000801 * Math.cos(5.36423767778 + 14314.16811304980*t);
-  X1 += 0.00000000795 * Math.cos(4.97031461103 + 6279.78949257360*t);
-  X1 += 0.00000000795 * Math.cos(1.67821896162 + 6286.36220740920*t);
-  X1 += 0.00000000723 * Math.cos(3.87714868475 + 9623.68827669120*t);
-  X1 += 0.00000000800 * Math.cos(4.75445675725 + 12029.34718788740*t);
-  X1 += 0.00000000698 * Math.cos(0.23124375738 + 6148.01076995600*t);
-  X1 += 0.00000000675 * Math.cos(5.56136235734 + 12964.30070339100*t);
-  X1 += 0.00000000678 * Math.cos(0.13408273301 + 6418.14093002680*t);
-  X1 += 0.00000000671 * Math.cos(1.28940504615 + 6709.67404086740*t);
-  X1 += 0.00000000898 * Math.cos(2.26352977340 + 13367.97263110660*t);
-  X1 += 0.00000000716 * Math.cos(4.07157593048 + 16730.46368959580*t);
-  X1 += 0.00000000651 * Math.cos(5.31876664276 + 5856.47765911540*t);
-  X1 += 0.00000000744 * Math.cos(4.25820617142 + 12043.57428188900*t);
-  X1 += 0.00000000650 * Math.cos(3.96082074858 + 14712.31711645800*t);
-  X1 += 0.00000000643 * Math.cos(6.14575788122 + 2352.86615377180*t);
-  X1 += 0.00000000666 * Math.cos(6.18664331112 + 5746.27133789600*t);
-  X1 += 0.00000000588 * Math.cos(3.24442116878 + 13119.72110282519*t);
-  X1 += 0.00000000627 * Math.cos(1.85323853183 + 4686.88940770680*t);
-  X1 += 0.00000000584 * Math.cos(1.78420561597 + 13517.87010623340*t);
-  X1 += 0.00000000610 * Math.cos(0.48716946879 + 6819.88036208680*t);
-  X1 += 0.00000000666 * Math.cos(3.29946942274 + 3634.62102451840*t);
-  X1 += 0.00000000585 * Math.cos(0.14860338726 + 12036.46073488820*t);
-  X1 += 0.00000000620 * Math.cos(5.87390167695 + 31415.37924995700*t);
-  X1 += 0.00000000553 * Math.cos(2.36074148933 + 6306.95428773920*t);
-  X1 += 0.00000000553 * Math.cos(4.28779208332 + 6259.19741224360*t);
-  X1 += 0.00000000527 * Math.cos(4.65845256725 + 10177.25767953360*t);
-  X1 += 0.00000000523 * Math.cos(5.55991825992 + 12139.55350910680*t);
-  X1 += 0.00000000514 * Math.cos(2.30343678959 + 4701.11650170840*t);
-  X1 += 0.00000000495 * Math.cos(3.58067041581 + 13362.44970679920*t);
-  X1 += 0.00000000688 * Math.cos(0.41160312810 + 13916.01910964160*t);
-  X1 += 0.00000000481 * Math.cos(4.14197696514 + 6286.95718534940*t);
-  X1 += 0.00000000481 * Math.cos(2.50655660751 + 6279.19451463340*t);
-  X1 += 0.00000000465 * Math.cos(0.81901657744 + 14143.49524243060*t);
-  X1 += 0.00000000440 * Math.cos(2.91975126929 + 3894.18182954220*t);
-  X1 += 0.00000000431 * Math.cos(3.09968854047 + 11499.65622279280*t);
-  X1 += 0.00000000452 * Math.cos(5.55409870988 + 12573.26524698360*t);
-  X1 += 0.00000000499 * Math.cos(1.08746978287 + 12410.73130054860*t);
-  X1 += 0.00000000440 * Math.cos(2.14902528642 + 24072.92146977640*t);
-  X1 += 0.00000000435 * Math.cos(4.76945528790 + 9917.69687450980*t);
-  X1 += 0.00000000398 * Math.cos(5.77181168519 + 8273.82086703240*t);
-  X1 += 0.00000000379 * Math.cos(4.62464502982 + 6386.16862421000*t);
-  X1 += 0.00000000379 * Math.cos(2.02388854283 + 6179.98307577280*t);
-  X1 += 0.00000000377 * Math.cos(5.90355422208 + 7872.14874527520*t);
-  X1 += 0.00000000419 * Math.cos(5.62219999256 + 5327.47610838280*t);
-  X1 += 0.00000000383 * Math.cos(0.40420536338 + 6319.10371666880*t);
-  X1 += 0.00000000383 * Math.cos(6.24432820927 + 6247.04798331399*t);
-  X1 += 0.00000000486 * Math.cos(3.05618432546 + 12592.45001978260*t);
-  X1 += 0.00000000457 * Math.cos(2.45652916518 + 6489.26139842860*t);
-  X1 += 0.00000000457 * Math.cos(4.19200440747 + 6076.89030155420*t);
-  X1 += 0.00000000512 * Math.cos(1.88365818219 + 11015.10647733480*t);
-  X1 += 0.00000000344 * Math.cos(0.28667648401 + 18451.07854656599*t);
-  X1 += 0.00000000340 * Math.cos(2.75068444234 + 12323.42309600880*t);
-  X1 += 0.00000000454 * Math.cos(0.72878821246 + 2787.04302385740*t);
-  X1 += 0.00000000364 * Math.cos(2.25070711701 + 6321.10352262720*t);
-  X1 += 0.00000000364 * Math.cos(4.39782645564 + 6245.04817735560*t);
-  X1 += 0.00000000342 * Math.cos(6.10019640486 + 6303.85124548380*t);
-  X1 += 0.00000000342 * Math.cos(0.54833716779 + 6262.30045449900*t);
-  X1 += 0.00000000324 * Math.cos(2.66245548691 + 77713.77146812050*t);
-  X1 += 0.00000000316 * Math.cos(0.14807870151 + 11926.25441366880*t);
-  X1 += 0.00000000318 * Math.cos(1.32350341546 + 6311.52503745920*t);
-  X1 += 0.00000000318 * Math.cos(5.32503015719 + 6254.62666252360*t);
-  X1 += 0.00000000304 * Math.cos(2.00970548291 + 12779.45079542080*t);
-  X1 += 0.00000000360 * Math.cos(4.10116091510 + 1052.26838318840*t);
-  X1 += 0.00000000343 * Math.cos(2.93550529951 + 6267.82337880639*t);
-  X1 += 0.00000000343 * Math.cos(3.71302827314 + 6298.32832117640*t);
-  X1 += 0.00000000398 * Math.cos(0.12276624389 + 1551.04522264800*t);
-  X1 += 0.00000000300 * Math.cos(1.77610616438 + 90279.92316810328*t);
-  X1 += 0.00000000367 * Math.cos(2.75102591636 + 10021.83728009940*t);
-  X1 += 0.00000000297 * Math.cos(0.51546903036 + 5429.87946823940*t);
-  X1 += 0.00000000337 * Math.cos(2.71244267795 + 17782.73207278420*t);
-  X1 += 0.00000000295 * Math.cos(4.05850212848 + 6702.56049386660*t);
-  X1 += 0.00000000331 * Math.cos(0.94287498279 + 7238.67559160000*t);
-  X1 += 0.00000000321 * Math.cos(2.23719619346 + 17796.95916678580*t);
-  X1 += 0.00000000378 * Math.cos(2.47077025009 + 213.29909543800*t);
-  X1 += 0.00000000268 * Math.cos(4.36573038796 + 2544.31441988340*t);
-  X1 += 0.00000000290 * Math.cos(5.31163321847 + 220.41264243880*t);
-  X1 += 0.00000000349 * Math.cos(0.95962542267 + 17789.84561978500*t);
-  X1 += 0.00000000275 * Math.cos(3.67150875811 + 14945.31617355440*t);
-  X1 += 0.00000000253 * Math.cos(2.22918080251 + 18073.70493865020*t);
-  X1 += 0.00000000257 * Math.cos(1.04749733742 + 955.59974160860*t);
-  X1 += 0.00000000234 * Math.cos(4.07399715957 + 1596.18644228460*t);
-  X1 += 0.00000000282 * Math.cos(4.50260494490 + 13341.67431130680*t);
-  X1 += 0.00000000280 * Math.cos(5.71871851487 + 206.18554843720*t);
-  X1 += 0.00000000269 * Math.cos(6.10957634874 + 9779.10867612540*t);
-  X1 += 0.00000000306 * Math.cos(3.20523259534 + 5863.59120611620*t);
-  X1 += 0.00000000216 * Math.cos(5.60561646872 + 3185.19202726560*t);
-  X1 += 0.00000000280 * Math.cos(1.91082976057 + 5642.19824260920*t);
-  X1 += 0.00000000233 * Math.cos(3.01339621844 + 10984.19235169980*t);
-  X1 += 0.00000000263 * Math.cos(2.16888500036 + 12168.00269657460*t);
-  X1 += 0.00000000226 * Math.cos(4.44534966925 + 3496.03282613400*t);
-  X1 += 0.00000000260 * Math.cos(3.16564185469 + 10969.96525769820*t);
-  X1 += 0.00000000227 * Math.cos(4.95666866168 + 5849.36411211460*t);
-  X1 += 0.00000000211 * Math.cos(1.22111379347 + 19651.04848109800*t);
-  X1 += 0.00000000250 * Math.cos(4.61595902292 + 6923.95345737360*t);
-  X1 += 0.00000000194 * Math.cos(2.37630770389 + 640.87760738220*t);
-  X1 += 0.00000000203 * Math.cos(4.39496828470 + 6062.66320755260*t);
-  X1 += 0.00000000203 * Math.cos(2.25356528795 + 6503.48849243020*t);
-  X1 += 0.00000000184 * Math.cos(0.13859812924 + 18209.33026366019*t);
-  X1 += 0.00000000184 * Math.cos(4.20955149479 + 12566.21901028560*t);
-  X1 += 0.00000000180 * Math.cos(5.76799248594 + 853.19638175200*t);
-  X1 += 0.00000000199 * Math.cos(2.84103239065 + 3.52311834900*t);
-  X1 += 0.00000000187 * Math.cos(4.59167688742 + 6276.02961329339*t);
-  X1 += 0.00000000187 * Math.cos(2.05685668523 + 6290.12208668940*t);
-  X1 += 0.00000000192 * Math.cos(2.99578290747 + 4732.03062734340*t);
-  X1 += 0.00000000184 * Math.cos(4.65365446464 + 12566.08438968000*t);
-  X1 += 0.00000000230 * Math.cos(2.23774195109 + 12567.13202105100*t);
-  X1 += 0.00000000165 * Math.cos(1.34307380910 + 110.20632121940*t);
-  X1 += 0.00000000166 * Math.cos(1.19477871058 + 433.71173787680*t);
-  X1 += 0.00000000184 * Math.cos(3.38049914956 + 6037.24420376200*t);
-  X1 += 0.00000000156 * Math.cos(2.34457936544 + 2648.45482547300*t);
-  X1 += 0.00000000175 * Math.cos(3.26771507312 + 6528.90749622080*t);
-  X1 += 0.00000000154 * Math.cos(5.67725689556 + 6453.74872061060*t);
-  X1 += 0.00000000154 * Math.cos(0.97127667708 + 6112.40297937220*t);
-  X1 += 0.00000000166 * Math.cos(4.51313560848 + 12352.85260454480*t);
-  X1 += 0.00000000146 * Math.cos(4.05664802756 + 149.56319713460*t);
-  X1 += 0.00000000172 * Math.cos(0.88734623011 + 1577.34354244780*t);
-  X1 += 0.00000000144 * Math.cos(3.76179690789 + 18635.92845453620*t);
-  X1 += 0.00000000146 * Math.cos(1.99164761433 + 13760.59871020740*t);
-  X1 += 0.00000000136 * Math.cos(0.75192359085 + 11712.95531823080*t);
-  X1 += 0.00000000142 * Math.cos(1.34533369944 + 4157.19844261220*t);
-  X1 += 0.00000000133 * Math.cos(0.01824912792 + 18139.29450141590*t);
-  X1 += 0.00000000124 * Math.cos(0.99880484927 + 17256.63153634140*t);
-  X1 += 0.00000000140 * Math.cos(1.25451695814 + 9380.95967271720*t);
-  X1 += 0.00000000123 * Math.cos(0.26259126301 + 6172.86952877200*t);
-  X1 += 0.00000000123 * Math.cos(0.10275700246 + 6393.28217121080*t);
-  X1 += 0.00000000121 * Math.cos(5.40082218265 + 20.77539549240*t);
-  X1 += 0.00000000117 * Math.cos(4.47711713051 + 18852.75066832320*t);
-  X1 += 0.00000000114 * Math.cos(2.33765655466 + 65147.61976813770*t);
-  X1 += 0.00000000120 * Math.cos(2.29184279740 + 17253.04110768959*t);
-  X1 += 0.00000000132 * Math.cos(4.94196827917 + 18875.52586977400*t);
-  X1 += 0.00000000123 * Math.cos(4.42839393502 + 12565.17137891460*t);
-  X1 += 0.00000000129 * Math.cos(2.56187150433 + 11513.88331679440*t);
-  X1 += 0.00000000121 * Math.cos(2.27781803851 + 10419.98628350760*t);
-  X1 += 0.00000000112 * Math.cos(0.58654969541 + 632.78373931320*t);
-  X1 += 0.00000000118 * Math.cos(5.96799701373 + 17654.78053974960*t);
-  X1 += 0.00000000105 * Math.cos(5.26799267002 + 23013.53953958720*t);
-  X1 += 0.00000000103 * Math.cos(0.24702432231 + 6271.34649715540*t);
-  X1 += 0.00000000103 * Math.cos(0.11832394316 + 6294.80520282740*t);
-  X1 += 0.00000000102 * Math.cos(2.69803619583 + 17267.26820169119*t);
-  X1 += 0.00000000108 * Math.cos(2.49639211639 + 23543.23050468179*t);
-  X1 += 0.00000000114 * Math.cos(2.21695343681 + 4171.42553661380*t);
-  X1 += 0.00000000101 * Math.cos(4.42100430236 + 4804.20927592700*t);
-  X1 += 0.00000000111 * Math.cos(3.66256237589 + 1581.95934828300*t);
-  X1 += 0.00000000119 * Math.cos(0.24456263546 + 10213.28554621100*t);
-  X1 += 0.00000000102 * Math.cos(5.67042027327 + 6549.68289171320*t);
-  X1 += 0.00000000102 * Math.cos(0.97811329938 + 6016.46880826960*t);
-  X1 += 0.00000000121 * Math.cos(0.05336972054 + 13625.53363017200*t);
-  X1 += 0.00000000090 * Math.cos(3.68828039857 + 76.26607127560*t);
-  X1 += 0.00000000086 * Math.cos(5.93949751968 + 12808.88030395680*t);
-  X1 += 0.00000000095 * Math.cos(1.34358559692 + 12345.73905754400*t);
-  X1 += 0.00000000106 * Math.cos(5.14281705612 + 11216.28429032400*t);
-  X1 += 0.00000000095 * Math.cos(2.50046439714 + 12012.58229714040*t);
-  X1 += 0.00000000081 * Math.cos(3.84772814821 + 11614.43329373220*t);
-  X1 += 0.00000000084 * Math.cos(1.14755262027 + 6255.67429389460*t);
-  X1 += 0.00000000084 * Math.cos(5.50098095238 + 6310.47740608820*t);
-  X1 += 0.00000000106 * Math.cos(6.00471264495 + 3097.88382272579*t);
-  X1 += 0.00000000080 * Math.cos(0.34711727404 + 6922.97313630540*t);
-  X1 += 0.00000000085 * Math.cos(5.79536877725 + 5636.06501667660*t);
-  X1 += 0.00000000092 * Math.cos(0.87789019103 + 10818.13528691580*t);
-  X1 += 0.00000000080 * Math.cos(4.19702650261 + 3583.34103067380*t);
-  X1 += 0.00000000083 * Math.cos(3.70902039500 + 5120.60114558360*t);
-  X1 += 0.00000000080 * Math.cos(1.41939312484 + 13521.75144159140*t);
-  X1 += 0.00000000084 * Math.cos(3.01891268791 + 10440.27429260360*t);
-  X1 += 0.00000000077 * Math.cos(5.70306938809 + 6993.00889854970*t);
-  X1 += 0.00000000104 * Math.cos(5.42105253386 + 5650.29211067820*t);
-  X1 += 0.00000000086 * Math.cos(0.81273058913 + 12359.96615154560*t);
-  X1 += 0.00000000090 * Math.cos(6.02294397735 + 6195.76764545159*t);
-  X1 += 0.00000000090 * Math.cos(0.62558959530 + 6370.38405453120*t);
-  X1 += 0.00000000074 * Math.cos(2.33758314304 + 3340.61242669980*t);
-  X1 += 0.00000000082 * Math.cos(0.19767948100 + 18842.11400297339*t);
-  X1 += 0.00000000083 * Math.cos(5.31994916859 + 18415.51581209739*t);
-  X1 += 0.00000000101 * Math.cos(2.86191811970 + 3104.93005942380*t);
-  X1 += 0.00000000073 * Math.cos(6.09594424715 + 949.17560896980*t);
-  X1 += 0.00000000084 * Math.cos(4.35521501162 + 2379.16447357160*t);
-  X1 += 0.00000000075 * Math.cos(1.62833922577 + 30355.99731976780*t);
-  X1 += 0.00000000069 * Math.cos(3.24662354142 + 10454.50138660520*t);
-  X1 += 0.00000000076 * Math.cos(3.92665935350 + 17298.18232732620*t);
-  X1 += 0.00000000076 * Math.cos(4.83482959872 + 18429.74290609900*t);
-  X1 += 0.00000000079 * Math.cos(0.06205634713 + 22805.73556599360*t);
-  X1 += 0.00000000077 * Math.cos(2.05455640378 + 16858.48253293320*t);
-  X1 += 0.00000000087 * Math.cos(5.09755111164 + 3903.91137641980*t);
-  X1 += 0.00000000061 * Math.cos(3.70271756349 + 16737.57723659660*t);
-  X1 += 0.00000000078 * Math.cos(4.31638741861 + 8671.96987044060*t);
-  X1 += 0.00000000063 * Math.cos(0.99541849434 + 24356.78078864160*t);
-  X1 += 0.00000000075 * Math.cos(2.14136838637 + 23581.25817731760*t);
-  X1 += 0.00000000073 * Math.cos(4.49527510239 + 9388.00590941520*t);
-  X1 += 0.00000000058 * Math.cos(0.89406841198 + 17996.03116822220*t);
-  X1 += 0.00000000057 * Math.cos(2.48914084100 + 419.48464387520*t);
-  X1 += 0.00000000062 * Math.cos(4.06342805588 + 11925.27409260060*t);
-  X1 += 0.00000000060 * Math.cos(3.51548088474 + 34570.06633485260*t);
-  X1 += 0.00000000057 * Math.cos(4.46050926275 + 149854.40013480789*t);
-  X1 += 0.00000000056 * Math.cos(5.33393809517 + 12455.94537876340*t);
-  X1 += 0.00000000056 * Math.cos(2.17965993818 + 11764.33076885900*t);
-  X1 += 0.00000000061 * Math.cos(0.15194461973 + 28237.23345938940*t);
-  X1 += 0.00000000065 * Math.cos(5.87045161229 + 7335.34423317980*t);
-  X1 += 0.00000000072 * Math.cos(5.87296425674 + 6510.55198278040*t);
-  X1 += 0.00000000072 * Math.cos(0.77556931591 + 6055.59971720240*t);
-  X1 += 0.00000000071 * Math.cos(0.23083621209 + 12545.37630449040*t);
-  X1 += 0.00000000061 * Math.cos(5.37705181537 + 6253.64634145540*t);
-  X1 += 0.00000000061 * Math.cos(1.27148175728 + 6312.50535852740*t);
-  X1 += 0.00000000055 * Math.cos(1.18603703570 + 2699.73481931760*t);
-  X1 += 0.00000000056 * Math.cos(6.18401368339 + 5573.14280143310*t);
-  X1 += 0.00000000055 * Math.cos(5.94073604896 + 15671.08175940660*t);
-  X1 += 0.00000000052 * Math.cos(0.26563539971 + 5326.78669402080*t);
-  X1 += 0.00000000053 * Math.cos(1.77739578512 + 26735.94526221320*t);
-  X1 += 0.00000000065 * Math.cos(2.33938496802 + 14919.01785375460*t);
-  X1 += 0.00000000049 * Math.cos(4.18739781015 + 35579.69123957000*t);
-  X1 += 0.00000000053 * Math.cos(5.28549359722 + 6357.85744855870*t);
-  X1 += 0.00000000053 * Math.cos(1.36303997543 + 6208.29425142410*t);
-  X1 += 0.00000000051 * Math.cos(0.76407742618 + 16522.65971600220*t);
-  X1 += 0.00000000049 * Math.cos(4.92674479666 + 21393.54196985760*t);
-  X1 += 0.00000000049 * Math.cos(0.60525485888 + 7018.95236352320*t);
-  X1 += 0.00000000049 * Math.cos(6.04327871377 + 5547.19933645960*t);
-  X1 += 0.00000000049 * Math.cos(2.59123701567 + 12416.58850284820*t);
-  X1 += 0.00000000050 * Math.cos(0.07523239468 + 26084.02180621620*t);
-  X1 += 0.00000000048 * Math.cos(5.46985443988 + 12132.43996210600*t);
-  X1 += 0.00000000051 * Math.cos(3.40683294217 + 23006.42599258639*t);
-  X1 += 0.00000000058 * Math.cos(2.46543150418 + 15141.39079431200*t);
-  X1 += 0.00000000048 * Math.cos(4.88190521609 + 16200.77272450120*t);
-  X1 += 0.00000000047 * Math.cos(0.97667389279 + 24279.10701821359*t);
-  X1 += 0.00000000049 * Math.cos(1.66846784739 + 5749.86176654780*t);
-  X1 += 0.00000000049 * Math.cos(4.98006572526 + 6816.28993343500*t);
-  X1 += 0.00000000046 * Math.cos(3.45134537804 + 19378.91851506880*t);
-  X1 += 0.00000000047 * Math.cos(2.09300174029 + 24065.80792277559*t);
-  X1 += 0.00000000046 * Math.cos(5.73797450552 + 104351.61256629678*t);
-  X1 += 0.00000000049 * Math.cos(1.45701599108 + 8982.81066930900*t);
-  X1 += 0.00000000050 * Math.cos(4.49441848554 + 24602.61243487099*t);
-  X1 += 0.00000000045 * Math.cos(0.12799634054 + 24491.42579258340*t);
-  X1 += 0.00000000049 * Math.cos(2.95918505969 + 16460.33352952499*t);
-  X1 += 0.00000000054 * Math.cos(0.03974674424 + 7834.12107263940*t);
-  X1 += 0.00000000045 * Math.cos(5.05860612319 + 161000.68573767410*t);
-  X1 += 0.00000000044 * Math.cos(3.92726741188 + 8662.24032356300*t);
-  X1 += 0.00000000049 * Math.cos(4.51486356794 + 29303.72893657940*t);
-  X1 += 0.00000000049 * Math.cos(4.98978743446 + 29289.50184257780*t);
-  X1 += 0.00000000043 * Math.cos(3.34677142688 + 5244.04923920100*t);
-  X1 += 0.00000000044 * Math.cos(3.63764737159 + 6175.41232605280*t);
-  X1 += 0.00000000044 * Math.cos(3.01088620106 + 6390.73937393000*t);
-  X1 += 0.00000000042 * Math.cos(1.47305743112 + 24705.70520908959*t);
-  X1 += 0.00000000041 * Math.cos(4.78696656856 + 17370.36097590980*t);
-  X1 += 0.00000000041 * Math.cos(4.99610869214 + 22483.84857449259*t);
-  X1 += 0.00000000057 * Math.cos(3.19497095530 + 84334.66158130829*t);
-  X1 += 0.00000000041 * Math.cos(3.62603303245 + 23020.65308658799*t);
-  X1 += 0.00000000045 * Math.cos(2.13147646951 + 54247.41313575040*t);
-  X1 += 0.00000000040 * Math.cos(3.00393229632 + 32243.49850088060*t);
-  X1 += 0.00000000040 * Math.cos(0.45946989377 + 24336.00539314920*t);
-  X1 += 0.00000000040 * Math.cos(0.00254937606 + 8401.83971036980*t);
-  X1 += 0.00000000041 * Math.cos(5.05922003836 + 26482.17080962440*t);
-  X1 += 0.00000000044 * Math.cos(4.93011217974 + 28230.18722269139*t);
-  X1 += 0.00000000039 * Math.cos(5.54872052106 + 45585.17281218740*t);
-  X1 += 0.00000000038 * Math.cos(3.93561558747 + 6268.84875598980*t);
-  X1 += 0.00000000038 * Math.cos(2.71291798518 + 6297.30294399300*t);
-  X1 += 0.00000000041 * Math.cos(4.95311845784 + 15508.61512327440*t);
-  X1 += 0.00000000038 * Math.cos(0.10976793876 + 6171.88920770380*t);
-  X1 += 0.00000000038 * Math.cos(0.25558032671 + 6394.26249227900*t);
-  X1 += 0.00000000039 * Math.cos(3.31511780881 + 29826.30635467320*t);
-  X1 += 0.00000000038 * Math.cos(4.03952051907 + 16062.18452611680*t);
-  X1 += 0.00000000037 * Math.cos(2.07587316842 + 20452.86941222180*t);
-  X1 += 0.00000000049 * Math.cos(5.78169307611 + 18216.44381066100*t);
-  X1 += 0.00000000041 * Math.cos(1.35496527372 + 29088.81141598500*t);
-  X1 += 0.00000000038 * Math.cos(6.16268217428 + 18202.21671665939*t);
-  X1 += 0.00000000036 * Math.cos(3.84319801860 + 39302.09696219600*t);
-  X1 += 0.00000000038 * Math.cos(6.14920442251 + 26709.64694241340*t);
-  X1 += 0.00000000036 * Math.cos(6.28049708584 + 9924.81042151060*t);
-  X1 += 0.00000000035 * Math.cos(4.66732134451 + 4061.21921539440*t);
-  X1 += 0.00000000040 * Math.cos(3.43223548088 + 27511.46787353720*t);
-  X1 += 0.00000000034 * Math.cos(1.38801022558 + 6147.45052498140*t);
-  X1 += 0.00000000034 * Math.cos(5.26052334707 + 6418.70117500140*t);
-  X1 += 0.00000000034 * Math.cos(1.97967478962 + 17271.88400752640*t);
-  X1 += 0.00000000037 * Math.cos(6.05744777692 + 21150.81336588360*t);
-  X1 += 0.00000000034 * Math.cos(1.90509484306 + 29026.48522950779*t);
-  X1 += 0.00000000035 * Math.cos(3.20661690466 + 7322.10246078180*t);
-  X1 += 0.00000000044 * Math.cos(2.79017179925 + 3981.49003408200*t);
-  X1 += 0.00000000034 * Math.cos(1.21719184072 + 21548.96236929180*t);
-  X1 += 0.00000000033 * Math.cos(4.13127114332 + 173566.83743765688*t);
-  X1 += 0.00000000033 * Math.cos(3.22867201822 + 30666.15495843280*t);
-  X1 += 0.00000000034 * Math.cos(4.95128499531 + 38500.27603107220*t);
-  X1 += 0.00000000032 * Math.cos(4.38302389502 + 17686.75284556640*t);
-  X1 += 0.00000000038 * Math.cos(4.95582614524 + 19004.64794940840*t);
-  X1 += 0.00000000033 * Math.cos(1.70921741352 + 34520.30930938080*t);
-  X1 += 0.00000000041 * Math.cos(4.09101902227 + 21202.09370374600*t);
-  X1 += 0.00000000031 * Math.cos(0.28544969417 + 22003.91463486980*t);
-  X1 += 0.00000000037 * Math.cos(1.21597687953 + 7349.57132718140*t);
-  X1 += 0.00000000031 * Math.cos(0.19462514993 + 27832.03821928320*t);
-  X1 += 0.00000000037 * Math.cos(3.41912843249 + 29296.61538957860*t);
-  X1 += 0.00000000035 * Math.cos(2.69261244483 + 11919.14086666800*t);
-  X1 += 0.00000000035 * Math.cos(0.83074174405 + 29062.51309618520*t);
-  X1 += 0.00000000030 * Math.cos(2.96012497927 + 12489.88562870720*t);
-  X1 += 0.00000000035 * Math.cos(4.83736876925 + 21228.39202354580*t);
-  X1 += 0.00000000032 * Math.cos(6.26164802166 + 6231.79551212899*t);
-  X1 += 0.00000000032 * Math.cos(0.38688555099 + 6334.35618785381*t);
-  X1 += 0.00000000029 * Math.cos(0.70432070922 + 49515.38250840700*t);
-  X1 += 0.00000000032 * Math.cos(0.44788919628 + 31172.65064598300*t);
-  X1 += 0.00000000031 * Math.cos(2.69970301246 + 33019.02111220460*t);
-  X1 += 0.00000000029 * Math.cos(2.26256470092 + 27278.46881644080*t);
-  X1 += 0.00000000031 * Math.cos(3.19023486538 + 5017.50837136500*t);
-  X1 += 0.00000000028 * Math.cos(1.87849143707 + 24080.03501677719*t);
-  X1 += 0.00000000034 * Math.cos(0.78574341965 + 5905.70224207560*t);
-  X1 += 0.00000000034 * Math.cos(5.86279015300 + 6660.44945790720*t);
-  X1 += 0.00000000038 * Math.cos(5.12224209756 + 31570.79964939120*t);
-  X1 += 0.00000000027 * Math.cos(3.76025315460 + 19402.79695281660*t);
-  X1 += 0.00000000027 * Math.cos(0.53327304803 + 233141.31440436149*t);
-  X1 += 0.00000000030 * Math.cos(2.32405719366 + 12586.92709547520*t);
-  X1 += 0.00000000028 * Math.cos(5.54772804461 + 34911.41207609100*t);
-  X1 += 0.00000000027 * Math.cos(5.30079330746 + 43232.30665841560*t);
-  X1 += 0.00000000027 * Math.cos(6.17189140209 + 1692.16566950240*t);
-  X1 += 0.00000000036 * Math.cos(4.81217077776 + 15664.03552270859*t);
-  X1 += 0.00000000027 * Math.cos(0.65637418130 + 6360.74962041940*t);
-  X1 += 0.00000000027 * Math.cos(5.99215939135 + 6205.40207956340*t);
-  X1 += 0.00000000026 * Math.cos(3.42413737440 + 24383.07910844140*t);
-  X1 += 0.00000000033 * Math.cos(3.45722382528 + 28628.33622609960*t);
-  X1 += 0.00000000027 * Math.cos(2.32049228976 + 32367.09765620760*t);
-  X1 += 0.00000000026 * Math.cos(1.98182489066 + 19804.82729158280*t);
-  X1 += 0.00000000027 * Math.cos(1.77114813957 + 4487.81740627040*t);
-  X1 += 0.00000000028 * Math.cos(2.89944615107 + 58953.14544329400*t);
-  X1 += 0.00000000028 * Math.cos(3.80331477821 + 10239.58386601080*t);
-  X1 += 0.00000000026 * Math.cos(0.36912120822 + 6339.97422492700*t);
-  X1 += 0.00000000026 * Math.cos(6.27941236443 + 6226.17747505580*t);
-  X1 += 0.00000000026 * Math.cos(6.01416870867 + 4797.09572892620*t);
-  X1 += 0.00000000028 * Math.cos(2.80825729869 + 22476.73502749179*t);
-  X1 += 0.00000000029 * Math.cos(0.17746825116 + 6592.35417264720*t);
-  X1 += 0.00000000029 * Math.cos(0.18788001431 + 5973.79752733560*t);
-  X1 += 0.00000000026 * Math.cos(3.93576097012 + 36949.23080842420*t);
-  X1 += 0.00000000027 * Math.cos(0.64682460545 + 29424.63423291600*t);
-  X1 += 0.00000000026 * Math.cos(2.54059552040 + 9910.58332750900*t);
-  X1 += 0.00000000028 * Math.cos(2.41855003101 + 46386.99374331120*t);
-  X1 += 0.00000000024 * Math.cos(1.22629501602 + 21947.11137270000*t);
-  X1 += 0.00000000024 * Math.cos(0.55027097678 + 11616.97609101300*t);
-  X1 += 0.00000000025 * Math.cos(2.78491065355 + 6302.74561089119*t);
-  X1 += 0.00000000025 * Math.cos(3.86362291910 + 6263.40608909160*t);
-  X1 += 0.00000000026 * Math.cos(4.44347824401 + 15110.46611986620*t);
-  X1 += 0.00000000027 * Math.cos(5.91935985488 + 52175.80628314840*t);
-  X1 += 0.00000000028 * Math.cos(6.10918595816 + 18052.92954315780*t);
-  X1 += 0.00000000023 * Math.cos(1.99242379288 + 30774.50164257480*t);
-  X1 += 0.00000000024 * Math.cos(3.73458431258 + 31968.94865279940*t);
-  X1 += 0.00000000023 * Math.cos(0.62347300029 + 17892.93839400359*t);
-  X1 += 0.00000000024 * Math.cos(3.21260068222 + 23550.34405168259*t);
-  X1 += 0.00000000023 * Math.cos(1.36063534536 + 6716.78758786820*t);
-  X1 += 0.00000000027 * Math.cos(0.02724821878 + 25158.60171976540*t);
-  X1 += 0.00000000026 * Math.cos(3.57645528088 + 8584.66166590080*t);
-  X1 += 0.00000000022 * Math.cos(3.99741791962 + 7445.55055439920*t);
-  X1 += 0.00000000022 * Math.cos(6.10694895695 + 15265.88651930040*t);
-  X1 += 0.00000000025 * Math.cos(0.81555419576 + 14155.22459526660*t);
-  X1 += 0.00000000023 * Math.cos(3.06283945185 + 6272.03014972750*t);
-  X1 += 0.00000000023 * Math.cos(3.58569412080 + 6294.12155025530*t);
-  X1 += 0.00000000025 * Math.cos(2.44880076940 + 20199.09495963300*t);
-  X1 += 0.00000000021 * Math.cos(5.78253540504 + 22779.43724619380*t);
-  X1 += 0.00000000023 * Math.cos(2.25096306087 + 34115.11406927460*t);
-  X1 += 0.00000000022 * Math.cos(4.67990936559 + 34596.36465465240*t);
-  X1 += 0.00000000029 * Math.cos(0.93434607315 + 11933.36796066960*t);
-  X1 += 0.00000000021 * Math.cos(4.08577407328 + 30220.93223973240*t);
-  X1 += 0.00000000020 * Math.cos(0.47093224249 + 47162.51635463520*t);
-  X1 += 0.00000000022 * Math.cos(1.38262024424 + 4379.63903749020*t);
-  X1 += 0.00000000020 * Math.cos(5.31355969163 + 40879.44050464380*t);
-  X1 += 0.00000000022 * Math.cos(4.52226925108 + 28759.81087748319*t);
-  X1 += 0.00000000026 * Math.cos(3.41054638032 + 18422.62935909819*t);
-  X1 += 0.00000000027 * Math.cos(0.67002293804 + 34513.26307268280*t);
-  X1 += 0.00000000019 * Math.cos(4.78610064760 + 28313.28880466100*t);
-  X1 += 0.00000000020 * Math.cos(5.09152714894 + 8186.51266249260*t);
-  X1 += 0.00000000025 * Math.cos(3.53211055104 + 55798.45835839840*t);
-  X1 += 0.00000000025 * Math.cos(0.38024667868 + 9225.53927328300*t);
-  X1 += 0.00000000020 * Math.cos(1.71238700404 + 27433.88921587499*t);
-  X1 += 0.00000000024 * Math.cos(1.20856889899 + 9411.46461508720*t);
-  X1 += 0.00000000020 * Math.cos(1.65292451759 + 6379.05507720920*t);
-  X1 += 0.00000000020 * Math.cos(4.99560905506 + 6187.09662277360*t);
-  X1 += 0.00000000020 * Math.cos(2.94178503134 + 19800.94595622480*t);
-  X1 += 0.00000000020 * Math.cos(4.32349571107 + 62883.35513951360*t);
-  X1 += 0.00000000022 * Math.cos(4.44470422678 + 18326.65013188039*t);
-  X1 += 0.00000000019 * Math.cos(4.37840329985 + 16207.88627150200*t);
-  X1 += 0.00000000022 * Math.cos(4.46505143635 + 6332.83287546320*t);
-  X1 += 0.00000000022 * Math.cos(2.18348213630 + 6233.31882451960*t);
-  X1 += 0.00000000019 * Math.cos(1.36569875427 + 23539.70738633280*t);
-  X1 += 0.00000000018 * Math.cos(4.61817062443 + 6593.91664885980*t);
-  X1 += 0.00000000018 * Math.cos(2.03036294822 + 5972.23505112300*t);
-  X1 += 0.00000000019 * Math.cos(2.36455752682 + 5618.31980486140*t);
-  X1 += 0.00000000019 * Math.cos(4.28397604583 + 6947.83189512140*t);
-  X1 += 0.00000000019 * Math.cos(0.18461307728 + 83973.83535572988*t);
-  X1 += 0.00000000019 * Math.cos(4.29574440213 + 84019.85928049390*t);
-  X1 += 0.00000000020 * Math.cos(2.85390720284 + 9070.11887384880*t);
-  return X1*t;
-}
-
-
-
-  static double Earth_A_X2 (double t)
-{
-  double X2 = 0.0;
-  X2 += 0.00004143217 * Math.cos(3.14159265359);
-  X2 += 0.00002175695 * Math.cos(4.39999849572 + 12566.15169998280*t);
-  X2 += 0.00000995233 * Math.cos(0.20790847155 + 6283.07584999140*t);
-  X2 += 0.00000092659 * Math.cos(4.19285471010 + 18849.22754997420*t);
-  X2 += 0.00000013679 * Math.cos(3.37833642063 + 6286.59896834040*t);
-  X2 += 0.00000013668 * Math.cos(3.27271492019 + 6279.55273164240*t);
-  X2 += 0.00000008190 * Math.cos(4.41928022030 + 6256.77753019160*t);
-  X2 += 0.00000008145 * Math.cos(2.22925093408 + 6309.37416979120*t);
-  X2 += 0.00000008004 * Math.cos(5.92288197328 + 6127.65545055720*t);
-  X2 += 0.00000007746 * Math.cos(0.72469358509 + 6438.49624942560*t);
-  X2 += 0.00000008899 * Math.cos(5.38113427234 + 83996.84731811189*t);
-  X2 += 0.00000004754 * Math.cos(6.16710003373 + 709.93304855830*t);
-  X2 += 0.00000003737 * Math.cos(2.48724420764 + 5507.55323866740*t);
-  X2 += 0.00000002893 * Math.cos(4.94972697460 + 4705.73230754360*t);
-  X2 += 0.00000002937 * Math.cos(4.08160813245 + 25132.30339996560*t);
-  X2 += 0.00000003203 * Math.cos(4.14275083744 + 7058.59846131540*t);
-  X2 += 0.00000002254 * Math.cos(3.51957213521 + 775.52261132400*t);
-  X2 += 0.00000002170 * Math.cos(1.70495739017 + 7860.41939243920*t);
-  X2 += 0.00000002031 * Math.cos(2.29363438970 + 6275.96230299060*t);
-  X2 += 0.00000002031 * Math.cos(4.35489918295 + 6290.18939699220*t);
-  X2 += 0.00000001904 * Math.cos(4.46668961834 + 5486.77784317500*t);
-  X2 += 0.00000001720 * Math.cos(5.23142094282 + 1059.38193018920*t);
-  X2 += 0.00000001548 * Math.cos(2.12906745749 + 6040.34724601740*t);
-  X2 += 0.00000001563 * Math.cos(2.18101487697 + 7079.37385680780*t);
-  X2 += 0.00000001456 * Math.cos(3.53770823599 + 5753.38488489680*t);
-  X2 += 0.00000001424 * Math.cos(3.16250984559 + 6812.76681508600*t);
-  X2 += 0.00000001470 * Math.cos(4.51659549398 + 6525.80445396540*t);
-  X2 += 0.00000001429 * Math.cos(3.01998118552 + 5884.92684658320*t);
-  X2 += 0.00000001288 * Math.cos(3.62892288697 + 6681.22485339960*t);
-  X2 += 0.00000001338 * Math.cos(1.04445705185 + 5729.50644714900*t);
-  X2 += 0.00000001039 * Math.cos(5.85310113863 + 6282.09552892320*t);
-  X2 += 0.00000001039 * Math.cos(0.79543243402 + 6284.05617105960*t);
-  X2 += 0.00000001212 * Math.cos(5.61713170172 + 6836.64525283380*t);
-  X2 += 0.00000000904 * Math.cos(2.43535199673 + 5331.35744374080*t);
-  X2 += 0.00000000871 * Math.cos(3.84816000443 + 4933.20844033260*t);
-  X2 += 0.00000000879 * Math.cos(3.06133930098 + 11790.62908865880*t);
-  X2 += 0.00000001102 * Math.cos(4.59510736976 + 167283.76158766549*t);
-  X2 += 0.00000000769 * Math.cos(4.22812146942 + 7234.79425624200*t);
-  X2 += 0.00000000744 * Math.cos(0.34956564055 + 4136.91043351620*t);
-  X2 += 0.00000000939 * Math.cos(3.62288542048 + 11856.21865142450*t);
-  X2 += 0.00000000675 * Math.cos(2.82587446878 + 7632.94325965020*t);
-  X2 += 0.00000000654 * Math.cos(1.40322441961 + 11506.76976979360*t);
-  X2 += 0.00000000854 * Math.cos(5.24328642976 + 4535.05943692440*t);
-  X2 += 0.00000000665 * Math.cos(4.81749499447 + 1194.44701022460*t);
-  X2 += 0.00000000834 * Math.cos(5.75118975782 + 155.42039943420*t);
-  X2 += 0.00000000785 * Math.cos(5.88776299473 + 5088.62883976680*t);
-  X2 += 0.00000000548 * Math.cos(6.12128965864 + 796.29800681640*t);
-  X2 += 0.00000000686 * Math.cos(1.90135823927 + 801.82093112380*t);
-  X2 += 0.00000000507 * Math.cos(5.42408029291 + 4694.00295470760*t);
-  X2 += 0.00000000677 * Math.cos(2.71965226391 + 3128.38876509580*t);
-  X2 += 0.00000000499 * Math.cos(3.02752235850 + 12569.67481833180*t);
-  X2 += 0.00000000480 * Math.cos(0.01327044252 + 8429.24126646660*t);
-  X2 += 0.00000000592 * Math.cos(1.39433962245 + 8031.09226305840*t);
-  X2 += 0.00000000498 * Math.cos(6.19000103499 + 1589.07289528380*t);
-  X2 += 0.00000000562 * Math.cos(0.77105088912 + 7477.52286021600*t);
-  X2 += 0.00000000415 * Math.cos(0.00558962450 + 6069.77675455340*t);
-  X2 += 0.00000000415 * Math.cos(0.35131226280 + 6496.37494542940*t);
-  X2 += 0.00000000402 * Math.cos(1.72177128440 + 3738.76143010800*t);
-  X2 += 0.00000000503 * Math.cos(3.41456622371 + 1592.59601363280*t);
-  X2 += 0.00000000390 * Math.cos(5.36711219721 + 26.29831979980*t);
-  X2 += 0.00000000372 * Math.cos(4.35153585802 + 553.56940284240*t);
-  X2 += 0.00000000458 * Math.cos(0.85618925594 + 156137.47598479928*t);
-  X2 += 0.00000000325 * Math.cos(2.94948293011 + 951.71840625060*t);
-  X2 += 0.00000000321 * Math.cos(2.01798251637 + 1990.74501704100*t);
-  X2 += 0.00000000335 * Math.cos(1.12608331535 + 4690.47983635860*t);
-  X2 += 0.00000000366 * Math.cos(0.10449761483 + 12721.57209941700*t);
-  X2 += 0.00000000287 * Math.cos(2.26476426223 + 242.72860397400*t);
-  X2 += 0.00000000347 * Math.cos(1.34248948630 + 5481.25491886760*t);
-  X2 += 0.00000000368 * Math.cos(3.91910931412 + 9437.76293488700*t);
-  X2 += 0.00000000255 * Math.cos(1.83876117314 + 11371.70468975820*t);
-  X2 += 0.00000000242 * Math.cos(4.92327001310 + 8827.39026987480*t);
-  X2 += 0.00000000307 * Math.cos(1.56817330160 + 1349.86740965880*t);
-  X2 += 0.00000000242 * Math.cos(0.12263961387 + 1748.01641306700*t);
-  X2 += 0.00000000222 * Math.cos(4.88851960168 + 4164.31198961300*t);
-  X2 += 0.00000000230 * Math.cos(1.05870192923 + 3154.68708489560*t);
-  X2 += 0.00000000204 * Math.cos(0.44240387853 + 11769.85369316640*t);
-  X2 += 0.00000000188 * Math.cos(5.65888993470 + 7875.67186362420*t);
-  X2 += 0.00000000189 * Math.cos(0.61654841817 + 2388.89402044920*t);
-  X2 += 0.00000000233 * Math.cos(5.23023625373 + 7084.89678111520*t);
-  X2 += 0.00000000183 * Math.cos(4.10128236867 + 7342.45778018060*t);
-  X2 += 0.00000000173 * Math.cos(0.52511015365 + 10977.07880469900*t);
-  X2 += 0.00000000159 * Math.cos(2.72294432534 + 4292.33083295040*t);
-  X2 += 0.00000000207 * Math.cos(2.28587256917 + 13367.97263110660*t);
-  X2 += 0.00000000202 * Math.cos(3.21445201981 + 10973.55568635000*t);
-  X2 += 0.00000000145 * Math.cos(5.45882589245 + 398.14900340820*t);
-  X2 += 0.00000000155 * Math.cos(5.81412827494 + 12410.73130054860*t);
-  X2 += 0.00000000134 * Math.cos(4.56296979111 + 10575.40668294180*t);
-  X2 += 0.00000000127 * Math.cos(4.84612567560 + 13119.72110282519*t);
-  X2 += 0.00000000115 * Math.cos(4.96539448045 + 2146.16541647520*t);
-  X2 += 0.00000000125 * Math.cos(3.87814283336 + 12562.62858163380*t);
-  X2 += 0.00000000125 * Math.cos(0.17913722961 + 8635.94200376320*t);
-  X2 += 0.00000000122 * Math.cos(1.05019176110 + 12592.45001978260*t);
-  X2 += 0.00000000111 * Math.cos(2.15765835240 + 1577.34354244780*t);
-  X2 += 0.00000000134 * Math.cos(6.25201667258 + 3930.20969621960*t);
-  X2 += 0.00000000107 * Math.cos(3.43601884429 + 13517.87010623340*t);
-  X2 += 0.00000000102 * Math.cos(4.37125144267 + 10988.80815753500*t);
-  X2 += 0.00000000095 * Math.cos(5.98656941724 + 17260.15465469040*t);
-  X2 += 0.00000000100 * Math.cos(2.34969093002 + 13095.84266507740*t);
-  X2 += 0.00000000110 * Math.cos(3.63768958070 + 5223.69391980220*t);
-  X2 += 0.00000000085 * Math.cos(4.32512089859 + 3894.18182954220*t);
-  X2 += 0.00000000109 * Math.cos(3.99726753431 + 12539.85338018300*t);
-  X2 += 0.00000000079 * Math.cos(5.22586609526 + 16730.46368959580*t);
-  X2 += 0.00000000079 * Math.cos(0.08497701397 + 10447.38783960440*t);
-  X2 += 0.00000000076 * Math.cos(4.11846374330 + 12323.42309600880*t);
-  X2 += 0.00000000105 * Math.cos(3.53845510796 + 5642.19824260920*t);
-  X2 += 0.00000000075 * Math.cos(5.73067319226 + 6709.67404086740*t);
-  X2 += 0.00000000075 * Math.cos(0.91786038039 + 5856.47765911540*t);
-  X2 += 0.00000000082 * Math.cos(5.90914298142 + 10177.25767953360*t);
-  X2 += 0.00000000100 * Math.cos(0.66749297482 + 250570.67585721909*t);
-  X2 += 0.00000000071 * Math.cos(0.59970099558 + 14314.16811304980*t);
-  X2 += 0.00000000092 * Math.cos(1.98240564470 + 13916.01910964160*t);
-  X2 += 0.00000000091 * Math.cos(3.10960444681 + 6923.95345737360*t);
-  X2 += 0.00000000082 * Math.cos(4.00218490582 + 31415.37924995700*t);
-  X2 += 0.00000000083 * Math.cos(5.97854162397 + 95143.13292097810*t);
-  X2 += 0.00000000061 * Math.cos(4.23984291228 + 8273.82086703240*t);
-  X2 += 0.00000000055 * Math.cos(1.41429091428 + 5643.17856367740*t);
-  X2 += 0.00000000057 * Math.cos(4.71394484871 + 639.89728631400*t);
-  X2 += 0.00000000054 * Math.cos(5.63153101737 + 16496.36139620240*t);
-  X2 += 0.00000000075 * Math.cos(5.01329496789 + 71430.69561812909*t);
-  X2 += 0.00000000055 * Math.cos(3.83548544187 + 13341.67431130680*t);
-  X2 += 0.00000000052 * Math.cos(4.39839251424 + 3634.62102451840*t);
-  X2 += 0.00000000056 * Math.cos(1.31106242697 + 15720.83878487840*t);
-  X2 += 0.00000000050 * Math.cos(4.18716262207 + 12573.26524698360*t);
-  X2 += 0.00000000064 * Math.cos(3.35781526441 + 4732.03062734340*t);
-  X2 += 0.00000000066 * Math.cos(5.49585898905 + 2787.04302385740*t);
-  X2 += 0.00000000048 * Math.cos(2.02353005537 + 13362.44970679920*t);
-  X2 += 0.00000000049 * Math.cos(2.48296676043 + 14143.49524243060*t);
-  X2 += 0.00000000053 * Math.cos(4.12375134867 + 14919.01785375460*t);
-  X2 += 0.00000000047 * Math.cos(3.82959048333 + 12964.30070339100*t);
-  X2 += 0.00000000042 * Math.cos(0.38069707842 + 24072.92146977640*t);
-  X2 += 0.00000000051 * Math.cos(1.26573618407 + 6195.76764545159*t);
-  X2 += 0.00000000051 * Math.cos(5.38279738858 + 6370.38405453120*t);
-  X2 += 0.00000000048 * Math.cos(0.59989438773 + 2118.76386037840*t);
-  X2 += 0.00000000041 * Math.cos(2.49731951011 + 18319.53658487960*t);
-  X2 += 0.00000000041 * Math.cos(4.09328168773 + 3185.19202726560*t);
-  X2 += 0.00000000056 * Math.cos(1.01626259839 + 84672.47584450469*t);
-  X2 += 0.00000000039 * Math.cos(4.27641929836 + 20426.57109242200*t);
-  X2 += 0.00000000053 * Math.cos(3.21190793912 + 239424.39025435288*t);
-  X2 += 0.00000000040 * Math.cos(6.05039617409 + 3496.03282613400*t);
-  X2 += 0.00000000044 * Math.cos(1.67103342381 + 8662.24032356300*t);
-  X2 += 0.00000000043 * Math.cos(3.69693055127 + 18139.29450141590*t);
-  X2 += 0.00000000035 * Math.cos(3.60804630271 + 18875.52586977400*t);
-  X2 += 0.00000000035 * Math.cos(6.09077128153 + 10419.98628350760*t);
-  X2 += 0.00000000033 * Math.cos(0.53088739877 + 10213.28554621100*t);
-  X2 += 0.00000000031 * Math.cos(0.64652215197 + 23013.53953958720*t);
-  X2 += 0.00000000035 * Math.cos(0.91150627653 + 9779.10867612540*t);
-  X2 += 0.00000000030 * Math.cos(4.39715700541 + 12808.88030395680*t);
-  X2 += 0.00000000042 * Math.cos(5.61217219717 + 82576.98122099529*t);
-  X2 += 0.00000000031 * Math.cos(5.53053428232 + 14712.31711645800*t);
-  X2 += 0.00000000041 * Math.cos(5.62875780162 + 17789.84561978500*t);
-  X2 += 0.00000000031 * Math.cos(0.76672410297 + 22779.43724619380*t);
-  X2 += 0.00000000028 * Math.cos(2.34481351815 + 5429.87946823940*t);
-  X2 += 0.00000000027 * Math.cos(4.68961132588 + 16200.77272450120*t);
-  X2 += 0.00000000028 * Math.cos(3.91086715449 + 11015.10647733480*t);
-  X2 += 0.00000000026 * Math.cos(2.29393980670 + 9623.68827669120*t);
-  X2 += 0.00000000026 * Math.cos(4.35459376595 + 2942.46342329160*t);
-  X2 += 0.00000000026 * Math.cos(1.75234208326 + 18209.33026366019*t);
-  X2 += 0.00000000025 * Math.cos(6.04606961258 + 9917.69687450980*t);
-  X2 += 0.00000000025 * Math.cos(2.68813215214 + 3583.34103067380*t);
-  X2 += 0.00000000026 * Math.cos(0.90493478768 + 12012.58229714040*t);
-  X2 += 0.00000000023 * Math.cos(2.29788589227 + 9380.95967271720*t);
-  X2 += 0.00000000023 * Math.cos(2.49168005831 + 12559.03815298200*t);
-  X2 += 0.00000000023 * Math.cos(2.26727226510 + 26709.64694241340*t);
-  X2 += 0.00000000024 * Math.cos(4.92046069591 + 77713.77146812050*t);
-  X2 += 0.00000000022 * Math.cos(5.99172814093 + 6993.00889854970*t);
-  X2 += 0.00000000021 * Math.cos(2.38334945179 + 17256.63153634140*t);
-  X2 += 0.00000000023 * Math.cos(0.80841468126 + 149854.40013480789*t);
-  X2 += 0.00000000026 * Math.cos(3.19870156016 + 84334.66158130829*t);
-  X2 += 0.00000000023 * Math.cos(2.53410224481 + 19651.04848109800*t);
-  X2 += 0.00000000019 * Math.cos(1.93058658449 + 11926.25441366880*t);
-  X2 += 0.00000000018 * Math.cos(2.28255799994 + 11614.43329373220*t);
-  X2 += 0.00000000019 * Math.cos(3.66100662326 + 30639.85663863300*t);
-  X2 += 0.00000000022 * Math.cos(3.76382094449 + 17298.18232732620*t);
-  X2 += 0.00000000019 * Math.cos(5.39096925285 + 16460.33352952499*t);
-  X2 += 0.00000000023 * Math.cos(4.78353231767 + 72850.56171524568*t);
-  X2 += 0.00000000018 * Math.cos(3.19936496001 + 18073.70493865020*t);
-  X2 += 0.00000000017 * Math.cos(3.95703025000 + 8982.81066930900*t);
-  X2 += 0.00000000021 * Math.cos(3.77368081700 + 16858.48253293320*t);
-  X2 += 0.00000000021 * Math.cos(4.47047819380 + 12036.46073488820*t);
-  X2 += 0.00000000015 * Math.cos(0.65562803693 + 16062.18452611680*t);
-  X2 += 0.00000000014 * Math.cos(4.12927933278 + 2352.86615377180*t);
-  X2 += 0.00000000015 * Math.cos(4.21849500083 + 20199.09495963300*t);
-  X2 += 0.00000000014 * Math.cos(0.15947511180 + 22483.84857449259*t);
-  X2 += 0.00000000019 * Math.cos(2.81419648175 + 8671.96987044060*t);
-  X2 += 0.00000000014 * Math.cos(1.26341547558 + 90279.92316810328*t);
-  X2 += 0.00000000016 * Math.cos(0.41160329502 + 23543.23050468179*t);
-  X2 += 0.00000000012 * Math.cos(2.70990889006 + 17996.03116822220*t);
-  X2 += 0.00000000012 * Math.cos(0.72222975090 + 19402.79695281660*t);
-  X2 += 0.00000000012 * Math.cos(4.37880728616 + 10818.13528691580*t);
-  X2 += 0.00000000015 * Math.cos(0.57625721169 + 12567.13202105100*t);
-  X2 += 0.00000000011 * Math.cos(1.78472830783 + 28766.92442448400*t);
-  X2 += 0.00000000013 * Math.cos(3.18567583228 + 5573.14280143310*t);
-  X2 += 0.00000000011 * Math.cos(4.93327896664 + 18451.07854656599*t);
-  X2 += 0.00000000011 * Math.cos(5.43587992260 + 14945.31617355440*t);
-  X2 += 0.00000000011 * Math.cos(2.24607508630 + 35371.88726597640*t);
-  X2 += 0.00000000011 * Math.cos(5.02228901732 + 22805.73556599360*t);
-  X2 += 0.00000000010 * Math.cos(2.16930383321 + 15664.03552270859*t);
-  X2 += 0.00000000014 * Math.cos(1.93314444705 + 21228.39202354580*t);
-  X2 += 0.00000000010 * Math.cos(6.05310595892 + 23141.55838292460*t);
-  X2 += 0.00000000010 * Math.cos(2.55645282698 + 22345.26037610820*t);
-  X2 += 0.00000000009 * Math.cos(1.49155179482 + 29826.30635467320*t);
-  X2 += 0.00000000010 * Math.cos(0.18358815992 + 12779.45079542080*t);
-  X2 += 0.00000000011 * Math.cos(4.05473090705 + 23581.25817731760*t);
-  X2 += 0.00000000011 * Math.cos(0.39656469738 + 25158.60171976540*t);
-  return X2*t*t;
-}
-
-
-
-  static double Earth_A_X3 (double t)
-{
-  double X3 = 0.0;
-  X3 += 0.00000175213 * Math.cos(3.14159265359);
-  X3 += 0.00000072337 * Math.cos(2.89303952476 + 12566.15169998280*t);
-  X3 += 0.00000008364 * Math.cos(3.85500954096 + 6283.07584999140*t);
-  X3 += 0.00000005040 * Math.cos(2.53152989786 + 18849.22754997420*t);
-  X3 += 0.00000001481 * Math.cos(2.23672235234 + 6438.49624942560*t);
-  X3 += 0.00000001481 * Math.cos(4.41181122031 + 6127.65545055720*t);
-  X3 += 0.00000000644 * Math.cos(4.88567904780 + 6279.55273164240*t);
-  X3 += 0.00000000644 * Math.cos(1.76285452485 + 6286.59896834040*t);
-  X3 += 0.00000000318 * Math.cos(3.63840310183 + 6040.34724601740*t);
-  X3 += 0.00000000318 * Math.cos(3.01013047082 + 6525.80445396540*t);
-  X3 += 0.00000000220 * Math.cos(2.34166945312 + 25132.30339996560*t);
-  X3 += 0.00000000201 * Math.cos(0.82714760810 + 6836.64525283380*t);
-  X3 += 0.00000000201 * Math.cos(5.82138596455 + 5729.50644714900*t);
-  X3 += 0.00000000036 * Math.cos(1.41202770454 + 12569.67481833180*t);
-  X3 += 0.00000000033 * Math.cos(4.23554585611 + 12410.73130054860*t);
-  X3 += 0.00000000018 * Math.cos(2.32709487755 + 12721.57209941700*t);
-  X3 += 0.00000000011 * Math.cos(6.27313981891 + 12592.45001978260*t);
-  X3 += 0.00000000006 * Math.cos(2.56028859854 + 242.72860397400*t);
-  return X3*t*t*t;
-}
-
-
-
-  static double Earth_A_X4 (double t)
-{
-  double X4 = 0.0;
-  X4 += 0.00000004022;
-  X4 += 0.00000001927 * Math.cos(1.18746233453 + 12566.15169998280*t);
-  X4 += 0.00000000491 * Math.cos(5.29890244491 + 6283.07584999140*t);
-  X4 += 0.00000000210 * Math.cos(3.74319530048 + 6438.49624942560*t);
-  X4 += 0.00000000210 * Math.cos(2.90533827217 + 6127.65545055720*t);
-  X4 += 0.00000000229 * Math.cos(0.88072621187 + 18849.22754997420*t);
-  X4 += 0.00000000044 * Math.cos(4.59638160457 + 709.93304855830*t);
-  X4 += 0.00000000021 * Math.cos(0.18394116301 + 6279.55273164240*t);
-  X4 += 0.00000000021 * Math.cos(0.18140710246 + 6286.59896834040*t);
-  X4 += 0.00000000013 * Math.cos(3.81035106449 + 83996.84731811189*t);
-  X4 += 0.00000000011 * Math.cos(0.65552931190 + 25132.30339996560*t);
-  X4 += 0.00000000009 * Math.cos(5.19374498802 + 11856.21865142450*t);
-  X4 += 0.00000000007 * Math.cos(6.16589776486 + 167283.76158766549*t);
-  X4 += 0.00000000005 * Math.cos(2.68915538708 + 12410.73130054860*t);
-  X4 += 0.00000000006 * Math.cos(5.56853736836 + 156137.47598479928*t);
-  return X4*t*t*t*t;
-}
-
-
-
-  static double Earth_A_X5 (double t)
-{
-  double X5 = 0.0;
-  X5 += 0.00000000108;
-  X5 += 0.00000000043 * Math.cos(6.08789652058 + 12566.15169998280*t);
-  X5 += 0.00000000025 * Math.cos(5.33779665346 + 6438.49624942560*t);
-  X5 += 0.00000000025 * Math.cos(1.31073691919 + 6127.65545055720*t);
-  X5 += 0.00000000020 * Math.cos(0.94333339828 + 6283.07584999140*t);
-  X5 += 0.00000000008 * Math.cos(5.52588061142 + 18849.22754997420*t);
-  return X5*t*t*t*t*t;
-}
-
-
-
-  static double Earth_A_Y0 (double t)
-{
-  double Y0 = 0.0;
-  Y0 += 0.99989211030 * Math.cos(0.18265890456 + 6283.07584999140*t);
-  Y0 += 0.02442699036 * Math.cos(3.14159265359);
-  Y0 += 0.00835292314 * Math.cos(0.13952878991 + 12566.15169998280*t);
-  Y0 += 0.00010466965 * Math.cos(0.09641690558 + 18849.22754997420*t);
-  Y0 += 0.00003110838 * Math.cos(5.38114091484 + 83996.84731811189*t);
-  Y0 += 0.00002570338 * Math.cos(5.30103973360 + 529.69096509460*t);
-  Y0 += 0.00002147473 * Math.cos(2.66253538905 + 1577.34354244780*t);
-  Y0 += 0.00001709219 * Math.cos(5.20780401071 + 6279.55273164240*t);
-  Y0 += 0.00001707987 * Math.cos(4.58232858766 + 6286.59896834040*t);
-  Y0 += 0.00001440265 * Math.cos(1.90068164664 + 2352.86615377180*t);
-  Y0 += 0.00001135092 * Math.cos(5.27313415220 + 5223.69391980220*t);
-  Y0 += 0.00000934539 * Math.cos(4.50301201844 + 12036.46073488820*t);
-  Y0 += 0.00000900565 * Math.cos(1.60563288120 + 10213.28554621100*t);
-  Y0 += 0.00000567126 * Math.cos(0.58142248753 + 1059.38193018920*t);
-  Y0 += 0.00000744932 * Math.cos(2.80728871886 + 398.14900340820*t);
-  Y0 += 0.00000639316 * Math.cos(6.02923915017 + 5753.38488489680*t);
-  Y0 += 0.00000681324 * Math.cos(0.64729627497 + 4705.73230754360*t);
-  Y0 += 0.00000611347 * Math.cos(3.81381495286 + 6812.76681508600*t);
-  Y0 += 0.00000450435 * Math.cos(4.52785572489 + 5884.92684658320*t);
-  Y0 += 0.00000452018 * Math.cos(5.99167242707 + 6256.77753019160*t);
-  Y0 += 0.00000449968 * Math.cos(3.79880375595 + 6309.37416979120*t);
-  Y0 += 0.00000551390 * Math.cos(3.96125249369 + 5507.55323866740*t);
-  Y0 += 0.00000406334 * Math.cos(5.25616268027 + 6681.22485339960*t);
-  Y0 += 0.00000541273 * Math.cos(5.49902805917 + 775.52261132400*t);
-  Y0 += 0.00000546360 * Math.cos(6.17311131785 + 14143.49524243060*t);
-  Y0 += 0.00000507084 * Math.cos(2.87025193381 + 7860.41939243920*t);
-  Y0 += 0.00000219504 * Math.cos(2.95216139568 + 11506.76976979360*t);
-  Y0 += 0.00000227937 * Math.cos(5.95179248814 + 7058.59846131540*t);
-  Y0 += 0.00000227792 * Math.cos(4.84547074733 + 4694.00295470760*t);
-  Y0 += 0.00000255845 * Math.cos(0.69454231563 + 12168.00269657460*t);
-  Y0 += 0.00000256132 * Math.cos(6.16722512388 + 709.93304855830*t);
-  Y0 += 0.00000179242 * Math.cos(1.40003446021 + 796.29800681640*t);
-  Y0 += 0.00000178280 * Math.cos(5.11717552231 + 6283.00853968860*t);
-  Y0 += 0.00000178280 * Math.cos(4.67307255246 + 6283.14316029419*t);
-  Y0 += 0.00000155454 * Math.cos(0.05340525434 + 25132.30339996560*t);
-  Y0 += 0.00000206257 * Math.cos(4.28366728882 + 11790.62908865880*t);
-  Y0 += 0.00000149769 * Math.cos(6.07429023278 + 5486.77784317500*t);
-  Y0 += 0.00000200005 * Math.cos(2.50144088120 + 17789.84561978500*t);
-  Y0 += 0.00000129006 * Math.cos(3.64623708634 + 7079.37385680780*t);
-  Y0 += 0.00000128211 * Math.cos(3.23254821381 + 3738.76143010800*t);
-  Y0 += 0.00000152790 * Math.cos(5.58120800450 + 213.29909543800*t);
-  Y0 += 0.00000118725 * Math.cos(5.45361490488 + 9437.76293488700*t);
-  Y0 += 0.00000078419 * Math.cos(0.28253093914 + 8827.39026987480*t);
-  Y0 += 0.00000073513 * Math.cos(1.12433371880 + 1589.07289528380*t);
-  Y0 += 0.00000065694 * Math.cos(2.08898587059 + 11769.85369316640*t);
-  Y0 += 0.00000063240 * Math.cos(0.67044491570 + 6262.30045449900*t);
-  Y0 += 0.00000062961 * Math.cos(2.83649755996 + 6303.85124548380*t);
-  Y0 += 0.00000085870 * Math.cos(1.45351152151 + 167283.76158766549*t);
-  Y0 += 0.00000063616 * Math.cos(0.49038985445 + 7.11354700080*t);
-  Y0 += 0.00000080740 * Math.cos(0.92225805400 + 6069.77675455340*t);
-  Y0 += 0.00000083511 * Math.cos(4.63223527298 + 3340.61242669980*t);
-  Y0 += 0.00000060039 * Math.cos(1.82878888713 + 4136.91043351620*t);
-  Y0 += 0.00000075626 * Math.cos(2.58860726122 + 6496.37494542940*t);
-  Y0 += 0.00000058089 * Math.cos(0.55165509745 + 10977.07880469900*t);
-  Y0 += 0.00000053747 * Math.cos(6.27553948416 + 1194.44701022460*t);
-  Y0 += 0.00000057574 * Math.cos(1.10802134270 + 6282.09552892320*t);
-  Y0 += 0.00000057574 * Math.cos(2.39891957636 + 6284.05617105960*t);
-  Y0 += 0.00000051141 * Math.cos(6.02458046766 + 6290.18939699220*t);
-  Y0 += 0.00000050679 * Math.cos(3.77133779892 + 6275.96230299060*t);
-  Y0 += 0.00000049613 * Math.cos(1.07290390127 + 6127.65545055720*t);
-  Y0 += 0.00000047934 * Math.cos(2.43176952238 + 6438.49624942560*t);
-  Y0 += 0.00000061133 * Math.cos(5.34335721244 + 3154.68708489560*t);
-  Y0 += 0.00000048425 * Math.cos(0.05833183710 + 801.82093112380*t);
-  Y0 += 0.00000047359 * Math.cos(4.53607945311 + 3128.38876509580*t);
-  Y0 += 0.00000048379 * Math.cos(0.25856696781 + 7084.89678111520*t);
-  Y0 += 0.00000051293 * Math.cos(4.21367834558 + 12352.85260454480*t);
-  Y0 += 0.00000050630 * Math.cos(0.48144269678 + 11856.21865142450*t);
-  Y0 += 0.00000037539 * Math.cos(1.60040603609 + 8429.24126646660*t);
-  Y0 += 0.00000049347 * Math.cos(2.15740113992 + 2544.31441988340*t);
-  Y0 += 0.00000039555 * Math.cos(3.35943284176 + 5481.25491886760*t);
-  Y0 += 0.00000048913 * Math.cos(5.16531049040 + 9225.53927328300*t);
-  Y0 += 0.00000042135 * Math.cos(2.06532560040 + 17260.15465469040*t);
-  Y0 += 0.00000037954 * Math.cos(1.47005640108 + 426.59819087600*t);
-  Y0 += 0.00000031140 * Math.cos(3.61579568733 + 2146.16541647520*t);
-  Y0 += 0.00000032603 * Math.cos(4.41806626166 + 4164.31198961300*t);
-  Y0 += 0.00000039728 * Math.cos(4.70048863454 + 5856.47765911540*t);
-  Y0 += 0.00000028515 * Math.cos(4.53853388964 + 12569.67481833180*t);
-  Y0 += 0.00000036368 * Math.cos(1.33416490018 + 18073.70493865020*t);
-  Y0 += 0.00000025032 * Math.cos(3.74982021361 + 26.29831979980*t);
-  Y0 += 0.00000030329 * Math.cos(0.42324614391 + 4535.05943692440*t);
-  Y0 += 0.00000026741 * Math.cos(5.97172882162 + 3930.20969621960*t);
-  Y0 += 0.00000028166 * Math.cos(5.19366222912 + 12562.62858163380*t);
-  Y0 += 0.00000024843 * Math.cos(1.00265326013 + 5088.62883976680*t);
-  Y0 += 0.00000021642 * Math.cos(3.06444526478 + 12559.03815298200*t);
-  Y0 += 0.00000025701 * Math.cos(0.75895390818 + 13367.97263110660*t);
-  Y0 += 0.00000020498 * Math.cos(3.44435384536 + 11371.70468975820*t);
-  Y0 += 0.00000025997 * Math.cos(1.87312778491 + 71430.69561812909*t);
-  Y0 += 0.00000017888 * Math.cos(5.01504194498 + 1748.01641306700*t);
-  Y0 += 0.00000023246 * Math.cos(4.61910038205 + 18319.53658487960*t);
-  Y0 += 0.00000017077 * Math.cos(5.29722216277 + 4933.20844033260*t);
-  Y0 += 0.00000021070 * Math.cos(2.22959477131 + 7477.52286021600*t);
-  Y0 += 0.00000017512 * Math.cos(6.16192589291 + 10447.38783960440*t);
-  Y0 += 0.00000020024 * Math.cos(2.96823180998 + 8031.09226305840*t);
-  Y0 += 0.00000013831 * Math.cos(3.02450528624 + 8635.94200376320*t);
-  Y0 += 0.00000014095 * Math.cos(6.03707103538 + 2942.46342329160*t);
-  Y0 += 0.00000018884 * Math.cos(0.85614789376 + 156137.47598479928*t);
-  Y0 += 0.00000017861 * Math.cos(4.86809570283 + 1592.59601363280*t);
-  Y0 += 0.00000013605 * Math.cos(3.62641145030 + 13095.84266507740*t);
-  Y0 += 0.00000015078 * Math.cos(1.55132224732 + 16496.36139620240*t);
-  Y0 += 0.00000017985 * Math.cos(2.07741211308 + 17298.18232732620*t);
-  Y0 += 0.00000014386 * Math.cos(6.14898732933 + 20426.57109242200*t);
-  Y0 += 0.00000012227 * Math.cos(4.38359423735 + 7632.94325965020*t);
-  Y0 += 0.00000013376 * Math.cos(2.03616887071 + 12139.55350910680*t);
-  Y0 += 0.00000011583 * Math.cos(3.88971333608 + 5331.35744374080*t);
-  Y0 += 0.00000013558 * Math.cos(1.44666331503 + 16730.46368959580*t);
-  Y0 += 0.00000014332 * Math.cos(4.45678693729 + 7342.45778018060*t);
-  Y0 += 0.00000012375 * Math.cos(1.53862289477 + 6279.48542133960*t);
-  Y0 += 0.00000012366 * Math.cos(1.96831814872 + 6286.66627864320*t);
-  Y0 += 0.00000012446 * Math.cos(5.78094918529 + 15110.46611986620*t);
-  Y0 += 0.00000010989 * Math.cos(0.62040343662 + 10988.80815753500*t);
-  Y0 += 0.00000012556 * Math.cos(2.59194808538 + 15720.83878487840*t);
-  Y0 += 0.00000011583 * Math.cos(2.48165809843 + 5729.50644714900*t);
-  Y0 += 0.00000009023 * Math.cos(3.85655029499 + 9623.68827669120*t);
-  Y0 += 0.00000009121 * Math.cos(5.83006047147 + 7234.79425624200*t);
-  Y0 += 0.00000008869 * Math.cos(3.47611265290 + 6148.01076995600*t);
-  Y0 += 0.00000008614 * Math.cos(0.03081589303 + 6418.14093002680*t);
-  Y0 += 0.00000007911 * Math.cos(1.58348238359 + 2118.76386037840*t);
-  Y0 += 0.00000008293 * Math.cos(0.85407021371 + 14712.31711645800*t);
-  Y0 += 0.00000010219 * Math.cos(0.13075179540 + 1349.86740965880*t);
-  Y0 += 0.00000010126 * Math.cos(0.99630008630 + 6836.64525283380*t);
-  Y0 += 0.00000010480 * Math.cos(1.38209301929 + 5999.21653112620*t);
-  Y0 += 0.00000007353 * Math.cos(3.83220307326 + 6040.34724601740*t);
-  Y0 += 0.00000009820 * Math.cos(2.12476655144 + 6566.93516885660*t);
-  Y0 += 0.00000007018 * Math.cos(5.94659180519 + 6525.80445396540*t);
-  Y0 += 0.00000006874 * Math.cos(4.57503512461 + 7238.67559160000*t);
-  Y0 += 0.00000007545 * Math.cos(5.94843444430 + 12539.85338018300*t);
-  Y0 += 0.00000009540 * Math.cos(3.49613271706 + 21228.39202354580*t);
-  Y0 += 0.00000007202 * Math.cos(4.31311898936 + 6245.04817735560*t);
-  Y0 += 0.00000007144 * Math.cos(5.47703560836 + 6321.10352262720*t);
-  Y0 += 0.00000006627 * Math.cos(5.41373102778 + 5327.47610838280*t);
-  Y0 += 0.00000008544 * Math.cos(1.82829301857 + 11015.10647733480*t);
-  Y0 += 0.00000008602 * Math.cos(5.43953575310 + 5643.17856367740*t);
-  Y0 += 0.00000006158 * Math.cos(5.65852675233 + 12964.30070339100*t);
-  Y0 += 0.00000007414 * Math.cos(3.46720433621 + 23543.23050468179*t);
-  Y0 += 0.00000007317 * Math.cos(2.01664477821 + 536.80451209540*t);
-  Y0 += 0.00000006352 * Math.cos(3.46461304398 + 1990.74501704100*t);
-  Y0 += 0.00000006251 * Math.cos(1.52860898333 + 951.71840625060*t);
-  Y0 += 0.00000005828 * Math.cos(1.37555383064 + 955.59974160860*t);
-  Y0 += 0.00000006389 * Math.cos(2.40580071461 + 24072.92146977640*t);
-  Y0 += 0.00000006976 * Math.cos(4.76626361488 + 10973.55568635000*t);
-  Y0 += 0.00000006916 * Math.cos(5.39658071678 + 522.57741809380*t);
-  Y0 += 0.00000007459 * Math.cos(2.71133898870 + 22003.91463486980*t);
-  Y0 += 0.00000005376 * Math.cos(2.34968505500 + 14314.16811304980*t);
-  Y0 += 0.00000006852 * Math.cos(4.33781274406 + 155.42039943420*t);
-  Y0 += 0.00000007527 * Math.cos(1.94392127074 + 18422.62935909819*t);
-  Y0 += 0.00000006222 * Math.cos(0.67296135144 + 18451.07854656599*t);
-  Y0 += 0.00000005836 * Math.cos(0.75921238848 + 639.89728631400*t);
-  Y0 += 0.00000006487 * Math.cos(2.22135874272 + 5216.58037280140*t);
-  Y0 += 0.00000006251 * Math.cos(2.88399458161 + 6288.59877429880*t);
-  Y0 += 0.00000006251 * Math.cos(0.62294633745 + 6277.55292568400*t);
-  Y0 += 0.00000007004 * Math.cos(3.57492830242 + 103.09277421860*t);
-  Y0 += 0.00000005337 * Math.cos(1.97127813671 + 4690.47983635860*t);
-  Y0 += 0.00000005605 * Math.cos(1.92150700481 + 1551.04522264800*t);
-  Y0 += 0.00000006210 * Math.cos(0.81866451118 + 5650.29211067820*t);
-  Y0 += 0.00000006064 * Math.cos(5.19708779870 + 5230.80746680300*t);
-  Y0 += 0.00000004596 * Math.cos(2.92936593195 + 553.56940284240*t);
-  Y0 += 0.00000005386 * Math.cos(5.40633950052 + 77713.77146812050*t);
-  Y0 += 0.00000006332 * Math.cos(2.83725098708 + 26087.90314157420*t);
-  Y0 += 0.00000006196 * Math.cos(4.15787078176 + 84672.47584450469*t);
-  Y0 += 0.00000006160 * Math.cos(3.21170435536 + 239424.39025435288*t);
-  Y0 += 0.00000005016 * Math.cos(1.46006858313 + 4732.03062734340*t);
-  Y0 += 0.00000005414 * Math.cos(1.42882325200 + 6179.98307577280*t);
-  Y0 += 0.00000005413 * Math.cos(2.08325983447 + 6386.16862421000*t);
-  Y0 += 0.00000004863 * Math.cos(2.19642746549 + 90279.92316810328*t);
-  Y0 += 0.00000005711 * Math.cos(2.75630374926 + 6915.85958930460*t);
-  Y0 += 0.00000004270 * Math.cos(0.81269903423 + 7875.67186362420*t);
-  Y0 += 0.00000004017 * Math.cos(2.21501265909 + 6254.62666252360*t);
-  Y0 += 0.00000004071 * Math.cos(3.99159158863 + 3634.62102451840*t);
-  Y0 += 0.00000003993 * Math.cos(1.29192500625 + 6311.52503745920*t);
-  Y0 += 0.00000004858 * Math.cos(1.27914374675 + 5760.49843189760*t);
-  Y0 += 0.00000005274 * Math.cos(4.91687036691 + 25158.60171976540*t);
-  Y0 += 0.00000004120 * Math.cos(1.72568521475 + 6709.67404086740*t);
-  Y0 += 0.00000004410 * Math.cos(2.23536264210 + 6805.65326808520*t);
-  Y0 += 0.00000003174 * Math.cos(3.62030131501 + 1066.49547719000*t);
-  Y0 += 0.00000003064 * Math.cos(2.46605561478 + 5863.59120611620*t);
-  Y0 += 0.00000003083 * Math.cos(5.68731909779 + 9917.69687450980*t);
-  Y0 += 0.00000003385 * Math.cos(3.81076637101 + 13916.01910964160*t);
-  Y0 += 0.00000002979 * Math.cos(4.62987940723 + 12566.21901028560*t);
-  Y0 += 0.00000003980 * Math.cos(5.90917210624 + 13341.67431130680*t);
-  Y0 += 0.00000003290 * Math.cos(0.95752698537 + 16200.77272450120*t);
-  Y0 += 0.00000003885 * Math.cos(3.94360149823 + 74.78159856730*t);
-  Y0 += 0.00000003060 * Math.cos(1.63142398497 + 18052.92954315780*t);
-  Y0 += 0.00000003745 * Math.cos(3.65023712104 + 5966.68398033480*t);
-  Y0 += 0.00000003592 * Math.cos(4.03843804285 + 6208.29425142410*t);
-  Y0 += 0.00000003581 * Math.cos(5.75234129258 + 6357.85744855870*t);
-  Y0 += 0.00000003626 * Math.cos(6.13871061291 + 6599.46771964800*t);
-  Y0 += 0.00000002927 * Math.cos(1.79201822142 + 12721.57209941700*t);
-  Y0 += 0.00000003625 * Math.cos(1.43112641053 + 6019.99192661860*t);
-  Y0 += 0.00000002589 * Math.cos(2.27559640821 + 12592.45001978260*t);
-  Y0 += 0.00000002558 * Math.cos(6.08151329647 + 10575.40668294180*t);
-  Y0 += 0.00000002670 * Math.cos(2.64370887209 + 3.52311834900*t);
-  Y0 += 0.00000002611 * Math.cos(0.86180315523 + 6702.56049386660*t);
-  Y0 += 0.00000002535 * Math.cos(0.01231078888 + 31415.37924995700*t);
-  Y0 += 0.00000003520 * Math.cos(3.80906746266 + 250570.67585721909*t);
-  Y0 += 0.00000003434 * Math.cos(2.07577333297 + 6546.15977336420*t);
-  Y0 += 0.00000002378 * Math.cos(2.05651519036 + 2388.89402044920*t);
-  Y0 += 0.00000002979 * Math.cos(5.07398237708 + 12566.08438968000*t);
-  Y0 += 0.00000002716 * Math.cos(1.49855840728 + 12029.34718788740*t);
-  Y0 += 0.00000002215 * Math.cos(3.69574321309 + 13362.44970679920*t);
-  Y0 += 0.00000003049 * Math.cos(0.05228873308 + 29088.81141598500*t);
-  Y0 += 0.00000002784 * Math.cos(3.37954165171 + 14945.31617355440*t);
-  Y0 += 0.00000002284 * Math.cos(4.38146814547 + 6076.89030155420*t);
-  Y0 += 0.00000002529 * Math.cos(4.37629589914 + 12043.57428188900*t);
-  Y0 += 0.00000002015 * Math.cos(0.91352603582 + 6262.72053059260*t);
-  Y0 += 0.00000002218 * Math.cos(5.40562909521 + 6489.26139842860*t);
-  Y0 += 0.00000002005 * Math.cos(2.59344263770 + 6303.43116939020*t);
-  Y0 += 0.00000002681 * Math.cos(5.85620039558 + 4590.91018048900*t);
-  Y0 += 0.00000002011 * Math.cos(5.69828891426 + 4701.11650170840*t);
-  Y0 += 0.00000002440 * Math.cos(4.55844746985 + 149.56319713460*t);
-  Y0 += 0.00000002600 * Math.cos(3.93109819647 + 19651.04848109800*t);
-  Y0 += 0.00000002197 * Math.cos(5.22411628121 + 13517.87010623340*t);
-  Y0 += 0.00000001893 * Math.cos(4.09716259686 + 6286.95718534940*t);
-  Y0 += 0.00000001893 * Math.cos(5.69296362938 + 6279.19451463340*t);
-  Y0 += 0.00000002402 * Math.cos(4.84503253270 + 1162.47470440780*t);
-  Y0 += 0.00000002156 * Math.cos(0.43826128691 + 18139.29450141590*t);
-  Y0 += 0.00000001778 * Math.cos(2.79119893202 + 4292.33083295040*t);
-  Y0 += 0.00000001966 * Math.cos(1.82224928185 + 4686.88940770680*t);
-  Y0 += 0.00000002327 * Math.cos(2.83472726504 + 10021.83728009940*t);
-  Y0 += 0.00000002436 * Math.cos(2.83689873280 + 95143.13292097810*t);
-  Y0 += 0.00000002163 * Math.cos(6.13036765564 + 6037.24420376200*t);
-  Y0 += 0.00000001841 * Math.cos(3.67947373190 + 242.72860397400*t);
-  Y0 += 0.00000001672 * Math.cos(0.33097080655 + 13119.72110282519*t);
-  Y0 += 0.00000002250 * Math.cos(0.82649282051 + 12669.24447420140*t);
-  Y0 += 0.00000001627 * Math.cos(4.77445737868 + 13521.75144159140*t);
-  Y0 += 0.00000001888 * Math.cos(2.87850805387 + 8662.24032356300*t);
-  Y0 += 0.00000002052 * Math.cos(3.65927016475 + 6528.90749622080*t);
-  Y0 += 0.00000001774 * Math.cos(0.51400448882 + 6819.88036208680*t);
-  Y0 += 0.00000001840 * Math.cos(1.91711006767 + 65147.61976813770*t);
-  Y0 += 0.00000001544 * Math.cos(1.33911061474 + 110.20632121940*t);
-  Y0 += 0.00000001756 * Math.cos(2.96482886554 + 5746.27133789600*t);
-  Y0 += 0.00000001543 * Math.cos(4.39018655159 + 6272.43918464160*t);
-  Y0 += 0.00000001543 * Math.cos(5.39993967465 + 6293.71251534120*t);
-  Y0 += 0.00000001952 * Math.cos(3.09643550846 + 23013.53953958720*t);
-  Y0 += 0.00000001484 * Math.cos(2.15301976837 + 20.77539549240*t);
-  Y0 += 0.00000001558 * Math.cos(2.79679951671 + 17654.78053974960*t);
-  Y0 += 0.00000001440 * Math.cos(0.69014829975 + 1052.26838318840*t);
-  Y0 += 0.00000001648 * Math.cos(3.98135416194 + 632.78373931320*t);
-  Y0 += 0.00000001795 * Math.cos(1.47161886169 + 33019.02111220460*t);
-  Y0 += 0.00000001488 * Math.cos(4.10377440731 + 76.26607127560*t);
-  Y0 += 0.00000001349 * Math.cos(4.18018072818 + 6016.46880826960*t);
-  Y0 += 0.00000001477 * Math.cos(2.56925128481 + 12779.45079542080*t);
-  Y0 += 0.00000001252 * Math.cos(6.26830198321 + 11499.65622279280*t);
-  Y0 += 0.00000001491 * Math.cos(4.65893645946 + 9411.46461508720*t);
-  Y0 += 0.00000001471 * Math.cos(4.18695456530 + 18635.92845453620*t);
-  Y0 += 0.00000001263 * Math.cos(5.62967869388 + 12573.26524698360*t);
-  Y0 += 0.00000001385 * Math.cos(2.65776727703 + 2379.16447357160*t);
-  Y0 += 0.00000001272 * Math.cos(5.60977857361 + 6549.68289171320*t);
-  Y0 += 0.00000001578 * Math.cos(4.10046385407 + 25934.12433108940*t);
-  Y0 += 0.00000001557 * Math.cos(4.78614835776 + 18875.52586977400*t);
-  Y0 += 0.00000001358 * Math.cos(0.33781842226 + 5120.60114558360*t);
-  Y0 += 0.00000001505 * Math.cos(2.70837129901 + 18209.33026366019*t);
-  Y0 += 0.00000001460 * Math.cos(3.40156973977 + 245.83164622940*t);
-  Y0 += 0.00000001252 * Math.cos(6.12407876457 + 6993.00889854970*t);
-  Y0 += 0.00000001242 * Math.cos(1.27359177098 + 24356.78078864160*t);
-  Y0 += 0.00000001464 * Math.cos(3.73000165992 + 38.13303563780*t);
-  Y0 += 0.00000001028 * Math.cos(0.93950338023 + 6112.40297937220*t);
-  Y0 += 0.00000001014 * Math.cos(4.36072926630 + 17256.63153634140*t);
-  Y0 += 0.00000001312 * Math.cos(5.81330496460 + 12491.37010141550*t);
-  Y0 += 0.00000000992 * Math.cos(2.56738139157 + 6453.74872061060*t);
-  Y0 += 0.00000000988 * Math.cos(5.69171453384 + 8273.82086703240*t);
-  Y0 += 0.00000001191 * Math.cos(1.64765684664 + 6276.02961329339*t);
-  Y0 += 0.00000001191 * Math.cos(1.85928407242 + 6290.12208668940*t);
-  Y0 += 0.00000000978 * Math.cos(3.16773119822 + 6247.04798331399*t);
-  Y0 += 0.00000001223 * Math.cos(6.22694723537 + 5429.87946823940*t);
-  Y0 += 0.00000000971 * Math.cos(0.33921097188 + 6319.10371666880*t);
-  Y0 += 0.00000000962 * Math.cos(1.06488912173 + 12565.17137891460*t);
-  Y0 += 0.00000001025 * Math.cos(0.64688768472 + 12545.37630449040*t);
-  Y0 += 0.00000001234 * Math.cos(2.50427756599 + 22483.84857449259*t);
-  Y0 += 0.00000001134 * Math.cos(5.76287831677 + 17782.73207278420*t);
-  Y0 += 0.00000000944 * Math.cos(5.49712708636 + 6306.95428773920*t);
-  Y0 += 0.00000000944 * Math.cos(4.29299913988 + 6259.19741224360*t);
-  Y0 += 0.00000001092 * Math.cos(2.35048657695 + 17796.95916678580*t);
-  Y0 += 0.00000000995 * Math.cos(1.11794413013 + 10177.25767953360*t);
-  Y0 += 0.00000000894 * Math.cos(2.94681683620 + 206.18554843720*t);
-  Y0 += 0.00000001216 * Math.cos(5.61396859194 + 82576.98122099529*t);
-  Y0 += 0.00000000860 * Math.cos(6.19327755003 + 1692.16566950240*t);
-  Y0 += 0.00000000942 * Math.cos(6.13301518193 + 6267.82337880639*t);
-  Y0 += 0.00000000942 * Math.cos(3.65711104430 + 6298.32832117640*t);
-  Y0 += 0.00000001045 * Math.cos(5.17292899506 + 15508.61512327440*t);
-  Y0 += 0.00000000850 * Math.cos(6.16443178844 + 6393.28217121080*t);
-  Y0 += 0.00000000873 * Math.cos(2.86766306801 + 949.17560896980*t);
-  Y0 += 0.00000000896 * Math.cos(0.83013691514 + 3903.91137641980*t);
-  Y0 += 0.00000001023 * Math.cos(5.42813246189 + 220.41264243880*t);
-  Y0 += 0.00000000856 * Math.cos(1.36181993943 + 4804.20927592700*t);
-  Y0 += 0.00000001033 * Math.cos(3.31340063953 + 5573.14280143310*t);
-  Y0 += 0.00000000817 * Math.cos(3.58855573226 + 6172.86952877200*t);
-  Y0 += 0.00000000917 * Math.cos(0.89919993710 + 149854.40013480789*t);
-  Y0 += 0.00000001081 * Math.cos(2.89245979526 + 36949.23080842420*t);
-  Y0 += 0.00000000779 * Math.cos(2.01260281552 + 2648.45482547300*t);
-  Y0 += 0.00000000962 * Math.cos(2.35578735539 + 12567.13202105100*t);
-  Y0 += 0.00000000990 * Math.cos(4.97210778261 + 11403.67699557500*t);
-  Y0 += 0.00000000739 * Math.cos(3.39896198161 + 11926.25441366880*t);
-  Y0 += 0.00000000929 * Math.cos(0.64994792213 + 2787.04302385740*t);
-  Y0 += 0.00000000973 * Math.cos(6.19358824421 + 22805.73556599360*t);
-  Y0 += 0.00000000743 * Math.cos(2.22828430376 + 7834.12107263940*t);
-  Y0 += 0.00000000905 * Math.cos(2.24459183660 + 6284.56032269970*t);
-  Y0 += 0.00000000905 * Math.cos(1.26234908246 + 6281.59137728310*t);
-  Y0 += 0.00000000798 * Math.cos(1.05421393588 + 12410.73130054860*t);
-  Y0 += 0.00000000813 * Math.cos(5.23283372183 + 12416.58850284820*t);
-  Y0 += 0.00000000869 * Math.cos(1.74785663537 + 6133.51265285680*t);
-  Y0 += 0.00000000756 * Math.cos(5.40063116731 + 4061.21921539440*t);
-  Y0 += 0.00000000616 * Math.cos(4.13389755770 + 1596.18644228460*t);
-  Y0 += 0.00000000724 * Math.cos(1.49651873854 + 161000.68573767410*t);
-  Y0 += 0.00000000612 * Math.cos(5.89184406078 + 16858.48253293320*t);
-  Y0 += 0.00000000814 * Math.cos(3.82004246488 + 3894.18182954220*t);
-  Y0 += 0.00000000785 * Math.cos(2.44918664136 + 4907.30205014560*t);
-  Y0 += 0.00000000788 * Math.cos(1.86746379419 + 846.08283475120*t);
-  Y0 += 0.00000000611 * Math.cos(6.24387943735 + 853.19638175200*t);
-  Y0 += 0.00000000570 * Math.cos(2.97586328906 + 12586.92709547520*t);
-  Y0 += 0.00000000561 * Math.cos(5.85814246596 + 12323.42309600880*t);
-  Y0 += 0.00000000646 * Math.cos(5.91116942848 + 52175.80628314840*t);
-  Y0 += 0.00000000590 * Math.cos(0.47736597307 + 15671.08175940660*t);
-  Y0 += 0.00000000555 * Math.cos(2.86698301793 + 11513.88331679440*t);
-  Y0 += 0.00000000536 * Math.cos(4.49580958272 + 18852.75066832320*t);
-  Y0 += 0.00000000737 * Math.cos(5.41358302312 + 23581.25817731760*t);
-  Y0 += 0.00000000532 * Math.cos(3.01682571392 + 18842.11400297339*t);
-  Y0 += 0.00000000552 * Math.cos(6.08260944683 + 11933.36796066960*t);
-  Y0 += 0.00000000599 * Math.cos(0.54713576844 + 6151.53388830500*t);
-  Y0 += 0.00000000540 * Math.cos(1.83361074884 + 6279.78949257360*t);
-  Y0 += 0.00000000540 * Math.cos(1.67333017022 + 6286.36220740920*t);
-  Y0 += 0.00000000513 * Math.cos(2.13211972766 + 12455.94537876340*t);
-  Y0 += 0.00000000649 * Math.cos(3.33488856037 + 11764.33076885900*t);
-  Y0 += 0.00000000582 * Math.cos(2.96012819576 + 6414.61781167780*t);
-  Y0 += 0.00000000608 * Math.cos(2.37588807672 + 10419.98628350760*t);
-  Y0 += 0.00000000620 * Math.cos(0.83937590497 + 5326.78669402080*t);
-  Y0 += 0.00000000536 * Math.cos(2.13145334966 + 7232.25145896120*t);
-  Y0 += 0.00000000538 * Math.cos(1.33481115516 + 5333.90024102160*t);
-  Y0 += 0.00000000516 * Math.cos(1.35797709246 + 433.71173787680*t);
-  Y0 += 0.00000000596 * Math.cos(0.99065349155 + 6062.66320755260*t);
-  Y0 += 0.00000000664 * Math.cos(4.31358012484 + 40879.44050464380*t);
-  Y0 += 0.00000000607 * Math.cos(4.79849916312 + 5849.36411211460*t);
-  Y0 += 0.00000000629 * Math.cos(1.34455816041 + 26735.94526221320*t);
-  Y0 += 0.00000000479 * Math.cos(6.04755907663 + 5547.19933645960*t);
-  Y0 += 0.00000000565 * Math.cos(5.49238261982 + 4171.42553661380*t);
-  Y0 += 0.00000000472 * Math.cos(3.81181804730 + 10969.96525769820*t);
-  Y0 += 0.00000000462 * Math.cos(3.53729128828 + 3104.93005942380*t);
-  Y0 += 0.00000000551 * Math.cos(2.46794798020 + 6503.48849243020*t);
-  Y0 += 0.00000000535 * Math.cos(4.55197627124 + 173566.83743765688*t);
-  Y0 += 0.00000000450 * Math.cos(0.38613288324 + 4274.51831083240*t);
-  Y0 += 0.00000000527 * Math.cos(4.67747327047 + 24602.61243487099*t);
-  Y0 += 0.00000000502 * Math.cos(5.68646136646 + 12489.88562870720*t);
-  Y0 += 0.00000000603 * Math.cos(5.56725954240 + 322711.30452390644*t);
-  Y0 += 0.00000000432 * Math.cos(5.22277533085 + 9388.00590941520*t);
-  Y0 += 0.00000000530 * Math.cos(5.14730101928 + 18845.70443162520*t);
-  Y0 += 0.00000000431 * Math.cos(3.74066314880 + 7018.95236352320*t);
-  Y0 += 0.00000000484 * Math.cos(0.31541423564 + 14.22709400160*t);
-  Y0 += 0.00000000560 * Math.cos(0.14432555287 + 1581.95934828300*t);
-  Y0 += 0.00000000584 * Math.cos(4.78380792490 + 72850.56171524568*t);
-  Y0 += 0.00000000408 * Math.cos(4.98636538552 + 3496.03282613400*t);
-  Y0 += 0.00000000569 * Math.cos(1.38164944312 + 97238.62754448749*t);
-  Y0 += 0.00000000478 * Math.cos(4.58275550120 + 29296.61538957860*t);
-  Y0 += 0.00000000389 * Math.cos(1.85967717576 + 6244.94281435360*t);
-  Y0 += 0.00000000389 * Math.cos(1.64726374330 + 6321.20888562920*t);
-  Y0 += 0.00000000388 * Math.cos(5.85202122263 + 6297.30294399300*t);
-  Y0 += 0.00000000388 * Math.cos(3.93810500361 + 6268.84875598980*t);
-  Y0 += 0.00000000515 * Math.cos(0.09995703640 + 12320.32005375340*t);
-  Y0 += 0.00000000395 * Math.cos(1.39225625253 + 4157.19844261220*t);
-  Y0 += 0.00000000492 * Math.cos(4.39757189321 + 1478.86657406440*t);
-  Y0 += 0.00000000423 * Math.cos(2.45281376602 + 9779.10867612540*t);
-  Y0 += 0.00000000439 * Math.cos(3.25487944876 + 233141.31440436149*t);
-  Y0 += 0.00000000501 * Math.cos(3.08355690853 + 17157.06188047180*t);
-  Y0 += 0.00000000416 * Math.cos(2.17399987974 + 13760.59871020740*t);
-  Y0 += 0.00000000503 * Math.cos(4.02857067171 + 135.06508003540*t);
-  Y0 += 0.00000000393 * Math.cos(6.27884951137 + 7872.14874527520*t);
-  Y0 += 0.00000000365 * Math.cos(0.53940975175 + 6922.97313630540*t);
-  Y0 += 0.00000000409 * Math.cos(6.14577564379 + 10984.19235169980*t);
-  Y0 += 0.00000000371 * Math.cos(4.19153897517 + 13625.53363017200*t);
-  Y0 += 0.00000000370 * Math.cos(2.79623025524 + 14919.01785375460*t);
-  Y0 += 0.00000000499 * Math.cos(1.15482230725 + 161710.61878623239*t);
-  Y0 += 0.00000000379 * Math.cos(5.52650430530 + 3185.19202726560*t);
-  Y0 += 0.00000000420 * Math.cos(1.76851201552 + 22779.43724619380*t);
-  Y0 += 0.00000000485 * Math.cos(6.06683096360 + 12528.01866434500*t);
-  Y0 += 0.00000000358 * Math.cos(1.58658367058 + 6271.34649715540*t);
-  Y0 += 0.00000000358 * Math.cos(1.92035724848 + 6294.80520282740*t);
-  Y0 += 0.00000000354 * Math.cos(2.96580857786 + 17267.26820169119*t);
-  Y0 += 0.00000000351 * Math.cos(0.64808322427 + 11616.97609101300*t);
-  Y0 += 0.00000000388 * Math.cos(5.20354943335 + 956.28915597060*t);
-  Y0 += 0.00000000409 * Math.cos(2.03946298626 + 21954.15760939799*t);
-  Y0 += 0.00000000369 * Math.cos(3.36327405725 + 5436.99301524020*t);
-  Y0 += 0.00000000421 * Math.cos(3.25654135729 + 7445.55055439920*t);
-  Y0 += 0.00000000361 * Math.cos(5.53538077166 + 21393.54196985760*t);
-  Y0 += 0.00000000336 * Math.cos(6.12569565789 + 6279.14369672830*t);
-  Y0 += 0.00000000336 * Math.cos(3.66443056835 + 6287.00800325450*t);
-  Y0 += 0.00000000450 * Math.cos(1.80230243402 + 1385.56157495110*t);
-  Y0 += 0.00000000315 * Math.cos(3.47678894225 + 10873.98603048040*t);
-  Y0 += 0.00000000363 * Math.cos(2.71990145670 + 7335.34423317980*t);
-  Y0 += 0.00000000347 * Math.cos(5.27040068469 + 17253.04110768959*t);
-  Y0 += 0.00000000349 * Math.cos(1.04077270827 + 316.39186965660*t);
-  Y0 += 0.00000000395 * Math.cos(3.82348293170 + 5905.70224207560*t);
-  Y0 += 0.00000000308 * Math.cos(2.54337606421 + 20995.39296644940*t);
-  Y0 += 0.00000000319 * Math.cos(5.30613709521 + 38.02767263580*t);
-  Y0 += 0.00000000304 * Math.cos(4.87224757874 + 5749.86176654780*t);
-  Y0 += 0.00000000414 * Math.cos(5.73458482925 + 44809.65020086340*t);
-  Y0 += 0.00000000298 * Math.cos(2.28443357697 + 640.87760738220*t);
-  Y0 += 0.00000000351 * Math.cos(4.36315900786 + 12345.73905754400*t);
-  Y0 += 0.00000000304 * Math.cos(3.36893995706 + 29826.30635467320*t);
-  Y0 += 0.00000000395 * Math.cos(4.78955929514 + 4176.04134244900*t);
-  Y0 += 0.00000000329 * Math.cos(5.87961134010 + 3.93215326310*t);
-  Y0 += 0.00000000374 * Math.cos(5.15697532254 + 5642.19824260920*t);
-  Y0 += 0.00000000320 * Math.cos(0.92923666608 + 10818.13528691580*t);
-  Y0 += 0.00000000365 * Math.cos(5.96664322939 + 6660.44945790720*t);
-  Y0 += 0.00000000339 * Math.cos(4.53749520696 + 6923.95345737360*t);
-  Y0 += 0.00000000357 * Math.cos(1.12153755723 + 16460.33352952499*t);
-  Y0 += 0.00000000386 * Math.cos(0.71941423743 + 2636.72547263700*t);
-  Y0 += 0.00000000273 * Math.cos(5.79109432105 + 26709.64694241340*t);
-  Y0 += 0.00000000265 * Math.cos(3.53930695872 + 19378.91851506880*t);
-  Y0 += 0.00000000325 * Math.cos(0.92198442483 + 12359.96615154560*t);
-  Y0 += 0.00000000278 * Math.cos(3.86335874809 + 20597.24396304120*t);
-  Y0 += 0.00000000294 * Math.cos(2.59935512947 + 28286.99048486120*t);
-  Y0 += 0.00000000269 * Math.cos(4.91776226798 + 6816.28993343500*t);
-  Y0 += 0.00000000357 * Math.cos(2.74654149425 + 30666.15495843280*t);
-  Y0 += 0.00000000344 * Math.cos(1.94480070409 + 6147.45052498140*t);
-  Y0 += 0.00000000255 * Math.cos(3.37524772579 + 1375.77379984580*t);
-  Y0 += 0.00000000308 * Math.cos(5.40069482744 + 29864.33402730900*t);
-  Y0 += 0.00000000334 * Math.cos(1.56223513612 + 6418.70117500140*t);
-  Y0 += 0.00000000316 * Math.cos(3.97125662279 + 6055.59971720240*t);
-  Y0 += 0.00000000243 * Math.cos(2.53093250846 + 6310.47740608820*t);
-  Y0 += 0.00000000243 * Math.cos(0.97600841060 + 6255.67429389460*t);
-  Y0 += 0.00000000296 * Math.cos(4.79138384974 + 6129.29703950660*t);
-  Y0 += 0.00000000301 * Math.cos(5.81886973641 + 6510.55198278040*t);
-  Y0 += 0.00000000329 * Math.cos(5.86928788098 + 377.37360791580*t);
-  Y0 += 0.00000000282 * Math.cos(3.64505853337 + 263.08392337280*t);
-  Y0 += 0.00000000267 * Math.cos(1.84936252726 + 24705.70520908959*t);
-  Y0 += 0.00000000285 * Math.cos(0.93414827012 + 5469.52556603160*t);
-  Y0 += 0.00000000234 * Math.cos(0.33992064306 + 5017.50837136500*t);
-  Y0 += 0.00000000286 * Math.cos(4.99886287753 + 6436.85466047620*t);
-  Y0 += 0.00000000309 * Math.cos(0.57495592500 + 27511.46787353720*t);
-  Y0 += 0.00000000319 * Math.cos(3.13977654412 + 169379.25621117488*t);
-  Y0 += 0.00000000263 * Math.cos(6.04953863141 + 11712.95531823080*t);
-  Y0 += 0.00000000285 * Math.cos(5.85104532566 + 16522.65971600220*t);
-  Y0 += 0.00000000230 * Math.cos(5.72898960063 + 1265.56747862640*t);
-  Y0 += 0.00000000235 * Math.cos(4.94143074133 + 4487.81740627040*t);
-  Y0 += 0.00000000253 * Math.cos(2.08490293021 + 4377.61108505100*t);
-  Y0 += 0.00000000312 * Math.cos(1.61150992635 + 11720.06886523160*t);
-  Y0 += 0.00000000220 * Math.cos(6.00356459702 + 20199.09495963300*t);
-  Y0 += 0.00000000214 * Math.cos(0.52396088270 + 2221.85663459700*t);
-  Y0 += 0.00000000213 * Math.cos(2.22365237019 + 30355.99731976780*t);
-  Y0 += 0.00000000259 * Math.cos(1.86047749915 + 6282.83203250789*t);
-  Y0 += 0.00000000259 * Math.cos(1.64646341991 + 6283.31966747490*t);
-  Y0 += 0.00000000243 * Math.cos(2.57267015777 + 7096.62613395120*t);
-  Y0 += 0.00000000221 * Math.cos(4.65757923242 + 5540.08578945880*t);
-  Y0 += 0.00000000246 * Math.cos(4.26495076165 + 8671.96987044060*t);
-  Y0 += 0.00000000208 * Math.cos(3.10897679499 + 10440.27429260360*t);
-  Y0 += 0.00000000199 * Math.cos(5.64807046697 + 11216.28429032400*t);
-  Y0 += 0.00000000209 * Math.cos(3.71139099761 + 419.48464387520*t);
-  Y0 += 0.00000000207 * Math.cos(1.49549061720 + 12562.56127133100*t);
-  Y0 += 0.00000000212 * Math.cos(0.18391974040 + 7129.15868474260*t);
-  Y0 += 0.00000000269 * Math.cos(6.23907991227 + 70755.06709173629*t);
-  Y0 += 0.00000000224 * Math.cos(5.58680388524 + 5636.06501667660*t);
-  Y0 += 0.00000000192 * Math.cos(0.47333599881 + 17271.88400752640*t);
-  Y0 += 0.00000000241 * Math.cos(3.52161359834 + 15906.76412668260*t);
-  Y0 += 0.00000000257 * Math.cos(0.87147328095 + 48739.85989708300*t);
-  Y0 += 0.00000000184 * Math.cos(3.83487369725 + 9380.95967271720*t);
-  Y0 += 0.00000000256 * Math.cos(0.73074058890 + 224.34479570190*t);
-  Y0 += 0.00000000250 * Math.cos(2.67103537581 + 5934.15142954340*t);
-  Y0 += 0.00000000185 * Math.cos(1.51386870105 + 19800.94595622480*t);
-  Y0 += 0.00000000189 * Math.cos(2.52919302388 + 16062.18452611680*t);
-  Y0 += 0.00000000175 * Math.cos(3.84093628240 + 11614.43329373220*t);
-  Y0 += 0.00000000175 * Math.cos(6.15313646522 + 3744.82734573780*t);
-  Y0 += 0.00000000240 * Math.cos(0.45238664563 + 1.48447270830*t);
-  Y0 += 0.00000000241 * Math.cos(5.00040455119 + 8390.11035753380*t);
-  Y0 += 0.00000000193 * Math.cos(4.71506547135 + 394.62588505920*t);
-  Y0 += 0.00000000169 * Math.cos(0.80098424793 + 742.99006053260*t);
-  Y0 += 0.00000000189 * Math.cos(4.03411872458 + 401.67212175720*t);
-  Y0 += 0.00000000230 * Math.cos(0.83612842798 + 6632.00027043940*t);
-  Y0 += 0.00000000227 * Math.cos(4.16811397278 + 34596.36465465240*t);
-  Y0 += 0.00000000165 * Math.cos(0.39341190294 + 10454.50138660520*t);
-  Y0 += 0.00000000221 * Math.cos(2.07224292531 + 6206.80977871580*t);
-  Y0 += 0.00000000201 * Math.cos(6.23059857608 + 3097.88382272579*t);
-  Y0 += 0.00000000205 * Math.cos(2.56533473350 + 16627.37091537720*t);
-  Y0 += 0.00000000178 * Math.cos(0.01807925983 + 4797.09572892620*t);
-  Y0 += 0.00000000225 * Math.cos(3.43883654828 + 266.60704172180*t);
-  Y0 += 0.00000000167 * Math.cos(2.40308228314 + 5714.25397596400*t);
-  Y0 += 0.00000000167 * Math.cos(1.16660958168 + 10344.29506538580*t);
-  Y0 += 0.00000000172 * Math.cos(3.81893679688 + 6332.83287546320*t);
-  Y0 += 0.00000000172 * Math.cos(5.97118942936 + 6233.31882451960*t);
-  Y0 += 0.00000000214 * Math.cos(2.77237801335 + 24492.40611365159*t);
-  Y0 += 0.00000000159 * Math.cos(2.33166453392 + 13198.93543929600*t);
-  Y0 += 0.00000000207 * Math.cos(1.92518585993 + 12569.74212863460*t);
-  Y0 += 0.00000000176 * Math.cos(2.48119329994 + 12012.58229714040*t);
-  Y0 += 0.00000000196 * Math.cos(5.41851032427 + 11087.28512591840*t);
-  Y0 += 0.00000000161 * Math.cos(2.18455666842 + 12132.43996210600*t);
-  Y0 += 0.00000000170 * Math.cos(5.35052715864 + 6272.03014972750*t);
-  Y0 += 0.00000000170 * Math.cos(4.43959906760 + 6294.12155025530*t);
-  Y0 += 0.00000000168 * Math.cos(3.97617357428 + 17686.75284556640*t);
-  Y0 += 0.00000000199 * Math.cos(5.15620822027 + 33326.57873317420*t);
-  Y0 += 0.00000000194 * Math.cos(2.13712729333 + 28.44918746780*t);
-  Y0 += 0.00000000144 * Math.cos(2.03929994576 + 16737.57723659660*t);
-  Y0 += 0.00000000148 * Math.cos(1.10385881777 + 6851.89772401880*t);
-  Y0 += 0.00000000146 * Math.cos(4.95201849548 + 17370.36097590980*t);
-  Y0 += 0.00000000143 * Math.cos(5.56441147227 + 5618.31980486140*t);
-  Y0 += 0.00000000140 * Math.cos(5.93460328071 + 2008.55753915900*t);
-  Y0 += 0.00000000162 * Math.cos(3.21674523006 + 12551.92460598120*t);
-  Y0 += 0.00000000143 * Math.cos(3.89365374642 + 5010.39482436420*t);
-  Y0 += 0.00000000161 * Math.cos(1.75025798421 + 31441.67756975680*t);
-  Y0 += 0.00000000151 * Math.cos(4.72729575304 + 16723.35014259500*t);
-  Y0 += 0.00000000135 * Math.cos(4.79054860554 + 12431.08661994740*t);
-  Y0 += 0.00000000148 * Math.cos(3.93657905776 + 28766.92442448400*t);
-  Y0 += 0.00000000146 * Math.cos(6.27087503385 + 12701.21678001820*t);
-  Y0 += 0.00000000137 * Math.cos(1.02989768135 + 11.04570026390*t);
-  Y0 += 0.00000000167 * Math.cos(5.98371371124 + 17473.45375012840*t);
-  Y0 += 0.00000000161 * Math.cos(1.02898808001 + 20452.86941222180*t);
-  Y0 += 0.00000000124 * Math.cos(4.22571513469 + 6947.83189512140*t);
-  Y0 += 0.00000000135 * Math.cos(4.95838914470 + 3531.52825029980*t);
-  Y0 += 0.00000000172 * Math.cos(0.23035302794 + 167959.39011405829*t);
-  Y0 += 0.00000000122 * Math.cos(4.12184077581 + 3583.34103067380*t);
-  Y0 += 0.00000000170 * Math.cos(6.16462338453 + 333857.59012677266*t);
-  Y0 += 0.00000000155 * Math.cos(5.62826239458 + 6058.73105428950*t);
-  Y0 += 0.00000000120 * Math.cos(5.90379805618 + 12808.88030395680*t);
-  Y0 += 0.00000000141 * Math.cos(3.95455987291 + 162420.55183479069*t);
-  Y0 += 0.00000000145 * Math.cos(3.70967890118 + 95.97922721780*t);
-  Y0 += 0.00000000120 * Math.cos(4.26997270152 + 12528.12402734700*t);
-  Y0 += 0.00000000119 * Math.cos(5.90934719297 + 19247.37655338240*t);
-  Y0 += 0.00000000117 * Math.cos(5.45034772919 + 11610.55195837420*t);
-  Y0 += 0.00000000163 * Math.cos(1.54432161045 + 661.23292678100*t);
-  Y0 += 0.00000000161 * Math.cos(2.28994816795 + 52670.06959330260*t);
-  Y0 += 0.00000000163 * Math.cos(2.78769644779 + 9929.42622734580*t);
-  Y0 += 0.00000000119 * Math.cos(2.71628583938 + 12249.75983032620*t);
-  Y0 += 0.00000000145 * Math.cos(1.17170397718 + 6360.74962041940*t);
-  Y0 += 0.00000000145 * Math.cos(2.33523694188 + 6205.40207956340*t);
-  Y0 += 0.00000000159 * Math.cos(2.61434351364 + 228278.10465148659*t);
-  Y0 += 0.00000000156 * Math.cos(1.00708912320 + 4307.58330413540*t);
-  Y0 += 0.00000000118 * Math.cos(5.95164477875 + 6302.74561089119*t);
-  Y0 += 0.00000000118 * Math.cos(3.83848144749 + 6263.40608909160*t);
-  Y0 += 0.00000000135 * Math.cos(2.80387650268 + 19804.82729158280*t);
-  Y0 += 0.00000000112 * Math.cos(3.88136222265 + 16840.67001081519*t);
-  Y0 += 0.00000000148 * Math.cos(3.55909740786 + 28237.23345938940*t);
-  Y0 += 0.00000000124 * Math.cos(5.50657775921 + 10239.58386601080*t);
-  Y0 += 0.00000000137 * Math.cos(0.97335445483 + 6315.60840078280*t);
-  Y0 += 0.00000000137 * Math.cos(2.53358646423 + 6250.54329920000*t);
-  Y0 += 0.00000000111 * Math.cos(0.70362725529 + 6339.97422492700*t);
-  Y0 += 0.00000000111 * Math.cos(2.80331366377 + 6226.17747505580*t);
-  Y0 += 0.00000000139 * Math.cos(4.20829691432 + 11609.86254401220*t);
-  Y0 += 0.00000000124 * Math.cos(3.12647421017 + 19402.79695281660*t);
-  Y0 += 0.00000000123 * Math.cos(0.80538262187 + 24734.15439655740*t);
-  Y0 += 0.00000000107 * Math.cos(0.59542543867 + 12463.05892576420*t);
-  Y0 += 0.00000000140 * Math.cos(5.62756230388 + 38526.57435087200*t);
-  Y0 += 0.00000000123 * Math.cos(5.71833316259 + 6305.85105144220*t);
-  Y0 += 0.00000000123 * Math.cos(4.07179306365 + 6260.30064854060*t);
-  Y0 += 0.00000000113 * Math.cos(0.38311301542 + 2111.65031337760*t);
-  Y0 += 0.00000000117 * Math.cos(1.11114131260 + 24336.00539314920*t);
-  Y0 += 0.00000000131 * Math.cos(2.04122395494 + 18415.51581209739*t);
-  Y0 += 0.00000000106 * Math.cos(2.18835416515 + 12341.80690428090*t);
-  Y0 += 0.00000000110 * Math.cos(3.31587494701 + 6276.44729109139*t);
-  Y0 += 0.00000000110 * Math.cos(0.19106597205 + 6289.70440889141*t);
-  Y0 += 0.00000000103 * Math.cos(1.18729919186 + 6324.62664097620*t);
-  Y0 += 0.00000000103 * Math.cos(2.31964172720 + 6241.52505900660*t);
-  Y0 += 0.00000000131 * Math.cos(5.93782050272 + 5791.41255753260*t);
-  Y0 += 0.00000000107 * Math.cos(0.14948042255 + 83973.83535572988*t);
-  Y0 += 0.00000000107 * Math.cos(1.18803015964 + 84019.85928049390*t);
-  Y0 += 0.00000000106 * Math.cos(1.70601019340 + 12772.33724842000*t);
-  Y0 += 0.00000000143 * Math.cos(6.22488817389 + 2069.00683490660*t);
-  Y0 += 0.00000000143 * Math.cos(5.63221604750 + 18772.96147869860*t);
-  Y0 += 0.00000000115 * Math.cos(5.35511207484 + 3641.73457151920*t);
-  Y0 += 0.00000000121 * Math.cos(3.53431033420 + 17996.03116822220*t);
-  Y0 += 0.00000000126 * Math.cos(5.90533164276 + 18822.92923017440*t);
-  Y0 += 0.00000000115 * Math.cos(3.09464836385 + 12570.08385324590*t);
-  Y0 += 0.00000000119 * Math.cos(0.26217017763 + 9814.60410029120*t);
-  Y0 += 0.00000000138 * Math.cos(2.98838673165 + 6209.77872413240*t);
-  Y0 += 0.00000000138 * Math.cos(0.51855418741 + 6356.37297585040*t);
-  Y0 += 0.00000000100 * Math.cos(3.07908951574 + 5.52292430740*t);
-  Y0 += 0.00000000135 * Math.cos(5.28292512146 + 18699.66435283960*t);
-  Y0 += 0.00000000104 * Math.cos(0.57981411648 + 12560.62877567540*t);
-  Y0 += 0.00000000098 * Math.cos(4.00434933508 + 5815.11085963699*t);
-  Y0 += 0.00000000096 * Math.cos(3.47793123567 + 22743.40937951640*t);
-  Y0 += 0.00000000099 * Math.cos(2.68455377979 + 78263.70942472259*t);
-  Y0 += 0.00000000114 * Math.cos(2.18292460802 + 6155.05700665400*t);
-  Y0 += 0.00000000114 * Math.cos(1.32401631104 + 6411.09469332880*t);
-  Y0 += 0.00000000093 * Math.cos(0.34809743975 + 11190.37790013700*t);
-  Y0 += 0.00000000095 * Math.cos(4.06228552408 + 11300.58422135640*t);
-  Y0 += 0.00000000117 * Math.cos(2.41831042685 + 24383.07910844140*t);
-  Y0 += 0.00000000110 * Math.cos(1.22040625314 + 6312.50535852740*t);
-  Y0 += 0.00000000110 * Math.cos(2.28653466592 + 6253.64634145540*t);
-  Y0 += 0.00000000091 * Math.cos(1.42377843647 + 12829.23562335560*t);
-  Y0 += 0.00000000120 * Math.cos(4.42365311529 + 17892.93839400359*t);
-  Y0 += 0.00000000090 * Math.cos(4.05016333707 + 15664.03552270859*t);
-  Y0 += 0.00000000126 * Math.cos(0.70432668892 + 1293.48422358260*t);
-  Y0 += 0.00000000126 * Math.cos(4.96989709208 + 311565.01892104017*t);
-  Y0 += 0.00000000120 * Math.cos(0.51717377640 + 14158.74771361560*t);
-  Y0 += 0.00000000110 * Math.cos(1.99803947181 + 16097.67995028260*t);
-  Y0 += 0.00000000092 * Math.cos(1.75886109740 + 21424.46664430340*t);
-  Y0 += 0.00000000099 * Math.cos(2.04878528903 + 6432.63904712600*t);
-  Y0 += 0.00000000124 * Math.cos(5.19244899173 + 178430.04719053170*t);
-  Y0 += 0.00000000088 * Math.cos(0.12768507477 + 15141.39079431200*t);
-  Y0 += 0.00000000089 * Math.cos(5.78577662098 + 6751.04084034580*t);
-  Y0 += 0.00000000096 * Math.cos(1.07414401415 + 7349.57132718140*t);
-  Y0 += 0.00000000094 * Math.cos(1.30652024350 + 2699.73481931760*t);
-  Y0 += 0.00000000087 * Math.cos(1.63535344372 + 23141.55838292460*t);
-  Y0 += 0.00000000103 * Math.cos(2.80666225492 + 18202.21671665939*t);
-  Y0 += 0.00000000099 * Math.cos(5.29408634455 + 6313.98997562640*t);
-  Y0 += 0.00000000099 * Math.cos(4.49603988169 + 6252.16172435640*t);
-  Y0 += 0.00000000090 * Math.cos(1.96045243600 + 58864.54391814630*t);
-  Y0 += 0.00000000113 * Math.cos(3.06789441452 + 10557.59416082380*t);
-  Y0 += 0.00000000098 * Math.cos(1.66301652528 + 6126.67512948900*t);
-  Y0 += 0.00000000098 * Math.cos(1.84392439378 + 6439.47657049380*t);
-  Y0 += 0.00000000086 * Math.cos(6.05385675766 + 23123.74586080659*t);
-  Y0 += 0.00000000094 * Math.cos(5.54106526599 + 23539.70738633280*t);
-  Y0 += 0.00000000118 * Math.cos(2.16762826283 + 13951.71327493390*t);
-  Y0 += 0.00000000117 * Math.cos(2.53845687210 + 89569.99011954499*t);
-  Y0 += 0.00000000083 * Math.cos(4.71523084157 + 8858.31494432060*t);
-  Y0 += 0.00000000101 * Math.cos(4.94270501848 + 18429.74290609900*t);
-  Y0 += 0.00000000088 * Math.cos(2.19663281211 + 17053.96910625319*t);
-  Y0 += 0.00000000113 * Math.cos(0.47970289838 + 12985.63634385800*t);
-  Y0 += 0.00000000082 * Math.cos(4.90614256431 + 5483.25472482600*t);
-  Y0 += 0.00000000095 * Math.cos(0.81797133475 + 11925.27409260060*t);
-  Y0 += 0.00000000084 * Math.cos(2.66665772953 + 6379.05507720920*t);
-  Y0 += 0.00000000084 * Math.cos(0.84028318953 + 6187.09662277360*t);
-  Y0 += 0.00000000093 * Math.cos(3.10680657507 + 35371.88726597640*t);
-  Y0 += 0.00000000105 * Math.cos(1.20399152892 + 6434.97313107660*t);
-  Y0 += 0.00000000105 * Math.cos(2.30294939014 + 6131.17856890620*t);
-  Y0 += 0.00000000114 * Math.cos(2.50001433093 + 8258.56839584740*t);
-  Y0 += 0.00000000084 * Math.cos(3.82196413310 + 32217.20018108080*t);
-  Y0 += 0.00000000082 * Math.cos(5.40278723857 + 3958.12644117580*t);
-  Y0 += 0.00000000102 * Math.cos(1.32703960779 + 5767.61197889840*t);
-  Y0 += 0.00000000102 * Math.cos(2.17990131127 + 6798.53972108440*t);
-  Y0 += 0.00000000092 * Math.cos(6.07396273786 + 18216.44381066100*t);
-  Y0 += 0.00000000112 * Math.cos(3.91825505548 + 12188.77809206700*t);
-  Y0 += 0.00000000086 * Math.cos(4.18439486840 + 16193.65917750039*t);
-  Y0 += 0.00000000080 * Math.cos(2.01988251452 + 24080.03501677719*t);
-  Y0 += 0.00000000093 * Math.cos(4.66163367881 + 23937.85638974100*t);
-  Y0 += 0.00000000088 * Math.cos(4.57496913724 + 1573.82042409880*t);
-  Y0 += 0.00000000092 * Math.cos(2.79375473262 + 101426.20877096949*t);
-  Y0 += 0.00000000110 * Math.cos(5.08243853758 + 78423.70451667879*t);
-  Y0 += 0.00000000087 * Math.cos(3.89286413327 + 1580.86666079680*t);
-  Y0 += 0.00000000080 * Math.cos(1.70826898567 + 6485.32924516550*t);
-  Y0 += 0.00000000080 * Math.cos(1.79867193339 + 6080.82245481730*t);
-  Y0 += 0.00000000079 * Math.cos(6.16114738580 + 40796.33892267419*t);
-  Y0 += 0.00000000079 * Math.cos(2.96735408932 + 36109.38220466459*t);
-  Y0 += 0.00000000088 * Math.cos(5.58306387433 + 16943.76278503380*t);
-  Y0 += 0.00000000093 * Math.cos(0.22422436515 + 283.85931886520*t);
-  Y0 += 0.00000000088 * Math.cos(1.67821631800 + 12537.70251251500*t);
-  Y0 += 0.00000000079 * Math.cos(4.76362160922 + 41194.48792608240*t);
-  Y0 += 0.00000000081 * Math.cos(5.19149105668 + 3956.50801601940*t);
-  Y0 += 0.00000000103 * Math.cos(3.71008010926 + 56600.27928952220*t);
-  Y0 += 0.00000000079 * Math.cos(2.93697301370 + 5621.84292321040*t);
-  Y0 += 0.00000000096 * Math.cos(0.41418225890 + 5888.44996493220*t);
-  Y0 += 0.00000000096 * Math.cos(3.09275866016 + 6677.70173505060*t);
-  Y0 += 0.00000000074 * Math.cos(4.41044639229 + 6304.41149045840*t);
-  Y0 += 0.00000000074 * Math.cos(5.37967983395 + 6261.74020952440*t);
-  Y0 += 0.00000000073 * Math.cos(1.05049706961 + 6695.44694686580*t);
-  Y0 += 0.00000000073 * Math.cos(2.45644384945 + 5870.70475311700*t);
-  Y0 += 0.00000000073 * Math.cos(1.61765616896 + 16207.88627150200*t);
-  Y0 += 0.00000000085 * Math.cos(2.08161902252 + 12850.01101884800*t);
-  Y0 += 0.00000000072 * Math.cos(5.03595593677 + 6312.89728814020*t);
-  Y0 += 0.00000000072 * Math.cos(4.75417028947 + 6253.25441184259*t);
-  Y0 += 0.00000000100 * Math.cos(3.80714752393 + 5316.10497255580*t);
-  Y0 += 0.00000000085 * Math.cos(1.33904345426 + 12282.29238111760*t);
-  Y0 += 0.00000000077 * Math.cos(5.07586430304 + 22345.26037610820*t);
-  Y0 += 0.00000000075 * Math.cos(0.39510451579 + 24422.37035140730*t);
-  Y0 += 0.00000000076 * Math.cos(0.41146256256 + 63658.87775083760*t);
-  Y0 += 0.00000000087 * Math.cos(2.06336091493 + 18106.23748944160*t);
-  Y0 += 0.00000000070 * Math.cos(0.44640955505 + 6442.01936777460*t);
-  Y0 += 0.00000000070 * Math.cos(3.06053136401 + 6124.13233220820*t);
-  Y0 += 0.00000000074 * Math.cos(5.61945589711 + 15265.88651930040*t);
-  Y0 += 0.00000000078 * Math.cos(3.38283383527 + 23550.34405168259*t);
-  Y0 += 0.00000000077 * Math.cos(5.00656029204 + 5237.92101380380*t);
-  Y0 += 0.00000000075 * Math.cos(3.64547243832 + 27832.03821928320*t);
-  Y0 += 0.00000000082 * Math.cos(3.91623659935 + 6774.73914245020*t);
-  Y0 += 0.00000000067 * Math.cos(4.88284279928 + 7082.89697515680*t);
-  Y0 += 0.00000000067 * Math.cos(3.24232940659 + 6171.88920770380*t);
-  Y0 += 0.00000000067 * Math.cos(0.26461151247 + 6394.26249227900*t);
-  Y0 += 0.00000000080 * Math.cos(3.79677325613 + 22380.75580027400*t);
-  Y0 += 0.00000000070 * Math.cos(0.47599032576 + 6175.41232605280*t);
-  Y0 += 0.00000000070 * Math.cos(3.03095059330 + 6390.73937393000*t);
-  Y0 += 0.00000000077 * Math.cos(0.29137018417 + 9924.81042151060*t);
-  Y0 += 0.00000000091 * Math.cos(0.90446873976 + 6652.77566593180*t);
-  Y0 += 0.00000000091 * Math.cos(2.60247217930 + 5913.37603405100*t);
-  Y0 += 0.00000000067 * Math.cos(4.84479908786 + 6300.88837210940*t);
-  Y0 += 0.00000000067 * Math.cos(4.94532713838 + 6265.26332787340*t);
-  Y0 += 0.00000000088 * Math.cos(3.59122542798 + 10660.68693504240*t);
-  Y0 += 0.00000000066 * Math.cos(3.01430181986 + 5959.57043333400*t);
-  Y0 += 0.00000000080 * Math.cos(5.49178527606 + 23646.32327890039*t);
-  Y0 += 0.00000000068 * Math.cos(2.07232411643 + 4897.18057365520*t);
-  Y0 += 0.00000000069 * Math.cos(0.56996801147 + 6944.30877677240*t);
-  Y0 += 0.00000000073 * Math.cos(2.96334792367 + 6195.76764545159*t);
-  Y0 += 0.00000000073 * Math.cos(0.54359299539 + 6370.38405453120*t);
-  Y0 += 0.00000000071 * Math.cos(3.57166978930 + 17363.24742890899*t);
-  Y0 += 0.00000000074 * Math.cos(1.56614709067 + 27043.50288318280*t);
-  Y0 += 0.00000000066 * Math.cos(2.38194509538 + 6251.10354417460*t);
-  Y0 += 0.00000000066 * Math.cos(1.12499582368 + 6315.04815580820*t);
-  Y0 += 0.00000000064 * Math.cos(3.50738755186 + 323.50541665740*t);
-  Y0 += 0.00000000078 * Math.cos(0.83740696355 + 42456.78404709160*t);
-  Y0 += 0.00000000063 * Math.cos(2.70916268945 + 11823.16163945020*t);
-  Y0 += 0.00000000064 * Math.cos(4.80330562067 + 28774.03797148480*t);
-  Y0 += 0.00000000079 * Math.cos(5.66337403718 + 24065.80792277559*t);
-  Y0 += 0.00000000072 * Math.cos(2.11096843463 + 18100.00325845000*t);
-  Y0 += 0.00000000066 * Math.cos(1.21053452412 + 17576.54652434700*t);
-  Y0 += 0.00000000072 * Math.cos(0.02703779211 + 245707.46610434429*t);
-  Y0 += 0.00000000068 * Math.cos(0.52464381855 + 18003.14471522300*t);
-  Y0 += 0.00000000068 * Math.cos(1.33733194362 + 28759.81087748319*t);
-  Y0 += 0.00000000062 * Math.cos(2.25046717820 + 3855.03366695720*t);
-  Y0 += 0.00000000060 * Math.cos(5.83008017266 + 18606.49894600020*t);
-  Y0 += 0.00000000079 * Math.cos(2.49476757272 + 22476.73502749179*t);
-  Y0 += 0.00000000073 * Math.cos(4.61251602377 + 23440.13773046320*t);
-  Y0 += 0.00000000060 * Math.cos(1.65871121739 + 13088.72911807660*t);
-  Y0 += 0.00000000078 * Math.cos(2.99014426818 + 12564.66722727450*t);
-  Y0 += 0.00000000060 * Math.cos(2.90135289748 + 7548.64332861780*t);
-  Y0 += 0.00000000073 * Math.cos(4.73963217435 + 735.87651353180*t);
-  Y0 += 0.00000000059 * Math.cos(2.43330626408 + 5113.48759858280*t);
-  Y0 += 0.00000000075 * Math.cos(2.85043788676 + 18624.88275427230*t);
-  Y0 += 0.00000000069 * Math.cos(4.25329739931 + 167993.69463622378*t);
-  Y0 += 0.00000000059 * Math.cos(5.13628041810 + 41990.78593289880*t);
-  Y0 += 0.00000000081 * Math.cos(5.98297918907 + 7250.04672742700*t);
-  Y0 += 0.00000000059 * Math.cos(2.39193379192 + 6289.14176562120*t);
-  Y0 += 0.00000000059 * Math.cos(1.11500712714 + 6277.00993436160*t);
-  Y0 += 0.00000000072 * Math.cos(4.87534601803 + 8982.81066930900*t);
-  Y0 += 0.00000000057 * Math.cos(3.30911091342 + 792.77488846740*t);
-  Y0 += 0.00000000057 * Math.cos(1.61290511224 + 10027.90319572920*t);
-  Y0 += 0.00000000072 * Math.cos(5.73653948228 + 4598.02372748980*t);
-  Y0 += 0.00000000060 * Math.cos(0.63449806943 + 647.01083331480*t);
-  Y0 += 0.00000000066 * Math.cos(0.80721495515 + 5220.17080145320*t);
-  Y0 += 0.00000000056 * Math.cos(5.24002840662 + 35050.00027447539*t);
-  Y0 += 0.00000000077 * Math.cos(2.14165124499 + 46386.99374331120*t);
-  Y0 += 0.00000000068 * Math.cos(1.14499338723 + 3166.41643773160*t);
-  Y0 += 0.00000000056 * Math.cos(0.39917748570 + 6339.87911216120*t);
-  Y0 += 0.00000000056 * Math.cos(3.10776343336 + 6226.27258782160*t);
-  Y0 += 0.00000000056 * Math.cos(0.95649088929 + 12303.06777661000*t);
-  Y0 += 0.00000000057 * Math.cos(1.98721525004 + 6702.00024889200*t);
-  Y0 += 0.00000000057 * Math.cos(1.51972566902 + 5864.15145109080*t);
-  Y0 += 0.00000000069 * Math.cos(0.33788710387 + 23536.11695768099*t);
-  Y0 += 0.00000000059 * Math.cos(1.81421782103 + 67589.08744705719*t);
-  Y0 += 0.00000000076 * Math.cos(0.77801824814 + 23226.83863502520*t);
-  Y0 += 0.00000000059 * Math.cos(1.03968301691 + 15.25247118500*t);
-  Y0 += 0.00000000073 * Math.cos(4.43868056110 + 30348.88377276700*t);
-  Y0 += 0.00000000054 * Math.cos(4.96201305869 + 36147.40987730040*t);
-  Y0 += 0.00000000070 * Math.cos(6.27818224660 + 12299.54465826100*t);
-  Y0 += 0.00000000060 * Math.cos(5.08461088458 + 12171.52581492360*t);
-  Y0 += 0.00000000074 * Math.cos(1.19928905734 + 3684.37804999020*t);
-  Y0 += 0.00000000058 * Math.cos(1.58539308271 + 6716.78758786820*t);
-  Y0 += 0.00000000061 * Math.cos(3.25163800829 + 27707.54249429480*t);
-  Y0 += 0.00000000059 * Math.cos(5.76308524321 + 12164.47957822560*t);
-  Y0 += 0.00000000070 * Math.cos(0.07217173698 + 16833.55646381439*t);
-  Y0 += 0.00000000063 * Math.cos(2.16224668422 + 5227.62607306530*t);
-  Y0 += 0.00000000063 * Math.cos(5.23287718161 + 5219.76176653910*t);
-  Y0 += 0.00000000056 * Math.cos(2.45377587379 + 3178.14579056760*t);
-  Y0 += 0.00000000072 * Math.cos(2.62702736253 + 4583.79663348820*t);
-  Y0 += 0.00000000052 * Math.cos(0.96546586882 + 3627.50747751760*t);
-  Y0 += 0.00000000052 * Math.cos(0.20415505351 + 6155.12431695680*t);
-  Y0 += 0.00000000052 * Math.cos(3.30278586555 + 6411.02738302600*t);
-  Y0 += 0.00000000060 * Math.cos(0.48342399631 + 5244.04923920100*t);
-  Y0 += 0.00000000058 * Math.cos(2.72226132172 + 30775.48196364300*t);
-  Y0 += 0.00000000052 * Math.cos(5.80291300969 + 30639.85663863300*t);
-  Y0 += 0.00000000053 * Math.cos(5.75258856716 + 37724.75341974820*t);
-  Y0 += 0.00000000062 * Math.cos(2.89766241568 + 6908.74604230380*t);
-  Y0 += 0.00000000062 * Math.cos(0.60927850338 + 5657.40565767900*t);
-  Y0 += 0.00000000050 * Math.cos(3.11011154958 + 2575.23909432920*t);
-  Y0 += 0.00000000054 * Math.cos(1.15676928987 + 18208.34994259200*t);
-  Y0 += 0.00000000050 * Math.cos(3.12376167242 + 5881.40372823420*t);
-  Y0 += 0.00000000050 * Math.cos(0.38317924664 + 6684.74797174860*t);
-  Y0 += 0.00000000068 * Math.cos(4.61950794623 + 96677.89886304220*t);
-  Y0 += 0.00000000054 * Math.cos(0.77163765121 + 41654.96311596780*t);
-  Y0 += 0.00000000066 * Math.cos(5.13003693613 + 60530.48898574180*t);
-  Y0 += 0.00000000050 * Math.cos(1.64593222191 + 43738.80234596580*t);
-  Y0 += 0.00000000048 * Math.cos(5.44674337925 + 25685.87280280800*t);
-  Y0 += 0.00000000059 * Math.cos(2.71376008731 + 3981.49003408200*t);
-  Y0 += 0.00000000058 * Math.cos(0.74658643142 + 14169.79356223040*t);
-  Y0 += 0.00000000051 * Math.cos(1.43461659855 + 7668.97112632760*t);
-  Y0 += 0.00000000048 * Math.cos(3.23576011756 + 3646.35037735440*t);
-  Y0 += 0.00000000054 * Math.cos(4.50803792908 + 39302.09696219600*t);
-  Y0 += 0.00000000057 * Math.cos(2.62704971421 + 799.82112516540*t);
-  Y0 += 0.00000000061 * Math.cos(3.28745263972 + 44034.12758953940*t);
-  Y0 += 0.00000000049 * Math.cos(2.15365169571 + 96562.99901809469*t);
-  Y0 += 0.00000000050 * Math.cos(3.60626874009 + 17583.66007134780*t);
-  Y0 += 0.00000000051 * Math.cos(1.16028405425 + 38650.17350619900*t);
-  Y0 += 0.00000000053 * Math.cos(1.90122336672 + 11080.17157891760*t);
-  Y0 += 0.00000000059 * Math.cos(0.68886289824 + 62883.35513951360*t);
-  Y0 += 0.00000000046 * Math.cos(0.83996053249 + 25287.72379939980*t);
-  Y0 += 0.00000000049 * Math.cos(3.59486880927 + 5490.30096152400*t);
-  Y0 += 0.00000000058 * Math.cos(5.95314247069 + 6489.77658728800*t);
-  Y0 += 0.00000000058 * Math.cos(3.83698375555 + 6076.37511269480*t);
-  Y0 += 0.00000000047 * Math.cos(4.43378504018 + 170.67287061920*t);
-  Y0 += 0.00000000045 * Math.cos(5.81363953764 + 33318.81606245820*t);
-  Y0 += 0.00000000046 * Math.cos(3.19651245272 + 4480.70385926960*t);
-  Y0 += 0.00000000060 * Math.cos(3.92066214096 + 28313.28880466100*t);
-  Y0 += 0.00000000061 * Math.cos(3.53510681440 + 491.66329245880*t);
-  Y0 += 0.00000000051 * Math.cos(6.00904914233 + 3428.43547608120*t);
-  Y0 += 0.00000000060 * Math.cos(3.51283911810 + 50317.20343953080*t);
-  Y0 += 0.00000000054 * Math.cos(1.22650408797 + 6006.33007812700*t);
-  Y0 += 0.00000000054 * Math.cos(2.28043683109 + 6559.82162185580*t);
-  Y0 += 0.00000000052 * Math.cos(3.85271761797 + 244287.60000722769*t);
-  Y0 += 0.00000000046 * Math.cos(3.84965479184 + 4384.72463205180*t);
-  Y0 += 0.00000000045 * Math.cos(0.29195078507 + 44136.95134937400*t);
-  Y0 += 0.00000000044 * Math.cos(2.71274650311 + 2301.58581590939*t);
-  Y0 += 0.00000000048 * Math.cos(4.64164514773 + 35579.69123957000*t);
-  Y0 += 0.00000000051 * Math.cos(4.91887651070 + 18326.65013188039*t);
-  Y0 += 0.00000000046 * Math.cos(3.15339406184 + 16703.06213349900*t);
-  Y0 += 0.00000000048 * Math.cos(2.39477993061 + 5209.46682580060*t);
-  Y0 += 0.00000000046 * Math.cos(2.47672465258 + 12555.10599971890*t);
-  Y0 += 0.00000000052 * Math.cos(4.64446990453 + 5992.10298412540*t);
-  Y0 += 0.00000000052 * Math.cos(5.14565632171 + 6574.04871585740*t);
-  Y0 += 0.00000000044 * Math.cos(3.80836113401 + 69941.95360082899*t);
-  Y0 += 0.00000000050 * Math.cos(3.54529295551 + 22030.21295466960*t);
-  Y0 += 0.00000000043 * Math.cos(1.20775471242 + 20894.77567920879*t);
-  Y0 += 0.00000000044 * Math.cos(2.61939991177 + 533.21408344360*t);
-  Y0 += 0.00000000045 * Math.cos(4.65113002963 + 46360.69542351140*t);
-  Y0 += 0.00000000047 * Math.cos(2.17023181784 + 45585.17281218740*t);
-  Y0 += 0.00000000043 * Math.cos(1.54528183996 + 8401.83971036980*t);
-  Y0 += 0.00000000054 * Math.cos(3.62371389676 + 24279.10701821359*t);
-  Y0 += 0.00000000042 * Math.cos(5.13054174413 + 27433.88921587499*t);
-  Y0 += 0.00000000042 * Math.cos(1.32093818083 + 21548.96236929180*t);
-  Y0 += 0.00000000045 * Math.cos(3.22031193914 + 71519.29714327680*t);
-  Y0 += 0.00000000043 * Math.cos(2.75467576214 + 27278.46881644080*t);
-  Y0 += 0.00000000042 * Math.cos(2.68353478578 + 28230.18722269139*t);
-  Y0 += 0.00000000051 * Math.cos(2.95623880108 + 7761.94242405580*t);
-  Y0 += 0.00000000041 * Math.cos(5.14394847571 + 3735.23831175900*t);
-  Y0 += 0.00000000042 * Math.cos(3.66392136716 + 26084.02180621620*t);
-  Y0 += 0.00000000047 * Math.cos(6.03338630990 + 4708.23004870920*t);
-  Y0 += 0.00000000056 * Math.cos(5.67442109710 + 88041.95685927900*t);
-  Y0 += 0.00000000056 * Math.cos(5.36734540218 + 28663.83165026540*t);
-  Y0 += 0.00000000040 * Math.cos(1.07842393153 + 28628.33622609960*t);
-  Y0 += 0.00000000047 * Math.cos(5.61045374376 + 316428.22867391503*t);
-  Y0 += 0.00000000056 * Math.cos(1.28041118541 + 83659.27687239899*t);
-  Y0 += 0.00000000039 * Math.cos(0.71682305362 + 34570.06633485260*t);
-  Y0 += 0.00000000056 * Math.cos(1.60418809786 + 82534.40362061159*t);
-  Y0 += 0.00000000052 * Math.cos(1.15000260118 + 40398.18991926600*t);
-  Y0 += 0.00000000048 * Math.cos(0.93182108526 + 12662.13092720060*t);
-  Y0 += 0.00000000041 * Math.cos(4.95215656542 + 37057.57749256620*t);
-  Y0 += 0.00000000052 * Math.cos(2.84085536047 + 12571.67462429020*t);
-  Y0 += 0.00000000043 * Math.cos(3.12714109961 + 7322.10246078180*t);
-  Y0 += 0.00000000041 * Math.cos(1.98689255259 + 664.75604513000*t);
-  Y0 += 0.00000000043 * Math.cos(4.45441019609 + 19004.64794940840*t);
-  Y0 += 0.00000000044 * Math.cos(3.63007864944 + 6140.89722295520*t);
-  Y0 += 0.00000000044 * Math.cos(6.16004757680 + 6425.25447702760*t);
-  Y0 += 0.00000000044 * Math.cos(3.57757676616 + 49515.38250840700*t);
-  Y0 += 0.00000000039 * Math.cos(5.09443272912 + 22594.05489571199*t);
-  Y0 += 0.00000000055 * Math.cos(5.97876206707 + 80181.53746683979*t);
-  Y0 += 0.00000000054 * Math.cos(3.12084664124 + 6006.04085625000*t);
-  Y0 += 0.00000000054 * Math.cos(0.38609427782 + 6560.11084373280*t);
-  Y0 += 0.00000000045 * Math.cos(0.83262497188 + 142861.39123625819*t);
-  Y0 += 0.00000000047 * Math.cos(5.83395711112 + 24499.51966065240*t);
-  Y0 += 0.00000000043 * Math.cos(6.07854396898 + 7026.06591052400*t);
-  Y0 += 0.00000000047 * Math.cos(2.57216284949 + 11919.14086666800*t);
-  Y0 += 0.00000000047 * Math.cos(2.93748065634 + 24485.29256665079*t);
-  Y0 += 0.00000000050 * Math.cos(3.13873979564 + 92747.68916682259*t);
-  Y0 += 0.00000000043 * Math.cos(4.24359473122 + 6359.34192126700*t);
-  Y0 += 0.00000000049 * Math.cos(2.11824959319 + 66813.56483573320*t);
-  Y0 += 0.00000000042 * Math.cos(3.13003412642 + 6231.79551212899*t);
-  Y0 += 0.00000000042 * Math.cos(0.37690679264 + 6334.35618785381*t);
-  Y0 += 0.00000000052 * Math.cos(1.96232281613 + 11904.91877320180*t);
-  Y0 += 0.00000000040 * Math.cos(6.22187276386 + 7075.85073845880*t);
-  Y0 += 0.00000000040 * Math.cos(4.78395267597 + 7122.04513774180*t);
-  Y0 += 0.00000000040 * Math.cos(5.00617355027 + 5444.10656224100*t);
-  Y0 += 0.00000000038 * Math.cos(0.67444569484 + 44933.24935619040*t);
-  Y0 += 0.00000000037 * Math.cos(4.80355711691 + 6850.79448772180*t);
-  Y0 += 0.00000000037 * Math.cos(4.98656910933 + 5715.35721226100*t);
-  Y0 += 0.00000000050 * Math.cos(0.35643037555 + 21947.11137270000*t);
-  Y0 += 0.00000000039 * Math.cos(2.97136332005 + 21150.81336588360*t);
-  Y0 += 0.00000000042 * Math.cos(2.21951419227 + 6328.21706962800*t);
-  Y0 += 0.00000000042 * Math.cos(1.28742672679 + 6237.93463035480*t);
-  Y0 += 0.00000000051 * Math.cos(4.42510682790 + 60284.41001526290*t);
-  Y0 += 0.00000000040 * Math.cos(5.21447072458 + 3215.13638064320*t);
-  Y0 += 0.00000000039 * Math.cos(3.85122558089 + 30774.50164257480*t);
-  Y0 += 0.00000000046 * Math.cos(3.45581538922 + 12146.66705610760*t);
-  Y0 += 0.00000000050 * Math.cos(0.05709243771 + 84334.41776382479*t);
-  return Y0;
-}
-
-
-
-  static double Earth_A_Y1 (double t)
-{
-  double Y1 = 0.0;
-  Y1 += 0.00093046324;
-  Y1 += 0.00051506609 * Math.cos(4.43180499286 + 12566.15169998280*t);
-  Y1 += 0.00001290800 * Math.cos(4.38860548540 + 18849.22754997420*t);
-  Y1 += 0.00000464550 * Math.cos(5.82729912952 + 6283.07584999140*t);
-  Y1 += 0.00000212689 * Math.cos(0.16300556918 + 6279.55273164240*t);
-  Y1 += 0.00000212533 * Math.cos(3.34400595407 + 6286.59896834040*t);
-  Y1 += 0.00000062345 * Math.cos(5.07377354827 + 4705.73230754360*t);
-  Y1 += 0.00000059794 * Math.cos(2.24100907272 + 6256.77753019160*t);
-  Y1 += 0.00000059441 * Math.cos(1.26619990626 + 6309.37416979120*t);
-  Y1 += 0.00000048987 * Math.cos(3.64166577835 + 775.52261132400*t);
-  Y1 += 0.00000042746 * Math.cos(5.15177425824 + 1059.38193018920*t);
-  Y1 += 0.00000046642 * Math.cos(4.71575215800 + 7860.41939243920*t);
-  Y1 += 0.00000037274 * Math.cos(0.66041323804 + 5753.38488489680*t);
-  Y1 += 0.00000035625 * Math.cos(6.15462846966 + 5884.92684658320*t);
-  Y1 += 0.00000035373 * Math.cos(2.90052012152 + 6812.76681508600*t);
-  Y1 += 0.00000032157 * Math.cos(3.62669702015 + 6681.22485339960*t);
-  Y1 += 0.00000028763 * Math.cos(4.34539355621 + 25132.30339996560*t);
-  Y1 += 0.00000028447 * Math.cos(5.86215103214 + 6127.65545055720*t);
-  Y1 += 0.00000027502 * Math.cos(3.92641632542 + 6438.49624942560*t);
-  Y1 += 0.00000024830 * Math.cos(1.35190115953 + 5486.77784317500*t);
-  Y1 += 0.00000020618 * Math.cos(2.14772396647 + 7079.37385680780*t);
-  Y1 += 0.00000019531 * Math.cos(1.29958310594 + 5507.55323866740*t);
-  Y1 += 0.00000018447 * Math.cos(6.17330532651 + 11790.62908865880*t);
-  Y1 += 0.00000016520 * Math.cos(4.63328039489 + 11506.76976979360*t);
-  Y1 += 0.00000016754 * Math.cos(2.24862220282 + 7058.59846131540*t);
-  Y1 += 0.00000014560 * Math.cos(4.40425761361 + 6290.18939699220*t);
-  Y1 += 0.00000014426 * Math.cos(5.39226330857 + 6275.96230299060*t);
-  Y1 += 0.00000014186 * Math.cos(6.18547219419 + 796.29800681640*t);
-  Y1 += 0.00000012666 * Math.cos(5.73231393752 + 4694.00295470760*t);
-  Y1 += 0.00000012966 * Math.cos(5.10338935824 + 7.11354700080*t);
-  Y1 += 0.00000010100 * Math.cos(1.72464513593 + 3738.76143010800*t);
-  Y1 += 0.00000009427 * Math.cos(3.08115743044 + 6069.77675455340*t);
-  Y1 += 0.00000010425 * Math.cos(2.69531177468 + 6282.09552892320*t);
-  Y1 += 0.00000010425 * Math.cos(0.81162914438 + 6284.05617105960*t);
-  Y1 += 0.00000009576 * Math.cos(0.32459396888 + 4136.91043351620*t);
-  Y1 += 0.00000009043 * Math.cos(0.43888880403 + 6496.37494542940*t);
-  Y1 += 0.00000008545 * Math.cos(4.77137497641 + 1194.44701022460*t);
-  Y1 += 0.00000008199 * Math.cos(5.96838316358 + 1589.07289528380*t);
-  Y1 += 0.00000006291 * Math.cos(3.18312019173 + 8429.24126646660*t);
-  Y1 += 0.00000006133 * Math.cos(1.78033290355 + 8827.39026987480*t);
-  Y1 += 0.00000005524 * Math.cos(3.79842135217 + 4933.20844033260*t);
-  Y1 += 0.00000007316 * Math.cos(5.20404355405 + 4535.05943692440*t);
-  Y1 += 0.00000005146 * Math.cos(3.57146870511 + 11769.85369316640*t);
-  Y1 += 0.00000006461 * Math.cos(2.67840586109 + 5088.62883976680*t);
-  Y1 += 0.00000005270 * Math.cos(0.94095218349 + 3154.68708489560*t);
-  Y1 += 0.00000004829 * Math.cos(5.32876538500 + 6040.34724601740*t);
-  Y1 += 0.00000004985 * Math.cos(3.05697984231 + 12569.67481833180*t);
-  Y1 += 0.00000004709 * Math.cos(2.39292099451 + 5331.35744374080*t);
-  Y1 += 0.00000004601 * Math.cos(4.45296532710 + 6525.80445396540*t);
-  Y1 += 0.00000005607 * Math.cos(0.98720797401 + 5729.50644714900*t);
-  Y1 += 0.00000004081 * Math.cos(5.94191743597 + 7632.94325965020*t);
-  Y1 += 0.00000004394 * Math.cos(4.75948184840 + 12559.03815298200*t);
-  Y1 += 0.00000005053 * Math.cos(4.55162942081 + 8031.09226305840*t);
-  Y1 += 0.00000005077 * Math.cos(0.73549620962 + 7477.52286021600*t);
-  Y1 += 0.00000003779 * Math.cos(1.07385171253 + 7234.79425624200*t);
-  Y1 += 0.00000004974 * Math.cos(2.50029147401 + 6836.64525283380*t);
-  Y1 += 0.00000003614 * Math.cos(2.52455299148 + 3930.20969621960*t);
-  Y1 += 0.00000003482 * Math.cos(3.82652198801 + 10977.07880469900*t);
-  Y1 += 0.00000003576 * Math.cos(5.30219799481 + 4164.31198961300*t);
-  Y1 += 0.00000003376 * Math.cos(5.00213145251 + 11371.70468975820*t);
-  Y1 += 0.00000004290 * Math.cos(3.36736739298 + 1592.59601363280*t);
-  Y1 += 0.00000003406 * Math.cos(0.83525752781 + 3128.38876509580*t);
-  Y1 += 0.00000003124 * Math.cos(3.17143982984 + 7084.89678111520*t);
-  Y1 += 0.00000002752 * Math.cos(3.67389621489 + 7342.45778018060*t);
-  Y1 += 0.00000002778 * Math.cos(0.26817898615 + 1748.01641306700*t);
-  Y1 += 0.00000002694 * Math.cos(4.70989138148 + 529.69096509460*t);
-  Y1 += 0.00000002820 * Math.cos(0.23146914320 + 5223.69391980220*t);
-  Y1 += 0.00000003334 * Math.cos(3.48823993118 + 801.82093112380*t);
-  Y1 += 0.00000003328 * Math.cos(5.83812544995 + 155.42039943420*t);
-  Y1 += 0.00000003008 * Math.cos(0.67203387304 + 8635.94200376320*t);
-  Y1 += 0.00000002348 * Math.cos(5.19665664165 + 2146.16541647520*t);
-  Y1 += 0.00000002307 * Math.cos(2.98930142346 + 17260.15465469040*t);
-  Y1 += 0.00000002778 * Math.cos(6.17392405934 + 5481.25491886760*t);
-  Y1 += 0.00000002046 * Math.cos(1.96605971472 + 1990.74501704100*t);
-  Y1 += 0.00000002670 * Math.cos(1.00151747879 + 26.29831979980*t);
-  Y1 += 0.00000002000 * Math.cos(3.03124266219 + 951.71840625060*t);
-  Y1 += 0.00000002162 * Math.cos(0.33268106563 + 536.80451209540*t);
-  Y1 += 0.00000001830 * Math.cos(4.43806423544 + 553.56940284240*t);
-  Y1 += 0.00000001762 * Math.cos(3.84931185617 + 4690.47983635860*t);
-  Y1 += 0.00000002033 * Math.cos(0.80949219978 + 522.57741809380*t);
-  Y1 += 0.00000002430 * Math.cos(1.64090263419 + 1349.86740965880*t);
-  Y1 += 0.00000001902 * Math.cos(2.66567222573 + 9437.76293488700*t);
-  Y1 += 0.00000001940 * Math.cos(3.91085273629 + 5216.58037280140*t);
-  Y1 += 0.00000001708 * Math.cos(5.00417878382 + 10988.80815753500*t);
-  Y1 += 0.00000001762 * Math.cos(2.39542835845 + 398.14900340820*t);
-  Y1 += 0.00000001790 * Math.cos(3.48655562486 + 5230.80746680300*t);
-  Y1 += 0.00000001524 * Math.cos(5.81370227284 + 426.59819087600*t);
-  Y1 += 0.00000001555 * Math.cos(2.09924417685 + 13095.84266507740*t);
-  Y1 += 0.00000001779 * Math.cos(0.23737949225 + 12562.62858163380*t);
-  Y1 += 0.00000001450 * Math.cos(5.71201368260 + 6262.72053059260*t);
-  Y1 += 0.00000001450 * Math.cos(4.07811254364 + 6303.43116939020*t);
-  Y1 += 0.00000001768 * Math.cos(0.08826500577 + 10973.55568635000*t);
-  Y1 += 0.00000001373 * Math.cos(5.60523185373 + 7875.67186362420*t);
-  Y1 += 0.00000001428 * Math.cos(3.29442777483 + 12721.57209941700*t);
-  Y1 += 0.00000001247 * Math.cos(0.29212365805 + 2118.76386037840*t);
-  Y1 += 0.00000001230 * Math.cos(2.53131850803 + 18319.53658487960*t);
-  Y1 += 0.00000001141 * Math.cos(1.92147452671 + 1066.49547719000*t);
-  Y1 += 0.00000001140 * Math.cos(1.21410806683 + 2942.46342329160*t);
-  Y1 += 0.00000001045 * Math.cos(2.17535721280 + 242.72860397400*t);
-  Y1 += 0.00000000973 * Math.cos(4.95437649984 + 639.89728631400*t);
-  Y1 += 0.00000000969 * Math.cos(1.29405045734 + 5643.17856367740*t);
-  Y1 += 0.00000001064 * Math.cos(4.40566643488 + 15720.83878487840*t);
-  Y1 += 0.00000000962 * Math.cos(0.55758587779 + 2388.89402044920*t);
-  Y1 += 0.00000000943 * Math.cos(4.22062437022 + 20426.57109242200*t);
-  Y1 += 0.00000000869 * Math.cos(5.80860615243 + 16496.36139620240*t);
-  Y1 += 0.00000000874 * Math.cos(1.43036958888 + 10575.40668294180*t);
-  Y1 += 0.00000001088 * Math.cos(5.77656856686 + 5760.49843189760*t);
-  Y1 += 0.00000000889 * Math.cos(4.77820137734 + 6288.59877429880*t);
-  Y1 += 0.00000000889 * Math.cos(5.01192484889 + 6277.55292568400*t);
-  Y1 += 0.00000001018 * Math.cos(2.66299766067 + 12539.85338018300*t);
-  Y1 += 0.00000001017 * Math.cos(4.02093017183 + 6805.65326808520*t);
-  Y1 += 0.00000000794 * Math.cos(3.79329079940 + 14314.16811304980*t);
-  Y1 += 0.00000000795 * Math.cos(3.39951828424 + 6279.78949257360*t);
-  Y1 += 0.00000000795 * Math.cos(0.10742263482 + 6286.36220740920*t);
-  Y1 += 0.00000000759 * Math.cos(4.98301749094 + 1577.34354244780*t);
-  Y1 += 0.00000000757 * Math.cos(3.81754073272 + 5856.47765911540*t);
-  Y1 += 0.00000000800 * Math.cos(3.18366218591 + 12029.34718788740*t);
-  Y1 += 0.00000000716 * Math.cos(2.28687269516 + 9623.68827669120*t);
-  Y1 += 0.00000000698 * Math.cos(4.94363229969 + 6148.01076995600*t);
-  Y1 += 0.00000000907 * Math.cos(0.70119368826 + 13367.97263110660*t);
-  Y1 += 0.00000000672 * Math.cos(3.99153941403 + 12964.30070339100*t);
-  Y1 += 0.00000000678 * Math.cos(4.84647216304 + 6418.14093002680*t);
-  Y1 += 0.00000000671 * Math.cos(6.00179402654 + 6709.67404086740*t);
-  Y1 += 0.00000000657 * Math.cos(1.80163596347 + 13119.72110282519*t);
-  Y1 += 0.00000000662 * Math.cos(4.04031103640 + 11015.10647733480*t);
-  Y1 += 0.00000000744 * Math.cos(2.68741160780 + 12043.57428188900*t);
-  Y1 += 0.00000000673 * Math.cos(2.45322928062 + 14712.31711645800*t);
-  Y1 += 0.00000000696 * Math.cos(2.53877129238 + 16730.46368959580*t);
-  Y1 += 0.00000000671 * Math.cos(0.40543909773 + 13517.87010623340*t);
-  Y1 += 0.00000000604 * Math.cos(5.39462125376 + 14143.49524243060*t);
-  Y1 += 0.00000000754 * Math.cos(5.24655445271 + 13916.01910964160*t);
-  Y1 += 0.00000000629 * Math.cos(3.42493725594 + 4686.88940770680*t);
-  Y1 += 0.00000000610 * Math.cos(5.19955844918 + 6819.88036208680*t);
-  Y1 += 0.00000000667 * Math.cos(4.87151372910 + 3634.62102451840*t);
-  Y1 += 0.00000000609 * Math.cos(4.57544043999 + 5746.27133789600*t);
-  Y1 += 0.00000000620 * Math.cos(4.30310535016 + 31415.37924995700*t);
-  Y1 += 0.00000000553 * Math.cos(0.78994516254 + 6306.95428773920*t);
-  Y1 += 0.00000000553 * Math.cos(2.71699575652 + 6259.19741224360*t);
-  Y1 += 0.00000000524 * Math.cos(3.96543945899 + 12139.55350910680*t);
-  Y1 += 0.00000000514 * Math.cos(3.87793148429 + 4701.11650170840*t);
-  Y1 += 0.00000000553 * Math.cos(4.81568395217 + 12036.46073488820*t);
-  Y1 += 0.00000000495 * Math.cos(2.00987395637 + 13362.44970679920*t);
-  Y1 += 0.00000000562 * Math.cos(4.76145666018 + 4292.33083295040*t);
-  Y1 += 0.00000000481 * Math.cos(2.57118063835 + 6286.95718534940*t);
-  Y1 += 0.00000000481 * Math.cos(0.93576028071 + 6279.19451463340*t);
-  Y1 += 0.00000000635 * Math.cos(3.19879108676 + 84334.66158130829*t);
-  Y1 += 0.00000000445 * Math.cos(1.68959289911 + 11499.65622279280*t);
-  Y1 += 0.00000000596 * Math.cos(1.08038043695 + 10447.38783960440*t);
-  Y1 += 0.00000000452 * Math.cos(3.98330238308 + 12573.26524698360*t);
-  Y1 += 0.00000000499 * Math.cos(5.79985861523 + 12410.73130054860*t);
-  Y1 += 0.00000000440 * Math.cos(0.58121786395 + 24072.92146977640*t);
-  Y1 += 0.00000000575 * Math.cos(1.39410252291 + 12592.45001978260*t);
-  Y1 += 0.00000000404 * Math.cos(0.56451183179 + 5863.59120611620*t);
-  Y1 += 0.00000000398 * Math.cos(4.20035189119 + 8273.82086703240*t);
-  Y1 += 0.00000000418 * Math.cos(2.76069368004 + 10177.25767953360*t);
-  Y1 += 0.00000000379 * Math.cos(3.05384870302 + 6386.16862421000*t);
-  Y1 += 0.00000000379 * Math.cos(0.45309221604 + 6179.98307577280*t);
-  Y1 += 0.00000000377 * Math.cos(4.33269290931 + 7872.14874527520*t);
-  Y1 += 0.00000000419 * Math.cos(4.05140116867 + 5327.47610838280*t);
-  Y1 += 0.00000000383 * Math.cos(5.11659434377 + 6319.10371666880*t);
-  Y1 += 0.00000000383 * Math.cos(4.67353188247 + 6247.04798331399*t);
-  Y1 += 0.00000000457 * Math.cos(0.88573283839 + 6489.26139842860*t);
-  Y1 += 0.00000000457 * Math.cos(2.62120808067 + 6076.89030155420*t);
-  Y1 += 0.00000000378 * Math.cos(5.80861101902 + 7238.67559160000*t);
-  Y1 += 0.00000000344 * Math.cos(4.99907349425 + 18451.07854656599*t);
-  Y1 += 0.00000000334 * Math.cos(0.56215917990 + 18073.70493865020*t);
-  Y1 += 0.00000000453 * Math.cos(5.43513758472 + 2787.04302385740*t);
-  Y1 += 0.00000000364 * Math.cos(0.67991079022 + 6321.10352262720*t);
-  Y1 += 0.00000000364 * Math.cos(2.82703012884 + 6245.04817735560*t);
-  Y1 += 0.00000000342 * Math.cos(4.52940007807 + 6303.85124548380*t);
-  Y1 += 0.00000000342 * Math.cos(5.26072614817 + 6262.30045449900*t);
-  Y1 += 0.00000000319 * Math.cos(4.83173153249 + 11926.25441366880*t);
-  Y1 += 0.00000000316 * Math.cos(1.17362065540 + 77713.77146812050*t);
-  Y1 += 0.00000000318 * Math.cos(6.03589239585 + 6311.52503745920*t);
-  Y1 += 0.00000000318 * Math.cos(3.75423383039 + 6254.62666252360*t);
-  Y1 += 0.00000000315 * Math.cos(1.09950918957 + 12323.42309600880*t);
-  Y1 += 0.00000000310 * Math.cos(4.02477182017 + 10213.28554621100*t);
-  Y1 += 0.00000000311 * Math.cos(5.94074472453 + 2352.86615377180*t);
-  Y1 += 0.00000000304 * Math.cos(0.43890915612 + 12779.45079542080*t);
-  Y1 += 0.00000000343 * Math.cos(1.36470897271 + 6267.82337880639*t);
-  Y1 += 0.00000000343 * Math.cos(2.14223194635 + 6298.32832117640*t);
-  Y1 += 0.00000000398 * Math.cos(4.83558508405 + 1551.04522264800*t);
-  Y1 += 0.00000000358 * Math.cos(2.52713972155 + 1052.26838318840*t);
-  Y1 += 0.00000000300 * Math.cos(0.20527323254 + 90279.92316810328*t);
-  Y1 += 0.00000000297 * Math.cos(2.07974536467 + 5429.87946823940*t);
-  Y1 += 0.00000000332 * Math.cos(2.13791551771 + 213.29909543800*t);
-  Y1 += 0.00000000362 * Math.cos(1.16895887442 + 10021.83728009940*t);
-  Y1 += 0.00000000334 * Math.cos(1.16416729842 + 17782.73207278420*t);
-  Y1 += 0.00000000295 * Math.cos(2.48770580169 + 6702.56049386660*t);
-  Y1 += 0.00000000321 * Math.cos(0.66776723307 + 17796.95916678580*t);
-  Y1 += 0.00000000369 * Math.cos(4.78231597870 + 4732.03062734340*t);
-  Y1 += 0.00000000288 * Math.cos(3.73055532740 + 220.41264243880*t);
-  Y1 += 0.00000000263 * Math.cos(2.60909847321 + 955.59974160860*t);
-  Y1 += 0.00000000305 * Math.cos(0.57265325631 + 5642.19824260920*t);
-  Y1 += 0.00000000258 * Math.cos(4.38103579313 + 206.18554843720*t);
-  Y1 += 0.00000000287 * Math.cos(0.31572653335 + 9917.69687450980*t);
-  Y1 += 0.00000000261 * Math.cos(1.93782216260 + 16200.77272450120*t);
-  Y1 += 0.00000000234 * Math.cos(2.50307529331 + 1596.18644228460*t);
-  Y1 += 0.00000000282 * Math.cos(2.93181184874 + 13341.67431130680*t);
-  Y1 += 0.00000000262 * Math.cos(5.15409122759 + 14945.31617355440*t);
-  Y1 += 0.00000000276 * Math.cos(0.59107321564 + 12168.00269657460*t);
-  Y1 += 0.00000000217 * Math.cos(2.74597813026 + 2544.31441988340*t);
-  Y1 += 0.00000000259 * Math.cos(5.53112324599 + 3894.18182954220*t);
-  Y1 += 0.00000000216 * Math.cos(4.02991604351 + 3185.19202726560*t);
-  Y1 += 0.00000000250 * Math.cos(3.04516511604 + 6923.95345737360*t);
-  Y1 += 0.00000000193 * Math.cos(0.78779752820 + 640.87760738220*t);
-  Y1 += 0.00000000203 * Math.cos(2.82417195790 + 6062.66320755260*t);
-  Y1 += 0.00000000203 * Math.cos(0.68276896116 + 6503.48849243020*t);
-  Y1 += 0.00000000188 * Math.cos(4.83298725434 + 18209.33026366019*t);
-  Y1 += 0.00000000184 * Math.cos(2.63875516800 + 12566.21901028560*t);
-  Y1 += 0.00000000213 * Math.cos(4.09959554852 + 9779.10867612540*t);
-  Y1 += 0.00000000180 * Math.cos(4.19738483213 + 853.19638175200*t);
-  Y1 += 0.00000000248 * Math.cos(5.62050900898 + 17789.84561978500*t);
-  Y1 += 0.00000000187 * Math.cos(3.02088056063 + 6276.02961329339*t);
-  Y1 += 0.00000000187 * Math.cos(0.48606035843 + 6290.12208668940*t);
-  Y1 += 0.00000000168 * Math.cos(6.02158735674 + 110.20632121940*t);
-  Y1 += 0.00000000184 * Math.cos(3.08285813784 + 12566.08438968000*t);
-  Y1 += 0.00000000230 * Math.cos(0.66694562430 + 12567.13202105100*t);
-  Y1 += 0.00000000166 * Math.cos(5.90725172950 + 433.71173787680*t);
-  Y1 += 0.00000000184 * Math.cos(1.80970202711 + 6037.24420376200*t);
-  Y1 += 0.00000000159 * Math.cos(0.31775301914 + 3496.03282613400*t);
-  Y1 += 0.00000000179 * Math.cos(1.27622455391 + 3.52311834900*t);
-  Y1 += 0.00000000156 * Math.cos(0.77329171048 + 2648.45482547300*t);
-  Y1 += 0.00000000182 * Math.cos(0.19927362554 + 5849.36411211460*t);
-  Y1 += 0.00000000175 * Math.cos(1.69691956469 + 6528.90749622080*t);
-  Y1 += 0.00000000154 * Math.cos(5.68366565747 + 6112.40297937220*t);
-  Y1 += 0.00000000154 * Math.cos(4.10646056877 + 6453.74872061060*t);
-  Y1 += 0.00000000162 * Math.cos(0.40509792796 + 18875.52586977400*t);
-  Y1 += 0.00000000163 * Math.cos(2.96167567065 + 12352.85260454480*t);
-  Y1 += 0.00000000146 * Math.cos(2.48714617179 + 149.56319713460*t);
-  Y1 += 0.00000000143 * Math.cos(0.06272029982 + 19651.04848109800*t);
-  Y1 += 0.00000000144 * Math.cos(2.19098385924 + 18635.92845453620*t);
-  Y1 += 0.00000000141 * Math.cos(5.63574749070 + 10969.96525769820*t);
-  Y1 += 0.00000000146 * Math.cos(0.42084370397 + 13760.59871020740*t);
-  Y1 += 0.00000000161 * Math.cos(6.06631099179 + 8662.24032356300*t);
-  Y1 += 0.00000000142 * Math.cos(2.91677439721 + 4157.19844261220*t);
-  Y1 += 0.00000000133 * Math.cos(4.73063338736 + 18139.29450141590*t);
-  Y1 += 0.00000000150 * Math.cos(4.37920284921 + 3340.61242669980*t);
-  Y1 += 0.00000000125 * Math.cos(0.78764990758 + 20.77539549240*t);
-  Y1 += 0.00000000123 * Math.cos(4.97498024339 + 6172.86952877200*t);
-  Y1 += 0.00000000123 * Math.cos(4.81514598285 + 6393.28217121080*t);
-  Y1 += 0.00000000135 * Math.cos(4.59213390099 + 10984.19235169980*t);
-  Y1 += 0.00000000117 * Math.cos(2.90632080371 + 18852.75066832320*t);
-  Y1 += 0.00000000118 * Math.cos(5.67650820416 + 17256.63153634140*t);
-  Y1 += 0.00000000147 * Math.cos(4.60612631701 + 17654.78053974960*t);
-  Y1 += 0.00000000113 * Math.cos(3.90726609167 + 65147.61976813770*t);
-  Y1 += 0.00000000123 * Math.cos(2.85759760823 + 12565.17137891460*t);
-  Y1 += 0.00000000107 * Math.cos(5.46942612515 + 9380.95967271720*t);
-  Y1 += 0.00000000119 * Math.cos(0.71211331875 + 10419.98628350760*t);
-  Y1 += 0.00000000105 * Math.cos(5.13254223053 + 632.78373931320*t);
-  Y1 += 0.00000000103 * Math.cos(4.95941330270 + 6271.34649715540*t);
-  Y1 += 0.00000000103 * Math.cos(4.83071292354 + 6294.80520282740*t);
-  Y1 += 0.00000000102 * Math.cos(5.99360230997 + 4804.20927592700*t);
-  Y1 += 0.00000000114 * Math.cos(3.78885344182 + 4171.42553661380*t);
-  Y1 += 0.00000000113 * Math.cos(4.29988480427 + 23013.53953958720*t);
-  Y1 += 0.00000000112 * Math.cos(0.61034141917 + 17253.04110768959*t);
-  Y1 += 0.00000000111 * Math.cos(2.09128320599 + 1581.95934828300*t);
-  Y1 += 0.00000000113 * Math.cos(0.97983808350 + 16858.48253293320*t);
-  Y1 += 0.00000000102 * Math.cos(4.09962394648 + 6549.68289171320*t);
-  Y1 += 0.00000000102 * Math.cos(5.69050227976 + 6016.46880826960*t);
-  Y1 += 0.00000000106 * Math.cos(0.87687085688 + 23543.23050468179*t);
-  Y1 += 0.00000000121 * Math.cos(4.76575782873 + 13625.53363017200*t);
-  Y1 += 0.00000000090 * Math.cos(2.11774047359 + 76.26607127560*t);
-  Y1 += 0.00000000088 * Math.cos(1.18967345782 + 17298.18232732620*t);
-  Y1 += 0.00000000087 * Math.cos(1.12941525302 + 17267.26820169119*t);
-  Y1 += 0.00000000092 * Math.cos(1.84158032509 + 22805.73556599360*t);
-  Y1 += 0.00000000086 * Math.cos(4.36870119289 + 12808.88030395680*t);
-  Y1 += 0.00000000111 * Math.cos(0.85102422912 + 11513.88331679440*t);
-  Y1 += 0.00000000095 * Math.cos(6.05597457730 + 12345.73905754400*t);
-  Y1 += 0.00000000106 * Math.cos(3.57199937061 + 11216.28429032400*t);
-  Y1 += 0.00000000087 * Math.cos(1.36534411656 + 8982.81066930900*t);
-  Y1 += 0.00000000095 * Math.cos(0.92966303480 + 12012.58229714040*t);
-  Y1 += 0.00000000081 * Math.cos(2.27691876526 + 11614.43329373220*t);
-  Y1 += 0.00000000084 * Math.cos(5.85994160066 + 6255.67429389460*t);
-  Y1 += 0.00000000084 * Math.cos(3.93018462558 + 6310.47740608820*t);
-  Y1 += 0.00000000080 * Math.cos(5.05950625443 + 6922.97313630540*t);
-  Y1 += 0.00000000085 * Math.cos(1.08198764342 + 5636.06501667660*t);
-  Y1 += 0.00000000084 * Math.cos(4.64040201203 + 10440.27429260360*t);
-  Y1 += 0.00000000089 * Math.cos(6.25985265406 + 16723.35014259500*t);
-  Y1 += 0.00000000080 * Math.cos(2.62622474570 + 3583.34103067380*t);
-  Y1 += 0.00000000091 * Math.cos(5.59316682916 + 10818.13528691580*t);
-  Y1 += 0.00000000091 * Math.cos(1.43612727660 + 15671.08175940660*t);
-  Y1 += 0.00000000077 * Math.cos(4.13229801300 + 6993.00889854970*t);
-  Y1 += 0.00000000076 * Math.cos(2.85409687552 + 11925.27409260060*t);
-  Y1 += 0.00000000096 * Math.cos(1.47205677028 + 3097.88382272579*t);
-  Y1 += 0.00000000104 * Math.cos(0.70746530546 + 5650.29211067820*t);
-  Y1 += 0.00000000086 * Math.cos(5.52511956951 + 12359.96615154560*t);
-  Y1 += 0.00000000080 * Math.cos(6.03205499783 + 13521.75144159140*t);
-  Y1 += 0.00000000090 * Math.cos(4.45214765055 + 6195.76764545159*t);
-  Y1 += 0.00000000090 * Math.cos(5.33797857569 + 6370.38405453120*t);
-  Y1 += 0.00000000082 * Math.cos(4.91006846138 + 18842.11400297339*t);
-  Y1 += 0.00000000073 * Math.cos(4.52976823745 + 949.17560896980*t);
-  Y1 += 0.00000000083 * Math.cos(3.74911363362 + 18415.51581209739*t);
-  Y1 += 0.00000000102 * Math.cos(4.43384315891 + 3104.93005942380*t);
-  Y1 += 0.00000000074 * Math.cos(5.90055438198 + 5120.60114558360*t);
-  Y1 += 0.00000000093 * Math.cos(2.53140640111 + 16460.33352952499*t);
-  Y1 += 0.00000000084 * Math.cos(5.92514029201 + 2379.16447357160*t);
-  Y1 += 0.00000000075 * Math.cos(0.05752343047 + 30355.99731976780*t);
-  Y1 += 0.00000000076 * Math.cos(3.26399401386 + 18429.74290609900*t);
-  Y1 += 0.00000000067 * Math.cos(4.00530001957 + 16062.18452611680*t);
-  Y1 += 0.00000000066 * Math.cos(4.81634064130 + 10454.50138660520*t);
-  Y1 += 0.00000000087 * Math.cos(3.52675041577 + 3903.91137641980*t);
-  Y1 += 0.00000000078 * Math.cos(2.74560762552 + 8671.96987044060*t);
-  Y1 += 0.00000000063 * Math.cos(5.70772167485 + 24356.78078864160*t);
-  Y1 += 0.00000000073 * Math.cos(6.08379700055 + 9388.00590941520*t);
-  Y1 += 0.00000000060 * Math.cos(1.94470153573 + 34570.06633485260*t);
-  Y1 += 0.00000000057 * Math.cos(2.89018663881 + 149854.40013480789*t);
-  Y1 += 0.00000000056 * Math.cos(3.76314176838 + 12455.94537876340*t);
-  Y1 += 0.00000000055 * Math.cos(1.32127703933 + 23539.70738633280*t);
-  Y1 += 0.00000000055 * Math.cos(5.60680941684 + 15664.03552270859*t);
-  Y1 += 0.00000000056 * Math.cos(0.60887110989 + 11764.33076885900*t);
-  Y1 += 0.00000000061 * Math.cos(4.86427999867 + 28237.23345938940*t);
-  Y1 += 0.00000000065 * Math.cos(4.29965528550 + 7335.34423317980*t);
-  Y1 += 0.00000000067 * Math.cos(4.20742811531 + 11933.36796066960*t);
-  Y1 += 0.00000000072 * Math.cos(4.30216792995 + 6510.55198278040*t);
-  Y1 += 0.00000000072 * Math.cos(5.48795829629 + 6055.59971720240*t);
-  Y1 += 0.00000000053 * Math.cos(5.64466034451 + 17996.03116822220*t);
-  Y1 += 0.00000000071 * Math.cos(4.94322519248 + 12545.37630449040*t);
-  Y1 += 0.00000000061 * Math.cos(3.80625548858 + 6253.64634145540*t);
-  Y1 += 0.00000000061 * Math.cos(5.98387073766 + 6312.50535852740*t);
-  Y1 += 0.00000000052 * Math.cos(1.83796108842 + 5326.78669402080*t);
-  Y1 += 0.00000000066 * Math.cos(0.79633834660 + 14919.01785375460*t);
-  Y1 += 0.00000000053 * Math.cos(2.81005325604 + 2699.73481931760*t);
-  Y1 += 0.00000000051 * Math.cos(2.33512659118 + 16522.65971600220*t);
-  Y1 += 0.00000000049 * Math.cos(2.61656735675 + 35579.69123957000*t);
-  Y1 += 0.00000000053 * Math.cos(3.71469727042 + 6357.85744855870*t);
-  Y1 += 0.00000000053 * Math.cos(6.07542895582 + 6208.29425142410*t);
-  Y1 += 0.00000000058 * Math.cos(6.24714677357 + 16737.57723659660*t);
-  Y1 += 0.00000000049 * Math.cos(3.35591683551 + 21393.54196985760*t);
-  Y1 += 0.00000000049 * Math.cos(5.31764383927 + 7018.95236352320*t);
-  Y1 += 0.00000000049 * Math.cos(4.47248238697 + 5547.19933645960*t);
-  Y1 += 0.00000000049 * Math.cos(1.02044068888 + 12416.58850284820*t);
-  Y1 += 0.00000000048 * Math.cos(0.93318398067 + 5573.14280143310*t);
-  Y1 += 0.00000000050 * Math.cos(4.78756360288 + 26084.02180621620*t);
-  Y1 += 0.00000000052 * Math.cos(0.61376591765 + 45585.17281218740*t);
-  Y1 += 0.00000000051 * Math.cos(1.83598363802 + 23006.42599258639*t);
-  Y1 += 0.00000000058 * Math.cos(4.03624047121 + 15141.39079431200*t);
-  Y1 += 0.00000000047 * Math.cos(3.55960074091 + 22743.40937951640*t);
-  Y1 += 0.00000000050 * Math.cos(5.52194731109 + 21424.46664430340*t);
-  Y1 += 0.00000000047 * Math.cos(5.68901702449 + 24279.10701821359*t);
-  Y1 += 0.00000000049 * Math.cos(0.09767152059 + 5749.86176654780*t);
-  Y1 += 0.00000000049 * Math.cos(3.40926939847 + 6816.28993343500*t);
-  Y1 += 0.00000000046 * Math.cos(1.88054905125 + 19378.91851506880*t);
-  Y1 += 0.00000000047 * Math.cos(0.52217551707 + 24065.80792277559*t);
-  Y1 += 0.00000000046 * Math.cos(4.16716226231 + 104351.61256629678*t);
-  Y1 += 0.00000000050 * Math.cos(2.92366135772 + 24602.61243487099*t);
-  Y1 += 0.00000000054 * Math.cos(4.75214506546 + 7834.12107263940*t);
-  Y1 += 0.00000000045 * Math.cos(3.48834172987 + 161000.68573767410*t);
-  Y1 += 0.00000000049 * Math.cos(2.94403678329 + 29303.72893657940*t);
-  Y1 += 0.00000000048 * Math.cos(1.95408707684 + 5244.04923920100*t);
-  Y1 += 0.00000000043 * Math.cos(3.93857315871 + 12132.43996210600*t);
-  Y1 += 0.00000000047 * Math.cos(5.81677586075 + 18208.34994259200*t);
-  Y1 += 0.00000000049 * Math.cos(3.41896064981 + 29289.50184257780*t);
-  Y1 += 0.00000000044 * Math.cos(2.06685104480 + 6175.41232605280*t);
-  Y1 += 0.00000000044 * Math.cos(1.44008987426 + 6390.73937393000*t);
-  Y1 += 0.00000000042 * Math.cos(6.18541909471 + 24705.70520908959*t);
-  Y1 += 0.00000000041 * Math.cos(3.21613978391 + 17370.36097590980*t);
-  Y1 += 0.00000000047 * Math.cos(1.17418881008 + 58953.14544329400*t);
-  Y1 += 0.00000000041 * Math.cos(2.05518926769 + 23020.65308658799*t);
-  Y1 += 0.00000000044 * Math.cos(3.20914273688 + 26735.94526221320*t);
-  Y1 += 0.00000000045 * Math.cos(3.70228663504 + 54247.41313575040*t);
-  Y1 += 0.00000000040 * Math.cos(4.57474127522 + 32243.49850088060*t);
-  Y1 += 0.00000000040 * Math.cos(5.17182769558 + 24336.00539314920*t);
-  Y1 += 0.00000000040 * Math.cos(3.62816477586 + 19804.82729158280*t);
-  Y1 += 0.00000000039 * Math.cos(1.13462594128 + 18606.49894600020*t);
-  Y1 += 0.00000000040 * Math.cos(4.71493835645 + 8401.83971036980*t);
-  Y1 += 0.00000000041 * Math.cos(2.69655967341 + 16207.88627150200*t);
-  Y1 += 0.00000000038 * Math.cos(5.56507429543 + 29088.81141598500*t);
-  Y1 += 0.00000000038 * Math.cos(2.36481926067 + 6268.84875598980*t);
-  Y1 += 0.00000000038 * Math.cos(1.14212165839 + 6297.30294399300*t);
-  Y1 += 0.00000000041 * Math.cos(3.38234777816 + 15508.61512327440*t);
-  Y1 += 0.00000000038 * Math.cos(4.82215691915 + 6171.88920770380*t);
-  Y1 += 0.00000000038 * Math.cos(4.96796930709 + 6394.26249227900*t);
-  Y1 += 0.00000000039 * Math.cos(1.75198804720 + 29826.30635467320*t);
-  Y1 += 0.00000000037 * Math.cos(3.64776861935 + 20452.86941222180*t);
-  Y1 += 0.00000000052 * Math.cos(3.98463781177 + 1047.74731175470*t);
-  Y1 += 0.00000000043 * Math.cos(6.01711305973 + 55022.93574707440*t);
-  Y1 += 0.00000000037 * Math.cos(6.18577055273 + 4061.21921539440*t);
-  Y1 += 0.00000000040 * Math.cos(2.02818434731 + 49515.38250840700*t);
-  Y1 += 0.00000000049 * Math.cos(4.21086629146 + 18216.44381066100*t);
-  Y1 += 0.00000000038 * Math.cos(4.59185538964 + 18202.21671665939*t);
-  Y1 += 0.00000000035 * Math.cos(3.16929714068 + 26482.17080962440*t);
-  Y1 += 0.00000000036 * Math.cos(1.56812014048 + 9924.81042151060*t);
-  Y1 += 0.00000000039 * Math.cos(0.88019393819 + 24889.57479599160*t);
-  Y1 += 0.00000000039 * Math.cos(4.63870568395 + 26709.64694241340*t);
-  Y1 += 0.00000000036 * Math.cos(6.07069720518 + 25287.72379939980*t);
-  Y1 += 0.00000000034 * Math.cos(6.10039920596 + 6147.45052498140*t);
-  Y1 += 0.00000000034 * Math.cos(3.68972702028 + 6418.70117500140*t);
-  Y1 += 0.00000000034 * Math.cos(2.54760886649 + 21228.39202354580*t);
-  Y1 += 0.00000000034 * Math.cos(0.68922440987 + 33019.02111220460*t);
-  Y1 += 0.00000000034 * Math.cos(0.40887359374 + 17271.88400752640*t);
-  Y1 += 0.00000000034 * Math.cos(0.33424154418 + 29026.48522950779*t);
-  Y1 += 0.00000000035 * Math.cos(1.63582495302 + 7322.10246078180*t);
-  Y1 += 0.00000000044 * Math.cos(1.21937055747 + 3981.49003408200*t);
-  Y1 += 0.00000000033 * Math.cos(2.56048298726 + 173566.83743765688*t);
-  Y1 += 0.00000000035 * Math.cos(3.00160924335 + 21954.15760939799*t);
-  Y1 += 0.00000000034 * Math.cos(3.38052068808 + 38500.27603107220*t);
-  Y1 += 0.00000000032 * Math.cos(2.81219711037 + 17686.75284556640*t);
-  Y1 += 0.00000000033 * Math.cos(0.13837047156 + 34520.30930938080*t);
-  Y1 += 0.00000000041 * Math.cos(2.52021125438 + 21202.09370374600*t);
-  Y1 += 0.00000000037 * Math.cos(5.92836585991 + 7349.57132718140*t);
-  Y1 += 0.00000000031 * Math.cos(2.79498926181 + 28230.18722269139*t);
-  Y1 += 0.00000000038 * Math.cos(5.01277542891 + 9225.53927328300*t);
-  Y1 += 0.00000000035 * Math.cos(2.49445060142 + 8584.66166590080*t);
-  Y1 += 0.00000000038 * Math.cos(2.67041435749 + 15110.46611986620*t);
-  Y1 += 0.00000000037 * Math.cos(1.84827551648 + 29296.61538957860*t);
-  Y1 += 0.00000000035 * Math.cos(4.26342089717 + 11919.14086666800*t);
-  Y1 += 0.00000000035 * Math.cos(2.59482262662 + 62883.35513951360*t);
-  Y1 += 0.00000000035 * Math.cos(5.54313072444 + 29062.51309618520*t);
-  Y1 += 0.00000000035 * Math.cos(5.96888200431 + 25685.87280280800*t);
-  Y1 += 0.00000000030 * Math.cos(1.38932865248 + 12489.88562870720*t);
-  Y1 += 0.00000000041 * Math.cos(4.39843263561 + 18052.92954315780*t);
-  Y1 += 0.00000000032 * Math.cos(4.69085169487 + 6231.79551212899*t);
-  Y1 += 0.00000000032 * Math.cos(5.09927453137 + 6334.35618785381*t);
-  Y1 += 0.00000000033 * Math.cos(4.71041781828 + 5017.50837136500*t);
-  Y1 += 0.00000000034 * Math.cos(3.82387178783 + 22483.84857449259*t);
-  Y1 += 0.00000000029 * Math.cos(0.69173791628 + 27278.46881644080*t);
-  Y1 += 0.00000000028 * Math.cos(0.30766379271 + 24080.03501677719*t);
-  Y1 += 0.00000000028 * Math.cos(1.80200703459 + 21150.81336588360*t);
-  Y1 += 0.00000000034 * Math.cos(5.49813240003 + 5905.70224207560*t);
-  Y1 += 0.00000000034 * Math.cos(4.29199382621 + 6660.44945790720*t);
-  Y1 += 0.00000000031 * Math.cos(0.77685387250 + 15265.88651930040*t);
-  Y1 += 0.00000000038 * Math.cos(3.55141531291 + 31570.79964939120*t);
-  Y1 += 0.00000000027 * Math.cos(2.03421614285 + 36949.23080842420*t);
-  Y1 += 0.00000000030 * Math.cos(0.75326086687 + 12586.92709547520*t);
-  Y1 += 0.00000000027 * Math.cos(5.24483718904 + 233141.31440436149*t);
-  Y1 += 0.00000000027 * Math.cos(4.99665333874 + 24383.07910844140*t);
-  Y1 += 0.00000000028 * Math.cos(3.97690125997 + 34911.41207609100*t);
-  Y1 += 0.00000000027 * Math.cos(4.60109049263 + 1692.16566950240*t);
-  Y1 += 0.00000000027 * Math.cos(3.01465510733 + 23581.25817731760*t);
-  Y1 += 0.00000000028 * Math.cos(5.79946172825 + 16193.65917750039*t);
-  Y1 += 0.00000000027 * Math.cos(5.36876316169 + 6360.74962041940*t);
-  Y1 += 0.00000000027 * Math.cos(4.42136306455 + 6205.40207956340*t);
-  Y1 += 0.00000000032 * Math.cos(5.04711925057 + 27511.46787353720*t);
-  Y1 += 0.00000000027 * Math.cos(0.74966550512 + 32367.09765620760*t);
-  Y1 += 0.00000000027 * Math.cos(3.34326768159 + 4487.81740627040*t);
-  Y1 += 0.00000000030 * Math.cos(4.32132101590 + 52175.80628314840*t);
-  Y1 += 0.00000000029 * Math.cos(4.00870617495 + 46386.99374331120*t);
-  Y1 += 0.00000000026 * Math.cos(1.30285929374 + 4797.09572892620*t);
-  Y1 += 0.00000000028 * Math.cos(5.37411984168 + 10239.58386601080*t);
-  Y1 += 0.00000000026 * Math.cos(5.08151018860 + 6339.97422492700*t);
-  Y1 += 0.00000000026 * Math.cos(4.70861603764 + 6226.17747505580*t);
-  Y1 += 0.00000000029 * Math.cos(4.88985723155 + 6592.35417264720*t);
-  Y1 += 0.00000000029 * Math.cos(4.90026899469 + 5973.79752733560*t);
-  Y1 += 0.00000000026 * Math.cos(3.80920015468 + 25158.60171976540*t);
-  Y1 += 0.00000000026 * Math.cos(4.12353757087 + 9910.58332750900*t);
-  Y1 += 0.00000000031 * Math.cos(2.37034813214 + 24491.42579258340*t);
-  Y1 += 0.00000000024 * Math.cos(5.26265995716 + 11616.97609101300*t);
-  Y1 += 0.00000000024 * Math.cos(4.68388215645 + 31172.65064598300*t);
-  Y1 += 0.00000000029 * Math.cos(4.62741692698 + 19402.79695281660*t);
-  Y1 += 0.00000000025 * Math.cos(1.21411432675 + 6302.74561089119*t);
-  Y1 += 0.00000000025 * Math.cos(2.29282659231 + 6263.40608909160*t);
-  Y1 += 0.00000000026 * Math.cos(4.64443513632 + 30666.15495843280*t);
-  Y1 += 0.00000000027 * Math.cos(2.79813911349 + 19800.94595622480*t);
-  Y1 += 0.00000000024 * Math.cos(2.16373217847 + 31968.94865279940*t);
-  Y1 += 0.00000000023 * Math.cos(5.33583152283 + 17892.93839400359*t);
-  Y1 += 0.00000000023 * Math.cos(5.05383022333 + 29424.63423291600*t);
-  Y1 += 0.00000000024 * Math.cos(6.12085409163 + 20597.24396304120*t);
-  Y1 += 0.00000000024 * Math.cos(1.65155411828 + 23550.34405168259*t);
-  Y1 += 0.00000000023 * Math.cos(6.07302432574 + 6716.78758786820*t);
-  Y1 += 0.00000000022 * Math.cos(2.42662159283 + 7445.55055439920*t);
-  Y1 += 0.00000000027 * Math.cos(1.56823801633 + 28628.33622609960*t);
-  Y1 += 0.00000000022 * Math.cos(3.39570466574 + 40879.44050464380*t);
-  Y1 += 0.00000000025 * Math.cos(5.52794317615 + 14155.22459526660*t);
-  Y1 += 0.00000000023 * Math.cos(1.49204312505 + 6272.03014972750*t);
-  Y1 += 0.00000000023 * Math.cos(2.01489779401 + 6294.12155025530*t);
-  Y1 += 0.00000000021 * Math.cos(4.21170718841 + 22779.43724619380*t);
-  Y1 += 0.00000000024 * Math.cos(3.83904364251 + 8186.51266249260*t);
-  Y1 += 0.00000000021 * Math.cos(2.51494728863 + 30220.93223973240*t);
-  Y1 += 0.00000000022 * Math.cos(6.09500922463 + 4379.63903749020*t);
-  Y1 += 0.00000000022 * Math.cos(2.95144246643 + 28759.81087748319*t);
-  Y1 += 0.00000000020 * Math.cos(0.07597154617 + 28313.28880466100*t);
-  Y1 += 0.00000000026 * Math.cos(1.83971959567 + 18422.62935909819*t);
-  Y1 += 0.00000000022 * Math.cos(1.06284971840 + 27707.54249429480*t);
-  Y1 += 0.00000000027 * Math.cos(5.38238146057 + 34513.26307268280*t);
-  Y1 += 0.00000000025 * Math.cos(1.96129048463 + 55798.45835839840*t);
-  Y1 += 0.00000000019 * Math.cos(0.75805525916 + 11712.95531823080*t);
-  Y1 += 0.00000000025 * Math.cos(4.06271601240 + 29864.33402730900*t);
-  Y1 += 0.00000000024 * Math.cos(5.92086856803 + 9411.46461508720*t);
-  Y1 += 0.00000000020 * Math.cos(0.08212819079 + 6379.05507720920*t);
-  Y1 += 0.00000000020 * Math.cos(3.42481272827 + 6187.09662277360*t);
-  Y1 += 0.00000000022 * Math.cos(2.87393551670 + 18326.65013188039*t);
-  Y1 += 0.00000000020 * Math.cos(4.26784309163 + 21548.96236929180*t);
-  Y1 += 0.00000000022 * Math.cos(2.89425510955 + 6332.83287546320*t);
-  Y1 += 0.00000000022 * Math.cos(0.61268580951 + 6233.31882451960*t);
-  Y1 += 0.00000000021 * Math.cos(5.43088404515 + 50317.20343953080*t);
-  Y1 += 0.00000000020 * Math.cos(0.38470757997 + 22345.26037610820*t);
-  Y1 += 0.00000000018 * Math.cos(3.04737429764 + 6593.91664885980*t);
-  Y1 += 0.00000000018 * Math.cos(0.45956662142 + 5972.23505112300*t);
-  Y1 += 0.00000000019 * Math.cos(0.79376120003 + 5618.31980486140*t);
-  Y1 += 0.00000000019 * Math.cos(2.71317971903 + 6947.83189512140*t);
-  Y1 += 0.00000000018 * Math.cos(0.28017726157 + 34115.11406927460*t);
-  Y1 += 0.00000000019 * Math.cos(4.89700323392 + 83973.83535572988*t);
-  Y1 += 0.00000000019 * Math.cos(2.72494815105 + 84019.85928049390*t);
-  Y1 += 0.00000000020 * Math.cos(2.60251083721 + 42456.78404709160*t);
-  Y1 += 0.00000000020 * Math.cos(1.28313240949 + 9070.11887384880*t);
-  return Y1*t;
-}
 
-
-
-  static double Earth_A_Y2 (double t)
-{
-  double Y2 = 0.0;
-  Y2 += 0.00005080208;
-  Y2 += 0.00002178016 * Math.cos(2.82957544235 + 12566.15169998280*t);
-  Y2 += 0.00001020487 * Math.cos(4.63746718598 + 6283.07584999140*t);
-  Y2 += 0.00000092688 * Math.cos(2.62218748420 + 18849.22754997420*t);
-  Y2 += 0.00000013680 * Math.cos(1.80736896884 + 6286.59896834040*t);
-  Y2 += 0.00000013668 * Math.cos(1.70191859339 + 6279.55273164240*t);
-  Y2 += 0.00000008190 * Math.cos(2.84848380902 + 6256.77753019160*t);
-  Y2 += 0.00000008145 * Math.cos(0.65845469208 + 6309.37416979120*t);
-  Y2 += 0.00000008004 * Math.cos(4.35208516133 + 6127.65545055720*t);
-  Y2 += 0.00000007754 * Math.cos(5.43893832496 + 6438.49624942560*t);
-  Y2 += 0.00000008900 * Math.cos(3.80944637329 + 83996.84731811189*t);
-  Y2 += 0.00000004754 * Math.cos(4.59631649528 + 709.93304855830*t);
-  Y2 += 0.00000002895 * Math.cos(3.37918924673 + 4705.73230754360*t);
-  Y2 += 0.00000003730 * Math.cos(0.91975073803 + 5507.55323866740*t);
-  Y2 += 0.00000002937 * Math.cos(2.51081180566 + 25132.30339996560*t);
-  Y2 += 0.00000003203 * Math.cos(2.57193731532 + 7058.59846131540*t);
-  Y2 += 0.00000002268 * Math.cos(1.94917686677 + 775.52261132400*t);
-  Y2 += 0.00000002148 * Math.cos(0.14152116438 + 7860.41939243920*t);
-  Y2 += 0.00000002031 * Math.cos(0.72283806291 + 6275.96230299060*t);
-  Y2 += 0.00000002031 * Math.cos(2.78410285615 + 6290.18939699220*t);
-  Y2 += 0.00000001904 * Math.cos(2.89589054598 + 5486.77784317500*t);
-  Y2 += 0.00000001728 * Math.cos(3.66132960737 + 1059.38193018920*t);
-  Y2 += 0.00000001553 * Math.cos(0.56386962806 + 6040.34724601740*t);
-  Y2 += 0.00000001563 * Math.cos(0.61022183613 + 7079.37385680780*t);
-  Y2 += 0.00000001459 * Math.cos(1.88257310296 + 5753.38488489680*t);
-  Y2 += 0.00000001425 * Math.cos(1.59147859762 + 6812.76681508600*t);
-  Y2 += 0.00000001436 * Math.cos(1.45357168378 + 5884.92684658320*t);
-  Y2 += 0.00000001470 * Math.cos(2.94579999718 + 6525.80445396540*t);
-  Y2 += 0.00000001288 * Math.cos(2.05812819149 + 6681.22485339960*t);
-  Y2 += 0.00000001338 * Math.cos(5.75684444528 + 5729.50644714900*t);
-  Y2 += 0.00000001039 * Math.cos(4.28230481184 + 6282.09552892320*t);
-  Y2 += 0.00000001039 * Math.cos(5.50782141440 + 6284.05617105960*t);
-  Y2 += 0.00000001191 * Math.cos(4.01917074242 + 6836.64525283380*t);
-  Y2 += 0.00000000904 * Math.cos(0.86455323243 + 5331.35744374080*t);
-  Y2 += 0.00000000871 * Math.cos(2.27688978691 + 4933.20844033260*t);
-  Y2 += 0.00000000877 * Math.cos(1.49469829015 + 11790.62908865880*t);
-  Y2 += 0.00000001102 * Math.cos(3.02451706631 + 167283.76158766549*t);
-  Y2 += 0.00000000774 * Math.cos(2.68163901032 + 7234.79425624200*t);
-  Y2 += 0.00000000746 * Math.cos(5.06505548485 + 4136.91043351620*t);
-  Y2 += 0.00000000938 * Math.cos(2.05233105969 + 11856.21865142450*t);
-  Y2 += 0.00000000653 * Math.cos(6.14159854835 + 11506.76976979360*t);
-  Y2 += 0.00000000653 * Math.cos(1.20042991173 + 7632.94325965020*t);
-  Y2 += 0.00000000855 * Math.cos(3.67241064264 + 4535.05943692440*t);
-  Y2 += 0.00000000664 * Math.cos(3.21978126910 + 1194.44701022460*t);
-  Y2 += 0.00000000814 * Math.cos(1.07520259172 + 155.42039943420*t);
-  Y2 += 0.00000000579 * Math.cos(4.64690913221 + 796.29800681640*t);
-  Y2 += 0.00000000778 * Math.cos(4.32748087995 + 5088.62883976680*t);
-  Y2 += 0.00000000511 * Math.cos(0.71257437268 + 4694.00295470760*t);
-  Y2 += 0.00000000686 * Math.cos(3.47131000180 + 801.82093112380*t);
-  Y2 += 0.00000000677 * Math.cos(1.14891148781 + 3128.38876509580*t);
-  Y2 += 0.00000000499 * Math.cos(1.45672603171 + 12569.67481833180*t);
-  Y2 += 0.00000000480 * Math.cos(4.72566522648 + 8429.24126646660*t);
-  Y2 += 0.00000000598 * Math.cos(6.12701256696 + 8031.09226305840*t);
-  Y2 += 0.00000000499 * Math.cos(4.61877818070 + 1589.07289528380*t);
-  Y2 += 0.00000000562 * Math.cos(5.48344520380 + 7477.52286021600*t);
-  Y2 += 0.00000000415 * Math.cos(5.06370124318 + 6496.37494542940*t);
-  Y2 += 0.00000000414 * Math.cos(4.73489535739 + 6069.77675455340*t);
-  Y2 += 0.00000000404 * Math.cos(0.15585991312 + 3738.76143010800*t);
-  Y2 += 0.00000000500 * Math.cos(1.83746339810 + 1592.59601363280*t);
-  Y2 += 0.00000000392 * Math.cos(0.64094689719 + 26.29831979980*t);
-  Y2 += 0.00000000366 * Math.cos(5.93255688855 + 553.56940284240*t);
-  Y2 += 0.00000000458 * Math.cos(5.56847632382 + 156137.47598479928*t);
-  Y2 += 0.00000000320 * Math.cos(0.43684109891 + 1990.74501704100*t);
-  Y2 += 0.00000000318 * Math.cos(4.53872367492 + 951.71840625060*t);
-  Y2 += 0.00000000361 * Math.cos(3.78139914914 + 7084.89678111520*t);
-  Y2 += 0.00000000356 * Math.cos(4.78764157089 + 12721.57209941700*t);
-  Y2 += 0.00000000279 * Math.cos(5.51531767271 + 4690.47983635860*t);
-  Y2 += 0.00000000347 * Math.cos(6.05487619509 + 5481.25491886760*t);
-  Y2 += 0.00000000279 * Math.cos(0.65072513623 + 242.72860397400*t);
-  Y2 += 0.00000000367 * Math.cos(2.35508391326 + 9437.76293488700*t);
-  Y2 += 0.00000000260 * Math.cos(0.98725902772 + 5223.69391980220*t);
-  Y2 += 0.00000000255 * Math.cos(0.26797013701 + 11371.70468975820*t);
-  Y2 += 0.00000000242 * Math.cos(3.35248006615 + 8827.39026987480*t);
-  Y2 += 0.00000000245 * Math.cos(2.60270196816 + 3154.68708489560*t);
-  Y2 += 0.00000000222 * Math.cos(0.17857635292 + 4164.31198961300*t);
-  Y2 += 0.00000000221 * Math.cos(1.83683124614 + 1748.01641306700*t);
-  Y2 += 0.00000000288 * Math.cos(3.16521452041 + 1349.86740965880*t);
-  Y2 += 0.00000000204 * Math.cos(5.15479639183 + 11769.85369316640*t);
-  Y2 += 0.00000000188 * Math.cos(4.08810200628 + 7875.67186362420*t);
-  Y2 += 0.00000000204 * Math.cos(5.17246322251 + 10977.07880469900*t);
-  Y2 += 0.00000000188 * Math.cos(5.32022679153 + 2388.89402044920*t);
-  Y2 += 0.00000000183 * Math.cos(2.53020407005 + 7342.45778018060*t);
-  Y2 += 0.00000000196 * Math.cos(4.81306031436 + 3930.20969621960*t);
-  Y2 += 0.00000000207 * Math.cos(0.71423535949 + 13367.97263110660*t);
-  Y2 += 0.00000000206 * Math.cos(1.68118727655 + 10973.55568635000*t);
-  Y2 += 0.00000000144 * Math.cos(3.12119544517 + 10575.40668294180*t);
-  Y2 += 0.00000000155 * Math.cos(4.24333182826 + 12410.73130054860*t);
-  Y2 += 0.00000000135 * Math.cos(5.62460495351 + 12592.45001978260*t);
-  Y2 += 0.00000000142 * Math.cos(3.43769023959 + 529.69096509460*t);
-  Y2 += 0.00000000125 * Math.cos(2.30734650656 + 12562.62858163380*t);
-  Y2 += 0.00000000118 * Math.cos(3.15911802638 + 13119.72110282519*t);
-  Y2 += 0.00000000124 * Math.cos(4.88716980692 + 8635.94200376320*t);
-  Y2 += 0.00000000111 * Math.cos(0.80973565731 + 398.14900340820*t);
-  Y2 += 0.00000000099 * Math.cos(1.74904579789 + 13517.87010623340*t);
-  Y2 += 0.00000000097 * Math.cos(4.08519883679 + 17260.15465469040*t);
-  Y2 += 0.00000000102 * Math.cos(2.80042792551 + 10988.80815753500*t);
-  Y2 += 0.00000000093 * Math.cos(4.87729654087 + 1577.34354244780*t);
-  Y2 += 0.00000000094 * Math.cos(4.56913615419 + 10177.25767953360*t);
-  Y2 += 0.00000000095 * Math.cos(0.58410858338 + 2146.16541647520*t);
-  Y2 += 0.00000000100 * Math.cos(0.77889460323 + 13095.84266507740*t);
-  Y2 += 0.00000000082 * Math.cos(3.65082093235 + 16730.46368959580*t);
-  Y2 += 0.00000000109 * Math.cos(2.42647120751 + 12539.85338018300*t);
-  Y2 += 0.00000000080 * Math.cos(2.67636202935 + 12323.42309600880*t);
-  Y2 += 0.00000000105 * Math.cos(1.96765666886 + 5642.19824260920*t);
-  Y2 += 0.00000000101 * Math.cos(0.26697958405 + 4292.33083295040*t);
-  Y2 += 0.00000000075 * Math.cos(4.15987686546 + 6709.67404086740*t);
-  Y2 += 0.00000000075 * Math.cos(5.63024936078 + 5856.47765911540*t);
-  Y2 += 0.00000000100 * Math.cos(5.37997214401 + 250570.67585721909*t);
-  Y2 += 0.00000000071 * Math.cos(5.31207567706 + 14314.16811304980*t);
-  Y2 += 0.00000000092 * Math.cos(0.41159879070 + 13916.01910964160*t);
-  Y2 += 0.00000000091 * Math.cos(1.53881053794 + 6923.95345737360*t);
-  Y2 += 0.00000000082 * Math.cos(2.43138857903 + 31415.37924995700*t);
-  Y2 += 0.00000000083 * Math.cos(4.40764560915 + 95143.13292097810*t);
-  Y2 += 0.00000000061 * Math.cos(2.66905862210 + 8273.82086703240*t);
-  Y2 += 0.00000000055 * Math.cos(2.98440193981 + 5643.17856367740*t);
-  Y2 += 0.00000000056 * Math.cos(3.14343584528 + 639.89728631400*t);
-  Y2 += 0.00000000054 * Math.cos(4.06071028317 + 16496.36139620240*t);
-  Y2 += 0.00000000055 * Math.cos(2.26469062405 + 13341.67431130680*t);
-  Y2 += 0.00000000073 * Math.cos(0.30591075918 + 71430.69561812909*t);
-  Y2 += 0.00000000052 * Math.cos(5.97085689483 + 3634.62102451840*t);
-  Y2 += 0.00000000050 * Math.cos(2.61636629528 + 12573.26524698360*t);
-  Y2 += 0.00000000052 * Math.cos(6.19672300540 + 15720.83878487840*t);
-  Y2 += 0.00000000065 * Math.cos(4.92633618792 + 4732.03062734340*t);
-  Y2 += 0.00000000066 * Math.cos(3.92505637420 + 2787.04302385740*t);
-  Y2 += 0.00000000048 * Math.cos(0.45273646609 + 13362.44970679920*t);
-  Y2 += 0.00000000053 * Math.cos(2.55293773264 + 14919.01785375460*t);
-  Y2 += 0.00000000047 * Math.cos(2.25879651839 + 12964.30070339100*t);
-  Y2 += 0.00000000047 * Math.cos(1.06895129610 + 3894.18182954220*t);
-  Y2 += 0.00000000042 * Math.cos(5.09300549015 + 24072.92146977640*t);
-  Y2 += 0.00000000051 * Math.cos(5.97812516445 + 6195.76764545159*t);
-  Y2 += 0.00000000051 * Math.cos(3.81200106179 + 6370.38405453120*t);
-  Y2 += 0.00000000048 * Math.cos(5.31227829697 + 2118.76386037840*t);
-  Y2 += 0.00000000041 * Math.cos(0.92655469135 + 18319.53658487960*t);
-  Y2 += 0.00000000041 * Math.cos(2.52247946610 + 3185.19202726560*t);
-  Y2 += 0.00000000056 * Math.cos(2.58677293772 + 84672.47584450469*t);
-  Y2 += 0.00000000039 * Math.cos(2.70559904392 + 20426.57109242200*t);
-  Y2 += 0.00000000053 * Math.cos(1.64080385432 + 239424.39025435288*t);
-  Y2 += 0.00000000045 * Math.cos(6.04609930388 + 9779.10867612540*t);
-  Y2 += 0.00000000044 * Math.cos(3.24184126256 + 8662.24032356300*t);
-  Y2 += 0.00000000043 * Math.cos(2.12627080359 + 18139.29450141590*t);
-  Y2 += 0.00000000033 * Math.cos(1.67764931937 + 3496.03282613400*t);
-  Y2 += 0.00000000035 * Math.cos(5.17885502556 + 18875.52586977400*t);
-  Y2 += 0.00000000035 * Math.cos(4.51995137508 + 10419.98628350760*t);
-  Y2 += 0.00000000031 * Math.cos(5.35886426810 + 23013.53953958720*t);
-  Y2 += 0.00000000030 * Math.cos(2.82636067861 + 12808.88030395680*t);
-  Y2 += 0.00000000042 * Math.cos(0.90184598337 + 82576.98122099529*t);
-  Y2 += 0.00000000031 * Math.cos(3.95971884541 + 14712.31711645800*t);
-  Y2 += 0.00000000040 * Math.cos(4.02926744005 + 17789.84561978500*t);
-  Y2 += 0.00000000031 * Math.cos(5.47911308336 + 22779.43724619380*t);
-  Y2 += 0.00000000030 * Math.cos(2.31682203487 + 10447.38783960440*t);
-  Y2 += 0.00000000028 * Math.cos(2.11876435927 + 14143.49524243060*t);
-  Y2 += 0.00000000028 * Math.cos(3.91478954977 + 5429.87946823940*t);
-  Y2 += 0.00000000030 * Math.cos(1.17555913144 + 9380.95967271720*t);
-  Y2 += 0.00000000026 * Math.cos(0.72314347990 + 9623.68827669120*t);
-  Y2 += 0.00000000026 * Math.cos(2.78379743916 + 2942.46342329160*t);
-  Y2 += 0.00000000030 * Math.cos(1.83762487734 + 10213.28554621100*t);
-  Y2 += 0.00000000026 * Math.cos(0.18151529861 + 18209.33026366019*t);
-  Y2 += 0.00000000025 * Math.cos(1.11733039286 + 3583.34103067380*t);
-  Y2 += 0.00000000024 * Math.cos(1.36775216012 + 9917.69687450980*t);
-  Y2 += 0.00000000026 * Math.cos(5.61732376806 + 12012.58229714040*t);
-  Y2 += 0.00000000023 * Math.cos(0.92088373151 + 12559.03815298200*t);
-  Y2 += 0.00000000023 * Math.cos(5.52325028212 + 11015.10647733480*t);
-  Y2 += 0.00000000023 * Math.cos(0.69647593831 + 26709.64694241340*t);
-  Y2 += 0.00000000024 * Math.cos(3.30887701069 + 77713.77146812050*t);
-  Y2 += 0.00000000022 * Math.cos(4.42086856143 + 6993.00889854970*t);
-  Y2 += 0.00000000021 * Math.cos(0.81252266714 + 17256.63153634140*t);
-  Y2 += 0.00000000023 * Math.cos(5.52062840479 + 149854.40013480789*t);
-  Y2 += 0.00000000019 * Math.cos(0.35979025769 + 11926.25441366880*t);
-  Y2 += 0.00000000018 * Math.cos(0.71176167314 + 11614.43329373220*t);
-  Y2 += 0.00000000019 * Math.cos(4.89783197147 + 18073.70493865020*t);
-  Y2 += 0.00000000019 * Math.cos(2.09021029647 + 30639.85663863300*t);
-  Y2 += 0.00000000022 * Math.cos(2.19299415984 + 17298.18232732620*t);
-  Y2 += 0.00000000019 * Math.cos(1.23251732918 + 19651.04848109800*t);
-  Y2 += 0.00000000023 * Math.cos(3.21303801707 + 72850.56171524568*t);
-  Y2 += 0.00000000017 * Math.cos(2.38624204004 + 8982.81066930900*t);
-  Y2 += 0.00000000021 * Math.cos(2.20285403235 + 16858.48253293320*t);
-  Y2 += 0.00000000021 * Math.cos(2.89968186701 + 12036.46073488820*t);
-  Y2 += 0.00000000014 * Math.cos(3.30566599775 + 16460.33352952499*t);
-  Y2 += 0.00000000020 * Math.cos(4.99490943445 + 5573.14280143310*t);
-  Y2 += 0.00000000015 * Math.cos(2.64766821618 + 20199.09495963300*t);
-  Y2 += 0.00000000014 * Math.cos(4.87181144278 + 22483.84857449259*t);
-  Y2 += 0.00000000019 * Math.cos(1.24341688060 + 8671.96987044060*t);
-  Y2 += 0.00000000014 * Math.cos(5.97526530111 + 90279.92316810328*t);
-  Y2 += 0.00000000016 * Math.cos(5.12394281212 + 23543.23050468179*t);
-  Y2 += 0.00000000012 * Math.cos(1.13908210541 + 17996.03116822220*t);
-  Y2 += 0.00000000012 * Math.cos(5.43458827343 + 19402.79695281660*t);
-  Y2 += 0.00000000012 * Math.cos(2.80798050151 + 10818.13528691580*t);
-  Y2 += 0.00000000015 * Math.cos(5.28864619208 + 12567.13202105100*t);
-  Y2 += 0.00000000011 * Math.cos(0.21390152319 + 28766.92442448400*t);
-  Y2 += 0.00000000011 * Math.cos(0.68624711981 + 14945.31617355440*t);
-  Y2 += 0.00000000011 * Math.cos(3.36248263984 + 18451.07854656599*t);
-  Y2 += 0.00000000011 * Math.cos(4.69826436697 + 2352.86615377180*t);
-  Y2 += 0.00000000011 * Math.cos(0.30993049479 + 22805.73556599360*t);
-  Y2 += 0.00000000011 * Math.cos(0.67524830165 + 35371.88726597640*t);
-  Y2 += 0.00000000014 * Math.cos(0.36237106347 + 21228.39202354580*t);
-  Y2 += 0.00000000010 * Math.cos(4.48227917427 + 23141.55838292460*t);
-  Y2 += 0.00000000010 * Math.cos(0.98562604234 + 22345.26037610820*t);
-  Y2 += 0.00000000009 * Math.cos(6.20387541356 + 29826.30635467320*t);
-  Y2 += 0.00000000010 * Math.cos(4.89597714031 + 12779.45079542080*t);
-  Y2 += 0.00000000010 * Math.cos(4.53062887484 + 213.29909543800*t);
-  Y2 += 0.00000000011 * Math.cos(5.10892321991 + 25158.60171976540*t);
-  Y2 += 0.00000000009 * Math.cos(2.89659186256 + 23581.25817731760*t);
-  return Y2*t*t;
-}
-
-
-
-  static double Earth_A_Y3 (double t)
-{
-  double Y3 = 0.0;
-  Y3 += 0.00000128116 * Math.cos(3.14159265359);
-  Y3 += 0.00000072366 * Math.cos(1.32019314413 + 12566.15169998280*t);
-  Y3 += 0.00000013847 * Math.cos(5.37444701633 + 6283.07584999140*t);
-  Y3 += 0.00000005044 * Math.cos(0.96001931081 + 18849.22754997420*t);
-  Y3 += 0.00000001481 * Math.cos(0.66592602555 + 6438.49624942560*t);
-  Y3 += 0.00000001481 * Math.cos(2.84101489351 + 6127.65545055720*t);
-  Y3 += 0.00000000644 * Math.cos(3.31488272100 + 6279.55273164240*t);
-  Y3 += 0.00000000644 * Math.cos(0.19205819806 + 6286.59896834040*t);
-  Y3 += 0.00000000318 * Math.cos(2.06760677503 + 6040.34724601740*t);
-  Y3 += 0.00000000318 * Math.cos(1.43933414403 + 6525.80445396540*t);
-  Y3 += 0.00000000220 * Math.cos(0.77087312633 + 25132.30339996560*t);
-  Y3 += 0.00000000201 * Math.cos(5.53953658848 + 6836.64525283380*t);
-  Y3 += 0.00000000201 * Math.cos(4.25058963776 + 5729.50644714900*t);
-  Y3 += 0.00000000036 * Math.cos(6.12441668493 + 12569.67481833180*t);
-  Y3 += 0.00000000033 * Math.cos(2.66474952932 + 12410.73130054860*t);
-  Y3 += 0.00000000018 * Math.cos(0.75629855075 + 12721.57209941700*t);
-  Y3 += 0.00000000011 * Math.cos(4.70234349211 + 12592.45001978260*t);
-  return Y3*t*t*t;
-}
-
-
-
-  static double Earth_A_Y4 (double t)
-{
-  double Y4 = 0.0;
-  Y4 += 0.00000004187 * Math.cos(3.14159265359);
-  Y4 += 0.00000001931 * Math.cos(5.89883838000 + 12566.15169998280*t);
-  Y4 += 0.00000000595 * Math.cos(0.51679590840 + 6283.07584999140*t);
-  Y4 += 0.00000000210 * Math.cos(2.17239897368 + 6438.49624942560*t);
-  Y4 += 0.00000000210 * Math.cos(1.33454194538 + 6127.65545055720*t);
-  Y4 += 0.00000000229 * Math.cos(5.59311519226 + 18849.22754997420*t);
-  Y4 += 0.00000000044 * Math.cos(3.02550685011 + 709.93304855830*t);
-  Y4 += 0.00000000021 * Math.cos(4.89633014340 + 6279.55273164240*t);
-  Y4 += 0.00000000021 * Math.cos(4.89379608284 + 6286.59896834040*t);
-  Y4 += 0.00000000013 * Math.cos(2.23957099685 + 83996.84731811189*t);
-  Y4 += 0.00000000011 * Math.cos(5.36791829228 + 25132.30339996560*t);
-  Y4 += 0.00000000009 * Math.cos(3.62304265651 + 11856.21865142450*t);
-  Y4 += 0.00000000007 * Math.cos(4.59462394746 + 167283.76158766549*t);
-  Y4 += 0.00000000005 * Math.cos(1.11835906029 + 12410.73130054860*t);
-  Y4 += 0.00000000006 * Math.cos(3.99789149114 + 156137.47598479928*t);
-  return Y4*t*t*t*t;
+    private static final String resource = "vsop87earth.txt";   // Terms of the series
+    private static final int powers = 6;                        // Powers of t in each coordinate
+    private static final double arcs = 206264.806;              // Arcseconds per radian
+
+    // all the terms, by series: X0..X5, Y0..Y5, Z0..Z5
+    private static final double[][] allA = new double[3*powers][];
+    private static final double[][] allB = new double[3*powers][];
+    private static final double[][] allC = new double[3*powers][];
+    static {
+        load();
+    }
+
+    // terms kept at the precision of this instance
+    private final double[][] a = new double[3*powers][];
+    private final double[][] b = new double[3*powers][];
+    private final double[][] c = new double[3*powers][];
+    private final double precision;
+
+    /**
+     * Constructor selects the terms needed for a precision.
+     * @param precision Precision in arcseconds, 0 for all terms.
+     */
+    public Vsop87Earth(double precision) {
+        this.precision = precision;
+        double budget = precision/arcs/powers;
+        for (int s = 0; s < allA.length; s++) {
+            final double[] sa = allA[s];
+
+            // drop the smallest terms of this series while their amplitudes add up to no more than the budget
+            Integer[] order = new Integer[sa.length];
+            for (int k = 0; k < order.length; k++) {order[k] = k;}
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer i, Integer j) {
+                    return Double.compare(Math.abs(sa[i]), Math.abs(sa[j]));
+                }
+            });
+            boolean[] keep = new boolean[sa.length];
+            Arrays.fill(keep, true);
+            double dropped = 0;
+            int n = sa.length;
+            for (int k = 0; k < order.length && dropped + Math.abs(sa[order[k]]) <= budget; k++) {
+                dropped += Math.abs(sa[order[k]]);
+                keep[order[k]] = false;
+                n--;
+            }
+
+            // keep the other terms in their published order
+            a[s] = new double[n];
+            b[s] = new double[n];
+            c[s] = new double[n];
+            n = 0;
+            for (int k = 0; k < sa.length; k++) {
+                if (keep[k]) {
+                    a[s][n] = allA[s][k];
+                    b[s][n] = allB[s][k];
+                    c[s][n] = allC[s][k];
+                    n++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Precision this instance was made for.
+     * @return Precision in arcseconds.
+     */
+    public double getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Number of terms evaluated for each position.
+     * @return Count of terms.
+     */
+    public int terms() {
+        int n = 0;
+        for (double[] s : a) {n += s.length;}
+        return n;
+    }
+
+    /**
+     * X, Y and Z coordinates at time t.
+     * @param t Julian millennia from J2000.
+     * @return Coordinate in AU.
+     */
+    public double getX(double t) {
+        return coordinate(0, t);
+    }
+    public double getY(double t) {
+        return coordinate(powers, t);
+    }
+    public double getZ(double t) {
+        return coordinate(2*powers, t);
+    }
+
+    /**
+     * Sum the series for one coordinate.
+     */
+    private double coordinate(int first, double t) {
+        double r = 0;
+        for (int p = 0; p < powers; p++) {
+            double[] sa = a[first + p];
+            double[] sb = b[first + p];
+            double[] sc = c[first + p];
+            double sum = 0.0;
+            for (int k = 0; k < sa.length; k++) {sum += sa[k]*Math.cos(sb[k] + sc[k]*t);}
+            for (int j = 0; j < p; j++) {sum = sum*t;}
+            r += sum;
+        }
+        return r;
+    }
+
+    /**
+     * Read the terms from the resource file.
+     */
+    private static void load() {
+        try (InputStream in = Vsop87Earth.class.getResourceAsStream(resource)) {
+            if (in == null) {throw new IOException(resource + " not found.");}
+            BufferedReader br = new BufferedReader(new InputStreamReader(in, "US-ASCII"));
+            int[] n = new int[allA.length];
+            for (int s = 0; s < allA.length; s++) {
+                allA[s] = new double[64];
+                allB[s] = new double[64];
+                allC[s] = new double[64];
+            }
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {continue;}
+                StringTokenizer st = new StringTokenizer(line);
+                String series = st.nextToken();
+                int s = powers*"XYZ".indexOf(series.charAt(0)) + series.charAt(1) - '0';
+                if (n[s] == allA[s].length) {
+                    allA[s] = Arrays.copyOf(allA[s], 2*n[s]);
+                    allB[s] = Arrays.copyOf(allB[s], 2*n[s]);
+                    allC[s] = Arrays.copyOf(allC[s], 2*n[s]);
+                }
+                allA[s][n[s]] = Double.parseDouble(st.nextToken());
+                allB[s][n[s]] = st.hasMoreTokens() ? Double.parseDouble(st.nextToken()) : 0;
+                allC[s][n[s]] = st.hasMoreTokens() ? Double.parseDouble(st.nextToken()) : 0;
+                n[s]++;
+            }
+            for (int s = 0; s < allA.length; s++) {
+                allA[s] = Arrays.copyOf(allA[s], n[s]);
+                allB[s] = Arrays.copyOf(allB[s], n[s]);
+                allC[s] = Arrays.copyOf(allC[s], n[s]);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to load VSOP87 terms: " + ex.getMessage());
+        }
+    }
 }
-
-
-
-  static double Earth_A_Y5 (double t)
-{
-  double Y5 = 0.0;
-  Y5 += 0.00000000072;
-  Y5 += 0.00000000043 * Math.cos(4.51710019379 + 12566.15169998280*t);
-  Y5 += 0.00000000025 * Math.cos(3.76700032666 + 6438.49624942560*t);
-  Y5 += 0.00000000025 * Math.cos(6.02312589958 + 6127.65545055720*t);
-  Y5 += 0.00000000021 * Math.cos(2.56882591004 + 6283.07584999140*t);
-  Y5 += 0.00000000008 * Math.cos(3.95508428463 + 18849.22754997420*t);
-  return Y5*t*t*t*t*t;
-}
-
-
-
-  static double Earth_A_Z0 (double t)
-{
-  double Z0 = 0.0;
-  Z0 += 0.00000279620 * Math.cos(3.19870156017 + 84334.66158130829*t);
-  Z0 += 0.00000101625 * Math.cos(5.42248110597 + 5507.55323866740*t);
-  Z0 += 0.00000080461 * Math.cos(3.88027157914 + 5223.69391980220*t);
-  Z0 += 0.00000043855 * Math.cos(3.70430347723 + 2352.86615377180*t);
-  Z0 += 0.00000031853 * Math.cos(3.99997840986 + 1577.34354244780*t);
-  Z0 += 0.00000022724 * Math.cos(3.98473831560 + 1047.74731175470*t);
-  Z0 += 0.00000016395 * Math.cos(3.56456162523 + 5856.47765911540*t);
-  Z0 += 0.00000018150 * Math.cos(4.98479613321 + 6283.07584999140*t);
-  Z0 += 0.00000014477 * Math.cos(3.70258423465 + 9437.76293488700*t);
-  Z0 += 0.00000014325 * Math.cos(3.41020246931 + 10213.28554621100*t);
-  Z0 += 0.00000011204 * Math.cos(4.83021499098 + 14143.49524243060*t);
-  Z0 += 0.00000010896 * Math.cos(2.08023708321 + 6812.76681508600*t);
-  Z0 += 0.00000009716 * Math.cos(3.47560205064 + 4694.00295470760*t);
-  Z0 += 0.00000010363 * Math.cos(4.05663928093 + 71092.88135493269*t);
-  Z0 += 0.00000008792 * Math.cos(4.44890729280 + 5753.38488489680*t);
-  Z0 += 0.00000008337 * Math.cos(4.99167706048 + 7084.89678111520*t);
-  Z0 += 0.00000006921 * Math.cos(4.32559054073 + 6275.96230299060*t);
-  Z0 += 0.00000009145 * Math.cos(1.14182646613 + 6620.89011318780*t);
-  Z0 += 0.00000007205 * Math.cos(3.62441599378 + 529.69096509460*t);
-  Z0 += 0.00000007698 * Math.cos(5.55425745881 + 167621.57585086189*t);
-  Z0 += 0.00000005186 * Math.cos(6.25384533126 + 18073.70493865020*t);
-  Z0 += 0.00000005027 * Math.cos(2.49727910749 + 4705.73230754360*t);
-  Z0 += 0.00000004529 * Math.cos(2.33827747356 + 6309.37416979120*t);
-  Z0 += 0.00000004754 * Math.cos(0.71100829534 + 5884.92684658320*t);
-  Z0 += 0.00000004292 * Math.cos(1.10034019036 + 6681.22485339960*t);
-  Z0 += 0.00000003855 * Math.cos(1.82331477760 + 5486.77784317500*t);
-  Z0 += 0.00000005256 * Math.cos(4.42445744523 + 7860.41939243920*t);
-  Z0 += 0.00000004025 * Math.cos(5.11990285618 + 13367.97263110660*t);
-  Z0 += 0.00000004061 * Math.cos(6.02923989849 + 3930.20969621960*t);
-  Z0 += 0.00000003798 * Math.cos(0.44370219832 + 3154.68708489560*t);
-  Z0 += 0.00000002933 * Math.cos(5.12428135363 + 1059.38193018920*t);
-  Z0 += 0.00000003424 * Math.cos(5.42065191700 + 6069.77675455340*t);
-  Z0 += 0.00000003670 * Math.cos(4.58210192227 + 12194.03291462090*t);
-  Z0 += 0.00000002912 * Math.cos(1.92688087702 + 10977.07880469900*t);
-  Z0 += 0.00000002506 * Math.cos(0.60484952637 + 6496.37494542940*t);
-  Z0 += 0.00000002680 * Math.cos(1.39497359287 + 22003.91463486980*t);
-  Z0 += 0.00000002120 * Math.cos(4.30691000285 + 5643.17856367740*t);
-  Z0 += 0.00000002235 * Math.cos(0.81363184041 + 8635.94200376320*t);
-  Z0 += 0.00000001819 * Math.cos(3.75748003107 + 3340.61242669980*t);
-  Z0 += 0.00000002230 * Math.cos(2.76407822446 + 12036.46073488820*t);
-  Z0 += 0.00000001945 * Math.cos(5.69949789177 + 11790.62908865880*t);
-  Z0 += 0.00000001529 * Math.cos(1.98639348122 + 398.14900340820*t);
-  Z0 += 0.00000001581 * Math.cos(3.19976230948 + 5088.62883976680*t);
-  Z0 += 0.00000001424 * Math.cos(6.26116472313 + 2544.31441988340*t);
-  Z0 += 0.00000001405 * Math.cos(4.69394873481 + 7058.59846131540*t);
-  Z0 += 0.00000001588 * Math.cos(0.25704624784 + 17298.18232732620*t);
-  Z0 += 0.00000001478 * Math.cos(2.81808207569 + 25934.12433108940*t);
-  Z0 += 0.00000001693 * Math.cos(4.95689385293 + 156475.29024799570*t);
-  Z0 += 0.00000001123 * Math.cos(2.38605285936 + 3738.76143010800*t);
-  Z0 += 0.00000000990 * Math.cos(4.29600699156 + 9225.53927328300*t);
-  Z0 += 0.00000000923 * Math.cos(3.07195736431 + 4164.31198961300*t);
-  Z0 += 0.00000000863 * Math.cos(0.55119493097 + 8429.24126646660*t);
-  Z0 += 0.00000000984 * Math.cos(5.96784225392 + 7079.37385680780*t);
-  Z0 += 0.00000001086 * Math.cos(3.14159265359);
-  Z0 += 0.00000000824 * Math.cos(1.50050055147 + 10447.38783960440*t);
-  Z0 += 0.00000000829 * Math.cos(3.51336978167 + 11506.76976979360*t);
-  Z0 += 0.00000000908 * Math.cos(0.12102885474 + 11015.10647733480*t);
-  Z0 += 0.00000000742 * Math.cos(1.99159139281 + 26087.90314157420*t);
-  Z0 += 0.00000000850 * Math.cos(4.24120016095 + 29864.33402730900*t);
-  Z0 += 0.00000000762 * Math.cos(2.90028034892 + 4732.03062734340*t);
-  Z0 += 0.00000000711 * Math.cos(1.38596151724 + 2146.16541647520*t);
-  Z0 += 0.00000000766 * Math.cos(0.61397570576 + 796.29800681640*t);
-  Z0 += 0.00000000708 * Math.cos(1.91406542362 + 8031.09226305840*t);
-  Z0 += 0.00000000810 * Math.cos(5.13961498599 + 2942.46342329160*t);
-  Z0 += 0.00000000751 * Math.cos(1.67479850166 + 21228.39202354580*t);
-  Z0 += 0.00000000589 * Math.cos(2.02193316047 + 775.52261132400*t);
-  Z0 += 0.00000000513 * Math.cos(2.60734651128 + 12566.15169998280*t);
-  Z0 += 0.00000000550 * Math.cos(1.61119298963 + 801.82093112380*t);
-  Z0 += 0.00000000592 * Math.cos(4.59481504319 + 4690.47983635860*t);
-  Z0 += 0.00000000519 * Math.cos(5.72925039114 + 8827.39026987480*t);
-  Z0 += 0.00000000515 * Math.cos(4.09976487552 + 64809.80550494129*t);
-  Z0 += 0.00000000503 * Math.cos(5.66433137112 + 33794.54372352860*t);
-  Z0 += 0.00000000476 * Math.cos(3.69640472448 + 213.29909543800*t);
-  Z0 += 0.00000000463 * Math.cos(1.24987240483 + 15720.83878487840*t);
-  Z0 += 0.00000000411 * Math.cos(0.10769444525 + 3128.38876509580*t);
-  Z0 += 0.00000000504 * Math.cos(3.26207669160 + 7632.94325965020*t);
-  Z0 += 0.00000000552 * Math.cos(1.02926440457 + 239762.20451754928*t);
-  Z0 += 0.00000000394 * Math.cos(5.81496021156 + 426.59819087600*t);
-  Z0 += 0.00000000476 * Math.cos(3.52810472421 + 16496.36139620240*t);
-  Z0 += 0.00000000503 * Math.cos(4.85802444134 + 6290.18939699220*t);
-  Z0 += 0.00000000417 * Math.cos(0.81920713533 + 5216.58037280140*t);
-  Z0 += 0.00000000363 * Math.cos(5.70015720452 + 1589.07289528380*t);
-  Z0 += 0.00000000363 * Math.cos(1.28376436579 + 6206.80977871580*t);
-  Z0 += 0.00000000353 * Math.cos(4.70059133110 + 7234.79425624200*t);
-  Z0 += 0.00000000381 * Math.cos(2.61890749829 + 7342.45778018060*t);
-  Z0 += 0.00000000420 * Math.cos(0.97821135132 + 4136.91043351620*t);
-  Z0 += 0.00000000335 * Math.cos(6.22057967320 + 12168.00269657460*t);
-  Z0 += 0.00000000387 * Math.cos(3.09145061418 + 25158.60171976540*t);
-  Z0 += 0.00000000349 * Math.cos(2.94840720073 + 9623.68827669120*t);
-  Z0 += 0.00000000418 * Math.cos(3.75759994446 + 5230.80746680300*t);
-  Z0 += 0.00000000396 * Math.cos(1.22507712354 + 6438.49624942560*t);
-  Z0 += 0.00000000322 * Math.cos(1.21162178805 + 8662.24032356300*t);
-  Z0 += 0.00000000323 * Math.cos(5.50254808471 + 1194.44701022460*t);
-  Z0 += 0.00000000372 * Math.cos(1.72256107938 + 14945.31617355440*t);
-  Z0 += 0.00000000305 * Math.cos(0.80429352049 + 37724.75341974820*t);
-  Z0 += 0.00000000265 * Math.cos(6.10358507671 + 6836.64525283380*t);
-  Z0 += 0.00000000250 * Math.cos(4.56452895547 + 7477.52286021600*t);
-  Z0 += 0.00000000266 * Math.cos(2.62926282354 + 7238.67559160000*t);
-  Z0 += 0.00000000262 * Math.cos(1.34297269105 + 11769.85369316640*t);
-  Z0 += 0.00000000263 * Math.cos(6.22089501237 + 6133.51265285680*t);
-  Z0 += 0.00000000302 * Math.cos(2.81139045072 + 1748.01641306700*t);
-  Z0 += 0.00000000316 * Math.cos(1.62662805006 + 250908.49012041549*t);
-  Z0 += 0.00000000226 * Math.cos(2.42346415873 + 11371.70468975820*t);
-  Z0 += 0.00000000216 * Math.cos(3.68721275185 + 5849.36411211460*t);
-  Z0 += 0.00000000276 * Math.cos(2.33399767923 + 19651.04848109800*t);
-  Z0 += 0.00000000230 * Math.cos(0.36165162947 + 5863.59120611620*t);
-  Z0 += 0.00000000200 * Math.cos(5.86073159059 + 4535.05943692440*t);
-  Z0 += 0.00000000277 * Math.cos(4.65400292395 + 82239.16695779889*t);
-  Z0 += 0.00000000199 * Math.cos(5.05186622555 + 5429.87946823940*t);
-  Z0 += 0.00000000206 * Math.cos(3.70556027982 + 10973.55568635000*t);
-  Z0 += 0.00000000210 * Math.cos(4.50691909144 + 29088.81141598500*t);
-  Z0 += 0.00000000181 * Math.cos(6.00294783127 + 4292.33083295040*t);
-  Z0 += 0.00000000249 * Math.cos(0.12900984422 + 154379.79562448629*t);
-  Z0 += 0.00000000167 * Math.cos(6.27348370813 + 10988.80815753500*t);
-  Z0 += 0.00000000183 * Math.cos(3.19836584401 + 16730.46368959580*t);
-  Z0 += 0.00000000225 * Math.cos(3.18339652605 + 18875.52586977400*t);
-  Z0 += 0.00000000192 * Math.cos(0.87192032514 + 77375.95720492408*t);
-  Z0 += 0.00000000188 * Math.cos(2.22746128596 + 41654.96311596780*t);
-  Z0 += 0.00000000160 * Math.cos(5.20207795189 + 5481.25491886760*t);
-  Z0 += 0.00000000192 * Math.cos(3.89678943865 + 17789.84561978500*t);
-  Z0 += 0.00000000159 * Math.cos(5.32590846475 + 7.11354700080*t);
-  Z0 += 0.00000000214 * Math.cos(4.08171403539 + 337.81426319640*t);
-  Z0 += 0.00000000184 * Math.cos(3.75465072369 + 23581.25817731760*t);
-  Z0 += 0.00000000160 * Math.cos(4.53897529970 + 18477.10876461230*t);
-  Z0 += 0.00000000144 * Math.cos(5.19486374726 + 20426.57109242200*t);
-  Z0 += 0.00000000126 * Math.cos(1.69446958184 + 15110.46611986620*t);
-  Z0 += 0.00000000149 * Math.cos(1.55306832217 + 10021.83728009940*t);
-  Z0 += 0.00000000127 * Math.cos(5.31068233515 + 639.89728631400*t);
-  Z0 += 0.00000000118 * Math.cos(2.73268114062 + 18849.22754997420*t);
-  Z0 += 0.00000000123 * Math.cos(2.55361087146 + 12592.45001978260*t);
-  Z0 += 0.00000000113 * Math.cos(6.07178776726 + 6709.67404086740*t);
-  Z0 += 0.00000000130 * Math.cos(3.94161517411 + 7330.82316174610*t);
-  Z0 += 0.00000000110 * Math.cos(3.51203379263 + 18052.92954315780*t);
-  Z0 += 0.00000000147 * Math.cos(4.63371971408 + 22805.73556599360*t);
-  Z0 += 0.00000000113 * Math.cos(1.20711498905 + 14919.01785375460*t);
-  Z0 += 0.00000000108 * Math.cos(3.76359880753 + 14314.16811304980*t);
-  Z0 += 0.00000000148 * Math.cos(0.65447253687 + 95480.94718417450*t);
-  Z0 += 0.00000000121 * Math.cos(3.13748782783 + 14712.31711645800*t);
-  Z0 += 0.00000000119 * Math.cos(5.92110458985 + 33019.02111220460*t);
-  Z0 += 0.00000000124 * Math.cos(2.93638421840 + 32217.20018108080*t);
-  Z0 += 0.00000000117 * Math.cos(3.65065271640 + 45585.17281218740*t);
-  Z0 += 0.00000000127 * Math.cos(4.74596574209 + 49515.38250840700*t);
-  Z0 += 0.00000000120 * Math.cos(1.04211499785 + 6915.85958930460*t);
-  Z0 += 0.00000000120 * Math.cos(5.60638811846 + 5650.29211067820*t);
-  Z0 += 0.00000000127 * Math.cos(2.70766997307 + 12352.85260454480*t);
-  Z0 += 0.00000000113 * Math.cos(5.39691616452 + 5235.32853823670*t);
-  Z0 += 0.00000000097 * Math.cos(1.07908724794 + 9917.69687450980*t);
-  Z0 += 0.00000000123 * Math.cos(5.15992792934 + 27511.46787353720*t);
-  Z0 += 0.00000000099 * Math.cos(4.45774681732 + 4933.20844033260*t);
-  Z0 += 0.00000000087 * Math.cos(3.93637812950 + 17654.78053974960*t);
-  Z0 += 0.00000000122 * Math.cos(2.23956068680 + 83997.09113559539*t);
-  Z0 += 0.00000000102 * Math.cos(3.97386522171 + 10818.13528691580*t);
-  Z0 += 0.00000000084 * Math.cos(4.21241958885 + 22779.43724619380*t);
-  Z0 += 0.00000000103 * Math.cos(4.63519841733 + 1349.86740965880*t);
-  Z0 += 0.00000000081 * Math.cos(4.01655240430 + 1592.59601363280*t);
-  Z0 += 0.00000000092 * Math.cos(3.24182657569 + 78051.58573131690*t);
-  Z0 += 0.00000000094 * Math.cos(4.33873972800 + 36147.40987730040*t);
-  Z0 += 0.00000000076 * Math.cos(2.83897554420 + 17260.15465469040*t);
-  Z0 += 0.00000000100 * Math.cos(6.07733097102 + 26735.94526221320*t);
-  Z0 += 0.00000000078 * Math.cos(0.72462427283 + 12779.45079542080*t);
-  Z0 += 0.00000000086 * Math.cos(5.26029638250 + 28313.28880466100*t);
-  Z0 += 0.00000000093 * Math.cos(4.31900620254 + 44809.65020086340*t);
-  Z0 += 0.00000000076 * Math.cos(6.22743405935 + 13521.75144159140*t);
-  Z0 += 0.00000000081 * Math.cos(2.16420552322 + 13095.84266507740*t);
-  Z0 += 0.00000000100 * Math.cos(1.38002787119 + 28286.99048486120*t);
-  Z0 += 0.00000000072 * Math.cos(1.55820597747 + 6256.77753019160*t);
-  Z0 += 0.00000000082 * Math.cos(4.95202664555 + 10575.40668294180*t);
-  Z0 += 0.00000000082 * Math.cos(1.69647647075 + 1990.74501704100*t);
-  Z0 += 0.00000000096 * Math.cos(6.16038106485 + 24356.78078864160*t);
-  Z0 += 0.00000000075 * Math.cos(2.29836095644 + 3634.62102451840*t);
-  Z0 += 0.00000000075 * Math.cos(2.66367876557 + 16200.77272450120*t);
-  Z0 += 0.00000000087 * Math.cos(0.26630214764 + 31441.67756975680*t);
-  Z0 += 0.00000000080 * Math.cos(5.00001604436 + 150192.21439800429*t);
-  Z0 += 0.00000000079 * Math.cos(0.01398391548 + 90617.73743129970*t);
-  Z0 += 0.00000000054 * Math.cos(5.59738773448 + 161338.50000087050*t);
-  Z0 += 0.00000000056 * Math.cos(2.60133794851 + 73188.37597844210*t);
-  Z0 += 0.00000000055 * Math.cos(5.81483150022 + 143233.51002162008*t);
-  Z0 += 0.00000000054 * Math.cos(3.38482031504 + 323049.11878710288*t);
-  return Z0;
-}
-
-
-
-  static double Earth_A_Z1 (double t)
-{
-  double Z1 = 0.0;
-  Z1 += 0.00227822442 * Math.cos(3.41372504278 + 6283.07584999140*t);
-  Z1 += 0.00005429282;
-  Z1 += 0.00001903183 * Math.cos(3.37061270964 + 12566.15169998280*t);
-  Z1 += 0.00000023859 * Math.cos(3.32836261978 + 18849.22754997420*t);
-  Z1 += 0.00000008671 * Math.cos(1.82289925035 + 5223.69391980220*t);
-  Z1 += 0.00000007767 * Math.cos(3.88787435832 + 5507.55323866740*t);
-  Z1 += 0.00000007063 * Math.cos(5.19303169379 + 2352.86615377180*t);
-  Z1 += 0.00000007090 * Math.cos(2.32907317990 + 83996.84731811189*t);
-  Z1 += 0.00000005362 * Math.cos(2.22429221689 + 529.69096509460*t);
-  Z1 += 0.00000003894 * Math.cos(2.15568517178 + 6279.55273164240*t);
-  Z1 += 0.00000003892 * Math.cos(1.53021064904 + 6286.59896834040*t);
-  Z1 += 0.00000003285 * Math.cos(4.88047587852 + 10213.28554621100*t);
-  Z1 += 0.00000002165 * Math.cos(6.23220223547 + 7860.41939243920*t);
-  Z1 += 0.00000002084 * Math.cos(5.84682067018 + 1577.34354244780*t);
-  Z1 += 0.00000001959 * Math.cos(1.42270916062 + 12036.46073488820*t);
-  Z1 += 0.00000001396 * Math.cos(0.50057569258 + 6309.37416979120*t);
-  Z1 += 0.00000001584 * Math.cos(1.81185253086 + 5856.47765911540*t);
-  Z1 += 0.00000001493 * Math.cos(1.75695182457 + 5884.92684658320*t);
-  Z1 += 0.00000001713 * Math.cos(6.04661123493 + 398.14900340820*t);
-  Z1 += 0.00000001298 * Math.cos(3.71598693704 + 1059.38193018920*t);
-  Z1 += 0.00000001573 * Math.cos(2.20074999518 + 9437.76293488700*t);
-  Z1 += 0.00000001503 * Math.cos(3.94648902715 + 4705.73230754360*t);
-  Z1 += 0.00000001041 * Math.cos(2.94815263534 + 6256.77753019160*t);
-  Z1 += 0.00000000983 * Math.cos(2.24865863102 + 6681.22485339960*t);
-  Z1 += 0.00000001150 * Math.cos(2.43940396435 + 775.52261132400*t);
-  Z1 += 0.00000001171 * Math.cos(0.74619691355 + 6812.76681508600*t);
-  Z1 += 0.00000000881 * Math.cos(1.86103443124 + 3930.20969621960*t);
-  Z1 += 0.00000000696 * Math.cos(1.45896954690 + 11790.62908865880*t);
-  Z1 += 0.00000000732 * Math.cos(1.60348898963 + 4694.00295470760*t);
-  Z1 += 0.00000000487 * Math.cos(0.04282116718 + 11506.76976979360*t);
-  Z1 += 0.00000000632 * Math.cos(4.34207925908 + 5753.38488489680*t);
-  Z1 += 0.00000000584 * Math.cos(3.11517364836 + 709.93304855830*t);
-  Z1 += 0.00000000583 * Math.cos(3.92560802577 + 12168.00269657460*t);
-  Z1 += 0.00000000409 * Math.cos(4.63047700185 + 796.29800681640*t);
-  Z1 += 0.00000000483 * Math.cos(5.74980419879 + 17789.84561978500*t);
-  Z1 += 0.00000000405 * Math.cos(1.97558286872 + 6283.00853968860*t);
-  Z1 += 0.00000000405 * Math.cos(1.53147989887 + 6283.14316029419*t);
-  Z1 += 0.00000000354 * Math.cos(3.28490469609 + 25132.30339996560*t);
-  Z1 += 0.00000000417 * Math.cos(3.63631064623 + 13367.97263110660*t);
-  Z1 += 0.00000000367 * Math.cos(1.55081387384 + 18073.70493865020*t);
-  Z1 += 0.00000000284 * Math.cos(0.15061211477 + 3738.76143010800*t);
-  Z1 += 0.00000000295 * Math.cos(2.75399172194 + 14143.49524243060*t);
-  Z1 += 0.00000000288 * Math.cos(2.98400521096 + 6275.96230299060*t);
-  Z1 += 0.00000000353 * Math.cos(2.42503121206 + 213.29909543800*t);
-  Z1 += 0.00000000250 * Math.cos(0.42640065085 + 7079.37385680780*t);
-  Z1 += 0.00000000251 * Math.cos(2.81315684448 + 6290.18939699220*t);
-  Z1 += 0.00000000338 * Math.cos(2.55274440586 + 7058.59846131540*t);
-  Z1 += 0.00000000230 * Math.cos(2.54182122331 + 7084.89678111520*t);
-  Z1 += 0.00000000212 * Math.cos(4.71778046808 + 6496.37494542940*t);
-  Z1 += 0.00000000188 * Math.cos(3.17403855561 + 5486.77784317500*t);
-  Z1 += 0.00000000184 * Math.cos(4.29245958347 + 1589.07289528380*t);
-  Z1 += 0.00000000216 * Math.cos(2.95054003179 + 22003.91463486980*t);
-  Z1 += 0.00000000165 * Math.cos(1.19407165511 + 5643.17856367740*t);
-  Z1 += 0.00000000196 * Math.cos(4.68462471621 + 167283.76158766549*t);
-  Z1 += 0.00000000162 * Math.cos(2.94100342992 + 15720.83878487840*t);
-  Z1 += 0.00000000189 * Math.cos(5.09534739493 + 17298.18232732620*t);
-  Z1 += 0.00000000149 * Math.cos(5.23057852418 + 11769.85369316640*t);
-  Z1 += 0.00000000150 * Math.cos(1.65291444016 + 3128.38876509580*t);
-  Z1 += 0.00000000143 * Math.cos(5.48362795500 + 10977.07880469900*t);
-  Z1 += 0.00000000144 * Math.cos(3.81203756929 + 6262.30045449900*t);
-  Z1 += 0.00000000143 * Math.cos(5.97809021355 + 6303.85124548380*t);
-  Z1 += 0.00000000136 * Math.cos(4.97038154072 + 4136.91043351620*t);
-  Z1 += 0.00000000163 * Math.cos(2.00627600582 + 5230.80746680300*t);
-  Z1 += 0.00000000135 * Math.cos(3.68020950012 + 7.11354700080*t);
-  Z1 += 0.00000000130 * Math.cos(4.41428061934 + 6127.65545055720*t);
-  Z1 += 0.00000000123 * Math.cos(0.93547502051 + 3340.61242669980*t);
-  Z1 += 0.00000000122 * Math.cos(3.13394683057 + 1194.44701022460*t);
-  Z1 += 0.00000000131 * Math.cos(4.24961399629 + 6282.09552892320*t);
-  Z1 += 0.00000000131 * Math.cos(5.54051222995 + 6284.05617105960*t);
-  Z1 += 0.00000000161 * Math.cos(3.32421999691 + 6283.31966747490*t);
-  Z1 += 0.00000000128 * Math.cos(4.35489873365 + 25934.12433108940*t);
-  Z1 += 0.00000000113 * Math.cos(4.42578862670 + 19651.04848109800*t);
-  Z1 += 0.00000000107 * Math.cos(2.97447343520 + 8827.39026987480*t);
-  Z1 += 0.00000000107 * Math.cos(0.41198538606 + 5481.25491886760*t);
-  Z1 += 0.00000000131 * Math.cos(2.29167404623 + 3154.68708489560*t);
-  Z1 += 0.00000000139 * Math.cos(0.84923405785 + 6069.77675455340*t);
-  Z1 += 0.00000000109 * Math.cos(3.21932289821 + 801.82093112380*t);
-  Z1 += 0.00000000115 * Math.cos(3.71248897285 + 11856.21865142450*t);
-  Z1 += 0.00000000086 * Math.cos(2.78714560645 + 5216.58037280140*t);
-  Z1 += 0.00000000116 * Math.cos(1.07208569199 + 12352.85260454480*t);
-  Z1 += 0.00000000085 * Math.cos(4.74199868968 + 8429.24126646660*t);
-  Z1 += 0.00000000112 * Math.cos(5.29899379351 + 2544.31441988340*t);
-  Z1 += 0.00000000096 * Math.cos(5.20691825399 + 17260.15465469040*t);
-  Z1 += 0.00000000074 * Math.cos(4.51170584596 + 8635.94200376320*t);
-  Z1 += 0.00000000097 * Math.cos(5.50959692365 + 29864.33402730900*t);
-  Z1 += 0.00000000094 * Math.cos(0.25007575444 + 21228.39202354580*t);
-  Z1 += 0.00000000082 * Math.cos(3.01994555641 + 20426.57109242200*t);
-  Z1 += 0.00000000071 * Math.cos(0.47420303374 + 2146.16541647520*t);
-  Z1 += 0.00000000074 * Math.cos(1.27647360807 + 4164.31198961300*t);
-  Z1 += 0.00000000075 * Math.cos(0.73893922793 + 9225.53927328300*t);
-  Z1 += 0.00000000065 * Math.cos(1.39694123605 + 12569.67481833180*t);
-  Z1 += 0.00000000074 * Math.cos(2.20184828895 + 37724.75341974820*t);
-  Z1 += 0.00000000058 * Math.cos(5.36736393336 + 11015.10647733480*t);
-  Z1 += 0.00000000069 * Math.cos(3.56483879750 + 4535.05943692440*t);
-  Z1 += 0.00000000064 * Math.cos(2.05206957553 + 12562.62858163380*t);
-  Z1 += 0.00000000050 * Math.cos(4.30582312752 + 426.59819087600*t);
-  Z1 += 0.00000000056 * Math.cos(4.14424591372 + 5088.62883976680*t);
-  Z1 += 0.00000000061 * Math.cos(0.63918772258 + 33794.54372352860*t);
-  Z1 += 0.00000000049 * Math.cos(6.20603791837 + 12559.03815298200*t);
-  Z1 += 0.00000000059 * Math.cos(4.92457810620 + 71430.69561812909*t);
-  Z1 += 0.00000000058 * Math.cos(1.68201284430 + 25158.60171976540*t);
-  Z1 += 0.00000000051 * Math.cos(5.03600618727 + 5863.59120611620*t);
-  Z1 += 0.00000000047 * Math.cos(0.30276119177 + 11371.70468975820*t);
-  Z1 += 0.00000000050 * Math.cos(0.77635440262 + 26.29831979980*t);
-  Z1 += 0.00000000041 * Math.cos(1.87344929139 + 1748.01641306700*t);
-  Z1 += 0.00000000041 * Math.cos(5.91861144924 + 23581.25817731760*t);
-  Z1 += 0.00000000055 * Math.cos(1.37242658028 + 7342.45778018060*t);
-  Z1 += 0.00000000053 * Math.cos(1.47750772846 + 18319.53658487960*t);
-  Z1 += 0.00000000042 * Math.cos(0.11693102263 + 23543.23050468179*t);
-  Z1 += 0.00000000045 * Math.cos(5.18332998014 + 16496.36139620240*t);
-  Z1 += 0.00000000045 * Math.cos(1.69577010458 + 6702.56049386660*t);
-  Z1 += 0.00000000050 * Math.cos(3.62740835096 + 41654.96311596780*t);
-  Z1 += 0.00000000050 * Math.cos(0.12043698146 + 29088.81141598500*t);
-  Z1 += 0.00000000039 * Math.cos(2.15562950918 + 4933.20844033260*t);
-  Z1 += 0.00000000048 * Math.cos(5.37118742490 + 7477.52286021600*t);
-  Z1 += 0.00000000040 * Math.cos(3.02033323932 + 10447.38783960440*t);
-  Z1 += 0.00000000035 * Math.cos(3.52010534689 + 26087.90314157420*t);
-  Z1 += 0.00000000045 * Math.cos(6.10982446357 + 8031.09226305840*t);
-  Z1 += 0.00000000043 * Math.cos(4.08726331262 + 156137.47598479928*t);
-  Z1 += 0.00000000032 * Math.cos(6.09025731476 + 64809.80550494129*t);
-  return Z1*t;
-}
-
-
-
-  static double Earth_A_Z2 (double t)
-{
-  double Z2 = 0.0;
-  Z2 += 0.00009721989 * Math.cos(5.15233725915 + 6283.07584999140*t);
-  Z2 += 0.00000349501 * Math.cos(3.14159265359);
-  Z2 += 0.00000067136 * Math.cos(0.64403888586 + 12566.15169998280*t);
-  Z2 += 0.00000002169 * Math.cos(1.07314429736 + 18849.22754997420*t);
-  Z2 += 0.00000001662 * Math.cos(1.62746869551 + 84334.66158130829*t);
-  Z2 += 0.00000000635 * Math.cos(3.51985338656 + 6279.55273164240*t);
-  Z2 += 0.00000000492 * Math.cos(2.41382223971 + 1047.74731175470*t);
-  Z2 += 0.00000000347 * Math.cos(6.16127984865 + 5223.69391980220*t);
-  Z2 += 0.00000000322 * Math.cos(0.37660897389 + 6286.59896834040*t);
-  Z2 += 0.00000000302 * Math.cos(4.06770618987 + 83996.84731811189*t);
-  Z2 += 0.00000000314 * Math.cos(2.37089871705 + 5507.55323866740*t);
-  Z2 += 0.00000000242 * Math.cos(1.64810071161 + 7860.41939243920*t);
-  Z2 += 0.00000000243 * Math.cos(3.96741961391 + 529.69096509460*t);
-  Z2 += 0.00000000229 * Math.cos(0.50869157074 + 2352.86615377180*t);
-  Z2 += 0.00000000170 * Math.cos(5.28668290523 + 6256.77753019160*t);
-  Z2 += 0.00000000174 * Math.cos(0.13496987900 + 10213.28554621100*t);
-  Z2 += 0.00000000125 * Math.cos(3.13799899281 + 5884.92684658320*t);
-  Z2 += 0.00000000118 * Math.cos(3.85466055344 + 1577.34354244780*t);
-  Z2 += 0.00000000123 * Math.cos(4.17102530625 + 6309.37416979120*t);
-  Z2 += 0.00000000089 * Math.cos(1.65074757807 + 4705.73230754360*t);
-  Z2 += 0.00000000090 * Math.cos(4.13333302298 + 5753.38488489680*t);
-  Z2 += 0.00000000067 * Math.cos(0.30879908581 + 775.52261132400*t);
-  Z2 += 0.00000000088 * Math.cos(2.93230657226 + 12036.46073488820*t);
-  Z2 += 0.00000000065 * Math.cos(6.02619905507 + 6812.76681508600*t);
-  Z2 += 0.00000000067 * Math.cos(1.15131045651 + 25132.30339996560*t);
-  Z2 += 0.00000000065 * Math.cos(2.72055837855 + 6127.65545055720*t);
-  Z2 += 0.00000000062 * Math.cos(0.78482367183 + 6438.49624942560*t);
-  Z2 += 0.00000000057 * Math.cos(1.49017558261 + 11506.76976979360*t);
-  Z2 += 0.00000000056 * Math.cos(4.55921214755 + 5486.77784317500*t);
-  Z2 += 0.00000000075 * Math.cos(0.84213523741 + 167621.57585086189*t);
-  Z2 += 0.00000000069 * Math.cos(1.21340931171 + 398.14900340820*t);
-  Z2 += 0.00000000047 * Math.cos(5.28931662006 + 7079.37385680780*t);
-  Z2 += 0.00000000044 * Math.cos(3.09697268535 + 11790.62908865880*t);
-  Z2 += 0.00000000057 * Math.cos(6.15295833679 + 12194.03291462090*t);
-  Z2 += 0.00000000040 * Math.cos(1.74073861374 + 1059.38193018920*t);
-  Z2 += 0.00000000040 * Math.cos(2.70069983169 + 10988.80815753500*t);
-  Z2 += 0.00000000036 * Math.cos(0.32483893578 + 6681.22485339960*t);
-  Z2 += 0.00000000046 * Math.cos(3.38617099014 + 156475.29024799570*t);
-  Z2 += 0.00000000033 * Math.cos(1.26266496002 + 6290.18939699220*t);
-  Z2 += 0.00000000033 * Math.cos(2.25067065498 + 6275.96230299060*t);
-  Z2 += 0.00000000032 * Math.cos(2.90595681986 + 796.29800681640*t);
-  Z2 += 0.00000000029 * Math.cos(1.96179670465 + 7.11354700080*t);
-  Z2 += 0.00000000023 * Math.cos(4.86623778952 + 3738.76143010800*t);
-  Z2 += 0.00000000025 * Math.cos(4.85403147726 + 709.93304855830*t);
-  Z2 += 0.00000000021 * Math.cos(6.22275008403 + 6069.77675455340*t);
-  Z2 += 0.00000000024 * Math.cos(5.83690442827 + 6282.09552892320*t);
-  Z2 += 0.00000000024 * Math.cos(3.95322179797 + 6284.05617105960*t);
-  Z2 += 0.00000000022 * Math.cos(3.46618662246 + 4136.91043351620*t);
-  Z2 += 0.00000000021 * Math.cos(3.58048145762 + 6496.37494542940*t);
-  Z2 += 0.00000000025 * Math.cos(5.59503085104 + 7058.59846131540*t);
-  Z2 += 0.00000000019 * Math.cos(1.62978232282 + 1194.44701022460*t);
-  Z2 += 0.00000000019 * Math.cos(2.82679050999 + 1589.07289528380*t);
-  Z2 += 0.00000000024 * Math.cos(5.40715542605 + 12168.00269657460*t);
-  return Z2*t*t;
-}
-
-
-
-  static double Earth_A_Z3 (double t)
-{
-  double Z3 = 0.0;
-  Z3 += 0.00000276077 * Math.cos(0.59413258730 + 6283.07584999140*t);
-  Z3 += 0.00000025551 * Math.cos(3.14159265359);
-  Z3 += 0.00000001810 * Math.cos(0.11612262117 + 12566.15169998280*t);
-  Z3 += 0.00000000113 * Math.cos(5.66152847225 + 18849.22754997420*t);
-  Z3 += 0.00000000056 * Math.cos(5.02765554835 + 6279.55273164240*t);
-  Z3 += 0.00000000024 * Math.cos(0.41571093398 + 83996.84731811189*t);
-  Z3 += 0.00000000019 * Math.cos(5.99007646261 + 6256.77753019160*t);
-  Z3 += 0.00000000018 * Math.cos(3.80004734567 + 6309.37416979120*t);
-  Z3 += 0.00000000018 * Math.cos(1.21049250774 + 6127.65545055720*t);
-  Z3 += 0.00000000018 * Math.cos(2.29734567137 + 6438.49624942560*t);
-  Z3 += 0.00000000015 * Math.cos(4.72881467263 + 6286.59896834040*t);
-  Z3 += 0.00000000011 * Math.cos(1.48347223110 + 709.93304855830*t);
-  return Z3*t*t*t;
-}
-
-
-
-  static double Earth_A_Z4 (double t)
-{
-  double Z4 = 0.0;
-  Z4 += 0.00000005751 * Math.cos(2.27069090892 + 6283.07584999140*t);
-  Z4 += 0.00000001305;
-  Z4 += 0.00000000060 * Math.cos(4.26712050846 + 12566.15169998280*t);
-  Z4 += 0.00000000006 * Math.cos(4.13914011953 + 18849.22754997420*t);
-  Z4 += 0.00000000005 * Math.cos(0.84308705203 + 1047.74731175470*t);
-  Z4 += 0.00000000005 * Math.cos(0.05711572303 + 84334.66158130829*t);
-  return Z4*t*t*t*t;
-}
-
-
-
-  static double Earth_A_Z5 (double t)
-{
-  double Z5 = 0.0;
-  Z5 += 0.00000000114 * Math.cos(4.31169156923 + 6283.07584999140*t);
-  Z5 += 0.00000000035;
-  return Z5*t*t*t*t*t;
-}
-
-}
\ No newline at end of file